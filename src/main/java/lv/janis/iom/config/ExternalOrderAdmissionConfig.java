@@ -0,0 +1,26 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lv.janis.iom.service.admission.ExternalOrderAdmission;
+import lv.janis.iom.service.admission.ExternalOrderAdmissionFilter;
+
+@Configuration
+public class ExternalOrderAdmissionConfig {
+
+    // ahead of the idempotency filter, so a shed request never takes a key
+    @Bean
+    public FilterRegistrationBean<ExternalOrderAdmissionFilter> externalOrderAdmissionFilter(
+            ExternalOrderAdmission admission, ExternalOrderAdmissionProperties properties,
+            ObjectMapper objectMapper) {
+        var registration = new FilterRegistrationBean<>(
+                new ExternalOrderAdmissionFilter(admission, properties, objectMapper));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 20);
+        return registration;
+    }
+}
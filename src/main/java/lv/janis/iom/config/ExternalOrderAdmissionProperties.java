@@ -0,0 +1,122 @@
+package lv.janis.iom.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lv.janis.iom.enums.ExternalOrderSource;
+
+@ConfigurationProperties(prefix = "external-order.admission")
+public class ExternalOrderAdmissionProperties {
+  private boolean enabled = true;
+  // used for every source without its own entry under sources
+  private Limits defaults = new Limits();
+  private Map<ExternalOrderSource, Limits> sources = new EnumMap<>(ExternalOrderSource.class);
+  // share of the primary connection pool in use above which external traffic is shed
+  private double poolUtilizationThreshold = 0.8;
+  // pending and failed outbox events above which external traffic is shed
+  private long outboxBacklogThreshold = 50_000;
+  private long backlogCheckIntervalMs = 1000;
+  private long overloadRetryAfterSeconds = 5;
+  // external order bodies are buffered to read their source before admission
+  private int maxBodyBytes = 1024 * 1024;
+
+  public static class Limits {
+    private int maxConcurrent = 16;
+    private double permitsPerSecond = 100;
+    private int burst = 200;
+
+    public int getMaxConcurrent() {
+      return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+      this.maxConcurrent = maxConcurrent;
+    }
+
+    public double getPermitsPerSecond() {
+      return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+      this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public int getBurst() {
+      return burst;
+    }
+
+    public void setBurst(int burst) {
+      this.burst = burst;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Limits getDefaults() {
+    return defaults;
+  }
+
+  public void setDefaults(Limits defaults) {
+    this.defaults = defaults;
+  }
+
+  public Map<ExternalOrderSource, Limits> getSources() {
+    return sources;
+  }
+
+  public void setSources(Map<ExternalOrderSource, Limits> sources) {
+    this.sources = sources;
+  }
+
+  public Limits limitsFor(ExternalOrderSource source) {
+    return sources.getOrDefault(source, defaults);
+  }
+
+  public double getPoolUtilizationThreshold() {
+    return poolUtilizationThreshold;
+  }
+
+  public void setPoolUtilizationThreshold(double poolUtilizationThreshold) {
+    this.poolUtilizationThreshold = poolUtilizationThreshold;
+  }
+
+  public long getOutboxBacklogThreshold() {
+    return outboxBacklogThreshold;
+  }
+
+  public void setOutboxBacklogThreshold(long outboxBacklogThreshold) {
+    this.outboxBacklogThreshold = outboxBacklogThreshold;
+  }
+
+  public long getBacklogCheckIntervalMs() {
+    return backlogCheckIntervalMs;
+  }
+
+  public void setBacklogCheckIntervalMs(long backlogCheckIntervalMs) {
+    this.backlogCheckIntervalMs = backlogCheckIntervalMs;
+  }
+
+  public long getOverloadRetryAfterSeconds() {
+    return overloadRetryAfterSeconds;
+  }
+
+  public void setOverloadRetryAfterSeconds(long overloadRetryAfterSeconds) {
+    this.overloadRetryAfterSeconds = overloadRetryAfterSeconds;
+  }
+
+  public int getMaxBodyBytes() {
+    return maxBodyBytes;
+  }
+
+  public void setMaxBodyBytes(int maxBodyBytes) {
+    this.maxBodyBytes = maxBodyBytes;
+  }
+}
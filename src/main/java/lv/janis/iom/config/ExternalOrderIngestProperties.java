@@ -0,0 +1,89 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "external-order.ingest")
+public class ExternalOrderIngestProperties {
+
+  public enum Mode {
+    // persist the order in the request thread, one transaction per order
+    SYNC,
+    // journal the request, acknowledge it and persist it in the background in group commits
+    ASYNC
+  }
+
+  private Mode mode = Mode.SYNC;
+  private String journalPath = "data/external-order-ingest.journal";
+  private int bufferCapacity = 4096;
+  private int batchSize = 200;
+  private long retryDelayMs = 1000;
+  private int retainedResults = 10_000;
+  // how long the stored outcome of a finished request answers its tracking id
+  private long resultRetentionSeconds = 7 * 24 * 3600;
+  // persisted bytes at the head of the journal that make it worth copying the rest to a new file
+  private long journalCompactBytes = 64L * 1024 * 1024;
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public String getJournalPath() {
+    return journalPath;
+  }
+
+  public void setJournalPath(String journalPath) {
+    this.journalPath = journalPath;
+  }
+
+  public int getBufferCapacity() {
+    return bufferCapacity;
+  }
+
+  public void setBufferCapacity(int bufferCapacity) {
+    this.bufferCapacity = bufferCapacity;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public long getRetryDelayMs() {
+    return retryDelayMs;
+  }
+
+  public void setRetryDelayMs(long retryDelayMs) {
+    this.retryDelayMs = retryDelayMs;
+  }
+
+  public int getRetainedResults() {
+    return retainedResults;
+  }
+
+  public void setRetainedResults(int retainedResults) {
+    this.retainedResults = retainedResults;
+  }
+
+  public long getResultRetentionSeconds() {
+    return resultRetentionSeconds;
+  }
+
+  public void setResultRetentionSeconds(long resultRetentionSeconds) {
+    this.resultRetentionSeconds = resultRetentionSeconds;
+  }
+
+  public long getJournalCompactBytes() {
+    return journalCompactBytes;
+  }
+
+  public void setJournalCompactBytes(long journalCompactBytes) {
+    this.journalCompactBytes = journalCompactBytes;
+  }
+}
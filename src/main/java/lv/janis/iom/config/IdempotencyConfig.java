@@ -0,0 +1,23 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lv.janis.iom.service.idempotency.IdempotencyKeyFilter;
+import lv.janis.iom.service.idempotency.IdempotencyStore;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyKeyFilter> idempotencyKeyFilter(
+            IdempotencyStore store, IdempotencyProperties properties, ObjectMapper objectMapper) {
+        var registration = new FilterRegistrationBean<>(new IdempotencyKeyFilter(store, properties, objectMapper));
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 10);
+        return registration;
+    }
+}
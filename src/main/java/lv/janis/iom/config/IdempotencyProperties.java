@@ -0,0 +1,67 @@
+package lv.janis.iom.config;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+  private List<String> pathPrefixes = List.of("/api/orders", "/api/inventory");
+  private int cacheSize = 10_000;
+  private long retentionSeconds = 86_400;
+  // A running request refreshes its key every heartbeat interval; a key not refreshed for the
+  // timeout is taken to belong to a dead instance and may be reclaimed by a retry
+  private long inProgressTimeoutSeconds = 60;
+  private long heartbeatIntervalMs = 10_000;
+  // Keyed request bodies are buffered to fingerprint them; larger ones are rejected with 413.
+  // The default fits a full-size bulk inventory adjustment
+  private int maxBodyBytes = 16 * 1024 * 1024;
+
+  public List<String> getPathPrefixes() {
+    return pathPrefixes;
+  }
+
+  public void setPathPrefixes(List<String> pathPrefixes) {
+    this.pathPrefixes = pathPrefixes;
+  }
+
+  public int getCacheSize() {
+    return cacheSize;
+  }
+
+  public void setCacheSize(int cacheSize) {
+    this.cacheSize = cacheSize;
+  }
+
+  public long getRetentionSeconds() {
+    return retentionSeconds;
+  }
+
+  public void setRetentionSeconds(long retentionSeconds) {
+    this.retentionSeconds = retentionSeconds;
+  }
+
+  public long getInProgressTimeoutSeconds() {
+    return inProgressTimeoutSeconds;
+  }
+
+  public void setInProgressTimeoutSeconds(long inProgressTimeoutSeconds) {
+    this.inProgressTimeoutSeconds = inProgressTimeoutSeconds;
+  }
+
+  public long getHeartbeatIntervalMs() {
+    return heartbeatIntervalMs;
+  }
+
+  public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+    this.heartbeatIntervalMs = heartbeatIntervalMs;
+  }
+
+  public int getMaxBodyBytes() {
+    return maxBodyBytes;
+  }
+
+  public void setMaxBodyBytes(int maxBodyBytes) {
+    this.maxBodyBytes = maxBodyBytes;
+  }
+}
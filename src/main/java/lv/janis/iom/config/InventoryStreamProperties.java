@@ -0,0 +1,62 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "inventory.stream")
+public class InventoryStreamProperties {
+  // Distinct products a subscriber may have waiting; beyond that the oldest is dropped
+  private int bufferSize = 256;
+  private int maxSubscribers = 1000;
+  private int dispatchThreads = 4;
+  private long heartbeatIntervalMs = 15_000;
+  private long timeoutMs = 30 * 60 * 1000L;
+  private int maxProductIds = 1000;
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public int getMaxSubscribers() {
+    return maxSubscribers;
+  }
+
+  public void setMaxSubscribers(int maxSubscribers) {
+    this.maxSubscribers = maxSubscribers;
+  }
+
+  public int getDispatchThreads() {
+    return dispatchThreads;
+  }
+
+  public void setDispatchThreads(int dispatchThreads) {
+    this.dispatchThreads = dispatchThreads;
+  }
+
+  public long getHeartbeatIntervalMs() {
+    return heartbeatIntervalMs;
+  }
+
+  public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+    this.heartbeatIntervalMs = heartbeatIntervalMs;
+  }
+
+  public long getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  public void setTimeoutMs(long timeoutMs) {
+    this.timeoutMs = timeoutMs;
+  }
+
+  public int getMaxProductIds() {
+    return maxProductIds;
+  }
+
+  public void setMaxProductIds(int maxProductIds) {
+    this.maxProductIds = maxProductIds;
+  }
+}
@@ -0,0 +1,34 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "product-import")
+public class ProductImportProperties {
+  private int chunkSize = 1_000;
+  private int maxReportedErrors = 1_000;
+  private int retainedJobs = 50;
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public int getMaxReportedErrors() {
+    return maxReportedErrors;
+  }
+
+  public void setMaxReportedErrors(int maxReportedErrors) {
+    this.maxReportedErrors = maxReportedErrors;
+  }
+
+  public int getRetainedJobs() {
+    return retainedJobs;
+  }
+
+  public void setRetainedJobs(int retainedJobs) {
+    this.retainedJobs = retainedJobs;
+  }
+}
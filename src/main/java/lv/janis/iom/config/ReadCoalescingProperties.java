@@ -0,0 +1,35 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "read-coalescing")
+public class ReadCoalescingProperties {
+  private boolean enabled = true;
+  // how long a loaded result keeps answering identical reads; 0 only shares in-flight loads
+  private long ttlMs = 100;
+  private int maxCachedEntries = 10_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getTtlMs() {
+    return ttlMs;
+  }
+
+  public void setTtlMs(long ttlMs) {
+    this.ttlMs = ttlMs;
+  }
+
+  public int getMaxCachedEntries() {
+    return maxCachedEntries;
+  }
+
+  public void setMaxCachedEntries(int maxCachedEntries) {
+    this.maxCachedEntries = maxCachedEntries;
+  }
+}
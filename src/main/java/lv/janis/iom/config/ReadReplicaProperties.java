@@ -0,0 +1,71 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "datasource.replica")
+public class ReadReplicaProperties {
+  private boolean enabled = false;
+  private String url;
+  private String username;
+  private String password;
+  private String driverClassName;
+  // Oldest replicated heartbeat still accepted; keep it above lagCheckIntervalMs
+  private long maxLagMs = 5_000;
+  private long lagCheckIntervalMs = 1_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public void setUrl(String url) {
+    this.url = url;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public String getPassword() {
+    return password;
+  }
+
+  public void setPassword(String password) {
+    this.password = password;
+  }
+
+  public String getDriverClassName() {
+    return driverClassName;
+  }
+
+  public void setDriverClassName(String driverClassName) {
+    this.driverClassName = driverClassName;
+  }
+
+  public long getMaxLagMs() {
+    return maxLagMs;
+  }
+
+  public void setMaxLagMs(long maxLagMs) {
+    this.maxLagMs = maxLagMs;
+  }
+
+  public long getLagCheckIntervalMs() {
+    return lagCheckIntervalMs;
+  }
+
+  public void setLagCheckIntervalMs(long lagCheckIntervalMs) {
+    this.lagCheckIntervalMs = lagCheckIntervalMs;
+  }
+}
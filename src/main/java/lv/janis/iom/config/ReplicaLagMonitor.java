@@ -0,0 +1,87 @@
+package lv.janis.iom.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Decides whether the read replica may serve read-only transactions. Every check writes the
+ * current time into a one-row heartbeat table on the primary and reads the replicated copy
+ * back from the replica; the replica is used only while that copy is younger than
+ * {@code datasource.replica.max-lag-ms}. Until the first good check, or after any failure,
+ * reads stay on the primary.
+ */
+public class ReplicaLagMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String HEARTBEAT_TABLE = "replica_heartbeat";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private volatile boolean replicaUsable;
+    private volatile long lastLagMs = -1;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long maxLagMs) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.maxLagMs = maxLagMs;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    // Age of the replicated heartbeat at the last check; -1 when the replica could not be read
+    public long getLastLagMs() {
+        return lastLagMs;
+    }
+
+    public void initialize() {
+        primary.execute("create table if not exists " + HEARTBEAT_TABLE
+                + " (id int not null primary key, beat_at_ms bigint not null)");
+        primary.update("insert into " + HEARTBEAT_TABLE + " (id, beat_at_ms) select 1, 0 from dual"
+                + " where not exists (select 1 from " + HEARTBEAT_TABLE + " where id = 1)");
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}",
+            initialDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            // several instances may beat at once; the newest time wins
+            primary.update("update " + HEARTBEAT_TABLE + " set beat_at_ms = greatest(beat_at_ms, ?) where id = 1", now);
+        } catch (DataAccessException e) {
+            log.warn("Failed to write replica heartbeat on the primary", e);
+        }
+        try {
+            Long beatAtMs = replica.queryForObject(
+                    "select beat_at_ms from " + HEARTBEAT_TABLE + " where id = 1", Long.class);
+            lastLagMs = beatAtMs == null ? -1 : Math.max(0, now - beatAtMs);
+        } catch (DataAccessException e) {
+            lastLagMs = -1;
+            log.debug("Failed to read replica heartbeat", e);
+        }
+        update(lastLagMs >= 0 && lastLagMs <= maxLagMs);
+    }
+
+    // Called when the replica refuses a connection, so reads fall back before the next check
+    public void markReplicaFailed() {
+        update(false);
+    }
+
+    private void update(boolean usable) {
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Read replica caught up (lag {} ms), routing read-only transactions to it", lastLagMs);
+            } else {
+                log.warn("Read replica unavailable or lagging (lag {} ms), routing reads to the primary", lastLagMs);
+            }
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,74 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "order.reservation-expiry")
+public class ReservationExpiryProperties {
+  private boolean enabled = false;
+  // how long a PROCESSING order may hold reserved stock before it is cancelled
+  private long ttlSeconds = 86_400;
+  // timer wheel resolution; expiry fires at most one tick late
+  private long tickMs = 1000;
+  private int batchSize = 200;
+  private int rebuildPageSize = 10_000;
+  // orders that could not be expired are retried after this delay
+  private long retryDelayMs = 60_000;
+  // how often the database is swept for overdue orders no wheel is tracking
+  private long sweepIntervalMs = 60_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getTtlSeconds() {
+    return ttlSeconds;
+  }
+
+  public void setTtlSeconds(long ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+
+  public long getTickMs() {
+    return tickMs;
+  }
+
+  public void setTickMs(long tickMs) {
+    this.tickMs = tickMs;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getRebuildPageSize() {
+    return rebuildPageSize;
+  }
+
+  public void setRebuildPageSize(int rebuildPageSize) {
+    this.rebuildPageSize = rebuildPageSize;
+  }
+
+  public long getRetryDelayMs() {
+    return retryDelayMs;
+  }
+
+  public void setRetryDelayMs(long retryDelayMs) {
+    this.retryDelayMs = retryDelayMs;
+  }
+
+  public long getSweepIntervalMs() {
+    return sweepIntervalMs;
+  }
+
+  public void setSweepIntervalMs(long sweepIntervalMs) {
+    this.sweepIntervalMs = sweepIntervalMs;
+  }
+}
@@ -0,0 +1,43 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "inventory.reservation-ledger")
+public class ReservationLedgerProperties {
+  private boolean enabled = false;
+  private String walPath = "data/reservation-ledger.wal";
+  private long flushIntervalMs = 200;
+  private int flushBatchSize = 10_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getWalPath() {
+    return walPath;
+  }
+
+  public void setWalPath(String walPath) {
+    this.walPath = walPath;
+  }
+
+  public long getFlushIntervalMs() {
+    return flushIntervalMs;
+  }
+
+  public void setFlushIntervalMs(long flushIntervalMs) {
+    this.flushIntervalMs = flushIntervalMs;
+  }
+
+  public int getFlushBatchSize() {
+    return flushBatchSize;
+  }
+
+  public void setFlushBatchSize(int flushBatchSize) {
+    this.flushBatchSize = flushBatchSize;
+  }
+}
@@ -0,0 +1,46 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "scheduler.lease")
+public class SchedulerLeaseProperties {
+  // when false every node runs every scheduled job, as on a single node
+  private boolean enabled = true;
+  // unique per running instance; generated from the host name when blank
+  private String nodeId;
+  // a node that stops renewing loses its leases after this long
+  private long ttlMs = 30_000;
+  private long renewIntervalMs = 10_000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public void setNodeId(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  public long getTtlMs() {
+    return ttlMs;
+  }
+
+  public void setTtlMs(long ttlMs) {
+    this.ttlMs = ttlMs;
+  }
+
+  public long getRenewIntervalMs() {
+    return renewIntervalMs;
+  }
+
+  public void setRenewIntervalMs(long renewIntervalMs) {
+    this.renewIntervalMs = renewIntervalMs;
+  }
+}
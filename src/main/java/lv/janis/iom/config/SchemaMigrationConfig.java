@@ -0,0 +1,24 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Flyway owns the schema and Hibernate only maps it. In {@code VALIDATE} mode startup checks
+ * the migration history against the bundled scripts instead of migrating, for deployments
+ * that run migrations as a separate step.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(SchemaMigrationProperties properties) {
+        return flyway -> {
+            switch (properties.getMode()) {
+                case MIGRATE -> flyway.migrate();
+                case VALIDATE -> flyway.validate();
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "schema.migration")
+public class SchemaMigrationProperties {
+
+  public enum Mode {
+    // apply pending migrations on startup
+    MIGRATE,
+    // only compare applied migrations with the bundled scripts; startup fails if any are pending
+    VALIDATE
+  }
+
+  private Mode mode = Mode.MIGRATE;
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+}
@@ -0,0 +1,37 @@
+package lv.janis.iom.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lv.janis.iom.service.sql.SqlObservingDataSource;
+import lv.janis.iom.service.sql.SqlStatementObserver;
+
+/**
+ * Replaces {@code spring.jpa.show-sql}: the application data source is wrapped so statements
+ * are timed and aggregated instead of printed. Only the {@code dataSource} bean is wrapped;
+ * with the read replica enabled that is the routing proxy, so both targets are covered once.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SqlLoggingConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlObservingDataSourcePostProcessor(
+            ObjectProvider<SqlLoggingProperties> properties,
+            ObjectProvider<SqlStatementObserver> observer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof SqlObservingDataSource)
+                        && properties.getObject().isEnabled()) {
+                    return new SqlObservingDataSource(dataSource, observer.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package lv.janis.iom.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "sql.logging")
+public class SqlLoggingProperties {
+  private boolean enabled = true;
+  // Statements at or above this duration are logged at WARN with their shape
+  private long slowThresholdMs = 500;
+  // Fraction of statements (0.0 - 1.0) logged in full at INFO on lv.janis.iom.sql.sampled
+  private double sampleRate = 0.0;
+  // Distinct statement shapes aggregated; later shapes are counted under one overflow entry
+  private int maxShapes = 500;
+  private int defaultTop = 20;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getSlowThresholdMs() {
+    return slowThresholdMs;
+  }
+
+  public void setSlowThresholdMs(long slowThresholdMs) {
+    this.slowThresholdMs = slowThresholdMs;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public void setSampleRate(double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  public int getMaxShapes() {
+    return maxShapes;
+  }
+
+  public void setMaxShapes(int maxShapes) {
+    this.maxShapes = maxShapes;
+  }
+
+  public int getDefaultTop() {
+    return defaultTop;
+  }
+
+  public void setDefaultTop(int defaultTop) {
+    this.defaultTop = defaultTop;
+  }
+}
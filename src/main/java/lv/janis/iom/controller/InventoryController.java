@@ -1,12 +1,14 @@
 package lv.janis.iom.controller;
 
-import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,6 +17,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,10 +29,17 @@ import org.springdoc.core.annotations.ParameterObject;
 
 import jakarta.validation.Valid;
 import lv.janis.iom.dto.filters.InventoryFilter;
+import lv.janis.iom.dto.requests.BulkInventoryAdjustRequest;
 import lv.janis.iom.dto.requests.InventoryAdjustRequest;
 import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse;
 import lv.janis.iom.dto.response.InventoryResponse;
+import lv.janis.iom.dto.response.KeysetPageResponse;
+import lv.janis.iom.dto.response.ReservationShardsResponse;
+import lv.janis.iom.service.InventoryBulkAdjustService;
 import lv.janis.iom.service.InventoryService;
+import lv.janis.iom.service.ShardedReservationService;
+import lv.janis.iom.service.stream.InventoryChangeStream;
 
 @Tag(name = "Inventory", description = "Inventory management endpoints")
 @RestController
@@ -36,9 +47,16 @@ import lv.janis.iom.service.InventoryService;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final ShardedReservationService shardedReservationService;
+    private final InventoryBulkAdjustService inventoryBulkAdjustService;
+    private final InventoryChangeStream inventoryChangeStream;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, ShardedReservationService shardedReservationService,
+            InventoryBulkAdjustService inventoryBulkAdjustService, InventoryChangeStream inventoryChangeStream) {
         this.inventoryService = inventoryService;
+        this.shardedReservationService = shardedReservationService;
+        this.inventoryBulkAdjustService = inventoryBulkAdjustService;
+        this.inventoryChangeStream = inventoryChangeStream;
     }
 
     @Operation(
@@ -60,12 +78,19 @@ public class InventoryController {
         return ResponseEntity.ok(InventoryResponse.from(inventory));
     }
 
-    @Operation(summary = "Get inventory by product id")
-    @ApiResponse(responseCode = "200", description = "Inventory found")
+    @Operation(summary = "Get inventory by product id", description = "Responses carry a version-based ETag; send it back in If-None-Match to get 304 while unchanged.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Inventory found"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the ETag in If-None-Match")
+    })
     @GetMapping("/{productId}")
-    public ResponseEntity<InventoryResponse> getInventoryByProductId(@PathVariable Long productId) {
-        var inventory = inventoryService.getInventoryByProductId(productId);
-        return ResponseEntity.ok(InventoryResponse.from(inventory));
+    public ResponseEntity<InventoryResponse> getInventoryByProductId(@PathVariable Long productId, WebRequest request) {
+        var versions = inventoryService.getInventoryVersions(productId);
+        String eTag = VersionETags.of(versions.getInventoryVersion(), versions.getProductVersion());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(inventoryService.getInventoryResponse(productId, versions));
     }
 
     @Operation(summary = "List inventory")
@@ -81,15 +106,41 @@ public class InventoryController {
         return ResponseEntity.ok(page);
     }
 
-    @Operation(summary = "List in-stock inventory")
-    @ApiResponse(responseCode = "200", description = "In-stock inventory listed")
+    @Operation(
+        summary = "List in-stock inventory",
+        description = "Keyset paginated by inventory id. Pass nextAfterId from the previous page as afterId."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "In-stock inventory page listed"),
+        @ApiResponse(responseCode = "400", description = "Invalid page size")
+    })
     @GetMapping("/in-stock")
-    public ResponseEntity<List<InventoryResponse>> listInStockInventory() {
-        var items = inventoryService.listInStockAllInventory()
-            .stream()
-            .map(InventoryResponse::from)
-            .toList();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<KeysetPageResponse<InventoryResponse>> listInStockInventory(
+        @Parameter(description = "Return items after this inventory id", example = "2045")
+        @RequestParam(required = false) Long afterId,
+        @Parameter(description = "Page size, capped at 100", example = "100")
+        @RequestParam(defaultValue = "100") int size
+    ) {
+        return ResponseEntity.ok(inventoryService.listInStockInventory(afterId, size));
+    }
+
+    @Operation(
+        summary = "Stream available stock changes",
+        description = "Server-sent events: an 'inventory' event with productId and availableQuantity after each committed change, "
+            + "keeping only the latest value per product for slow consumers. A 'resync' event means changes were dropped "
+            + "and the client should re-read the products it watches. Without productIds every product is streamed."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "400", description = "Too many product ids"),
+        @ApiResponse(responseCode = "409", description = "Subscriber limit reached")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamInventoryChanges(
+        @Parameter(description = "Product ids to watch", example = "42,43")
+        @RequestParam(required = false) Set<Long> productIds
+    ) {
+        return inventoryChangeStream.subscribe(productIds == null ? Set.of() : productIds);
     }
 
     @Operation(summary = "Get available stock by product id")
@@ -214,4 +265,83 @@ public class InventoryController {
         );
         return ResponseEntity.ok(InventoryResponse.from(inventory));
     }
+
+    @Operation(
+        summary = "Adjust inventory in bulk",
+        description = "Applies cycle count adjustments to many products. Lines that cannot be applied are reported per line and do not fail the request."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Per-line results"),
+        @ApiResponse(responseCode = "400", description = "Invalid request")
+    })
+    @PostMapping("/adjustments")
+    public ResponseEntity<BulkAdjustmentResponse> bulkAdjust(@Valid @RequestBody BulkInventoryAdjustRequest request) {
+        return ResponseEntity.ok(inventoryBulkAdjustService.adjust(request.getLines()));
+    }
+
+    @Operation(
+        summary = "Get reservation shards",
+        description = "Aggregated available/reserved view across the parent inventory row and its reservation shards."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Shard view returned"),
+        @ApiResponse(responseCode = "404", description = "Inventory not found")
+    })
+    @GetMapping("/{productId}/reservation-shards")
+    public ResponseEntity<ReservationShardsResponse> getReservationShards(
+        @Parameter(description = "Product id", example = "42") @PathVariable Long productId
+    ) {
+        return ResponseEntity.ok(shardedReservationService.getShards(productId));
+    }
+
+    @Operation(
+        summary = "Enable sharded reservations",
+        description = "Splits the product's available stock into shard rows so concurrent reservations for a hot product do not serialize on one inventory row."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Sharding enabled"),
+        @ApiResponse(responseCode = "400", description = "Invalid shard count"),
+        @ApiResponse(responseCode = "404", description = "Inventory not found"),
+        @ApiResponse(responseCode = "409", description = "Sharding already enabled")
+    })
+    @PostMapping("/{productId}/reservation-shards")
+    public ResponseEntity<ReservationShardsResponse> enableReservationShards(
+        @Parameter(description = "Product id", example = "42") @PathVariable Long productId,
+        @Parameter(description = "Number of shards (2-64)", example = "8") @RequestParam(defaultValue = "8") int shards
+    ) {
+        return ResponseEntity.ok(shardedReservationService.enable(productId, shards));
+    }
+
+    @Operation(
+        summary = "Rebalance reservation shards",
+        description = "Folds shard reservations into the inventory row, then evens out shard budgets and moves any unsharded available stock into the shards. Also runs periodically."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Shards rebalanced"),
+        @ApiResponse(responseCode = "404", description = "Inventory not found"),
+        @ApiResponse(responseCode = "409", description = "Sharding not enabled")
+    })
+    @PostMapping("/{productId}/reservation-shards/rebalance")
+    public ResponseEntity<ReservationShardsResponse> rebalanceReservationShards(
+        @Parameter(description = "Product id", example = "42") @PathVariable Long productId
+    ) {
+        return ResponseEntity.ok(shardedReservationService.rebalance(productId));
+    }
+
+    @Operation(
+        summary = "Disable sharded reservations",
+        description = "Folds shard budgets back into the inventory row. Outstanding reservations are kept."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "204", description = "Sharding disabled"),
+        @ApiResponse(responseCode = "404", description = "Inventory not found"),
+        @ApiResponse(responseCode = "409", description = "Sharding not enabled")
+    })
+    @DeleteMapping("/{productId}/reservation-shards")
+    public ResponseEntity<Void> disableReservationShards(
+        @Parameter(description = "Product id", example = "42") @PathVariable Long productId
+    ) {
+        shardedReservationService.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,6 +1,7 @@
 package lv.janis.iom.controller;
 
 import java.net.URI;
+import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import org.springframework.lang.NonNull;
@@ -29,15 +31,21 @@ import org.springdoc.core.annotations.ParameterObject;
 
 import jakarta.validation.Valid;
 import lv.janis.iom.dto.filters.CustomerOrderFilter;
+import lv.janis.iom.dto.requests.BulkOrderTransitionRequest;
 import lv.janis.iom.dto.requests.ExternalOrderCancelRequest;
 import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
 import lv.janis.iom.dto.requests.OrderItemAddRequest;
 import lv.janis.iom.dto.requests.OrderReturnRequest;
+import lv.janis.iom.dto.response.BulkTransitionResponse;
 import lv.janis.iom.dto.response.CustomerOrderResponse;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse;
 import lv.janis.iom.dto.response.ExternalOrderStatusResponse;
 import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.enums.OrderTransition;
+import lv.janis.iom.service.OrderBulkTransitionService;
 import lv.janis.iom.service.OrderService;
 import lv.janis.iom.service.facade.ExternalOrderFacade;
+import lv.janis.iom.service.ingest.ExternalOrderIngestService;
 
 @Tag(name = "Orders", description = "Order management endpoints")
 @RestController
@@ -46,10 +54,16 @@ public class OrderController {
 
         private final OrderService orderService;
         private final ExternalOrderFacade externalOrderFacade;
+        private final OrderBulkTransitionService orderBulkTransitionService;
+        private final ExternalOrderIngestService externalOrderIngestService;
 
-        public OrderController(OrderService orderService, ExternalOrderFacade externalOrderFacade) {
+        public OrderController(OrderService orderService, ExternalOrderFacade externalOrderFacade,
+                        OrderBulkTransitionService orderBulkTransitionService,
+                        ExternalOrderIngestService externalOrderIngestService) {
                 this.orderService = orderService;
                 this.externalOrderFacade = externalOrderFacade;
+                this.orderBulkTransitionService = orderBulkTransitionService;
+                this.externalOrderIngestService = externalOrderIngestService;
         }
 
         @Operation(summary = "Create order")
@@ -66,23 +80,20 @@ public class OrderController {
                 return ResponseEntity.created(location).body(response);
         }
 
-        @Operation(summary = "Create external order", description = "Idempotent by (source, externalOrderId). Duplicate requests return the existing order.")
+        @Operation(summary = "Create external order", description = "Idempotent by (source, externalOrderId). Duplicate requests return the existing order. "
+                        + "In async ingest mode the request is journaled and acknowledged before it is persisted; the body carries a tracking id.")
         @ApiResponses({
-                        @ApiResponse(responseCode = "202", description = "Order accepted for asynchronous processing"),
+                        @ApiResponse(responseCode = "202", description = "Order accepted for asynchronous processing", headers = {
+                                        @Header(name = "Location", description = "Internal order resource, or the ingest tracking resource in async mode")
+                        }),
                         @ApiResponse(responseCode = "400", description = "Invalid request"),
-                        @ApiResponse(responseCode = "404", description = "One or more products not found")
+                        @ApiResponse(responseCode = "404", description = "One or more products not found"),
+                        @ApiResponse(responseCode = "429", description = "Shed by admission control; see Retry-After"),
+                        @ApiResponse(responseCode = "503", description = "Async ingest buffer is full")
         })
         @PostMapping("/external")
-        public ResponseEntity<Void> createExternalOrder(
+        public ResponseEntity<ExternalOrderIngestStatusResponse> createExternalOrder(
                         @Valid @RequestBody ExternalOrderIngestRequest request) {
-                Long orderId = externalOrderFacade.ingest(request);
-
-                URI location = ServletUriComponentsBuilder
-                                .fromCurrentContextPath()
-                                .path("/api/orders/{id}")
-                                .buildAndExpand(orderId)
-                                .toUri();
-
                 URI statusLocation = ServletUriComponentsBuilder
                                 .fromCurrentContextPath()
                                 .path("/api/orders/external/status")
@@ -91,12 +102,43 @@ public class OrderController {
                                 .build()
                                 .toUri();
 
+                if (externalOrderIngestService.isAsync()) {
+                        var accepted = externalOrderIngestService.accept(request);
+                        URI trackingLocation = ServletUriComponentsBuilder
+                                        .fromCurrentContextPath()
+                                        .path("/api/orders/external/ingest/{trackingId}")
+                                        .buildAndExpand(accepted.trackingId())
+                                        .toUri();
+                        return ResponseEntity.accepted()
+                                        .location(trackingLocation)
+                                        .header("Link", "<" + statusLocation + ">; rel=\"status\"")
+                                        .body(accepted);
+                }
+
+                Long orderId = externalOrderFacade.ingest(request);
+
+                URI location = ServletUriComponentsBuilder
+                                .fromCurrentContextPath()
+                                .path("/api/orders/{id}")
+                                .buildAndExpand(orderId)
+                                .toUri();
+
                 return ResponseEntity.accepted()
                                 .location(location)
                                 .header("Link", "<" + statusLocation + ">; rel=\"status\"")
                                 .build();
         }
 
+        @Operation(summary = "Get async ingest status", description = "Tracks an external order accepted in async ingest mode until it is persisted or rejected.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Tracking id found"),
+                        @ApiResponse(responseCode = "404", description = "Unknown or expired tracking id")
+        })
+        @GetMapping("/external/ingest/{trackingId}")
+        public ResponseEntity<ExternalOrderIngestStatusResponse> getExternalIngestStatus(@PathVariable UUID trackingId) {
+                return ResponseEntity.ok(externalOrderIngestService.getStatus(trackingId));
+        }
+
         @Operation(summary = "Cancel external order", description = "Requests cancellation by (source, externalOrderId) and notifies source via webhook.")
         @ApiResponses({
                         @ApiResponse(responseCode = "202", description = "Cancellation request accepted", headers = {
@@ -104,7 +146,8 @@ public class OrderController {
                                         @Header(name = "Link", description = "Status endpoint for polling, for example </api/orders/external/status?source=WEB_SHOP&externalOrderId=EXT-9>; rel=\"status\"")
                         }),
                         @ApiResponse(responseCode = "404", description = "Order not found for (source, externalOrderId)"),
-                        @ApiResponse(responseCode = "400", description = "Invalid request")
+                        @ApiResponse(responseCode = "400", description = "Invalid request"),
+                        @ApiResponse(responseCode = "429", description = "Shed by admission control; see Retry-After")
         })
         @PostMapping("/external/cancel")
         public ResponseEntity<Void> cancelExternalOrder(
@@ -166,7 +209,7 @@ public class OrderController {
                         @ApiResponse(responseCode = "404", description = "Order not found"),
                         @ApiResponse(responseCode = "409", description = "Invalid order status or empty items")
         })
-        @PostMapping("/{orderId}/processing")
+        @PostMapping("/{orderId:\\d+}/processing")
         public ResponseEntity<CustomerOrderResponse> statusProcessing(
                         @Parameter(description = "Order id", example = "1001") @PathVariable @NonNull Long orderId) {
                 var order = orderService.statusProcessing(orderId);
@@ -179,7 +222,7 @@ public class OrderController {
                         @ApiResponse(responseCode = "404", description = "Order not found"),
                         @ApiResponse(responseCode = "409", description = "Invalid order status")
         })
-        @PostMapping("/{orderId}/shipped")
+        @PostMapping("/{orderId:\\d+}/shipped")
         public ResponseEntity<CustomerOrderResponse> statusShipped(
                         @Parameter(description = "Order id", example = "1001") @PathVariable @NonNull Long orderId) {
                 var order = orderService.statusShipped(orderId);
@@ -192,7 +235,7 @@ public class OrderController {
                         @ApiResponse(responseCode = "404", description = "Order not found"),
                         @ApiResponse(responseCode = "409", description = "Invalid order status")
         })
-        @PostMapping("/{orderId}/delivered")
+        @PostMapping("/{orderId:\\d+}/delivered")
         public ResponseEntity<CustomerOrderResponse> statusDelivered(
                         @Parameter(description = "Order id", example = "1001") @PathVariable @NonNull Long orderId) {
                 var order = orderService.statusDelivered(orderId);
@@ -205,7 +248,7 @@ public class OrderController {
                         @ApiResponse(responseCode = "404", description = "Order not found"),
                         @ApiResponse(responseCode = "409", description = "Invalid order status")
         })
-        @PostMapping("/{orderId}/cancelled")
+        @PostMapping("/{orderId:\\d+}/cancelled")
         public ResponseEntity<CustomerOrderResponse> statusCancelled(
                         @Parameter(description = "Order id", example = "1001") @PathVariable @NonNull Long orderId) {
                 var order = orderService.statusCancelled(orderId);
@@ -218,7 +261,7 @@ public class OrderController {
                         @ApiResponse(responseCode = "404", description = "Order not found"),
                         @ApiResponse(responseCode = "409", description = "Invalid order status")
         })
-        @PostMapping("/{orderId}/returned")
+        @PostMapping("/{orderId:\\d+}/returned")
         public ResponseEntity<CustomerOrderResponse> statusReturned(
                         @Parameter(description = "Order id", example = "1001") @PathVariable @NonNull Long orderId,
                         @RequestBody(required = false) OrderReturnRequest request) {
@@ -227,12 +270,33 @@ public class OrderController {
                 return ResponseEntity.ok(CustomerOrderResponse.from(order));
         }
 
-        @Operation(summary = "Get order by id")
-        @ApiResponse(responseCode = "200", description = "Order found")
+        @Operation(summary = "Move orders in bulk", description = "Applies one transition (processing, shipped, delivered, cancelled, returned) to many orders. Orders that cannot be moved are reported per order and do not fail the request.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Per-order results"),
+                        @ApiResponse(responseCode = "400", description = "Unknown transition or invalid request")
+        })
+        @PostMapping("/bulk/{transition}")
+        public ResponseEntity<BulkTransitionResponse> bulkTransition(
+                        @Parameter(description = "Transition to apply", example = "shipped") @PathVariable String transition,
+                        @Valid @RequestBody BulkOrderTransitionRequest request) {
+                var response = orderBulkTransitionService.transition(
+                                OrderTransition.fromPath(transition), request.getOrderIds());
+                return ResponseEntity.ok(response);
+        }
+
+        @Operation(summary = "Get order by id", description = "Responses carry a version-based ETag; send it back in If-None-Match to get 304 while unchanged.")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Order found"),
+                        @ApiResponse(responseCode = "304", description = "Unchanged since the ETag in If-None-Match")
+        })
         @GetMapping("/{orderId}")
-        public ResponseEntity<CustomerOrderResponse> getCustomerOrderById(@PathVariable @NonNull Long orderId) {
-                var order = orderService.getCustomerOrderById(orderId);
-                return ResponseEntity.ok(CustomerOrderResponse.from(order));
+        public ResponseEntity<CustomerOrderResponse> getCustomerOrderById(@PathVariable @NonNull Long orderId,
+                        WebRequest request) {
+                String eTag = VersionETags.of(orderService.getCustomerOrderVersion(orderId));
+                if (request.checkNotModified(eTag)) {
+                        return null;
+                }
+                return ResponseEntity.ok().eTag(eTag).body(orderService.getCustomerOrderResponse(orderId));
         }
 
         @Operation(summary = "List orders")
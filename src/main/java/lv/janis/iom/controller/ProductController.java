@@ -1,11 +1,14 @@
 package lv.janis.iom.controller;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -13,14 +16,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import org.springframework.lang.NonNull;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springdoc.core.annotations.ParameterObject;
 
@@ -28,8 +34,11 @@ import jakarta.validation.Valid;
 import lv.janis.iom.dto.filters.ListProductFilter;
 import lv.janis.iom.dto.requests.ProductCreationRequest;
 import lv.janis.iom.dto.requests.ProductUpdateRequest;
+import lv.janis.iom.dto.response.ProductImportJobResponse;
 import lv.janis.iom.dto.response.ProductResponse;
 import lv.janis.iom.service.ProductService;
+import lv.janis.iom.service.productimport.ProductImportFormat;
+import lv.janis.iom.service.productimport.ProductImportService;
 
 @Tag(name = "Products", description = "Product management endpoints")
 @RestController
@@ -37,9 +46,11 @@ import lv.janis.iom.service.ProductService;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService) {
         this.productService = productService;
+        this.productImportService = productImportService;
     }
 
     @Operation(summary = "Create product")
@@ -75,12 +86,19 @@ public class ProductController {
         return ResponseEntity.ok(page);
     }
 
-    @Operation(summary = "Get product by id")
-    @ApiResponse(responseCode = "200", description = "Product found")
+    @Operation(summary = "Get product by id", description = "Responses carry a version-based ETag; send it back in If-None-Match to get 304 while unchanged.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Product found"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the ETag in If-None-Match")
+    })
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable @NonNull Long id) {
-        var product = productService.getProductById(id);
-        return ResponseEntity.ok(ProductResponse.from(product));
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable @NonNull Long id, WebRequest request) {
+        long version = productService.getProductVersion(id);
+        String eTag = VersionETags.of(version);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(productService.getProductResponse(id, version));
     }
 
     @Operation(summary = "Update product")
@@ -109,4 +127,32 @@ public class ProductController {
         return ResponseEntity.ok(ProductResponse.from(product));
     }
 
+    @Operation(
+        summary = "Import products",
+        description = "Creates or updates products from a CSV (text/csv, with a header row) or NDJSON "
+            + "(application/x-ndjson) upload. Columns: sku, name, description, price, and optionally quantity, "
+            + "reorderLevel and clearLowQuantity for products without an inventory row. Runs in the background; "
+            + "invalid rows and SKUs of deactivated products are skipped and reported on the job. An empty "
+            + "description keeps the existing one."
+    )
+    @ApiResponse(responseCode = "202", description = "Import started")
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<ProductImportJobResponse> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        var job = productImportService.start(ProductImportFormat.fromContentType(contentType), body);
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{jobId}")
+                .buildAndExpand(job.jobId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @Operation(summary = "Get product import progress")
+    @ApiResponse(responseCode = "200", description = "Import job found")
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ProductImportJobResponse> getImportJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(productImportService.getJob(jobId));
+    }
 }
@@ -0,0 +1,20 @@
+package lv.janis.iom.controller;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Strong ETags built from entity {@code @Version} values. A representation only changes when
+ * one of the versions it is built from does, so the tag can be checked before loading it.
+ */
+final class VersionETags {
+
+    private VersionETags() {
+    }
+
+    static String of(long... versions) {
+        return Arrays.stream(versions)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(".", "\"", "\""));
+    }
+}
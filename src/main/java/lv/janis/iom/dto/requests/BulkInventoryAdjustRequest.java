@@ -0,0 +1,24 @@
+package lv.janis.iom.dto.requests;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class BulkInventoryAdjustRequest {
+  @Schema(description = "Adjustment lines, applied in this order")
+  @NotEmpty
+  @Size(max = 50000)
+  private List<@NotNull @Valid InventoryAdjustmentLine> lines;
+
+  public List<InventoryAdjustmentLine> getLines() {
+    return lines;
+  }
+
+  public void setLines(List<InventoryAdjustmentLine> lines) {
+    this.lines = lines;
+  }
+}
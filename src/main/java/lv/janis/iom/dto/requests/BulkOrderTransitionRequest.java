@@ -0,0 +1,23 @@
+package lv.janis.iom.dto.requests;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class BulkOrderTransitionRequest {
+  @Schema(description = "Orders to move, processed in this order", example = "[1001, 1002, 1003]")
+  @NotEmpty
+  @Size(max = 20000)
+  private List<@NotNull Long> orderIds;
+
+  public List<Long> getOrderIds() {
+    return orderIds;
+  }
+
+  public void setOrderIds(List<Long> orderIds) {
+    this.orderIds = orderIds;
+  }
+}
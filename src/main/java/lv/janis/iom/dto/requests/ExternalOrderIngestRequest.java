@@ -6,6 +6,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lv.janis.iom.enums.ExternalOrderSource;
@@ -15,10 +16,10 @@ public class ExternalOrderIngestRequest {
     @NotNull
     private ExternalOrderSource source;
     @Schema(description = "External order id from source system", example = "EXT-100023")
-    @NotBlank
+    @NotBlank @Size(max = 64)
     private String externalOrderId;
     @Schema(description = "Shipping address as provided by source", example = "Brivibas iela 100, Riga, LV-1011")
-    @NotBlank
+    @NotBlank @Size(max = 128)
     private String shippingAddress;
     @Schema(description = "Line items for the order")
     @NotEmpty @Valid
@@ -0,0 +1,54 @@
+package lv.janis.iom.dto.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class InventoryAdjustmentLine {
+  @Schema(description = "Product id", example = "42")
+  @NotNull
+  private Long productId;
+
+  @Schema(description = "Signed delta applied to quantity (negative allowed)", example = "-5")
+  @NotNull
+  private Integer delta;
+
+  @Schema(description = "Reason for adjustment", example = "Cycle count aisle 4")
+  @NotBlank
+  @Size(max = 255)
+  private String reason;
+
+  public InventoryAdjustmentLine() {
+  }
+
+  public InventoryAdjustmentLine(Long productId, Integer delta, String reason) {
+    this.productId = productId;
+    this.delta = delta;
+    this.reason = reason;
+  }
+
+  public Long getProductId() {
+    return productId;
+  }
+
+  public void setProductId(Long productId) {
+    this.productId = productId;
+  }
+
+  public Integer getDelta() {
+    return delta;
+  }
+
+  public void setDelta(Integer delta) {
+    this.delta = delta;
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  public void setReason(String reason) {
+    this.reason = reason;
+  }
+}
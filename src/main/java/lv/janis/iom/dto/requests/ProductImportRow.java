@@ -0,0 +1,104 @@
+package lv.janis.iom.dto.requests;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * One product in a bulk import file. Existing SKUs are updated; new SKUs are created. When a
+ * quantity is given and the product has no inventory row yet, one is created with it.
+ */
+public class ProductImportRow {
+
+    @Schema(description = "Unique SKU for the product", example = "SKU-ABC-001")
+    @NotBlank
+    @Size(max = 64)
+    private String sku;
+
+    @Schema(description = "Product name", example = "Widget A")
+    @NotBlank
+    @Size(max = 200)
+    private String name;
+
+    @Schema(description = "Product description", example = "Compact stainless steel widget")
+    @Size(max = 2000)
+    private String description;
+
+    @Schema(description = "Unit price", example = "19.99")
+    @NotNull
+    @PositiveOrZero
+    private BigDecimal price;
+
+    @Schema(description = "Initial stock for a new inventory row", example = "100")
+    @PositiveOrZero
+    private Integer quantity;
+
+    @Schema(description = "Reorder level for a new inventory row", example = "10")
+    @PositiveOrZero
+    private Integer reorderLevel;
+
+    @Schema(description = "Clear-low-quantity level for a new inventory row", example = "20")
+    @PositiveOrZero
+    private Integer clearLowQuantity;
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
+    public Integer getClearLowQuantity() {
+        return clearLowQuantity;
+    }
+
+    public void setClearLowQuantity(Integer clearLowQuantity) {
+        this.clearLowQuantity = clearLowQuantity;
+    }
+}
@@ -0,0 +1,42 @@
+package lv.janis.iom.dto.response;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record BulkAdjustmentResponse(
+    @Schema(description = "Number of lines in the request", example = "3") int requested,
+    @Schema(description = "Number of lines applied", example = "2") int applied,
+    @Schema(description = "Number of lines left unapplied", example = "1") int notApplied,
+    @Schema(description = "Outcome per line, in request order") List<LineResult> results
+) {
+
+  public enum Outcome {
+    APPLIED,
+    NOT_FOUND,
+    INVALID,
+    FAILED
+  }
+
+  public record LineResult(
+      @Schema(description = "Zero-based position of the line in the request", example = "0") int line,
+      @Schema(description = "Product id", example = "42") Long productId,
+      @Schema(description = "What happened to the line", example = "APPLIED") Outcome outcome,
+      @Schema(description = "Quantity after the line was applied; null when not applied", example = "95") Integer quantity,
+      @Schema(description = "Available quantity after the line was applied; null when not applied", example = "90") Integer availableQuantity,
+      @Schema(description = "Why the line was not applied", example = "not enough available quantity to decrease") String message
+  ) {
+    public static LineResult applied(int line, Long productId, int quantity, int availableQuantity) {
+      return new LineResult(line, productId, Outcome.APPLIED, quantity, availableQuantity, null);
+    }
+
+    public static LineResult rejected(int line, Long productId, Outcome outcome, String message) {
+      return new LineResult(line, productId, outcome, null, null, message);
+    }
+  }
+
+  public static BulkAdjustmentResponse of(List<LineResult> results) {
+    int applied = (int) results.stream().filter(r -> r.outcome() == Outcome.APPLIED).count();
+    return new BulkAdjustmentResponse(results.size(), applied, results.size() - applied, List.copyOf(results));
+  }
+}
@@ -0,0 +1,43 @@
+package lv.janis.iom.dto.response;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
+
+public record BulkTransitionResponse(
+    @Schema(description = "Requested transition", example = "SHIPPED") OrderTransition transition,
+    @Schema(description = "Number of distinct orders in the request", example = "3") int requested,
+    @Schema(description = "Number of orders moved", example = "2") int applied,
+    @Schema(description = "Number of orders left unchanged", example = "1") int notApplied,
+    @Schema(description = "Outcome per order, in request order") List<OrderResult> results
+) {
+
+  public enum Outcome {
+    APPLIED,
+    NOT_FOUND,
+    INVALID_STATUS,
+    FAILED
+  }
+
+  public record OrderResult(
+      @Schema(description = "Order id", example = "1001") Long orderId,
+      @Schema(description = "What happened to the order", example = "APPLIED") Outcome outcome,
+      @Schema(description = "Order status after the request; null when the order was not found", example = "SHIPPED") OrderStatus status,
+      @Schema(description = "Why the order was not moved", example = "Only orders in PROCESSING status can be moved to SHIPPED") String message
+  ) {
+    public static OrderResult applied(Long orderId, OrderStatus status) {
+      return new OrderResult(orderId, Outcome.APPLIED, status, null);
+    }
+
+    public static OrderResult rejected(Long orderId, Outcome outcome, OrderStatus status, String message) {
+      return new OrderResult(orderId, outcome, status, message);
+    }
+  }
+
+  public static BulkTransitionResponse of(OrderTransition transition, List<OrderResult> results) {
+    int applied = (int) results.stream().filter(r -> r.outcome() == Outcome.APPLIED).count();
+    return new BulkTransitionResponse(transition, results.size(), applied, results.size() - applied, List.copyOf(results));
+  }
+}
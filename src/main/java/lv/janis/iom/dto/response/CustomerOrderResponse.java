@@ -4,7 +4,6 @@ import java.time.Instant;
 import java.util.List;
 
 import lv.janis.iom.entity.CustomerOrder;
-import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.enums.FailureCode;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -12,7 +11,7 @@ public record CustomerOrderResponse(
         @Schema(description = "Order id", example = "1001") Long id,
         @Schema(description = "Order status", example = "CREATED") String status,
         @Schema(description = "Total amount for the order", example = "149.99") BigDecimal totalAmount,
-        @Schema(description = "Order line items") List<OrderItem> items,
+        @Schema(description = "Order line items") List<OrderLineResponse> items,
         @Schema(description = "Creation timestamp") Instant createdAt,
         @Schema(description = "Last update timestamp") Instant updatedAt,
         @Schema(description = "Failure code for rejected/failed orders", example = "OUT_OF_STOCK") FailureCode failureCode,
@@ -21,11 +20,15 @@ public record CustomerOrderResponse(
         @Schema(description = "Timestamp when order was marked failed or rejected") Instant failedAt
 ) {
     public static CustomerOrderResponse from(CustomerOrder order) {
+        return from(order, order.getItems().stream().map(OrderLineResponse::from).toList());
+    }
+
+    public static CustomerOrderResponse from(CustomerOrder order, List<OrderLineResponse> items) {
         return new CustomerOrderResponse(
                 order.getId(),
                 order.getStatus().name(),
                 order.getTotalAmount(),
-                order.getItems(),
+                items,
                 order.getCreatedAt(), 
                 order.getUpdatedAt(),
                 order.getFailureCode(),
@@ -0,0 +1,33 @@
+package lv.janis.iom.dto.response;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record ExternalOrderIngestStatusResponse(
+    @Schema(description = "Tracking id returned when the request was accepted") UUID trackingId,
+    @Schema(description = "Ingest state", example = "ACCEPTED") State state,
+    @Schema(description = "External source", example = "WEB_SHOP") String source,
+    @Schema(description = "External order id", example = "EXT-100023") String externalOrderId,
+    @Schema(description = "Internal order id; null until persisted", example = "1001") Long orderId,
+    @Schema(description = "Why the order was rejected; null unless state is REJECTED") String message,
+    @Schema(description = "When the request was journaled") Instant acceptedAt
+) {
+
+  public enum State {
+    ACCEPTED,
+    PERSISTED,
+    REJECTED
+  }
+
+  public ExternalOrderIngestStatusResponse persisted(Long orderId) {
+    return new ExternalOrderIngestStatusResponse(trackingId, State.PERSISTED, source, externalOrderId, orderId,
+        null, acceptedAt);
+  }
+
+  public ExternalOrderIngestStatusResponse rejected(String message) {
+    return new ExternalOrderIngestStatusResponse(trackingId, State.REJECTED, source, externalOrderId, null,
+        message, acceptedAt);
+  }
+}
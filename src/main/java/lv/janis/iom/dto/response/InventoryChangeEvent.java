@@ -0,0 +1,9 @@
+package lv.janis.iom.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record InventoryChangeEvent(
+    @Schema(description = "Product id", example = "42") Long productId,
+    @Schema(description = "Available quantity after the change", example = "17") int availableQuantity
+) {
+}
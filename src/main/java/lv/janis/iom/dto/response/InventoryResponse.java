@@ -1,5 +1,7 @@
 package lv.janis.iom.dto.response;
 
+import java.math.BigDecimal;
+
 import lv.janis.iom.entity.Inventory;
 import lv.janis.iom.entity.Product;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,8 +13,8 @@ public class InventoryResponse {
     private String name;
     @Schema(description = "On-hand quantity", example = "120")
     private Integer quantity;
-    @Schema(description = "Product details")
-    private Product product;
+    @Schema(description = "Product summary")
+    private ProductSummaryResponse product;
     @Schema(description = "Reserved quantity", example = "10")
     private Integer reservedQuantity;
     @Schema(description = "Reorder level threshold", example = "20")
@@ -29,7 +31,7 @@ public class InventoryResponse {
         Long id,
         String name,
         Integer quantity,
-        Product product,
+        ProductSummaryResponse product,
         Integer reservedQuantity,
         Integer reorderLevel,
         Integer clearLowQuantity,
@@ -45,6 +47,31 @@ public class InventoryResponse {
         this.isLowQuantity = isLowQuantity;
     }
 
+    // Used by JPQL/criteria constructor expressions so listings skip loading Product entities
+    public InventoryResponse(
+        Long id,
+        Long productId,
+        String sku,
+        String name,
+        BigDecimal price,
+        Integer quantity,
+        Integer reservedQuantity,
+        Integer reorderLevel,
+        Integer clearLowQuantity,
+        Boolean isLowQuantity
+    ) {
+        this(
+            id,
+            name,
+            quantity,
+            new ProductSummaryResponse(productId, sku, name, price),
+            reservedQuantity,
+            reorderLevel,
+            clearLowQuantity,
+            isLowQuantity
+        );
+    }
+
     public Long getId() {
         return id;
     }
@@ -68,10 +95,10 @@ public class InventoryResponse {
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
     }
-    public Product getProduct() {
+    public ProductSummaryResponse getProduct() {
         return product;
     }
-    public void setProduct(Product product) {
+    public void setProduct(ProductSummaryResponse product) {
         this.product = product;
     }
     public Integer getReservedQuantity() {
@@ -107,7 +134,7 @@ public class InventoryResponse {
             inventory.getId(),
             name,
             inventory.getQuantity(),
-            product,
+            ProductSummaryResponse.from(product),
             inventory.getReservedQuantity(),
             inventory.getReorderLevel(),
             inventory.getClearLowQuantity(),
@@ -0,0 +1,13 @@
+package lv.janis.iom.dto.response;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record KeysetPageResponse<T>(
+    @Schema(description = "Items in this page") List<T> content,
+    @Schema(description = "Requested page size", example = "100") int size,
+    @Schema(description = "Pass as afterId to fetch the next page; null when there are no more items", example = "2045") Long nextAfterId,
+    @Schema(description = "Whether more items follow this page", example = "true") boolean hasNext
+) {
+}
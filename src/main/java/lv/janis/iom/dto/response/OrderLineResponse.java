@@ -0,0 +1,38 @@
+package lv.janis.iom.dto.response;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lv.janis.iom.entity.OrderItem;
+
+public record OrderLineResponse(
+    @JsonIgnore @Schema(hidden = true) Long orderId,
+    @Schema(description = "Order item id", example = "501") Long id,
+    @Schema(description = "Product id", example = "42") Long productId,
+    @Schema(description = "Product SKU", example = "SKU-ABC-001") String sku,
+    @Schema(description = "Ordered quantity", example = "2") Integer quantity,
+    @Schema(description = "Unit price at order time", example = "19.99") BigDecimal unitPrice,
+    @Schema(description = "Unit price multiplied by quantity", example = "39.98") BigDecimal lineTotal
+) {
+    // Used by the JPQL constructor expression in OrderItemRepository
+    public OrderLineResponse(Long orderId, Long id, Long productId, String sku, Integer quantity,
+            BigDecimal unitPrice) {
+        this(orderId, id, productId, sku, quantity, unitPrice,
+                unitPrice.multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    public static OrderLineResponse from(OrderItem item) {
+        var product = item.getProduct();
+        return new OrderLineResponse(
+            null,
+            item.getId(),
+            product.getId(),
+            product.getSku(),
+            item.getQuantity(),
+            item.getPriceAtOrderTime(),
+            item.getTotalPrice()
+        );
+    }
+}
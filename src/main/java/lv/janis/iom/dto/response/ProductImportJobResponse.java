@@ -0,0 +1,36 @@
+package lv.janis.iom.dto.response;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record ProductImportJobResponse(
+    @Schema(description = "Import job id") UUID jobId,
+    @Schema(description = "Job state", example = "RUNNING") State state,
+    @Schema(description = "Rows read from the file so far", example = "120000") long rowsRead,
+    @Schema(description = "Products created", example = "80000") long created,
+    @Schema(description = "Existing products updated", example = "39000") long updated,
+    @Schema(description = "Inventory rows created", example = "80000") long inventoriesCreated,
+    @Schema(description = "Rows skipped because they were invalid or conflicted", example = "1000") long failed,
+    @Schema(description = "Why the whole job failed; null unless state is FAILED") String message,
+    @Schema(description = "When the job started") Instant startedAt,
+    @Schema(description = "When the job finished; null while running") Instant finishedAt,
+    @Schema(description = "Skipped rows, up to the configured limit") List<RowError> errors
+) {
+
+  public enum State {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  public record RowError(
+      @Schema(description = "Line in the file where the row starts", example = "42") long line,
+      @Schema(description = "SKU of the row when it could be read", example = "SKU-ABC-001") String sku,
+      @Schema(description = "Why the row was skipped", example = "Product with name Widget A already exists.") String message
+  ) {
+  }
+}
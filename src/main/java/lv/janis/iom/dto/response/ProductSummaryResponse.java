@@ -0,0 +1,23 @@
+package lv.janis.iom.dto.response;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lv.janis.iom.entity.Product;
+
+public record ProductSummaryResponse(
+    @Schema(description = "Product id", example = "42") Long id,
+    @Schema(description = "Product SKU", example = "SKU-ABC-001") String sku,
+    @Schema(description = "Product name", example = "Widget A") String name,
+    @Schema(description = "Unit price", example = "19.99") BigDecimal price
+) {
+    public static ProductSummaryResponse from(Product product) {
+        if (product == null) return null;
+        return new ProductSummaryResponse(
+            product.getId(),
+            product.getSku(),
+            product.getName(),
+            product.getPrice()
+        );
+    }
+}
@@ -0,0 +1,37 @@
+package lv.janis.iom.dto.response;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.entity.InventoryReservationShard;
+
+public record ReservationShardsResponse(
+    @Schema(description = "Product id", example = "42") Long productId,
+    @Schema(description = "Number of reservation shards, 0 when sharding is off", example = "8") int shardCount,
+    @Schema(description = "Available quantity across the parent row and all shards", example = "120") int availableQuantity,
+    @Schema(description = "Quantity reserved by orders", example = "30") int reservedQuantity,
+    @Schema(description = "Per-shard budgets") List<Shard> shards
+) {
+    public record Shard(
+        @Schema(description = "Shard index", example = "0") int index,
+        @Schema(description = "Unreserved budget held by the shard", example = "15") int available,
+        @Schema(description = "Reservations taken from the shard", example = "4") int reserved
+    ) {
+    }
+
+    public static ReservationShardsResponse from(Long productId, Inventory inventory,
+            List<InventoryReservationShard> shards) {
+        // shard reservations not yet folded into the parent row
+        int unfolded = shards.stream().mapToInt(InventoryReservationShard::getReserved).sum();
+        return new ReservationShardsResponse(
+            productId,
+            inventory.getReservationShards(),
+            inventory.getAvailableQuantity() - unfolded,
+            inventory.getReservedQuantity() + unfolded,
+            shards.stream()
+                .map(shard -> new Shard(shard.getShardIndex(), shard.getAvailable(), shard.getReserved()))
+                .toList()
+        );
+    }
+}
@@ -15,6 +15,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -22,7 +23,12 @@ import lv.janis.iom.enums.AlertType;
 
 @Entity(name = "Alert")
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "alerts")
+@Table(
+    name = "alerts",
+    indexes = {
+        @Index(name = "idx_alert_acknowledged_created", columnList = "acknowledged_at, created_at")
+    }
+)
 public class Alert {
 
     @Id
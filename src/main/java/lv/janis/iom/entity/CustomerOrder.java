@@ -3,6 +3,7 @@ package lv.janis.iom.entity;
 import lv.janis.iom.enums.ExternalOrderSource;
 import lv.janis.iom.enums.FailureCode;
 import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -22,7 +23,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 }, indexes = {
         @Index(name = "idx_customer_order_status", columnList = "status"),
         @Index(name = "idx_customer_order_created_at", columnList = "created_at"),
-        @Index(name = "idx_order_source_external_id", columnList = "source, external_order_id")
+        @Index(name = "idx_order_source_external_id", columnList = "source, external_order_id"),
+        @Index(name = "idx_customer_order_reservation_expiry", columnList = "status, reservation_expires_at")
 })
 public class CustomerOrder {
     @Id
@@ -73,6 +75,9 @@ public class CustomerOrder {
     @Column(name = "failed_at", nullable = true)
     private Instant failedAt;
 
+    @Column(name = "reservation_expires_at", nullable = true)
+    private Instant reservationExpiresAt;
+
     protected CustomerOrder() {
     }
 
@@ -154,8 +159,28 @@ public class CustomerOrder {
         this.failedAt = failedAt;
     }
 
+    public Instant getReservationExpiresAt() {
+        return reservationExpiresAt;
+    }
+
+    public void setReservationExpiresAt(Instant reservationExpiresAt) {
+        if (status != OrderStatus.PROCESSING) {
+            throw new IllegalStateException("Only PROCESSING orders hold a reservation");
+        }
+        this.reservationExpiresAt = reservationExpiresAt;
+    }
+
+    public boolean isReservationExpired(Instant now) {
+        return status == OrderStatus.PROCESSING
+                && reservationExpiresAt != null
+                && !reservationExpiresAt.isAfter(now);
+    }
+
     public void setStatus(OrderStatus status) {
         this.status = status;
+        if (status != OrderStatus.PROCESSING) {
+            this.reservationExpiresAt = null;
+        }
     }
 
     public void setSource(ExternalOrderSource source) {
@@ -176,6 +201,9 @@ public class CustomerOrder {
         if (externalOrderId == null || externalOrderId.isBlank()) {
             throw new IllegalArgumentException("External Order ID required");
         }
+        if (externalOrderId.length() > 64) {
+            throw new IllegalArgumentException("External Order ID must be at most 64 characters");
+        }
         ensureModifiable();
         this.externalOrderId = externalOrderId;
     }
@@ -184,6 +212,9 @@ public class CustomerOrder {
         if (shippingAddress == null || shippingAddress.isBlank()) {
             throw new IllegalArgumentException("Shipping address cannot be null or blank");
         }
+        if (shippingAddress.length() > 128) {
+            throw new IllegalArgumentException("Shipping address must be at most 128 characters");
+        }
         ensureModifiable();
         this.shippingAddress = shippingAddress;
     }
@@ -218,34 +249,15 @@ public class CustomerOrder {
         this.totalAmount = sum;
     }
 
-    public void markProcessing() {
-        if (status != OrderStatus.CREATED)
-            throw new IllegalStateException("Only CREATED can go to PROCESSING");
-        status = OrderStatus.PROCESSING;
-    }
-
-    public void markShipped() {
-        if (status != OrderStatus.PROCESSING)
-            throw new IllegalStateException("Only PROCESSING can go to SHIPPED");
-        status = OrderStatus.SHIPPED;
-    }
-
-    public void markDelivered() {
-        if (status != OrderStatus.SHIPPED)
-            throw new IllegalStateException("Only SHIPPED can go to DELIVERED");
-        status = OrderStatus.DELIVERED;
-    }
-
-    public void markCancelled() {
-        if (status == OrderStatus.SHIPPED || status == OrderStatus.DELIVERED)
-            throw new IllegalStateException("Cannot cancel after shipped");
-        status = OrderStatus.CANCELLED;
-    }
-
-    public void markReturned() {
-        if (status != OrderStatus.DELIVERED)
-            throw new IllegalStateException("Only DELIVERED can go to RETURNED");
-        status = OrderStatus.RETURNED;
+    public void apply(OrderTransition transition) {
+        if (transition == null) {
+            throw new IllegalArgumentException("transition required");
+        }
+        transition.stockEffectFrom(status);
+        status = transition.target();
+        if (status != OrderStatus.PROCESSING) {
+            reservationExpiresAt = null;
+        }
     }
 
     private void ensureModifiable() {
@@ -0,0 +1,105 @@
+package lv.janis.iom.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse.State;
+
+// Final outcome of an asynchronously ingested order, kept after its journal record is compacted
+@Entity(name = "ExternalOrderIngestResult")
+@Table(name = "external_order_ingest_results", indexes = {
+        @Index(name = "idx_ingest_result_finished_at", columnList = "finished_at")
+})
+public class ExternalOrderIngestResult {
+    public static final int MESSAGE_LENGTH = 500;
+
+    @Id
+    @Column(name = "tracking_id", length = 36)
+    private String trackingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private State state;
+
+    @Column(length = 32)
+    private String source;
+
+    @Column(name = "external_order_id", length = 64)
+    private String externalOrderId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(length = MESSAGE_LENGTH)
+    private String message;
+
+    @Column(name = "accepted_at", nullable = false)
+    private Instant acceptedAt;
+
+    @Column(name = "finished_at", nullable = false)
+    private Instant finishedAt;
+
+    protected ExternalOrderIngestResult() {
+    }
+
+    public static ExternalOrderIngestResult of(ExternalOrderIngestStatusResponse status, Instant finishedAt) {
+        var result = new ExternalOrderIngestResult();
+        result.trackingId = status.trackingId().toString();
+        result.state = status.state();
+        result.source = status.source();
+        result.externalOrderId = status.externalOrderId();
+        result.orderId = status.orderId();
+        var message = status.message();
+        result.message = message != null && message.length() > MESSAGE_LENGTH
+                ? message.substring(0, MESSAGE_LENGTH)
+                : message;
+        result.acceptedAt = status.acceptedAt();
+        result.finishedAt = finishedAt;
+        return result;
+    }
+
+    public ExternalOrderIngestStatusResponse toResponse() {
+        return new ExternalOrderIngestStatusResponse(UUID.fromString(trackingId), state, source,
+                externalOrderId, orderId, message, acceptedAt);
+    }
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getExternalOrderId() {
+        return externalOrderId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Instant getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
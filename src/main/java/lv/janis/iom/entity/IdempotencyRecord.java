@@ -0,0 +1,124 @@
+package lv.janis.iom.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lv.janis.iom.enums.IdempotencyStatus;
+
+@Entity(name = "IdempotencyRecord")
+@Table(name = "idempotency_keys", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_idempotency_key", columnNames = { "idempotency_key" })
+}, indexes = {
+    @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+})
+public class IdempotencyRecord {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "idempotency_key", nullable = false, length = 128)
+  private String idempotencyKey;
+
+  // SHA-256 of method, path and body; a reused key with a different request is rejected
+  @Column(nullable = false, length = 64)
+  private String fingerprint;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private IdempotencyStatus status;
+
+  private Integer responseStatus;
+
+  @Column(length = 100)
+  private String responseContentType;
+
+  @Column(length = 512)
+  private String responseLocation;
+
+  @Lob
+  private String responseBody;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+
+  // random per claim; refreshed lockedAt and the final response are only written by this owner
+  @Column(name = "owner_token", nullable = false, length = 36)
+  private String ownerToken;
+
+  @Column(nullable = false)
+  private Instant lockedAt;
+
+  private Instant completedAt;
+
+  protected IdempotencyRecord() {
+  }
+
+  public static IdempotencyRecord inProgress(String idempotencyKey, String fingerprint, String ownerToken) {
+    var record = new IdempotencyRecord();
+    record.idempotencyKey = idempotencyKey;
+    record.fingerprint = fingerprint;
+    record.ownerToken = ownerToken;
+    record.status = IdempotencyStatus.IN_PROGRESS;
+    record.createdAt = Instant.now();
+    record.lockedAt = record.createdAt;
+    return record;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public IdempotencyStatus getStatus() {
+    return status;
+  }
+
+  public Integer getResponseStatus() {
+    return responseStatus;
+  }
+
+  public String getResponseContentType() {
+    return responseContentType;
+  }
+
+  public String getResponseLocation() {
+    return responseLocation;
+  }
+
+  public String getResponseBody() {
+    return responseBody;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public String getOwnerToken() {
+    return ownerToken;
+  }
+
+  public Instant getLockedAt() {
+    return lockedAt;
+  }
+
+  public Instant getCompletedAt() {
+    return completedAt;
+  }
+}
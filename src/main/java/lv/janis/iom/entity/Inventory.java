@@ -9,13 +9,20 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import jakarta.persistence.*;
 import lv.janis.iom.enums.FailureCode;
 import lv.janis.iom.exception.BusinessException;
+import lv.janis.iom.service.stream.InventoryChangeListener;
 
 @Entity(name = "Inventory")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({ AuditingEntityListener.class, InventoryChangeListener.class })
 @Table (
     name = "inventory",
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_inventory_product_id", columnNames = {"product_id"})
+    },
+    indexes = {
+        @Index(name = "idx_inventory_available_quantity", columnList = "available_quantity"),
+        @Index(name = "idx_inventory_low_quantity", columnList = "is_low_quantity, available_quantity"),
+        @Index(name = "idx_inventory_in_stock", columnList = "in_stock, id"),
+        @Index(name = "idx_inventory_reservation_shards", columnList = "reservation_shards")
     }
 )
 public class Inventory {
@@ -34,6 +41,29 @@ public class Inventory {
     @Column(nullable = false)
     private Integer reservedQuantity;
 
+    // Denormalized quantity - reservedQuantity so stock filters can use an index
+    @Column(name = "available_quantity", nullable = false)
+    private int availableQuantity;
+
+    // Denormalized quantity > 0 so the in-stock listing can page through an index by id
+    @Column(name = "in_stock", nullable = false)
+    private boolean inStock;
+
+    // Number of InventoryReservationShard rows holding this product's unreserved stock; 0 when not sharded.
+    @Column(name = "reservation_shards", nullable = false)
+    private int reservationShards = 0;
+
+    // Stock carved out into shard rows: their budgets plus the reservations taken from them that
+    // are not yet folded into reservedQuantity. Budgets stay counted as available, so only
+    // quantity - reservedQuantity - shardedQuantity can be reserved or removed on this row.
+    @Column(name = "sharded_quantity", nullable = false)
+    private int shardedQuantity = 0;
+
+    // Sequence of the last reservation-ledger record applied to this row; replaying the log
+    // skips records at or below it, so recovery is idempotent.
+    @Column(name = "ledger_seq", nullable = false)
+    private long ledgerSeq = 0;
+
     @Version
     private Long version;
 
@@ -51,7 +81,7 @@ public class Inventory {
     @Column(nullable = false)
     private int clearLowQuantity = 0;
 
-    @Column(nullable = false)
+    @Column(name = "is_low_quantity", nullable = false)
     private boolean isLowQuantity = false;
 
     protected Inventory() {
@@ -61,6 +91,7 @@ public class Inventory {
         this.product = product;
         this.quantity = 0;
         this.reservedQuantity = 0;
+        syncStockColumns();
     }
 
     private Inventory(Product product, int quantity, int reorderLevel, int clearLowQuantity) {
@@ -73,6 +104,7 @@ public class Inventory {
         this.reservedQuantity = 0;
         this.reorderLevel = reorderLevel;
         this.clearLowQuantity = clearLowQuantity;
+        syncStockColumns();
     }
 
     public static Inventory createFor(Product product) {
@@ -127,7 +159,80 @@ public class Inventory {
     }
 
 
-    @Transient
+    public int getReservationShards() {
+        return reservationShards;
+    }
+
+    public boolean isReservationSharded() {
+        return reservationShards > 0;
+    }
+
+    public void enableReservationShards(int shardCount) {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be positive");
+        this.reservationShards = shardCount;
+    }
+
+    // Callers fold outstanding shard reservations first; the budgets return to the row
+    public void disableReservationShards() {
+        this.reservationShards = 0;
+        this.shardedQuantity = 0;
+    }
+
+    public int getShardedQuantity() {
+        return shardedQuantity;
+    }
+
+    // Unreserved stock outside the shard rows
+    public int getUnshardedAvailable() {
+        return quantity - reservedQuantity - shardedQuantity;
+    }
+
+    public void setShardedQuantity(int shardedQuantity) {
+        if (shardedQuantity < 0) throw new IllegalArgumentException("shardedQuantity cannot be negative");
+        if (shardedQuantity > quantity - reservedQuantity) {
+            throw new IllegalArgumentException("shardedQuantity cannot exceed available quantity");
+        }
+        this.shardedQuantity = shardedQuantity;
+    }
+
+    // Moves reservations taken from shard rows into reservedQuantity
+    public void foldShardReservations(int amount) {
+        if (amount <= 0) throw new IllegalArgumentException("amount must be positive");
+        if (amount > this.shardedQuantity) {
+            throw new IllegalArgumentException("not enough sharded quantity to fold");
+        }
+        this.shardedQuantity -= amount;
+        this.reservedQuantity += amount;
+        syncStockColumns();
+    }
+
+    // Removes stock that was taken out of shard rows, either fulfilled reservations or budget
+    public void removeShardedQuantity(int amount) {
+        if (amount <= 0) throw new IllegalArgumentException("amount must be positive");
+        if (amount > this.shardedQuantity) {
+            throw new IllegalArgumentException("not enough sharded quantity to remove");
+        }
+        this.shardedQuantity -= amount;
+        this.quantity -= amount;
+        syncStockColumns();
+    }
+
+    public long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public void applyLedgerReservation(long seq, int delta) {
+        if (seq <= this.ledgerSeq) {
+            return;
+        }
+        if (delta > 0) {
+            reserveQuantity(delta);
+        } else if (delta < 0) {
+            unreserveQuantity(-delta);
+        }
+        this.ledgerSeq = seq;
+    }
+
     public int getAvailableQuantity() {
         return quantity - reservedQuantity;
     }
@@ -135,22 +240,25 @@ public class Inventory {
     public void increaseQuantity(int amount) {
         if (amount <= 0) throw new IllegalArgumentException("amount must be positive");
         this.quantity += amount;
+        syncStockColumns();
     }
 
     public void decreaseQuantity(int amount) {
         if (amount <= 0) throw new IllegalArgumentException("amount must be positive");
-        if (amount > this.quantity - this.reservedQuantity) {
+        if (amount > getUnshardedAvailable()) {
             throw new IllegalArgumentException("not enough available quantity to decrease");
         }
         this.quantity -= amount;
+        syncStockColumns();
     }
 
     public void reserveQuantity(int amount) {
         if (amount <= 0) throw new IllegalArgumentException("amount must be positive");
-        if (amount > this.quantity - this.reservedQuantity) {
+        if (amount > getUnshardedAvailable()) {
             throw new BusinessException(FailureCode.OUT_OF_STOCK, "not enough available quantity to reserve");
         }
         this.reservedQuantity += amount;
+        syncStockColumns();
     }
 
     public void unreserveQuantity(int amount) {
@@ -159,6 +267,7 @@ public class Inventory {
             throw new IllegalArgumentException("not enough reserved quantity to unreserve");
         }
         this.reservedQuantity -= amount;
+        syncStockColumns();
     }
 
     public void deductReservedQuantity(int amount) {
@@ -168,7 +277,13 @@ public class Inventory {
         }
         this.reservedQuantity -= amount;
         this.quantity -= amount;
+        syncStockColumns();
     }
 
- 
+    @PrePersist
+    @PreUpdate
+    private void syncStockColumns() {
+        this.availableQuantity = quantity - reservedQuantity;
+        this.inStock = quantity > 0;
+    }
 }
@@ -0,0 +1,84 @@
+package lv.janis.iom.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Slice of a hot product's unreserved stock. Reservations decrement one shard with a
+ * conditional update, so concurrent orders for the same product lock different rows
+ * instead of all queueing on the parent inventory row.
+ */
+@Entity(name = "InventoryReservationShard")
+@Table(
+    name = "inventory_reservation_shards",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_reservation_shard_inventory_index", columnNames = {"inventory_id", "shard_index"})
+    }
+)
+public class InventoryReservationShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false)
+    private Inventory inventory;
+
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+
+    // Budget carved out of the parent's available stock that this shard can still hand out
+    @Column(name = "available", nullable = false)
+    private int available;
+
+    // Reservations taken from this shard and not yet released, fulfilled or folded into the
+    // parent's reservedQuantity
+    @Column(name = "reserved", nullable = false)
+    private int reserved;
+
+    protected InventoryReservationShard() {
+    }
+
+    private InventoryReservationShard(Inventory inventory, int shardIndex) {
+        this.inventory = inventory;
+        this.shardIndex = shardIndex;
+    }
+
+    public static InventoryReservationShard createFor(Inventory inventory, int shardIndex) {
+        if (inventory == null) throw new IllegalArgumentException("inventory required");
+        if (shardIndex < 0) throw new IllegalArgumentException("shardIndex cannot be negative");
+        return new InventoryReservationShard(inventory, shardIndex);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+
+    public void setAvailable(int available) {
+        if (available < 0) throw new IllegalArgumentException("available cannot be negative");
+        this.available = available;
+    }
+
+    // Hands the shard's reservations over to the parent row, which counts them from now on
+    public int foldReserved() {
+        int folded = reserved;
+        this.reserved = 0;
+        return folded;
+    }
+}
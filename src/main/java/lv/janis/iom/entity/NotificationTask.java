@@ -15,15 +15,26 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import lv.janis.iom.enums.NotificationTaskStatus;
 
 @Entity(name = "NotificationTask")
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "notification_tasks")
+@Table(
+    name = "notification_tasks",
+    indexes = {
+        @Index(name = "idx_notification_task_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_notification_task_status_partition", columnList = "status, lease_partition, next_attempt_at")
+    }
+)
 public class NotificationTask {
+    // fixed in code so every node splits the tasks the same way
+    public static final int PARTITIONS = 16;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -36,6 +47,10 @@ public class NotificationTask {
     @JoinColumn(name = "inventory_id", nullable = false)    
     private Inventory inventory;
 
+    // Inventory id modulo PARTITIONS, stored so each node's due-task query stays on an index
+    @Column(name = "lease_partition", nullable = false)
+    private int leasePartition;
+
     private int attempts = 0;
 
     @Enumerated(EnumType.STRING)
@@ -54,6 +69,14 @@ public class NotificationTask {
     public NotificationTask(Inventory inventory) {
         this.inventory = inventory;
         this.nextAttemptAt = Instant.now();
+        assignPartition();
+    }
+
+    @PrePersist
+    private void assignPartition() {
+        if (inventory != null && inventory.getId() != null) {
+            this.leasePartition = (int) Math.floorMod(inventory.getId(), (long) PARTITIONS);
+        }
     }
 
     public Long getId() {
@@ -65,6 +88,9 @@ public class NotificationTask {
     public Inventory getInventory() {
         return inventory;
     }
+    public int getLeasePartition() {
+        return leasePartition;
+    }
     public int getAttempts() {
         return attempts;
     }
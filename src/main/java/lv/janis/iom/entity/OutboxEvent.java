@@ -9,13 +9,20 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import lv.janis.iom.enums.OutboxEventStatus;
 import lv.janis.iom.enums.OutboxEventType;
 
 @Entity(name = "OutboxEvent")
-@Table(name = "outbox_events")
+@Table(
+    name = "outbox_events",
+    indexes = {
+        @Index(name = "idx_outbox_status_available", columnList = "status, available_at"),
+        @Index(name = "idx_outbox_aggregate_status", columnList = "aggregated_id, status")
+    }
+)
 public class OutboxEvent {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,38 @@
+package lv.janis.iom.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Marks the reservation log records [firstSeq, lastSeq] as committed; see ReservationLedger
+@Entity(name = "ReservationLedgerCommit")
+@Table(name = "reservation_ledger_commits")
+public class ReservationLedgerCommit {
+    @Id
+    @Column(name = "first_seq")
+    private long firstSeq;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    protected ReservationLedgerCommit() {
+    }
+
+    public ReservationLedgerCommit(long firstSeq, long lastSeq) {
+        this.firstSeq = firstSeq;
+        this.lastSeq = lastSeq;
+    }
+
+    public long getFirstSeq() {
+        return firstSeq;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public boolean covers(long seq) {
+        return firstSeq <= seq && seq <= lastSeq;
+    }
+}
@@ -0,0 +1,57 @@
+package lv.janis.iom.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Rows are created and moved between owners by conditional updates in SchedulerLeaseRepository
+@Entity(name = "SchedulerLease")
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    // empty until first acquired
+    @Column(nullable = false, length = 100)
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "renewed_at", nullable = false)
+    private Instant renewedAt;
+
+    protected SchedulerLease() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Instant getRenewedAt() {
+        return renewedAt;
+    }
+
+    public boolean isLive(Instant now) {
+        return !owner.isEmpty() && expiresAt.isAfter(now);
+    }
+}
@@ -14,6 +14,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -23,7 +24,13 @@ import lv.janis.iom.enums.MovementType;
 
 @Entity(name = "StockMovement")
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "stock_movements")
+@Table(
+    name = "stock_movements",
+    indexes = {
+        @Index(name = "idx_stock_movement_inventory_created", columnList = "inventory_id, created_at"),
+        @Index(name = "idx_stock_movement_order_id", columnList = "order_id")
+    }
+)
 public class StockMovement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,6 @@
+package lv.janis.iom.enums;
+
+public enum IdempotencyStatus {
+  IN_PROGRESS,
+  COMPLETED
+}
@@ -0,0 +1,90 @@
+package lv.janis.iom.enums;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The order state machine. Each transition lists the statuses it may start from and the
+ * stock effect it has when started from that status.
+ */
+public enum OrderTransition {
+    PROCESSING(OrderStatus.PROCESSING, true, Map.of(
+            OrderStatus.CREATED, StockEffect.RESERVE)),
+    SHIPPED(OrderStatus.SHIPPED, false, Map.of(
+            OrderStatus.PROCESSING, StockEffect.FULFILL)),
+    DELIVERED(OrderStatus.DELIVERED, false, Map.of(
+            OrderStatus.SHIPPED, StockEffect.NONE)),
+    CANCELLED(OrderStatus.CANCELLED, false, Map.of(
+            OrderStatus.CREATED, StockEffect.NONE,
+            OrderStatus.PROCESSING, StockEffect.RELEASE,
+            OrderStatus.REJECTED, StockEffect.NONE,
+            OrderStatus.FAILED, StockEffect.NONE)),
+    RETURNED(OrderStatus.RETURNED, false, Map.of(
+            OrderStatus.DELIVERED, StockEffect.RESTOCK));
+
+    public enum StockEffect {
+        NONE,
+        RESERVE,
+        FULFILL,
+        RELEASE,
+        RESTOCK
+    }
+
+    private final OrderStatus target;
+    private final boolean requiresItems;
+    private final Map<OrderStatus, StockEffect> effectsBySource;
+
+    OrderTransition(OrderStatus target, boolean requiresItems, Map<OrderStatus, StockEffect> effectsBySource) {
+        this.target = target;
+        this.requiresItems = requiresItems;
+        this.effectsBySource = Collections.unmodifiableMap(new EnumMap<>(effectsBySource));
+    }
+
+    public static OrderTransition fromPath(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("transition is required");
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown order transition: " + value);
+        }
+    }
+
+    public OrderStatus target() {
+        return target;
+    }
+
+    public boolean requiresItems() {
+        return requiresItems;
+    }
+
+    public Set<OrderStatus> sources() {
+        return effectsBySource.keySet();
+    }
+
+    public boolean allowedFrom(OrderStatus status) {
+        return effectsBySource.containsKey(status);
+    }
+
+    public StockEffect stockEffectFrom(OrderStatus status) {
+        var effect = effectsBySource.get(status);
+        if (effect == null) {
+            throw new IllegalStateException(rejectionMessage(status));
+        }
+        return effect;
+    }
+
+    public String rejectionMessage(OrderStatus status) {
+        if (status == target) {
+            return "Order is already " + target;
+        }
+        if (effectsBySource.size() == 1) {
+            return "Only orders in " + sources().iterator().next() + " status can be moved to " + target;
+        }
+        return "Orders in " + status + " status cannot be moved to " + target;
+    }
+}
@@ -0,0 +1,28 @@
+package lv.janis.iom.exception;
+
+public class AdmissionRejectedException extends RuntimeException {
+
+  public enum Reason {
+    RATE_LIMITED,
+    CONCURRENCY_LIMITED,
+    POOL_SATURATED,
+    OUTBOX_BACKLOG
+  }
+
+  private final Reason reason;
+  private final long retryAfterSeconds;
+
+  public AdmissionRejectedException(Reason reason, long retryAfterSeconds, String message) {
+    super(message);
+    this.reason = reason;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
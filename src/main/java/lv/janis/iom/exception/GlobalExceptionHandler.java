@@ -1,11 +1,13 @@
 package lv.janis.iom.exception;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -98,6 +100,20 @@ public class GlobalExceptionHandler {
             .body(ApiError.conflict(req.getRequestURI(), "Data integrity violation"));
     }
 
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    public ResponseEntity<ApiError> handleUnsupportedMediaType(HttpMediaTypeNotSupportedException ex,
+                                                               HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+            .body(ApiError.unsupportedMediaType(req.getRequestURI(), ex.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ApiError> handleRejectedExecution(RejectedExecutionException ex,
+                                                            HttpServletRequest req) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(ApiError.serviceUnavailable(req.getRequestURI(), ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleUnexpected(Exception ex,
                                                      HttpServletRequest req) {
@@ -125,9 +141,24 @@ public class GlobalExceptionHandler {
         public static ApiError conflict(String path, String message) {
             return new ApiError("CONFLICT", message, path, List.of());
         }
+        public static ApiError unprocessable(String path, String message) {
+            return new ApiError("UNPROCESSABLE_ENTITY", message, path, List.of());
+        }
+        public static ApiError unsupportedMediaType(String path, String message) {
+            return new ApiError("UNSUPPORTED_MEDIA_TYPE", message, path, List.of());
+        }
         public static ApiError notFound(String path, String message) {
             return new ApiError("NOT_FOUND", message, path, List.of());
         }
+        public static ApiError payloadTooLarge(String path, String message) {
+            return new ApiError("PAYLOAD_TOO_LARGE", message, path, List.of());
+        }
+        public static ApiError tooManyRequests(String path, String message) {
+            return new ApiError("TOO_MANY_REQUESTS", message, path, List.of());
+        }
+        public static ApiError serviceUnavailable(String path, String message) {
+            return new ApiError("SERVICE_UNAVAILABLE", message, path, List.of());
+        }
         public static ApiError internal(String path, String message) {
             return new ApiError("INTERNAL_ERROR", message, path, List.of());
         }
@@ -2,12 +2,15 @@ package lv.janis.iom.notification;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import jakarta.transaction.Transactional;
+import lv.janis.iom.entity.NotificationTask;
 import lv.janis.iom.enums.NotificationTaskStatus;
 import lv.janis.iom.repository.NotificationTaskRepository;
+import lv.janis.iom.service.lease.SchedulerLeases;
 
 /**
  * Scheduled processor for pending notification tasks.
@@ -16,29 +19,52 @@ import lv.janis.iom.repository.NotificationTaskRepository;
 @Component
 public class NotificationTaskProcessor {
     private static final Logger log = LoggerFactory.getLogger(NotificationTaskProcessor.class);
+    static final int PARTITIONS = NotificationTask.PARTITIONS;
+    static final String LEASE_JOB = "notification-tasks";
     private final NotificationTaskRepository notificationTaskRepository;
     private final NotificationSender notificationSender;
+    private final SchedulerLeases schedulerLeases;
 
     public NotificationTaskProcessor(
         NotificationTaskRepository notificationTaskRepository,
-        NotificationSender notificationSender) {
+        NotificationSender notificationSender,
+        SchedulerLeases schedulerLeases) {
         this.notificationTaskRepository = notificationTaskRepository;
         this.notificationSender = notificationSender;
+        this.schedulerLeases = schedulerLeases;
     }
 
     /**
      * Processes pending tasks in batches of 50 using the configured delay.
      * Successful sends are marked SENT; failures are re-queued with backoff.
+     * Tasks are split into {@link #PARTITIONS} partitions by inventory id, and each node only
+     * processes the partitions it holds a lease on. Once the rows are locked the leases are
+     * confirmed against the database, so a node that was paused past its lease skips tasks of
+     * partitions another node has taken over.
      */
     @Scheduled(fixedDelayString = "${notification.task.processor.delay-ms:5000}")
     @Transactional
     public void processPendingTasks() {
+        var partitions = schedulerLeases.partitions(LEASE_JOB, PARTITIONS);
+        if (partitions.isEmpty()) {
+            return;
+        }
         var now = java.time.Instant.now();
-        var tasks = notificationTaskRepository
-            .findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
-                NotificationTaskStatus.PENDING, now);
+        var tasks = partitions.size() == PARTITIONS
+            ? notificationTaskRepository
+                .findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
+                    NotificationTaskStatus.PENDING, now)
+            : notificationTaskRepository.findDueInPartitions(
+                NotificationTaskStatus.PENDING, now, partitions.keySet(), PageRequest.of(0, 50));
+        if (tasks.isEmpty()) {
+            return;
+        }
+        var confirmed = schedulerLeases.confirm(partitions);
 
         for (var task : tasks) {
+            if (!confirmed.contains(task.getLeasePartition())) {
+                continue;
+            }
             task.setStatus(NotificationTaskStatus.PROCESSING);
             try {
                 notificationSender.sendLowStockAlert(task.getInventory());
@@ -9,7 +9,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import lv.janis.iom.entity.Alert;
 import lv.janis.iom.enums.AlertType;
 
-public interface AlertRepository extends JpaRepository<Alert, Long> {
+public interface AlertRepository extends JpaRepository<Alert, Long>, AlertRepositoryCustom {
     Page<Alert> findByAlertTypeAndAcknowledgedAtIsNullOrderByCreatedAtDesc(AlertType type, Pageable pageable);
 
     Page<Alert> findByAcknowledgedAtIsNullOrderByCreatedAtDesc(Pageable pageable);
@@ -0,0 +1,12 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import lv.janis.iom.entity.Alert;
+
+public interface AlertRepositoryCustom {
+
+    // JDBC batch insert for bulk stock changes; the alerts are not persisted or managed
+    void batchInsert(Collection<Alert> alerts, Instant now);
+}
@@ -0,0 +1,38 @@
+package lv.janis.iom.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lv.janis.iom.entity.Alert;
+
+class AlertRepositoryCustomImpl implements AlertRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    AlertRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchInsert(Collection<Alert> alerts, Instant now) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        var timestamp = Timestamp.from(now);
+        var args = new ArrayList<Object[]>(alerts.size());
+        for (var alert : alerts) {
+            args.add(new Object[] { alert.getAlertType().name(), alert.getInventory().getId(), alert.getSkuSnapshot(),
+                    alert.getProductNameSnapshot(), alert.getAvailableQuantity(), alert.getThresholdSnapshot(),
+                    alert.getBufferSnapshot(), timestamp });
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into alerts (alert_type, inventory_id, sku_snapshot, product_name_snapshot, available_quantity,
+                    threshold_snapshot, buffer_snapshot, created_at)
+                values (?, ?, ?, ?, ?, ?, ?, ?)
+                """, args);
+    }
+}
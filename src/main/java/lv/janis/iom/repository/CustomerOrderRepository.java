@@ -1,29 +1,94 @@
 package lv.janis.iom.repository;
 
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.lang.NonNull;
-import org.springframework.lang.Nullable;
-
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
 import lv.janis.iom.entity.CustomerOrder;
 import lv.janis.iom.enums.ExternalOrderSource;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface CustomerOrderRepository extends JpaRepository<CustomerOrder, Long>, JpaSpecificationExecutor<CustomerOrder> {
 
-    // Fetch orders with items and their associated products to avoid N+1 problem
-    @EntityGraph(attributePaths = {"items", "items.product"})
-    @NonNull
-    Page<CustomerOrder> findAll(@Nullable Specification<CustomerOrder> spec,@NonNull Pageable pageable);
-
     Optional<CustomerOrder> findBySourceAndExternalOrderId(ExternalOrderSource source, String externalOrderId);
+
+    // Fetch plan for endpoints that render the order with its lines: items and their products
+    // come back in the same select, so nothing is left to load lazily after the transaction
+    @EntityGraph(attributePaths = { "items", "items.product" })
+    Optional<CustomerOrder> findWithItemsAndProductsById(Long id);
+
+    @Query("select coalesce(o.version, 0) from CustomerOrder o where o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Locking read: under REPEATABLE READ a plain select would not see a row committed by the
+    // transaction that won the insert race, since the snapshot predates it
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @EntityGraph(attributePaths = "items")
+    Optional<CustomerOrder> findWithItemsBySourceAndExternalOrderId(ExternalOrderSource source, String externalOrderId);
+
+    /**
+     * Inserts a CREATED order header unless one already exists for the source and external id.
+     * The unique key decides, so concurrent duplicates need no exception handling, and unlike
+     * {@code INSERT IGNORE} other errors are still raised. Returns 1 when the row was inserted.
+     * A duplicate is a no-op update and returns 0, or 1 when the driver reports found rows
+     * rather than affected rows, as MySQL Connector/J does by default.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO customer_orders
+                (status, total_amount, source, external_order_id, shipping_address, retry_count, version,
+                 created_at, updated_at)
+            VALUES ('CREATED', :totalAmount, :source, :externalOrderId, :shippingAddress, 0, 0, :now, :now)
+            ON DUPLICATE KEY UPDATE id = id
+            """, nativeQuery = true)
+    int insertExternalIfAbsent(
+            @Param("source") String source,
+            @Param("externalOrderId") String externalOrderId,
+            @Param("shippingAddress") String shippingAddress,
+            @Param("totalAmount") BigDecimal totalAmount,
+            @Param("now") Instant now);
+
+    @EntityGraph(attributePaths = "items")
+    List<CustomerOrder> findAllWithItemsByIdIn(Collection<Long> ids);
+
+    interface ReservationDeadline {
+        Long getOrderId();
+
+        Instant getExpiresAt();
+    }
+
+    // Keyset page over PROCESSING orders only (status index), used to rebuild the expiry wheel
+    @Query("""
+            select o.id as orderId, o.reservationExpiresAt as expiresAt
+            from CustomerOrder o
+            where o.status = lv.janis.iom.enums.OrderStatus.PROCESSING
+              and o.reservationExpiresAt is not null
+              and o.id > :afterId
+            order by o.id
+            """)
+    List<ReservationDeadline> findReservationDeadlinesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // PROCESSING orders past their deadline, oldest first (status, reservation_expires_at index)
+    @Query("""
+            select o.id
+            from CustomerOrder o
+            where o.status = lv.janis.iom.enums.OrderStatus.PROCESSING
+              and o.reservationExpiresAt <= :before
+            order by o.reservationExpiresAt
+            """)
+    List<Long> findOverdueReservations(@Param("before") Instant before, Pageable pageable);
 }
 
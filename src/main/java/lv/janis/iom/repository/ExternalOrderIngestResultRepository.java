@@ -0,0 +1,20 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import lv.janis.iom.entity.ExternalOrderIngestResult;
+
+public interface ExternalOrderIngestResultRepository
+        extends JpaRepository<ExternalOrderIngestResult, String>, ExternalOrderIngestResultRepositoryCustom {
+
+    @Transactional
+    @Modifying
+    @Query("delete from ExternalOrderIngestResult r where r.finishedAt < :before")
+    int deleteFinishedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,11 @@
+package lv.janis.iom.repository;
+
+import java.util.Collection;
+
+import lv.janis.iom.entity.ExternalOrderIngestResult;
+
+public interface ExternalOrderIngestResultRepositoryCustom {
+
+    // JDBC batch upsert; a replayed request overwrites the outcome stored before the restart
+    void upsert(Collection<ExternalOrderIngestResult> results);
+}
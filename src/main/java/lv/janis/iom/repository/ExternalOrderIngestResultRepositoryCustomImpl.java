@@ -0,0 +1,38 @@
+package lv.janis.iom.repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lv.janis.iom.entity.ExternalOrderIngestResult;
+
+class ExternalOrderIngestResultRepositoryCustomImpl implements ExternalOrderIngestResultRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ExternalOrderIngestResultRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsert(Collection<ExternalOrderIngestResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        var args = new ArrayList<Object[]>(results.size());
+        for (var result : results) {
+            args.add(new Object[] { result.getTrackingId(), result.getState().name(), result.getSource(),
+                    result.getExternalOrderId(), result.getOrderId(), result.getMessage(),
+                    Timestamp.from(result.getAcceptedAt()), Timestamp.from(result.getFinishedAt()) });
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into external_order_ingest_results (tracking_id, state, source, external_order_id,
+                    order_id, message, accepted_at, finished_at)
+                values (?, ?, ?, ?, ?, ?, ?, ?)
+                on duplicate key update state = values(state), order_id = values(order_id),
+                    message = values(message), finished_at = values(finished_at)
+                """, args);
+    }
+}
@@ -0,0 +1,86 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import lv.janis.iom.entity.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+  Optional<IdempotencyRecord> findByIdempotencyKey(String idempotencyKey);
+
+  @Transactional
+  @Modifying
+  @Query("""
+      update IdempotencyRecord r
+         set r.status = 'COMPLETED',
+             r.responseStatus = :responseStatus,
+             r.responseContentType = :contentType,
+             r.responseLocation = :location,
+             r.responseBody = :body,
+             r.completedAt = :now
+       where r.idempotencyKey = :key
+         and r.ownerToken = :owner
+         and r.status = 'IN_PROGRESS'
+      """)
+  int complete(@Param("key") String key,
+      @Param("owner") String owner,
+      @Param("responseStatus") int responseStatus,
+      @Param("contentType") String contentType,
+      @Param("location") String location,
+      @Param("body") String body,
+      @Param("now") Instant now);
+
+  // Takes over a key whose owner stopped heartbeating, e.g. because the instance died mid-request
+  @Transactional
+  @Modifying
+  @Query("""
+      update IdempotencyRecord r
+         set r.ownerToken = :owner,
+             r.lockedAt = :now
+       where r.idempotencyKey = :key
+         and r.ownerToken = :previousOwner
+         and r.status = 'IN_PROGRESS'
+         and r.lockedAt < :staleBefore
+      """)
+  int reclaim(@Param("key") String key,
+      @Param("previousOwner") String previousOwner,
+      @Param("owner") String owner,
+      @Param("now") Instant now,
+      @Param("staleBefore") Instant staleBefore);
+
+  // Keeps keys of requests still running on this instance from going stale
+  @Transactional
+  @Modifying
+  @Query("""
+      update IdempotencyRecord r
+         set r.lockedAt = :now
+       where r.idempotencyKey in :keys
+         and r.ownerToken in :owners
+         and r.status = 'IN_PROGRESS'
+      """)
+  int heartbeat(@Param("keys") Collection<String> keys,
+      @Param("owners") Collection<String> owners,
+      @Param("now") Instant now);
+
+  @Transactional
+  @Modifying
+  @Query("""
+      delete from IdempotencyRecord r
+       where r.idempotencyKey = :key
+         and r.ownerToken = :owner
+         and r.status = 'IN_PROGRESS'
+      """)
+  int release(@Param("key") String key, @Param("owner") String owner);
+
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+  int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -1,8 +1,11 @@
 package lv.janis.iom.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
@@ -10,23 +13,60 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import lv.janis.iom.dto.response.InventoryResponse;
 import lv.janis.iom.entity.Inventory;
 
-public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory>,
+        InventoryRepositoryCustom {
     Optional<Inventory> findByProductId(Long productId);
 
+    // Fetch plan for endpoints that return an InventoryResponse, which embeds product fields
+    @EntityGraph(attributePaths = "product")
+    Optional<Inventory> findWithProductByProductId(Long productId);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select i from Inventory i where i.product.id = :productId")
     Optional<Inventory> findByProductIdForUpdate(@Param("productId") Long productId);
 
     boolean existsByProductId(Long productId);
 
+    List<Inventory> findAllByProductIdIn(Collection<Long> productIds);
+
+    @EntityGraph(attributePaths = "product")
+    List<Inventory> findAllWithProductByProductIdIn(Collection<Long> productIds);
+
+    @Query("select i.product.id from Inventory i where i.product.id in :productIds")
+    List<Long> findProductIdsIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("select i.availableQuantity from Inventory i where i.product.id = :productId")
+    Optional<Integer> findAvailableQuantityByProductId(@Param("productId") Long productId);
+
+    // The inventory response embeds product fields, so both versions make up its ETag
+    interface InventoryVersions {
+        long getInventoryVersion();
+
+        long getProductVersion();
+    }
+
+    @Query("select coalesce(i.version, 0) as inventoryVersion, coalesce(p.version, 0) as productVersion "
+            + "from Inventory i join i.product p where p.id = :productId")
+    Optional<InventoryVersions> findVersionsByProductId(@Param("productId") Long productId);
+
+    @Query("select i.product.id from Inventory i where i.reservationShards > 0")
+    List<Long> findShardedProductIds();
+
+    @Query("select coalesce(max(i.ledgerSeq), 0) from Inventory i")
+    long findMaxLedgerSeq();
+
     @Query("""
-    select i
+    select new lv.janis.iom.dto.response.InventoryResponse(
+        i.id, p.id, p.sku, p.name, p.price,
+        i.quantity, i.reservedQuantity, i.reorderLevel, i.clearLowQuantity, i.isLowQuantity)
     from Inventory i
-    join fetch i.product p
-    where i.quantity > 0
+    join i.product p
+    where i.inStock = true and i.id > :afterId
+    order by i.id
     """)
-    List<Inventory> findAllInStockWithProduct();
-    
+    List<InventoryResponse> findInStockAfterAsResponse(@Param("afterId") long afterId, Pageable pageable);
+
 }
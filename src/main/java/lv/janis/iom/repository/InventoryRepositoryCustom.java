@@ -0,0 +1,22 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import lv.janis.iom.dto.response.InventoryResponse;
+import lv.janis.iom.entity.Inventory;
+
+public interface InventoryRepositoryCustom {
+
+    // Selects only the columns InventoryResponse needs, product included, in one query
+    Page<InventoryResponse> findAllAsResponse(@Nullable Specification<Inventory> spec, @NonNull Pageable pageable);
+
+    // JDBC batch insert of new rows for bulk import; the entities are not persisted or managed
+    void batchInsert(Collection<Inventory> inventories, Instant now);
+}
@@ -0,0 +1,113 @@
+package lv.janis.iom.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lv.janis.iom.dto.response.InventoryResponse;
+import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.repository.specification.InventorySpecifications;
+
+class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    InventoryRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Page<InventoryResponse> findAllAsResponse(@Nullable Specification<Inventory> spec,
+            @NonNull Pageable pageable) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(InventoryResponse.class);
+        var root = query.from(Inventory.class);
+        var product = InventorySpecifications.productJoin(root);
+
+        query.select(cb.construct(
+                InventoryResponse.class,
+                root.get("id"),
+                product.get("id"),
+                product.get("sku"),
+                product.get("name"),
+                product.get("price"),
+                root.get("quantity"),
+                root.get("reservedQuantity"),
+                root.get("reorderLevel"),
+                root.get("clearLowQuantity"),
+                root.get("isLowQuantity")));
+        if (spec != null) {
+            var predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        var typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    private long count(@Nullable Specification<Inventory> spec) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Long.class);
+        var root = query.from(Inventory.class);
+        query.select(cb.count(root));
+        if (spec != null) {
+            var predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public void batchInsert(Collection<Inventory> inventories, Instant now) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+        var timestamp = Timestamp.from(now);
+        var args = new ArrayList<Object[]>(inventories.size());
+        for (var inventory : inventories) {
+            args.add(new Object[] {
+                    inventory.getProduct().getId(),
+                    inventory.getQuantity(),
+                    inventory.getReservedQuantity(),
+                    inventory.getAvailableQuantity(),
+                    inventory.getQuantity() > 0,
+                    inventory.getReorderLevel(),
+                    inventory.getClearLowQuantity(),
+                    inventory.isLowQuantity(),
+                    timestamp,
+                    timestamp });
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into inventory (product_id, quantity, reserved_quantity, available_quantity, in_stock,
+                    reorder_level, clear_low_quantity, is_low_quantity, created_at, updated_at,
+                    reservation_shards, sharded_quantity, ledger_seq, version)
+                values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, 0)
+                """, args);
+    }
+}
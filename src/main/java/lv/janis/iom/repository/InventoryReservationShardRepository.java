@@ -0,0 +1,86 @@
+package lv.janis.iom.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import lv.janis.iom.entity.InventoryReservationShard;
+
+public interface InventoryReservationShardRepository extends JpaRepository<InventoryReservationShard, Long> {
+
+    // Read as a projection so balances are never served stale from the persistence context
+    interface ShardBalance {
+        int getShardIndex();
+
+        int getAvailable();
+
+        int getReserved();
+    }
+
+    List<InventoryReservationShard> findAllByInventoryIdOrderByShardIndex(Long inventoryId);
+
+    @Query("""
+    select s.shardIndex as shardIndex, s.available as available, s.reserved as reserved
+    from InventoryReservationShard s
+    where s.inventory.id = :inventoryId
+    order by s.shardIndex
+    """)
+    List<ShardBalance> findBalancesByInventoryId(@Param("inventoryId") Long inventoryId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from InventoryReservationShard s where s.inventory.id = :inventoryId order by s.shardIndex")
+    List<InventoryReservationShard> findAllByInventoryIdForUpdate(@Param("inventoryId") Long inventoryId);
+
+    @Query("select coalesce(sum(s.reserved), 0) from InventoryReservationShard s where s.inventory.id = :inventoryId")
+    int sumReservedByInventoryId(@Param("inventoryId") Long inventoryId);
+
+    @Modifying
+    @Query("""
+    update InventoryReservationShard s
+    set s.available = s.available - :quantity, s.reserved = s.reserved + :quantity
+    where s.inventory.id = :inventoryId and s.shardIndex = :shardIndex and s.available >= :quantity
+    """)
+    int reserve(@Param("inventoryId") Long inventoryId, @Param("shardIndex") int shardIndex,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("""
+    update InventoryReservationShard s
+    set s.available = s.available + :quantity, s.reserved = s.reserved - :quantity
+    where s.inventory.id = :inventoryId and s.shardIndex = :shardIndex and s.reserved >= :quantity
+    """)
+    int release(@Param("inventoryId") Long inventoryId, @Param("shardIndex") int shardIndex,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("""
+    update InventoryReservationShard s
+    set s.reserved = s.reserved - :quantity
+    where s.inventory.id = :inventoryId and s.shardIndex = :shardIndex and s.reserved >= :quantity
+    """)
+    int consume(@Param("inventoryId") Long inventoryId, @Param("shardIndex") int shardIndex,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("""
+    update InventoryReservationShard s
+    set s.available = s.available - :quantity
+    where s.inventory.id = :inventoryId and s.shardIndex = :shardIndex and s.available >= :quantity
+    """)
+    int withdraw(@Param("inventoryId") Long inventoryId, @Param("shardIndex") int shardIndex,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("""
+    update InventoryReservationShard s
+    set s.available = s.available + :quantity
+    where s.inventory.id = :inventoryId and s.shardIndex = :shardIndex
+    """)
+    int restock(@Param("inventoryId") Long inventoryId, @Param("shardIndex") int shardIndex,
+            @Param("quantity") int quantity);
+}
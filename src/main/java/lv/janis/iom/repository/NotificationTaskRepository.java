@@ -1,21 +1,39 @@
 package lv.janis.iom.repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import lv.janis.iom.entity.NotificationTask;
 import lv.janis.iom.enums.NotificationTaskStatus;
 import jakarta.persistence.LockModeType;
 
-public interface NotificationTaskRepository extends JpaRepository<NotificationTask, Long> {
+public interface NotificationTaskRepository extends JpaRepository<NotificationTask, Long>, NotificationTaskRepositoryCustom {
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<NotificationTask> findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
         NotificationTaskStatus status, Instant now);
 
-        
-    
+    // Due tasks of the given partitions only. The scan stays on the (status, lease_partition,
+    // next_attempt_at) index, so nodes owning different partitions never lock each other's rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        select t from NotificationTask t
+        where t.status = :status
+          and t.leasePartition in :partitions
+          and t.nextAttemptAt <= :now
+        order by t.createdAt asc
+        """)
+    List<NotificationTask> findDueInPartitions(
+        @Param("status") NotificationTaskStatus status,
+        @Param("now") Instant now,
+        @Param("partitions") Collection<Integer> partitions,
+        Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import lv.janis.iom.entity.NotificationTask;
+
+public interface NotificationTaskRepositoryCustom {
+
+    // JDBC batch insert for bulk stock changes; the tasks are not persisted or managed
+    void batchInsert(Collection<NotificationTask> tasks, Instant now);
+}
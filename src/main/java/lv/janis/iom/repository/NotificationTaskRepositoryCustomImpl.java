@@ -0,0 +1,37 @@
+package lv.janis.iom.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lv.janis.iom.entity.NotificationTask;
+
+class NotificationTaskRepositoryCustomImpl implements NotificationTaskRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    NotificationTaskRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchInsert(Collection<NotificationTask> tasks, Instant now) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        var timestamp = Timestamp.from(now);
+        var args = new ArrayList<Object[]>(tasks.size());
+        for (var task : tasks) {
+            args.add(new Object[] { task.getTaskName(), task.getInventory().getId(), task.getLeasePartition(),
+                    task.getAttempts(), task.getStatus().name(), timestamp, Timestamp.from(task.getNextAttemptAt()) });
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into notification_tasks (task_name, inventory_id, lease_partition, attempts, status,
+                    created_at, next_attempt_at)
+                values (?, ?, ?, ?, ?, ?, ?)
+                """, args);
+    }
+}
@@ -0,0 +1,24 @@
+package lv.janis.iom.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import lv.janis.iom.dto.response.OrderLineResponse;
+import lv.janis.iom.entity.OrderItem;
+
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    @Query("""
+    select new lv.janis.iom.dto.response.OrderLineResponse(
+        oi.order.id, oi.id, p.id, p.sku, oi.quantity, oi.priceAtOrderTime)
+    from OrderItem oi
+    join oi.product p
+    where oi.order.id in :orderIds
+    order by oi.order.id, oi.id
+    """)
+    List<OrderLineResponse> findLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -15,6 +15,9 @@ import lv.janis.iom.entity.OutboxEvent;
 import lv.janis.iom.enums.OutboxEventStatus;
 
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+  // Candidates are the oldest unfinished event of their aggregate only, so an aggregate's
+  // events are handled in id order even while an earlier one waits for a retry or is still
+  // in flight on a node that just lost its partition
   @Query("""
       select e.id
       from OutboxEvent e
@@ -22,6 +25,12 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>
            (e.status in :statuses and e.availableAt <= :now and e.attempts < :maxAttempts)
         or (e.status = 'PROCESSING' and e.lockedAt < :staleBefore and e.attempts < :maxAttempts)
       )
+        and not exists (
+             select 1 from OutboxEvent p
+              where p.aggregatedId = e.aggregatedId
+                and p.id < e.id
+                and p.status in ('PENDING','FAILED','PROCESSING')
+        )
       order by e.id
       """)
   List<Long> findCandidateIds(@Param("statuses") Collection<OutboxEventStatus> statuses,
@@ -30,6 +39,33 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>
       @Param("maxAttempts") int maxAttempts,
       Pageable pageable);
 
+  // Candidates of the given partitions only; an aggregate always maps to the same partition
+  @Query("""
+      select e.id
+      from OutboxEvent e
+      where (
+           (e.status in :statuses and e.availableAt <= :now and e.attempts < :maxAttempts)
+        or (e.status = 'PROCESSING' and e.lockedAt < :staleBefore and e.attempts < :maxAttempts)
+      )
+        and not exists (
+             select 1 from OutboxEvent p
+              where p.aggregatedId = e.aggregatedId
+                and p.id < e.id
+                and p.status in ('PENDING','FAILED','PROCESSING')
+        )
+        and mod(e.aggregatedId, :partitionCount) in :partitions
+      order by e.id
+      """)
+  List<Long> findCandidateIdsInPartitions(@Param("statuses") Collection<OutboxEventStatus> statuses,
+      @Param("now") Instant now,
+      @Param("staleBefore") Instant staleBefore,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("partitionCount") long partitionCount,
+      @Param("partitions") Collection<Integer> partitions,
+      Pageable pageable);
+
+  long countByStatusIn(Collection<OutboxEventStatus> statuses);
+
   @Transactional
   @Modifying
   @Query("""
@@ -49,4 +85,34 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>
       @Param("maxAttempts") int maxAttempts,
       @Param("lockedBy") String lockedBy);
 
+  // Same claim, applied only while :lockedBy holds the lease on the event's partition
+  // (aggregatedId modulo :partitionCount), so a node that lost the partition during a pause
+  // cannot claim next to its new owner
+  @Transactional
+  @Modifying
+  @Query("""
+      update OutboxEvent e
+         set e.status = 'PROCESSING',
+             e.lockedAt = :now,
+             e.lockedBy = :lockedBy
+       where e.id = :id
+         and (
+              (e.status in ('PENDING','FAILED') and e.availableAt <= :now and e.attempts < :maxAttempts)
+           or (e.status = 'PROCESSING' and e.lockedAt < :staleBefore and e.attempts < :maxAttempts)
+         )
+         and exists (
+              select 1 from SchedulerLease l
+               where l.name = concat(:job, '#', cast(mod(e.aggregatedId, :partitionCount) as String))
+                 and l.owner = :lockedBy
+                 and l.expiresAt > :now
+         )
+      """)
+  int claimInOwnedPartition(@Param("id") Long id,
+      @Param("now") Instant now,
+      @Param("staleBefore") Instant staleBefore,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("lockedBy") String lockedBy,
+      @Param("job") String job,
+      @Param("partitionCount") long partitionCount);
+
 }
@@ -1,14 +1,18 @@
 package lv.janis.iom.repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import lv.janis.iom.entity.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     Optional<Product> findBySku(String sku);
 
     List<Product> findAllByIdInAndIsDeletedFalse(Iterable<Long> ids);
@@ -16,4 +20,31 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     boolean existsBySku(String sku);
 
     boolean existsByName(String name);
+
+    @Query("select coalesce(p.version, 0) from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    interface ProductKey {
+        Long getId();
+
+        String getSku();
+
+        String getName();
+
+        boolean getDeleted();
+    }
+
+    @Query("""
+            select p.id as id, p.sku as sku, p.name as name, p.isDeleted as deleted
+            from Product p
+            where p.sku in :skus
+            """)
+    List<ProductKey> findKeysBySkuIn(@Param("skus") Collection<String> skus);
+
+    @Query("""
+            select p.id as id, p.sku as sku, p.name as name, p.isDeleted as deleted
+            from Product p
+            where p.name in :names
+            """)
+    List<ProductKey> findKeysByNameIn(@Param("names") Collection<String> names);
 }
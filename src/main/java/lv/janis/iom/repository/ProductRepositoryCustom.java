@@ -0,0 +1,18 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import lv.janis.iom.entity.Product;
+
+public interface ProductRepositoryCustom {
+
+    // JDBC batch writes for bulk import. They bypass the persistence context, so the same rows
+    // must not be held as managed entities in the calling transaction.
+    void batchInsert(List<Product> products, Instant now);
+
+    // Copies name, description and price from each transient product onto the row with the key id;
+    // a null description keeps the current one, as in ProductService.updateProduct
+    void batchUpdate(Map<Long, Product> changesById, Instant now);
+}
@@ -0,0 +1,57 @@
+package lv.janis.iom.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lv.janis.iom.entity.Product;
+
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchInsert(List<Product> products, Instant now) {
+        if (products.isEmpty()) {
+            return;
+        }
+        var timestamp = Timestamp.from(now);
+        var args = new ArrayList<Object[]>(products.size());
+        for (var product : products) {
+            args.add(new Object[] { product.getSku(), product.getName(), product.getDescription(), product.getPrice(),
+                    timestamp, timestamp });
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into products (sku, name, description, price, created_at, updated_at, version, is_deleted)
+                values (?, ?, ?, ?, ?, ?, 0, false)
+                """, args);
+    }
+
+    @Override
+    public void batchUpdate(Map<Long, Product> changesById, Instant now) {
+        if (changesById.isEmpty()) {
+            return;
+        }
+        var timestamp = Timestamp.from(now);
+        var args = new ArrayList<Object[]>(changesById.size());
+        for (var entry : changesById.entrySet()) {
+            var product = entry.getValue();
+            args.add(new Object[] { product.getName(), product.getDescription(), product.getPrice(), timestamp,
+                    entry.getKey() });
+        }
+        jdbcTemplate.batchUpdate("""
+                update products
+                set name = ?, description = coalesce(?, description), price = ?, updated_at = ?,
+                    version = version + 1
+                where id = ?
+                """, args);
+    }
+}
@@ -0,0 +1,32 @@
+package lv.janis.iom.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import lv.janis.iom.entity.ReservationLedgerCommit;
+
+public interface ReservationLedgerCommitRepository extends JpaRepository<ReservationLedgerCommit, Long> {
+
+    // Runs inside the reserving transaction, so the marker commits or rolls back with the order
+    @Modifying
+    @Query(value = """
+            INSERT INTO reservation_ledger_commits (first_seq, last_seq)
+            VALUES (:firstSeq, :lastSeq)
+            """, nativeQuery = true)
+    int insert(@Param("firstSeq") long firstSeq, @Param("lastSeq") long lastSeq);
+
+    @Query("select coalesce(max(c.lastSeq), 0) from ReservationLedgerCommit c")
+    long findMaxLastSeq();
+
+    List<ReservationLedgerCommit> findByLastSeqGreaterThanEqualOrderByFirstSeq(long seq);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ReservationLedgerCommit c where c.lastSeq <= :seq")
+    int deleteUpTo(@Param("seq") long seq);
+}
@@ -0,0 +1,84 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import lv.janis.iom.entity.SchedulerLease;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    List<SchedulerLease> findByNameStartingWith(String prefix);
+
+    // Creates the row unless it exists; the unique key decides, so racing nodes need no handling
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT IGNORE INTO scheduler_leases (name, owner, fencing_token, expires_at, renewed_at)
+            VALUES (:name, :owner, 0, :expiresAt, :now)
+            """, nativeQuery = true)
+    int insertIfAbsent(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("now") Instant now,
+            @Param("expiresAt") Instant expiresAt);
+
+    // Takes over an expired lease of another owner and issues the next fencing token
+    @Transactional
+    @Modifying
+    @Query("""
+            update SchedulerLease l
+               set l.owner = :owner,
+                   l.fencingToken = l.fencingToken + 1,
+                   l.expiresAt = :expiresAt,
+                   l.renewedAt = :now
+             where l.name = :name
+               and l.owner <> :owner
+               and l.expiresAt <= :now
+            """)
+    int acquire(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("now") Instant now,
+            @Param("expiresAt") Instant expiresAt);
+
+    // Extends leases still owned by :owner; the token is kept since nobody else held them meanwhile
+    @Transactional
+    @Modifying
+    @Query("""
+            update SchedulerLease l
+               set l.expiresAt = :expiresAt,
+                   l.renewedAt = :now
+             where l.name in :names
+               and l.owner = :owner
+            """)
+    int renew(
+            @Param("names") Collection<String> names,
+            @Param("owner") String owner,
+            @Param("now") Instant now,
+            @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update SchedulerLease l
+               set l.expiresAt = :now
+             where l.name in :names
+               and l.owner = :owner
+            """)
+    int release(
+            @Param("names") Collection<String> names,
+            @Param("owner") String owner,
+            @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SchedulerLease l where l.name like :prefix and l.expiresAt < :before")
+    int deleteExpired(@Param("prefix") String prefix, @Param("before") Instant before);
+}
@@ -1,11 +1,23 @@
 package lv.janis.iom.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
 import lv.janis.iom.entity.StockMovement;
 
-public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, JpaSpecificationExecutor<StockMovement> {
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, JpaSpecificationExecutor<StockMovement>,
+        StockMovementRepositoryCustom {
 
-    
-} 
+    // The movement listing reads each movement's inventory, so it is joined into the page query
+    // instead of being initialized one proxy at a time
+    @Override
+    @NonNull
+    @EntityGraph(attributePaths = "inventory")
+    Page<StockMovement> findAll(@Nullable Specification<StockMovement> spec, @NonNull Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package lv.janis.iom.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import lv.janis.iom.entity.StockMovement;
+
+public interface StockMovementRepositoryCustom {
+
+    // JDBC batch insert for bulk stock changes; the movements are not persisted or managed
+    void batchInsert(Collection<StockMovement> movements, Instant now);
+}
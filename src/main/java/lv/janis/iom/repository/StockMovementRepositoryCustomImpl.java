@@ -0,0 +1,36 @@
+package lv.janis.iom.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lv.janis.iom.entity.StockMovement;
+
+class StockMovementRepositoryCustomImpl implements StockMovementRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StockMovementRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchInsert(Collection<StockMovement> movements, Instant now) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        var timestamp = Timestamp.from(now);
+        var args = new ArrayList<Object[]>(movements.size());
+        for (var movement : movements) {
+            args.add(new Object[] { movement.getInventory().getId(), movement.getDelta(), movement.getReason(),
+                    movement.getOrderId(), movement.getMovementType().name(), timestamp });
+        }
+        jdbcTemplate.batchUpdate("""
+                insert into stock_movements (inventory_id, delta, reason, order_id, movement_type, created_at)
+                values (?, ?, ?, ?, ?, ?)
+                """, args);
+    }
+}
@@ -3,8 +3,11 @@ package lv.janis.iom.repository.specification;
 import org.springframework.data.jpa.domain.Specification;
 
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.StockStatus;
 
 public final class InventorySpecifications {
@@ -14,7 +17,7 @@ public final class InventorySpecifications {
     public static Specification<Inventory> search(String q) {
         return (root, query, cb) -> {
             if (q == null || q.isBlank()) return cb.conjunction();
-            var product = root.join("product", JoinType.LEFT);
+            var product = productJoin(root);
             String pattern = "%" + q.trim().toLowerCase() + "%";
             return cb.or(
                 cb.like(cb.lower(product.get("name")), pattern),
@@ -40,28 +43,29 @@ public final class InventorySpecifications {
     public static Specification<Inventory> availableGte(Integer minAvailable) {
         return (root, query, cb) -> {
             if (minAvailable == null) return cb.conjunction();
-            return cb.ge(availableExpression(root, cb), minAvailable);
+            return cb.ge(root.get("availableQuantity"), minAvailable);
         };
     }
 
     public static Specification<Inventory> availableLte(Integer maxAvailable) {
         return (root, query, cb) -> {
             if (maxAvailable == null) return cb.conjunction();
-            return cb.le(availableExpression(root, cb), maxAvailable);
+            return cb.le(root.get("availableQuantity"), maxAvailable);
         };
     }
 
     public static Specification<Inventory> stockStatus(StockStatus status) {
         return (root, query, cb) -> {
             if (status == null) return cb.conjunction();
-            Expression<Number> available = availableExpression(root, cb);
+            Expression<Integer> available = root.get("availableQuantity");
             switch (status) {
                 case IN_STOCK:
                     return cb.gt(available, 0);
                 case OUT_OF_STOCK:
                     return cb.le(available, 0);
                 case LOW_STOCK:
-                    return cb.lt(available, root.get("reorderLevel"));
+                    // same flag that drives low stock alerts, served by idx_inventory_low_quantity
+                    return cb.isTrue(root.get("isLowQuantity"));
                 default:
                     return cb.conjunction();
             }
@@ -70,15 +74,19 @@ public final class InventorySpecifications {
 
     public static Specification<Inventory> productNotDeleted() {
         return (root, query, cb) -> {
-            var product = root.join("product", JoinType.LEFT);
+            var product = productJoin(root);
             return cb.isFalse(product.get("isDeleted"));
         };
     }
 
-    private static Expression<Number> availableExpression(
-        jakarta.persistence.criteria.Root<Inventory> root,
-        jakarta.persistence.criteria.CriteriaBuilder cb
-    ) {
-        return cb.diff(root.get("quantity"), root.get("reservedQuantity"));
+    // Reuses an existing product join so combined specs and projections join products once
+    @SuppressWarnings("unchecked")
+    public static Join<Inventory, Product> productJoin(From<?, Inventory> root) {
+        for (var join : root.getJoins()) {
+            if ("product".equals(join.getAttribute().getName())) {
+                return (Join<Inventory, Product>) join;
+            }
+        }
+        return root.join("product", JoinType.LEFT);
     }
 }
@@ -0,0 +1,74 @@
+package lv.janis.iom.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lv.janis.iom.dto.requests.InventoryAdjustmentLine;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse.LineResult;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse.Outcome;
+import lv.janis.iom.service.batch.ChunkFallback;
+
+/**
+ * Applies cycle count adjustments in bulk. Lines are handled in chunks, each in its own
+ * transaction with one inventory load, JDBC-batched inventory updates and batched movement,
+ * alert and notification inserts. If a chunk fails as a whole, it is retried one line per
+ * transaction so only the failing lines are reported as failed.
+ */
+@Service
+public class InventoryBulkAdjustService {
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_LINES = 50_000;
+
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public InventoryBulkAdjustService(InventoryService inventoryService, TransactionTemplate transactionTemplate) {
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public BulkAdjustmentResponse adjust(List<InventoryAdjustmentLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("lines is required");
+        }
+        if (lines.size() > MAX_LINES) {
+            throw new IllegalArgumentException("At most " + MAX_LINES + " lines can be adjusted per request");
+        }
+
+        var results = new ArrayList<LineResult>(lines.size());
+        for (int from = 0; from < lines.size(); from += CHUNK_SIZE) {
+            results.addAll(processChunk(from, lines.subList(from, Math.min(from + CHUNK_SIZE, lines.size()))));
+        }
+        return BulkAdjustmentResponse.of(results);
+    }
+
+    private List<LineResult> processChunk(int firstLine, List<InventoryAdjustmentLine> chunk) {
+        var results = new ArrayList<LineResult>(chunk.size());
+        ChunkFallback.write(chunk,
+                (offset, lines) -> transactionTemplate.execute(status -> applyChunk(firstLine + offset, lines)),
+                (offset, lines, lineResults) -> results.addAll(lineResults),
+                (offset, line, failure) -> results.add(failed(firstLine + offset, line, failure)));
+        return results;
+    }
+
+    // The dirty inventories are flushed at commit; a session batch size turns those updates into JDBC batches
+    private List<LineResult> applyChunk(int firstLine, List<InventoryAdjustmentLine> chunk) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(CHUNK_SIZE);
+        return inventoryService.applyAdjustments(firstLine, chunk);
+    }
+
+    private static LineResult failed(int lineNumber, InventoryAdjustmentLine line, RuntimeException e) {
+        Long productId = line == null ? null : line.getProductId();
+        return LineResult.rejected(lineNumber, productId, Outcome.FAILED, e.getMessage());
+    }
+}
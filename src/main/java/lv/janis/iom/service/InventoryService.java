@@ -1,6 +1,11 @@
 package lv.janis.iom.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -8,6 +13,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.micrometer.common.lang.Nullable;
@@ -15,20 +21,29 @@ import io.micrometer.common.lang.Nullable;
 import org.springframework.lang.NonNull;
 import jakarta.persistence.EntityNotFoundException;
 import lv.janis.iom.dto.filters.InventoryFilter;
+import lv.janis.iom.dto.requests.InventoryAdjustmentLine;
 import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.dto.requests.StockMovementCreationRequest;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse.LineResult;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse.Outcome;
 import lv.janis.iom.dto.response.InventoryResponse;
+import lv.janis.iom.dto.response.KeysetPageResponse;
 import lv.janis.iom.entity.Alert;
 import lv.janis.iom.entity.Inventory;
 import lv.janis.iom.entity.NotificationTask;
+import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.FailureCode;
 import lv.janis.iom.exception.BusinessException;
 import lv.janis.iom.factory.StockMovementRequestFactory;
 import lv.janis.iom.repository.AlertRepository;
 import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.repository.InventoryRepository.InventoryVersions;
 import lv.janis.iom.repository.NotificationTaskRepository;
 import lv.janis.iom.repository.ProductRepository;
 import lv.janis.iom.repository.specification.InventorySpecifications;
+import lv.janis.iom.service.coalescing.ReadCoalescer;
+import lv.janis.iom.service.ledger.ReservationLedger;
 
 @Service
 @Transactional
@@ -40,13 +55,22 @@ public class InventoryService {
     private final ProductRepository productRepository;
     private final StockMovementService stockMovementService;
     private final NotificationTaskRepository notificationTaskRepository;
+    private final ShardedReservationService shardedReservationService;
+    private final ReservationLedger reservationLedger;
+    private final ReadCoalescer readCoalescer;
 
     public InventoryService(
             InventoryRepository inventoryRepository,
             ProductRepository productRepository,
             StockMovementService stockMovementService,
-            NotificationTaskRepository notificationTaskRepository, AlertRepository alertRepository) {
+            NotificationTaskRepository notificationTaskRepository, AlertRepository alertRepository,
+            ShardedReservationService shardedReservationService,
+            ReservationLedger reservationLedger,
+            ReadCoalescer readCoalescer) {
         this.inventoryRepository = inventoryRepository;
+        this.readCoalescer = readCoalescer;
+        this.shardedReservationService = shardedReservationService;
+        this.reservationLedger = reservationLedger;
         this.productRepository = productRepository;
         this.stockMovementService = stockMovementService;
         this.notificationTaskRepository = notificationTaskRepository;
@@ -63,7 +87,7 @@ public class InventoryService {
         int clearLowQuantity = Optional.ofNullable(request.getClearLowQuantity()).orElse(0);
         requireNonNegative(clearLowQuantity, "clearLowQuantity");
 
-        return inventoryRepository.findByProductId(productId)
+        return inventoryRepository.findWithProductByProductId(productId)
                 .orElseGet(() -> {
                     Product product = productRepository.findById(productId)
                             .orElseThrow(
@@ -77,7 +101,7 @@ public class InventoryService {
                         updateLowQuantityFlag(inventory);
                         return inventoryRepository.saveAndFlush(inventory);
                     } catch (org.springframework.dao.DataIntegrityViolationException e) {
-                        return inventoryRepository.findByProductId(productId)
+                        return inventoryRepository.findWithProductByProductId(productId)
                                 .orElseThrow(() -> e);
                     }
                 });
@@ -85,16 +109,34 @@ public class InventoryService {
 
     public Inventory getInventoryByProductId(Long productId) {
         requireProductId(productId);
-        return inventoryRepository.findByProductId(productId)
+        return inventoryRepository.findWithProductByProductId(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
     }
 
+    // Version-only read for conditional GETs; skips loading the inventory and its product.
+    // Concurrent calls share one query; no transaction is held while waiting for it
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public InventoryVersions getInventoryVersions(Long productId) {
+        requireProductId(productId);
+        return readCoalescer.load("inventory-versions", productId, () -> inventoryRepository
+                .findVersionsByProductId(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found")));
+    }
+
+    // Body of GET /api/inventory/{productId}; keyed by both versions, so a briefly cached result is never older
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public InventoryResponse getInventoryResponse(Long productId, InventoryVersions versions) {
+        return readCoalescer.loadCached("inventory",
+                List.of(productId, versions.getInventoryVersion(), versions.getProductVersion()),
+                () -> InventoryResponse.from(getInventoryByProductId(productId)));
+    }
+
     public Inventory addStock(Long productId, Integer quantityToAdd) {
         requireProductId(productId);
         requireQuantity(quantityToAdd, "quantityToAdd");
-        var inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
+        var inventory = loadForStockChange(productId);
         inventory.increaseQuantity(quantityToAdd);
+        reservationLedger.adjustAvailable(productId, quantityToAdd);
         updateLowQuantityFlag(inventory);
         return inventoryRepository.save(inventory);
     }
@@ -102,10 +144,10 @@ public class InventoryService {
     public Inventory reduceStock(Long productId, Integer quantityToReduce) {
         requireProductId(productId);
         requireQuantity(quantityToReduce, "quantityToReduce");
-        var inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
+        var inventory = loadForStockChange(productId);
         boolean wasLowStock = inventory.isLowQuantity();
-        inventory.decreaseQuantity(quantityToReduce);
+        decreaseLine(inventory, quantityToReduce);
+        reservationLedger.adjustAvailable(productId, -quantityToReduce);
         updateLowQuantityFlag(inventory);
         lowStockCheck(inventory, wasLowStock);
         return inventoryRepository.save(inventory);
@@ -114,46 +156,72 @@ public class InventoryService {
     public Inventory reserveStock(Long productId, Integer quantityToReserve) {
         requireProductId(productId);
         requireQuantity(quantityToReserve, "quantityToReserve");
-        var inventory = inventoryRepository.findByProductId(productId)
+        var inventory = inventoryRepository.findWithProductByProductId(productId)
                 .orElseThrow(() -> new BusinessException(
                         FailureCode.INVENTORY_NOT_FOUND,
                         "Inventory for product id " + productId + " not found"));
-        boolean wasLowStock = inventory.isLowQuantity();
-        inventory.reserveQuantity(quantityToReserve);
-        updateLowQuantityFlag(inventory);
-        lowStockCheck(inventory, wasLowStock);
+        reserveLine(inventory, quantityToReserve);
         return inventoryRepository.save(inventory);
     }
 
     public Inventory cancelReservedQuantity(Long productId, Integer quantityToCancel) {
         requireProductId(productId);
         requireQuantity(quantityToCancel, "quantityToCancel");
-        var inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
-        inventory.unreserveQuantity(quantityToCancel);
-        updateLowQuantityFlag(inventory);
+        var inventory = loadForStockChange(productId);
+        releaseLine(inventory, quantityToCancel);
         return inventoryRepository.save(inventory);
     }
 
     public Inventory fulfillReservedQuantity(Long productId, Integer quantityToReduce) {
         requireProductId(productId);
         requireQuantity(quantityToReduce, "quantityToReduce");
-        var inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
-        boolean wasLowStock = inventory.isLowQuantity();
-        inventory.deductReservedQuantity(quantityToReduce);
-        updateLowQuantityFlag(inventory);
-        lowStockCheck(inventory, wasLowStock);
+        var inventory = loadForStockChange(productId);
+        fulfillLine(inventory, quantityToReduce);
         return inventoryRepository.save(inventory);
     }
 
+    public List<Inventory> reserveForOrders(Map<Long, List<OrderItem>> itemsByOrder) {
+        return applyToOrderLines(itemsByOrder, true, false, (inventory, orderId, quantity) -> {
+            reserveLine(inventory, quantity);
+            return StockMovementRequestFactory.orderReserved(inventory, orderId, quantity);
+        });
+    }
+
+    public List<Inventory> fulfillForOrders(Map<Long, List<OrderItem>> itemsByOrder) {
+        return applyToOrderLines(itemsByOrder, false, true, (inventory, orderId, quantity) -> {
+            fulfillLine(inventory, quantity);
+            return StockMovementRequestFactory.orderFulfilled(inventory, orderId, quantity);
+        });
+    }
+
+    public List<Inventory> releaseForOrders(Map<Long, List<OrderItem>> itemsByOrder) {
+        return applyToOrderLines(itemsByOrder, false, true, (inventory, orderId, quantity) -> {
+            releaseLine(inventory, quantity);
+            return StockMovementRequestFactory.orderReleased(inventory, orderId, quantity);
+        });
+    }
+
+    public List<Inventory> returnForOrders(Map<Long, List<OrderItem>> itemsByOrder) {
+        return applyToOrderLines(itemsByOrder, false, true, (inventory, orderId, quantity) -> {
+            inventory.increaseQuantity(quantity);
+            reservationLedger.adjustAvailable(inventory.getProduct().getId(), quantity);
+            updateLowQuantityFlag(inventory);
+            return StockMovementRequestFactory.orderReturned(inventory, orderId, quantity);
+        });
+    }
+
     public int getAvailableStock(Long productId) {
         requireProductId(productId);
         var inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
-        return inventory.getAvailableQuantity();
+        var ledgerAvailable = reservationLedger.currentAvailable(productId);
+        if (ledgerAvailable.isPresent()) {
+            return (int) ledgerAvailable.getAsLong();
+        }
+        return availableAfterShardReservations(inventory);
     }
 
+    @Transactional(readOnly = true)
     public Page<InventoryResponse> getInventory(@Nullable InventoryFilter filter, @NonNull Pageable pageable) {
         var safePageable = capPageSize(pageable, 100);
         var safeFilter = filter != null ? filter : new InventoryFilter();
@@ -165,12 +233,22 @@ public class InventoryService {
                         .and(InventorySpecifications.availableLte(safeFilter.getMaxAvailable()))
                         .and(InventorySpecifications.stockStatus(safeFilter.getStockStatus()))
                         .and(InventorySpecifications.productNotDeleted()));
-        return inventoryRepository.findAll(spec, safePageable).map(InventoryResponse::from);
+        return inventoryRepository.findAllAsResponse(spec, safePageable);
     }
 
     @Transactional(readOnly = true)
-    public List<Inventory> listInStockAllInventory() {
-        return inventoryRepository.findAllInStockWithProduct();
+    public KeysetPageResponse<InventoryResponse> listInStockInventory(@Nullable Long afterId, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        int safeSize = Math.min(size, 100);
+        long cursor = afterId != null ? afterId : 0L;
+        // fetch one extra row to know whether another page follows
+        var rows = inventoryRepository.findInStockAfterAsResponse(cursor, PageRequest.of(0, safeSize + 1));
+        boolean hasNext = rows.size() > safeSize;
+        var content = hasNext ? rows.subList(0, safeSize) : rows;
+        Long nextAfterId = hasNext ? content.get(content.size() - 1).getId() : null;
+        return new KeysetPageResponse<>(List.copyOf(content), safeSize, nextAfterId, hasNext);
     }
 
     public Inventory adjustInventoryQuantity(Long productId, Integer delta, String reason) {
@@ -178,21 +256,22 @@ public class InventoryService {
         if (delta == null) {
             throw new IllegalArgumentException("delta is required");
         }
-        var inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
+        var inventory = loadForStockChange(productId);
 
         if (reason == null || reason.isBlank()) {
             throw new IllegalArgumentException("reason is required");
         }
         if (delta > 0) {
             inventory.increaseQuantity(delta);
+            reservationLedger.adjustAvailable(productId, delta);
             updateLowQuantityFlag(inventory);
             stockMovementService.createStockMovement(
                     StockMovementRequestFactory.manualAdjustment(inventory, delta, reason));
         } else if (delta < 0) {
             int absDelta = Math.abs(delta);
             boolean wasLowStock = inventory.isLowQuantity();
-            inventory.decreaseQuantity(absDelta);
+            decreaseLine(inventory, absDelta);
+            reservationLedger.adjustAvailable(productId, delta);
             updateLowQuantityFlag(inventory);
             lowStockCheck(inventory, wasLowStock);
             stockMovementService.createStockMovement(
@@ -203,11 +282,82 @@ public class InventoryService {
         return inventoryRepository.save(inventory);
     }
 
+    /**
+     * Applies a run of adjustment lines with the same rules as {@link #adjustInventoryQuantity},
+     * loading every inventory in one query and writing movements, alerts and notification tasks
+     * as JDBC batches. Lines that are invalid or hit a missing inventory are reported without
+     * affecting the others; {@code firstLine} is the request position of {@code lines.get(0)}.
+     */
+    public List<LineResult> applyAdjustments(int firstLine, List<InventoryAdjustmentLine> lines) {
+        var productIds = new LinkedHashSet<Long>();
+        for (var line : lines) {
+            if (line != null && line.getProductId() != null) {
+                productIds.add(line.getProductId());
+            }
+        }
+        Map<Long, Inventory> inventoryByProductId = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            reservationLedger.lockProducts(productIds);
+            for (var inventory : inventoryRepository.findAllWithProductByProductIdIn(productIds)) {
+                reservationLedger.applyPending(inventory);
+                inventoryByProductId.put(inventory.getProduct().getId(), inventory);
+            }
+        }
+
+        var results = new ArrayList<LineResult>(lines.size());
+        var movements = new ArrayList<StockMovementCreationRequest>(lines.size());
+        var alerts = new ArrayList<Alert>();
+        var tasks = new ArrayList<NotificationTask>();
+        for (int i = 0; i < lines.size(); i++) {
+            int lineNumber = firstLine + i;
+            var line = lines.get(i);
+            Long productId = line == null ? null : line.getProductId();
+            String invalid = invalidAdjustment(line);
+            if (invalid != null) {
+                results.add(LineResult.rejected(lineNumber, productId, Outcome.INVALID, invalid));
+                continue;
+            }
+            var inventory = inventoryByProductId.get(productId);
+            if (inventory == null) {
+                results.add(LineResult.rejected(lineNumber, productId, Outcome.NOT_FOUND,
+                        "Inventory for product id " + productId + " not found"));
+                continue;
+            }
+            int delta = line.getDelta();
+            boolean wasLowStock = inventory.isLowQuantity();
+            try {
+                if (delta > 0) {
+                    inventory.increaseQuantity(delta);
+                } else {
+                    decreaseLine(inventory, -delta);
+                }
+            } catch (IllegalArgumentException e) {
+                results.add(LineResult.rejected(lineNumber, productId, Outcome.INVALID, e.getMessage()));
+                continue;
+            }
+            reservationLedger.adjustAvailable(productId, delta);
+            updateLowQuantityFlag(inventory);
+            if (delta < 0 && !wasLowStock && inventory.isLowQuantity()) {
+                tasks.add(new NotificationTask(inventory));
+                alerts.add(Alert.createLowStockAlert(inventory));
+            }
+            movements.add(StockMovementRequestFactory.manualAdjustment(inventory, delta, line.getReason()));
+            results.add(LineResult.applied(lineNumber, productId, inventory.getQuantity(),
+                    inventory.getAvailableQuantity()));
+        }
+
+        var now = Instant.now();
+        stockMovementService.createStockMovements(movements);
+        notificationTaskRepository.batchInsert(tasks, now);
+        alertRepository.batchInsert(alerts, now);
+        return results;
+    }
+
     public void updateLowQuantityFlag(Inventory inventory) {
         if (inventory == null) {
             throw new IllegalArgumentException("inventory is required");
         }
-        int available = inventory.getAvailableQuantity();
+        int available = availableAfterShardReservations(inventory);
         if (inventory.isLowQuantity()) {
             if (available > inventory.getClearLowQuantity()) {
                 inventory.setIsLowQuantity(false);
@@ -227,6 +377,143 @@ public class InventoryService {
         }
     }
 
+    private void reserveLine(Inventory inventory, int quantity) {
+        if (inventory.isReservationSharded()) {
+            // hot product: only a shard row is written, low-stock flags catch up on fulfilment
+            shardedReservationService.reserve(inventory, quantity);
+            return;
+        }
+        if (reservationLedger.isActive()) {
+            // counted in memory; the flusher writes the row and raises low-stock alerts
+            Long productId = inventory.getProduct().getId();
+            reservationLedger.reserve(productId, quantity, () -> inventoryRepository
+                    .findAvailableQuantityByProductId(productId)
+                    .orElseThrow(() -> new BusinessException(
+                            FailureCode.INVENTORY_NOT_FOUND,
+                            "Inventory for product id " + productId + " not found")));
+            return;
+        }
+        boolean wasLowStock = inventory.isLowQuantity();
+        inventory.reserveQuantity(quantity);
+        updateLowQuantityFlag(inventory);
+        lowStockCheck(inventory, wasLowStock);
+    }
+
+    private void releaseLine(Inventory inventory, int quantity) {
+        if (inventory.isReservationSharded()) {
+            shardedReservationService.release(inventory, quantity);
+            return;
+        }
+        inventory.unreserveQuantity(quantity);
+        reservationLedger.adjustAvailable(inventory.getProduct().getId(), quantity);
+        updateLowQuantityFlag(inventory);
+    }
+
+    private void fulfillLine(Inventory inventory, int quantity) {
+        boolean wasLowStock = inventory.isLowQuantity();
+        if (inventory.isReservationSharded()) {
+            shardedReservationService.fulfill(inventory, quantity);
+        } else {
+            inventory.deductReservedQuantity(quantity);
+        }
+        updateLowQuantityFlag(inventory);
+        lowStockCheck(inventory, wasLowStock);
+    }
+
+    private void decreaseLine(Inventory inventory, int quantity) {
+        if (inventory.isReservationSharded()) {
+            // most of the unreserved stock sits in shard budgets, not in the parent's remainder
+            shardedReservationService.decrease(inventory, quantity);
+            return;
+        }
+        inventory.decreaseQuantity(quantity);
+    }
+
+    // The row of a sharded product counts shard reservations only once they are folded into it
+    private int availableAfterShardReservations(Inventory inventory) {
+        if (!inventory.isReservationSharded()) {
+            return inventory.getAvailableQuantity();
+        }
+        return inventory.getAvailableQuantity() - shardedReservationService.unfoldedReservations(inventory);
+    }
+
+    @FunctionalInterface
+    private interface OrderLineMutation {
+        StockMovementCreationRequest apply(Inventory inventory, long orderId, int quantity);
+    }
+
+    // Loads every inventory touched by the orders in one query, then mutates the managed
+    // entities line by line; dirty checking writes them back at commit.
+    private List<Inventory> applyToOrderLines(Map<Long, List<OrderItem>> itemsByOrder,
+            boolean businessFailureWhenMissing, boolean writesInventory, OrderLineMutation mutation) {
+        var productIds = new LinkedHashSet<Long>();
+        for (var items : itemsByOrder.values()) {
+            for (var item : items) {
+                productIds.add(item.getProduct().getId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        if (writesInventory) {
+            reservationLedger.lockProducts(productIds);
+        }
+        Map<Long, Inventory> inventoryByProductId = new HashMap<>();
+        for (var inventory : inventoryRepository.findAllByProductIdIn(productIds)) {
+            if (writesInventory) {
+                reservationLedger.applyPending(inventory);
+            }
+            inventoryByProductId.put(inventory.getProduct().getId(), inventory);
+        }
+
+        var touched = new LinkedHashSet<Inventory>();
+        for (var order : itemsByOrder.entrySet()) {
+            for (var item : order.getValue()) {
+                Long productId = item.getProduct().getId();
+                var inventory = inventoryByProductId.get(productId);
+                if (inventory == null) {
+                    String message = "Inventory for product id " + productId + " not found";
+                    if (businessFailureWhenMissing) {
+                        throw new BusinessException(FailureCode.INVENTORY_NOT_FOUND, message);
+                    }
+                    throw new EntityNotFoundException(message);
+                }
+                stockMovementService.createStockMovement(mutation.apply(inventory, order.getKey(), item.getQuantity()));
+                touched.add(inventory);
+            }
+        }
+        return List.copyOf(touched);
+    }
+
+    // With the reservation ledger active, the product is locked against the flusher and other
+    // stock changes and its pending reservations are folded in before the row is changed.
+    private Inventory loadForStockChange(Long productId) {
+        reservationLedger.lockProducts(List.of(productId));
+        var inventory = inventoryRepository.findWithProductByProductId(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
+        reservationLedger.applyPending(inventory);
+        return inventory;
+    }
+
+    private static String invalidAdjustment(InventoryAdjustmentLine line) {
+        if (line == null) {
+            return "line is required";
+        }
+        if (line.getProductId() == null) {
+            return "productId is required";
+        }
+        if (line.getDelta() == null) {
+            return "delta is required";
+        }
+        if (line.getDelta() == 0) {
+            return "delta cannot be zero";
+        }
+        if (line.getReason() == null || line.getReason().isBlank()) {
+            return "reason is required";
+        }
+        return null;
+    }
+
     private static void requireProductId(Long productId) {
         if (productId == null) {
             throw new IllegalArgumentException("productId is required");
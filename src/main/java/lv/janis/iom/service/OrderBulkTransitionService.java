@@ -0,0 +1,130 @@
+package lv.janis.iom.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lv.janis.iom.dto.response.BulkTransitionResponse;
+import lv.janis.iom.dto.response.BulkTransitionResponse.OrderResult;
+import lv.janis.iom.dto.response.BulkTransitionResponse.Outcome;
+import lv.janis.iom.entity.CustomerOrder;
+import lv.janis.iom.enums.OrderTransition;
+import lv.janis.iom.repository.CustomerOrderRepository;
+
+/**
+ * Runs one state machine transition over many orders. Orders are handled in chunks, each in
+ * its own transaction, with one order load and one inventory pass per chunk. If a chunk fails
+ * while moving stock (for example one order is out of stock), that chunk is retried one order
+ * per transaction so only the failing orders are reported as failed.
+ */
+@Service
+public class OrderBulkTransitionService {
+    private static final Logger log = LoggerFactory.getLogger(OrderBulkTransitionService.class);
+
+    static final int CHUNK_SIZE = 200;
+    static final int MAX_ORDERS = 20_000;
+
+    private final CustomerOrderRepository customerOrderRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderBulkTransitionService(
+            CustomerOrderRepository customerOrderRepository,
+            OrderService orderService,
+            TransactionTemplate transactionTemplate) {
+        this.customerOrderRepository = customerOrderRepository;
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public BulkTransitionResponse transition(@NonNull OrderTransition transition, List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("orderIds is required");
+        }
+        var distinctIds = new LinkedHashSet<Long>();
+        for (Long orderId : orderIds) {
+            if (orderId == null) {
+                throw new IllegalArgumentException("orderIds must not contain null");
+            }
+            distinctIds.add(orderId);
+        }
+        if (distinctIds.size() > MAX_ORDERS) {
+            throw new IllegalArgumentException("At most " + MAX_ORDERS + " orders can be moved per request");
+        }
+
+        var ids = List.copyOf(distinctIds);
+        var results = new ArrayList<OrderResult>(ids.size());
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            results.addAll(processChunk(transition, ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()))));
+        }
+        return BulkTransitionResponse.of(transition, results);
+    }
+
+    private List<OrderResult> processChunk(OrderTransition transition, List<Long> chunk) {
+        try {
+            return transactionTemplate.execute(status -> applyChunk(transition, chunk));
+        } catch (RuntimeException chunkFailure) {
+            if (chunk.size() == 1) {
+                return List.of(failed(chunk.get(0), chunkFailure));
+            }
+            log.debug("Bulk {} chunk failed, retrying order by order", transition, chunkFailure);
+            var results = new ArrayList<OrderResult>(chunk.size());
+            for (Long orderId : chunk) {
+                try {
+                    results.addAll(transactionTemplate.execute(status -> applyChunk(transition, List.of(orderId))));
+                } catch (RuntimeException orderFailure) {
+                    results.add(failed(orderId, orderFailure));
+                }
+            }
+            return results;
+        }
+    }
+
+    // Orders that cannot take the transition are reported and left alone; the rest move together
+    private List<OrderResult> applyChunk(OrderTransition transition, List<Long> chunk) {
+        Map<Long, CustomerOrder> ordersById = new HashMap<>();
+        for (var order : customerOrderRepository.findAllWithItemsByIdIn(chunk)) {
+            ordersById.put(order.getId(), order);
+        }
+
+        var movable = new ArrayList<CustomerOrder>();
+        var results = new ArrayList<OrderResult>(chunk.size());
+        for (Long orderId : chunk) {
+            var order = ordersById.get(orderId);
+            if (order == null) {
+                results.add(OrderResult.rejected(orderId, Outcome.NOT_FOUND, null,
+                        "Order with id " + orderId + " not found"));
+            } else if (!transition.allowedFrom(order.getStatus())) {
+                results.add(OrderResult.rejected(orderId, Outcome.INVALID_STATUS, order.getStatus(),
+                        transition.rejectionMessage(order.getStatus())));
+            } else if (transition.requiresItems() && order.getItems().isEmpty()) {
+                results.add(OrderResult.rejected(orderId, Outcome.INVALID_STATUS, order.getStatus(),
+                        "Cannot process an order with no items"));
+            } else {
+                movable.add(order);
+                results.add(null);
+            }
+        }
+
+        orderService.applyTransition(transition, movable);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, OrderResult.applied(chunk.get(i), transition.target()));
+            }
+        }
+        return results;
+    }
+
+    private OrderResult failed(Long orderId, RuntimeException e) {
+        var status = customerOrderRepository.findById(orderId).map(CustomerOrder::getStatus).orElse(null);
+        return OrderResult.rejected(orderId, Outcome.FAILED, status, e.getMessage());
+    }
+}
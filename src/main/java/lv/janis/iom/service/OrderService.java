@@ -10,27 +10,34 @@ import org.springframework.transaction.annotation.Transactional;
 
 import lv.janis.iom.dto.filters.CustomerOrderFilter;
 import lv.janis.iom.dto.response.CustomerOrderResponse;
+import lv.janis.iom.dto.response.OrderLineResponse;
 import lv.janis.iom.entity.CustomerOrder;
 import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.entity.OutboxEvent;
 import lv.janis.iom.enums.ExternalOrderSource;
 import lv.janis.iom.enums.FailureCode;
 import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
 import lv.janis.iom.enums.OutboxEventType;
-import lv.janis.iom.factory.StockMovementRequestFactory;
 import lv.janis.iom.repository.CustomerOrderRepository;
+import lv.janis.iom.repository.OrderItemRepository;
 import lv.janis.iom.repository.OutboxEventRepository;
 import lv.janis.iom.repository.ProductRepository;
 import lv.janis.iom.repository.specification.OrderSpecifications;
+import lv.janis.iom.service.expiry.ReservationExpiryTracker;
 import org.springframework.lang.NonNull;
 
 import jakarta.persistence.EntityNotFoundException;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -38,22 +45,25 @@ public class OrderService {
     private final CustomerOrderRepository customerOrderRepository;
     private final InventoryService inventoryService;
     private final ProductRepository productRepository;
-    private final StockMovementService stockMovementService;
     private final OutboxEventRepository outboxRepo;
+    private final OrderItemRepository orderItemRepository;
+    private final ReservationExpiryTracker reservationExpiryTracker;
 
     public OrderService(
             CustomerOrderRepository customerOrderRepository,
             ProductRepository productRepository,
             InventoryService inventoryService,
-            StockMovementService stockMovementService,
-            OutboxEventRepository outboxRepo
+            OutboxEventRepository outboxRepo,
+            OrderItemRepository orderItemRepository,
+            ReservationExpiryTracker reservationExpiryTracker
 
     ) {
         this.customerOrderRepository = customerOrderRepository;
+        this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
         this.inventoryService = inventoryService;
-        this.stockMovementService = stockMovementService;
         this.outboxRepo = outboxRepo;
+        this.reservationExpiryTracker = reservationExpiryTracker;
 
     }
 
@@ -67,7 +77,7 @@ public class OrderService {
     public CustomerOrder addItem(@NonNull Long orderId, Long productId, int quantity) {
         requireId(orderId, "orderId");
         requireId(productId, "productId");
-        var order = customerOrderRepository.findById(orderId)
+        var order = customerOrderRepository.findWithItemsAndProductsById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
 
         var product = productRepository.findAllByIdInAndIsDeletedFalse(Set.of(productId))
@@ -89,7 +99,7 @@ public class OrderService {
     public CustomerOrder removeItem(@NonNull Long orderId, Long orderItemId) {
         requireId(orderId, "orderId");
         requireId(orderItemId, "orderItemId");
-        var order = customerOrderRepository.findById(orderId)
+        var order = customerOrderRepository.findWithItemsAndProductsById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
 
         if (order.getStatus() != OrderStatus.CREATED) {
@@ -107,85 +117,22 @@ public class OrderService {
 
     @Transactional
     public CustomerOrder statusProcessing(@NonNull Long orderId) {
-        requireId(orderId, "orderId");
-        var order = customerOrderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
-
-        if (order.getStatus() != OrderStatus.CREATED) {
-            throw new IllegalStateException("Only orders in CREATED status can be moved to PROCESSING");
-        }
-        if (order.getItems().isEmpty()) {
-            throw new IllegalStateException("Cannot process an order with no items");
-        }
-
-        for (var item : order.getItems()) {
-            var inventory = inventoryService.reserveStock(item.getProduct().getId(), item.getQuantity());
-
-            stockMovementService.createStockMovement(
-                    StockMovementRequestFactory.orderReserved(inventory, orderId, item.getQuantity()));
-
-        }
-        order.markProcessing();
-        return order;
+        return transition(orderId, OrderTransition.PROCESSING);
     }
 
     @Transactional
     public CustomerOrder statusShipped(@NonNull Long orderId) {
-        requireId(orderId, "orderId");
-        var order = customerOrderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
-
-        if (order.getStatus() != OrderStatus.PROCESSING) {
-            throw new IllegalStateException("Only orders in PROCESSING status can be moved to SHIPPED");
-        }
-
-        for (var item : order.getItems()) {
-            inventoryService.fulfillReservedQuantity(item.getProduct().getId(), item.getQuantity());
-            var inventory = inventoryService.getInventoryByProductId(item.getProduct().getId());
-            stockMovementService.createStockMovement(
-                    StockMovementRequestFactory.orderFulfilled(inventory, orderId, item.getQuantity()));
-        }
-        order.markShipped();
-        return order;
+        return transition(orderId, OrderTransition.SHIPPED);
     }
 
     @Transactional
     public CustomerOrder statusDelivered(@NonNull Long orderId) {
-        requireId(orderId, "orderId");
-        var order = customerOrderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
-
-        if (order.getStatus() != OrderStatus.SHIPPED) {
-            throw new IllegalStateException("Only orders in SHIPPED status can be moved to DELIVERED");
-        }
-
-        order.markDelivered();
-        return customerOrderRepository.save(order);
+        return transition(orderId, OrderTransition.DELIVERED);
     }
 
     @Transactional
     public CustomerOrder statusCancelled(@NonNull Long orderId) {
-        requireId(orderId, "orderId");
-        var order = customerOrderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
-        if (order.getStatus() == OrderStatus.CANCELLED) {
-            throw new IllegalStateException("Order is already CANCELLED");
-        }
-
-        if (order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.DELIVERED) {
-            throw new IllegalStateException("Cannot cancel an order that is SHIPPED or DELIVERED");
-        }
-        if (order.getStatus() == OrderStatus.PROCESSING) {
-            for (var item : order.getItems()) {
-                inventoryService.cancelReservedQuantity(item.getProduct().getId(), item.getQuantity());
-                var inventory = inventoryService.getInventoryByProductId(item.getProduct().getId());
-                stockMovementService.createStockMovement(
-                        StockMovementRequestFactory.orderReleased(inventory, orderId, item.getQuantity()));
-                inventoryService.updateLowQuantityFlag(inventory);
-            }
-        }
-        order.markCancelled();
-        return order;
+        return transition(orderId, OrderTransition.CANCELLED);
     }
 
     @Transactional
@@ -196,12 +143,10 @@ public class OrderService {
     @Transactional
     public CustomerOrder statusReturned(@NonNull Long orderId, List<Long> productIds) {
         requireId(orderId, "orderId");
-        var order = customerOrderRepository.findById(orderId)
+        var order = customerOrderRepository.findWithItemsAndProductsById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
 
-        if (order.getStatus() != OrderStatus.DELIVERED) {
-            throw new IllegalStateException("Only orders in DELIVERED status can be moved to RETURNED");
-        }
+        var effect = OrderTransition.RETURNED.stockEffectFrom(order.getStatus());
 
         Set<Long> requestedProductIds = new HashSet<>();
         if (productIds != null) {
@@ -228,16 +173,69 @@ public class OrderService {
             }
         }
 
-        for (var item : itemsToReturn) {
-            inventoryService.addStock(item.getProduct().getId(), item.getQuantity());
-            var inventory = inventoryService.getInventoryByProductId(item.getProduct().getId());
-            stockMovementService.createStockMovement(
-                    StockMovementRequestFactory.orderReturned(inventory, orderId, item.getQuantity()));
-        }
-        order.markReturned();
+        applyStockEffect(effect, Map.of(orderId, itemsToReturn));
+        order.apply(OrderTransition.RETURNED);
+        return order;
+    }
+
+    @Transactional
+    public CustomerOrder transition(@NonNull Long orderId, @NonNull OrderTransition transition) {
+        requireId(orderId, "orderId");
+        var order = customerOrderRepository.findWithItemsAndProductsById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
+        applyTransition(transition, List.of(order));
         return order;
     }
 
+    /**
+     * Moves every order through the transition. Stock for all orders that share a stock effect
+     * is moved in one inventory pass. Throws before anything changes if an order is not
+     * allowed to take the transition.
+     */
+    @Transactional
+    public void applyTransition(@NonNull OrderTransition transition, List<CustomerOrder> orders) {
+        var itemsByEffect = new EnumMap<OrderTransition.StockEffect, Map<Long, List<OrderItem>>>(
+                OrderTransition.StockEffect.class);
+        for (var order : orders) {
+            var effect = transition.stockEffectFrom(order.getStatus());
+            if (transition.requiresItems() && order.getItems().isEmpty()) {
+                throw new IllegalStateException("Cannot process an order with no items");
+            }
+            itemsByEffect.computeIfAbsent(effect, e -> new LinkedHashMap<>()).put(order.getId(), order.getItems());
+        }
+        itemsByEffect.forEach(this::applyStockEffect);
+        for (var order : orders) {
+            order.apply(transition);
+        }
+        if (transition == OrderTransition.PROCESSING) {
+            reservationExpiryTracker.reserved(orders);
+        }
+    }
+
+    /**
+     * Cancels those of the given orders that are still PROCESSING and past their reservation
+     * deadline, releasing their stock like {@link #statusCancelled}. Returns how many were cancelled.
+     */
+    @Transactional
+    public int expireReservations(List<Long> orderIds, Instant now) {
+        var expired = customerOrderRepository.findAllWithItemsByIdIn(orderIds).stream()
+                .filter(order -> order.isReservationExpired(now))
+                .toList();
+        applyTransition(OrderTransition.CANCELLED, expired);
+        return expired.size();
+    }
+
+    private void applyStockEffect(OrderTransition.StockEffect effect, Map<Long, List<OrderItem>> itemsByOrder) {
+        switch (effect) {
+            case RESERVE -> inventoryService.reserveForOrders(itemsByOrder);
+            case FULFILL -> inventoryService.fulfillForOrders(itemsByOrder);
+            case RELEASE -> inventoryService.releaseForOrders(itemsByOrder);
+            case RESTOCK -> inventoryService.returnForOrders(itemsByOrder);
+            case NONE -> {
+            }
+        }
+    }
+
     @Transactional
     public CustomerOrder getCustomerOrderById(@NonNull Long orderId) {
         requireId(orderId, "orderId");
@@ -245,6 +243,20 @@ public class OrderService {
                 .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
     }
 
+    // Version-only read for conditional GETs; skips loading the order and its lines
+    @Transactional(readOnly = true)
+    public long getCustomerOrderVersion(@NonNull Long orderId) {
+        requireId(orderId, "orderId");
+        return customerOrderRepository.findVersionById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order with id " + orderId + " not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerOrderResponse getCustomerOrderResponse(@NonNull Long orderId) {
+        var order = getCustomerOrderById(orderId);
+        return CustomerOrderResponse.from(order, orderItemRepository.findLinesByOrderIdIn(List.of(orderId)));
+    }
+
     @Transactional(readOnly = true)
     public CustomerOrder findBySourceAndExternalOrderId(@NonNull ExternalOrderSource source,
             @NonNull String externalOrderId) {
@@ -267,7 +279,16 @@ public class OrderService {
                         .and(OrderSpecifications.updatedBetween(safeFilter.getUpdatedAfter(),
                                 safeFilter.getUpdatedBefore())));
 
-        return customerOrderRepository.findAll(specs, safePageable).map(CustomerOrderResponse::from);
+        var page = customerOrderRepository.findAll(specs, safePageable);
+        if (page.isEmpty()) {
+            return page.map(order -> CustomerOrderResponse.from(order, List.of()));
+        }
+        var orderIds = page.getContent().stream().map(CustomerOrder::getId).toList();
+        Map<Long, List<OrderLineResponse>> linesByOrder = orderItemRepository.findLinesByOrderIdIn(orderIds)
+                .stream()
+                .collect(Collectors.groupingBy(OrderLineResponse::orderId));
+        return page.map(order -> CustomerOrderResponse.from(order,
+                linesByOrder.getOrDefault(order.getId(), List.of())));
     }
 
     private static void requireId(Long id, String name) {
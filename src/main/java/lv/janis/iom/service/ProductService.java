@@ -1,5 +1,7 @@
 package lv.janis.iom.service;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
@@ -14,6 +16,7 @@ import lv.janis.iom.dto.requests.ProductUpdateRequest;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.repository.ProductRepository;
 import lv.janis.iom.repository.specification.ProductSpecifications;
+import lv.janis.iom.service.coalescing.ReadCoalescer;
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.lang.NonNull;
@@ -23,9 +26,11 @@ import org.springframework.lang.Nullable;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ReadCoalescer readCoalescer;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ReadCoalescer readCoalescer) {
         this.productRepository = productRepository;
+        this.readCoalescer = readCoalescer;
     }
 
     @Transactional
@@ -53,6 +58,17 @@ public class ProductService {
                 .orElseThrow(() -> new EntityNotFoundException("Product not found."));
     }
 
+    // Version-only read for conditional GETs; skips loading the entity. Concurrent calls share one query
+    public long getProductVersion(@NonNull Long id) {
+        return readCoalescer.load("product-version", id, () -> productRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found.")));
+    }
+
+    // Body of GET /api/products/{id}; keyed by version, so a briefly cached result is never older than it
+    public ProductResponse getProductResponse(@NonNull Long id, long version) {
+        return readCoalescer.loadCached("product", List.of(id, version), () -> ProductResponse.from(getProductById(id)));
+    }
+
     @Transactional
     public Product updateProduct(@NonNull Long id, ProductUpdateRequest request) {
         if (request == null) {
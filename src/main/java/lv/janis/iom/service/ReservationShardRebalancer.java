@@ -0,0 +1,58 @@
+package lv.janis.iom.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lv.janis.iom.repository.InventoryRepository;
+
+/**
+ * Periodically rebalances every sharded product, one transaction each: shard reservations are
+ * folded into the parent row, so its available quantity catches up, and stock added since the
+ * last run is spread over the shards. Products with nothing to fold are skipped without locks.
+ * Running it on several nodes is safe; the parent row lock serializes them.
+ */
+@Component
+public class ReservationShardRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ReservationShardRebalancer.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final ShardedReservationService shardedReservationService;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservationShardRebalancer(
+            InventoryRepository inventoryRepository,
+            ShardedReservationService shardedReservationService,
+            InventoryService inventoryService,
+            TransactionTemplate transactionTemplate) {
+        this.inventoryRepository = inventoryRepository;
+        this.shardedReservationService = shardedReservationService;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation-shards.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        for (Long productId : inventoryRepository.findShardedProductIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(productId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebalance reservation shards of product {}", productId, e);
+            }
+        }
+    }
+
+    private void rebalance(Long productId) {
+        var inventory = shardedReservationService.rebalanceIfNeeded(productId);
+        if (inventory == null) {
+            return;
+        }
+        // shard reservations skip the low-stock check, so it runs once they are folded
+        boolean wasLowStock = inventory.isLowQuantity();
+        inventoryService.updateLowQuantityFlag(inventory);
+        inventoryService.lowStockCheck(inventory, wasLowStock);
+    }
+}
@@ -0,0 +1,285 @@
+package lv.janis.iom.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityNotFoundException;
+import lv.janis.iom.dto.response.ReservationShardsResponse;
+import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.entity.InventoryReservationShard;
+import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.repository.InventoryReservationShardRepository;
+import lv.janis.iom.service.ledger.ReservationLedger;
+import lv.janis.iom.service.stream.InventoryChangeStream;
+
+/**
+ * Optional reservation mode for hot products. Enabling it carves the product's unreserved
+ * stock into N shard rows, recorded as the parent's shardedQuantity; it stays counted as
+ * available there. Reservations then decrement a randomly picked shard with a single
+ * conditional update and never write the parent inventory row. {@link #rebalance} folds those
+ * shard reservations into the parent's reservedQuantity and spreads any new stock over the
+ * shards; {@link ReservationShardRebalancer} runs it periodically, so the parent's
+ * available_quantity trails shard reservations by at most one interval. Enabling, rebalancing,
+ * fulfilment and stock decreases write the parent, and they lock it before touching any shard
+ * row so they cannot deadlock with each other.
+ */
+@Service
+@Transactional
+public class ShardedReservationService {
+
+    static final int MAX_SHARDS = 64;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryReservationShardRepository shardRepository;
+    private final ReservationLedger reservationLedger;
+    private final InventoryChangeStream inventoryChangeStream;
+
+    public ShardedReservationService(
+            InventoryRepository inventoryRepository,
+            InventoryReservationShardRepository shardRepository,
+            ReservationLedger reservationLedger,
+            InventoryChangeStream inventoryChangeStream) {
+        this.inventoryRepository = inventoryRepository;
+        this.shardRepository = shardRepository;
+        this.reservationLedger = reservationLedger;
+        this.inventoryChangeStream = inventoryChangeStream;
+    }
+
+    public ReservationShardsResponse enable(@NonNull Long productId, int shardCount) {
+        if (shardCount < 2 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("shardCount must be between 2 and " + MAX_SHARDS);
+        }
+        if (reservationLedger.isActive()) {
+            // the ledger would keep counting the stock that sharding moves into shard rows
+            throw new IllegalStateException("Reservation sharding cannot be enabled while the reservation ledger is on");
+        }
+        var inventory = lockInventory(productId);
+        if (inventory.isReservationSharded()) {
+            throw new IllegalStateException("Reservation sharding already enabled for product id " + productId);
+        }
+        var shards = new ArrayList<InventoryReservationShard>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(InventoryReservationShard.createFor(inventory, i));
+        }
+        inventory.enableReservationShards(shardCount);
+        redistribute(inventory, shards);
+        shardRepository.saveAll(shards);
+        return ReservationShardsResponse.from(productId, inventory, shards);
+    }
+
+    public void disable(@NonNull Long productId) {
+        var inventory = lockInventory(productId);
+        if (!inventory.isReservationSharded()) {
+            throw new IllegalStateException("Reservation sharding is not enabled for product id " + productId);
+        }
+        var shards = shardRepository.findAllByInventoryIdForUpdate(inventory.getId());
+        // outstanding shard reservations stay counted in the parent's reservedQuantity
+        foldReservations(inventory, shards);
+        shardRepository.deleteAll(shards);
+        inventory.disableReservationShards();
+    }
+
+    public ReservationShardsResponse rebalance(@NonNull Long productId) {
+        var inventory = lockInventory(productId);
+        if (!inventory.isReservationSharded()) {
+            throw new IllegalStateException("Reservation sharding is not enabled for product id " + productId);
+        }
+        var shards = shardRepository.findAllByInventoryIdForUpdate(inventory.getId());
+        redistribute(inventory, shards);
+        return ReservationShardsResponse.from(productId, inventory, shards);
+    }
+
+    /**
+     * Rebalances when shard reservations are waiting to be folded or stock was added outside
+     * the shards; the check reads without locks. Returns the locked parent, or null when there
+     * was nothing to do.
+     */
+    public Inventory rebalanceIfNeeded(@NonNull Long productId) {
+        var current = inventoryRepository.findByProductId(productId).orElse(null);
+        if (current == null || !current.isReservationSharded()) {
+            return null;
+        }
+        if (current.getUnshardedAvailable() == 0 && shardRepository.sumReservedByInventoryId(current.getId()) == 0) {
+            return null;
+        }
+        var inventory = lockInventory(productId);
+        redistribute(inventory, shardRepository.findAllByInventoryIdForUpdate(inventory.getId()));
+        return inventory;
+    }
+
+    @Transactional(readOnly = true)
+    public ReservationShardsResponse getShards(@NonNull Long productId) {
+        var inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
+        var shards = shardRepository.findAllByInventoryIdOrderByShardIndex(inventory.getId());
+        return ReservationShardsResponse.from(productId, inventory, shards);
+    }
+
+    // Shard reservations the parent row does not count yet
+    public int unfoldedReservations(Inventory inventory) {
+        return shardRepository.sumReservedByInventoryId(inventory.getId());
+    }
+
+    public void reserve(Inventory inventory, int quantity) {
+        int remaining = applyToShards(inventory, quantity, ShardOperation.RESERVE);
+        if (remaining > 0) {
+            // shards are drained: take the rest from the parent's unsharded remainder, which
+            // throws OUT_OF_STOCK (rolling back any shard pieces) when that is short too
+            inventory.reserveQuantity(remaining);
+        }
+    }
+
+    public void release(Inventory inventory, int quantity) {
+        int remaining = applyToShards(inventory, quantity, ShardOperation.RELEASE);
+        if (remaining > 0) {
+            // reservation was taken from the parent, e.g. before sharding was enabled
+            inventory.unreserveQuantity(remaining);
+        }
+    }
+
+    public void fulfill(Inventory inventory, int quantity) {
+        lockInventory(inventory.getProduct().getId());
+        int fromParent = applyToShards(inventory, quantity, ShardOperation.CONSUME);
+        if (fromParent < quantity) {
+            inventory.removeShardedQuantity(quantity - fromParent);
+        }
+        if (fromParent > 0) {
+            // reservations already folded into the parent, or taken from it directly
+            inventory.deductReservedQuantity(fromParent);
+        }
+    }
+
+    /**
+     * Removes unreserved stock: the parent's unsharded remainder first, then shard budgets in
+     * index order. Throws {@link IllegalArgumentException} with nothing changed when the
+     * product has less unreserved stock than {@code quantity}, so bulk adjustments can reject
+     * the line and carry on in the same transaction.
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public void decrease(Inventory inventory, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("amount must be positive");
+        lockInventory(inventory.getProduct().getId());
+        int fromParent = Math.min(quantity, inventory.getUnshardedAvailable());
+        int fromShards = quantity - fromParent;
+        if (fromShards > 0) {
+            withdrawFromShards(inventory, fromShards);
+            inventory.removeShardedQuantity(fromShards);
+        }
+        if (fromParent > 0) {
+            inventory.decreaseQuantity(fromParent);
+        }
+    }
+
+    // Reservations keep moving shard balances while the parent is locked, so every piece is a
+    // conditional update; on a shortfall the pieces already taken are put back
+    private void withdrawFromShards(Inventory inventory, int quantity) {
+        var balances = shardRepository.findBalancesByInventoryId(inventory.getId());
+        var taken = new int[balances.size()];
+        int remaining = quantity;
+        for (int i = 0; i < balances.size() && remaining > 0; i++) {
+            int take = Math.min(remaining, balances.get(i).getAvailable());
+            if (take > 0 && shardRepository.withdraw(inventory.getId(), balances.get(i).getShardIndex(), take) == 1) {
+                taken[i] = take;
+                remaining -= take;
+            }
+        }
+        if (remaining > 0) {
+            for (int i = 0; i < taken.length; i++) {
+                if (taken[i] > 0) {
+                    shardRepository.restock(inventory.getId(), balances.get(i).getShardIndex(), taken[i]);
+                }
+            }
+            throw new IllegalArgumentException("not enough available quantity to decrease");
+        }
+    }
+
+    // Tries one randomly picked shard that can cover the whole quantity, then splits the
+    // quantity across shards in index order. Returns the part no shard could take. Balances
+    // are read without locks; the conditional updates re-check them.
+    private int applyToShards(Inventory inventory, int quantity, ShardOperation operation) {
+        var balances = shardRepository.findBalancesByInventoryId(inventory.getId());
+        var candidates = new ArrayList<InventoryReservationShardRepository.ShardBalance>();
+        for (var balance : balances) {
+            if (operation.source(balance) >= quantity) {
+                candidates.add(balance);
+            }
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        for (var candidate : candidates) {
+            if (apply(inventory, candidate.getShardIndex(), quantity, operation)) {
+                shardsChanged(inventory);
+                return 0;
+            }
+        }
+
+        int remaining = quantity;
+        for (var balance : balances) {
+            int take = Math.min(remaining, operation.source(balance));
+            if (take > 0 && apply(inventory, balance.getShardIndex(), take, operation)) {
+                remaining -= take;
+                if (remaining == 0) {
+                    break;
+                }
+            }
+        }
+        if (remaining < quantity) {
+            shardsChanged(inventory);
+        }
+        return remaining;
+    }
+
+    // Shard writes leave the parent row alone, so stream subscribers are told separately
+    private void shardsChanged(Inventory inventory) {
+        inventoryChangeStream.publish(inventory.getProduct().getId(),
+                inventory.getAvailableQuantity() - unfoldedReservations(inventory));
+    }
+
+    private boolean apply(Inventory inventory, int shardIndex, int quantity, ShardOperation operation) {
+        int updated = switch (operation) {
+            case RESERVE -> shardRepository.reserve(inventory.getId(), shardIndex, quantity);
+            case RELEASE -> shardRepository.release(inventory.getId(), shardIndex, quantity);
+            case CONSUME -> shardRepository.consume(inventory.getId(), shardIndex, quantity);
+        };
+        return updated == 1;
+    }
+
+    // Folds shard reservations into the parent, then spreads all unreserved stock evenly
+    private void redistribute(Inventory inventory, List<InventoryReservationShard> shards) {
+        foldReservations(inventory, shards);
+        int pool = inventory.getAvailableQuantity();
+        int share = pool / shards.size();
+        int extra = pool % shards.size();
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setAvailable(share + (i < extra ? 1 : 0));
+        }
+        inventory.setShardedQuantity(pool);
+    }
+
+    private void foldReservations(Inventory inventory, List<InventoryReservationShard> shards) {
+        int folded = shards.stream().mapToInt(InventoryReservationShard::foldReserved).sum();
+        if (folded > 0) {
+            inventory.foldShardReservations(folded);
+        }
+    }
+
+    private Inventory lockInventory(Long productId) {
+        return inventoryRepository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Inventory for product id " + productId + " not found"));
+    }
+
+    private enum ShardOperation {
+        RESERVE,
+        RELEASE,
+        CONSUME;
+
+        int source(InventoryReservationShardRepository.ShardBalance balance) {
+            return this == RESERVE ? balance.getAvailable() : balance.getReserved();
+        }
+    }
+}
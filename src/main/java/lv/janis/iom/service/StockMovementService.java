@@ -7,6 +7,10 @@ import lv.janis.iom.entity.StockMovement;
 import lv.janis.iom.repository.StockMovementRepository;
 import lv.janis.iom.repository.specification.StockMovementSpecification;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -34,6 +38,20 @@ public class StockMovementService {
         return stockMovementRepository.save(movement);
     }
 
+    // Bulk variant for large stock changes: one JDBC batch, the movements are not returned managed
+    public void createStockMovements(List<StockMovementCreationRequest> requests) {
+        var movements = new ArrayList<StockMovement>(requests.size());
+        for (var request : requests) {
+            movements.add(new StockMovement(
+                    request.getInventory(),
+                    request.getDelta(),
+                    request.getReason(),
+                    request.getOrderId(),
+                    request.getMovementType()));
+        }
+        stockMovementRepository.batchInsert(movements, Instant.now());
+    }
+
     public Page<StockMovementResponse> getStockMovement(StockMovmentFilter filter, @NonNull Pageable pageable) {
         var safeFilter = filter != null ? filter : new StockMovmentFilter();
         var spec = Specification.where(
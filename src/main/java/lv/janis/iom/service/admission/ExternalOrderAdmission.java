@@ -0,0 +1,176 @@
+package lv.janis.iom.service.admission;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lv.janis.iom.config.ExternalOrderAdmissionProperties;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.enums.OutboxEventStatus;
+import lv.janis.iom.exception.AdmissionRejectedException;
+import lv.janis.iom.exception.AdmissionRejectedException.Reason;
+import lv.janis.iom.repository.OutboxEventRepository;
+
+/**
+ * Admission control for the external order endpoints, so partner replays cannot take the
+ * connection pool away from the internal endpoints. Requests are shed first when the system
+ * is overloaded (primary pool utilization or outbox backlog over threshold), then per source
+ * by a token bucket and a concurrency limit. Rejections carry a Retry-After hint and are
+ * counted in {@code iom.admission.rejected}, tagged by source and reason.
+ */
+@Service
+public class ExternalOrderAdmission {
+    private static final Logger log = LoggerFactory.getLogger(ExternalOrderAdmission.class);
+    private static final List<OutboxEventStatus> BACKLOG_STATUSES = List.of(OutboxEventStatus.PENDING,
+            OutboxEventStatus.FAILED);
+
+    private final ExternalOrderAdmissionProperties properties;
+    private final OutboxEventRepository outboxRepo;
+    private final ObjectProvider<DataSource> dataSource;
+    private final MeterRegistry meterRegistry;
+    private final Map<ExternalOrderSource, Semaphore> concurrency = new EnumMap<>(ExternalOrderSource.class);
+    private final Map<ExternalOrderSource, TokenBucket> rates = new EnumMap<>(ExternalOrderSource.class);
+    private volatile long outboxBacklog;
+    private volatile HikariDataSource pool;
+
+    public ExternalOrderAdmission(
+            ExternalOrderAdmissionProperties properties,
+            OutboxEventRepository outboxRepo,
+            ObjectProvider<DataSource> dataSource,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.outboxRepo = outboxRepo;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        for (var source : ExternalOrderSource.values()) {
+            var limits = properties.limitsFor(source);
+            int maxConcurrent = Math.max(1, limits.getMaxConcurrent());
+            var semaphore = new Semaphore(maxConcurrent);
+            concurrency.put(source, semaphore);
+            rates.put(source, new TokenBucket(limits.getPermitsPerSecond(), limits.getBurst(), System::nanoTime));
+            Gauge.builder("iom.admission.in_flight", semaphore, s -> maxConcurrent - s.availablePermits())
+                    .tag("source", source.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("iom.admission.outbox_backlog", this, admission -> admission.outboxBacklog)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits one request from {@code source} or throws {@link AdmissionRejectedException}.
+     * The returned permit must be closed when the request is done.
+     */
+    public Permit admit(ExternalOrderSource source) {
+        if (!properties.isEnabled()) {
+            return Permit.NONE;
+        }
+        double utilization = poolUtilization();
+        if (utilization >= properties.getPoolUtilizationThreshold()) {
+            throw reject(source, Reason.POOL_SATURATED, properties.getOverloadRetryAfterSeconds(),
+                    "Database connection pool is saturated, retry later");
+        }
+        if (outboxBacklog >= properties.getOutboxBacklogThreshold()) {
+            throw reject(source, Reason.OUTBOX_BACKLOG, properties.getOverloadRetryAfterSeconds(),
+                    "Outbox backlog is over its limit, retry later");
+        }
+
+        var semaphore = concurrency.get(source);
+        if (!semaphore.tryAcquire()) {
+            throw reject(source, Reason.CONCURRENCY_LIMITED, 1,
+                    "Too many concurrent requests from " + source);
+        }
+        long waitNanos = rates.get(source).tryAcquire();
+        if (waitNanos > 0) {
+            semaphore.release();
+            throw reject(source, Reason.RATE_LIMITED, Math.max(1, ceilSeconds(waitNanos)),
+                    "Request rate for " + source + " is over its limit");
+        }
+        return new Permit(semaphore);
+    }
+
+    @Scheduled(fixedDelayString = "${external-order.admission.backlog-check-interval-ms:1000}")
+    public void refreshOutboxBacklog() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            outboxBacklog = outboxRepo.countByStatusIn(BACKLOG_STATUSES);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read outbox backlog, keeping the last value {}", outboxBacklog, e);
+        }
+    }
+
+    double poolUtilization() {
+        var hikari = pool();
+        if (hikari == null) {
+            return 0;
+        }
+        var mxBean = hikari.getHikariPoolMXBean();
+        if (mxBean == null || hikari.getMaximumPoolSize() <= 0) {
+            return 0;
+        }
+        return (double) mxBean.getActiveConnections() / hikari.getMaximumPoolSize();
+    }
+
+    private HikariDataSource pool() {
+        var hikari = pool;
+        if (hikari == null) {
+            var target = dataSource.getIfAvailable();
+            if (target == null) {
+                return null;
+            }
+            hikari = DataSourceUnwrapper.unwrap(target, HikariConfigMXBean.class, HikariDataSource.class);
+            pool = hikari;
+        }
+        return hikari;
+    }
+
+    private AdmissionRejectedException reject(ExternalOrderSource source, Reason reason, long retryAfterSeconds,
+            String message) {
+        meterRegistry.counter("iom.admission.rejected",
+                "source", source.name(),
+                "reason", reason.name().toLowerCase(Locale.ROOT))
+                .increment();
+        return new AdmissionRejectedException(reason, retryAfterSeconds, message);
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public static final class Permit implements AutoCloseable {
+        static final Permit NONE = new Permit(null);
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (semaphore != null && released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package lv.janis.iom.service.admission;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lv.janis.iom.config.ExternalOrderAdmissionProperties;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.exception.AdmissionRejectedException;
+import lv.janis.iom.exception.GlobalExceptionHandler.ApiError;
+import lv.janis.iom.service.idempotency.CachedBodyRequest;
+
+/**
+ * Applies {@link ExternalOrderAdmission} to the external order endpoints before any other
+ * request handling, so a shed request never takes an {@code Idempotency-Key} or reaches the
+ * controller. The source is read from the JSON body; a body without a valid source is passed
+ * on for the controller to reject. The permit is held until the rest of the chain returns.
+ */
+public class ExternalOrderAdmissionFilter extends OncePerRequestFilter {
+    static final Set<String> PATHS = Set.of("/api/orders/external", "/api/orders/external/cancel");
+
+    private final ExternalOrderAdmission admission;
+    private final ExternalOrderAdmissionProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public ExternalOrderAdmissionFilter(ExternalOrderAdmission admission,
+            ExternalOrderAdmissionProperties properties, ObjectMapper objectMapper) {
+        this.admission = admission;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var cached = CachedBodyRequest.read(request, properties.getMaxBodyBytes());
+        if (cached == null) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, ApiError.payloadTooLarge(request.getRequestURI(),
+                    "External order requests must have a body of at most " + properties.getMaxBodyBytes()
+                            + " bytes"));
+            return;
+        }
+        var source = source(cached.body());
+        if (source == null) {
+            chain.doFilter(cached, response);
+            return;
+        }
+
+        ExternalOrderAdmission.Permit permit;
+        try {
+            permit = admission.admit(source);
+        } catch (AdmissionRejectedException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+            writeError(response, HttpStatus.TOO_MANY_REQUESTS,
+                    ApiError.tooManyRequests(request.getRequestURI(), e.getMessage()));
+            return;
+        }
+        try (permit) {
+            chain.doFilter(cached, response);
+        }
+    }
+
+    private ExternalOrderSource source(byte[] body) {
+        try {
+            var node = objectMapper.readTree(body);
+            var source = node == null ? null : node.get("source");
+            return source != null && source.isTextual() ? ExternalOrderSource.valueOf(source.asText()) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, ApiError error) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
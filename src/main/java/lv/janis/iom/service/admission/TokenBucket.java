@@ -0,0 +1,38 @@
+package lv.janis.iom.service.admission;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Classic token bucket: refills continuously at {@code permitsPerSecond} up to {@code burst}
+ * tokens. A failed acquire reports how long until the next token is available.
+ */
+final class TokenBucket {
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000.0;
+        this.capacity = Math.max(1, burst);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    // 0 when a token was taken, otherwise the nanoseconds until one will be available
+    synchronized long tryAcquire() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+}
@@ -0,0 +1,76 @@
+package lv.janis.iom.service.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a chunk of items in one unit of work (usually one transaction) and, if that fails,
+ * writes each item in a unit of its own. One bad item then costs its chunk a second pass but
+ * never fails its neighbours. Callbacks run on the calling thread, in item order.
+ */
+public final class ChunkFallback {
+    private static final Logger log = LoggerFactory.getLogger(ChunkFallback.class);
+
+    /** Writes {@code items}, which start at {@code offset} within the chunk. */
+    @FunctionalInterface
+    public interface Writer<T, R> {
+        R write(int offset, List<T> items);
+    }
+
+    /** Receives the result of a successful write of {@code items}, which start at {@code offset}. */
+    @FunctionalInterface
+    public interface Written<T, R> {
+        void written(int offset, List<T> items, R result);
+    }
+
+    /** Receives an item that failed on its own. */
+    @FunctionalInterface
+    public interface Failed<T> {
+        void failed(int offset, T item, RuntimeException failure);
+    }
+
+    private ChunkFallback() {
+    }
+
+    /**
+     * Writes {@code chunk} with {@code writer}, falling back to one write per item when the
+     * chunk fails. A chunk of one item is not written twice; its failure goes straight to
+     * {@code failed}.
+     */
+    public static <T, R> void write(List<T> chunk, Writer<T, R> writer, Written<T, R> written, Failed<T> failed) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        R result;
+        try {
+            result = writer.write(0, chunk);
+        } catch (RuntimeException chunkFailure) {
+            if (chunk.size() == 1) {
+                failed.failed(0, chunk.get(0), chunkFailure);
+                return;
+            }
+            log.debug("Chunk of {} items failed, retrying item by item", chunk.size(), chunkFailure);
+            for (int i = 0; i < chunk.size(); i++) {
+                writeOne(i, chunk.get(i), writer, written, failed);
+            }
+            return;
+        }
+        written.written(0, chunk, result);
+    }
+
+    private static <T, R> void writeOne(int offset, T item, Writer<T, R> writer, Written<T, R> written,
+            Failed<T> failed) {
+        var items = Collections.singletonList(item);
+        R result;
+        try {
+            result = writer.write(offset, items);
+        } catch (RuntimeException itemFailure) {
+            failed.failed(offset, item, itemFailure);
+            return;
+        }
+        written.written(offset, items, result);
+    }
+}
@@ -0,0 +1,114 @@
+package lv.janis.iom.service.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lv.janis.iom.config.ReadCoalescingProperties;
+
+/**
+ * Single-flight for hot reads: concurrent calls with the same name and key share one load,
+ * run by the first caller; the others wait for its result or its exception.
+ * {@link #loadCached} also keeps the result for a short TTL, so it is only meant for keys that
+ * pin the data they load (for example an entity id plus its version). Outcomes are counted in
+ * {@code iom.read.coalescing}, tagged by name and outcome (loaded, coalesced, cached).
+ */
+@Component
+public class ReadCoalescer {
+
+    private record FlightKey(String name, Object key) {
+    }
+
+    private record CachedResult(Object value, long expiresAtNanos) {
+    }
+
+    private final ConcurrentHashMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<FlightKey, CachedResult> results = new ConcurrentHashMap<>();
+    private final ReadCoalescingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final long ttlNanos;
+
+    public ReadCoalescer(ReadCoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getTtlMs()));
+    }
+
+    public <T> T load(String name, Object key, Supplier<T> loader) {
+        return load(name, key, loader, false);
+    }
+
+    public <T> T loadCached(String name, Object key, Supplier<T> loader) {
+        return load(name, key, loader, ttlNanos > 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(String name, Object key, Supplier<T> loader, boolean cache) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        var flightKey = new FlightKey(name, key);
+        if (cache) {
+            var cached = results.get(flightKey);
+            if (cached != null && cached.expiresAtNanos() - System.nanoTime() > 0) {
+                count(name, "cached");
+                return (T) cached.value();
+            }
+        }
+
+        var flight = new CompletableFuture<Object>();
+        var leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader != null) {
+            count(name, "coalesced");
+            return (T) await(leader);
+        }
+        count(name, "loaded");
+        try {
+            T value = loader.get();
+            if (cache) {
+                remember(flightKey, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private void remember(FlightKey key, Object value) {
+        long now = System.nanoTime();
+        if (results.size() >= properties.getMaxCachedEntries()) {
+            results.values().removeIf(cached -> cached.expiresAtNanos() - now <= 0);
+            if (results.size() >= properties.getMaxCachedEntries()) {
+                return;
+            }
+        }
+        results.put(key, new CachedResult(value, now + ttlNanos));
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void count(String name, String outcome) {
+        meterRegistry.counter("iom.read.coalescing", "name", name, "outcome", outcome).increment();
+    }
+}
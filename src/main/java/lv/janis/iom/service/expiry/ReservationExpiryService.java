@@ -0,0 +1,155 @@
+package lv.janis.iom.service.expiry;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lv.janis.iom.config.ReservationExpiryProperties;
+import lv.janis.iom.repository.CustomerOrderRepository;
+import lv.janis.iom.service.OrderService;
+import lv.janis.iom.service.batch.ChunkFallback;
+
+/**
+ * Cancels PROCESSING orders whose reservation outlived {@code order.reservation-expiry.ttl-seconds}.
+ * Deadlines live in the {@link ReservationExpiryTracker}, rebuilt on startup from a keyset walk
+ * over PROCESSING orders. Each tick drains the ids that came due and cancels them in batches,
+ * one transaction per batch, through the same transition as a manual cancel. The database
+ * decides: an order is only cancelled if it is still PROCESSING and past its stored deadline,
+ * so stale wheel entries and other instances expiring the same order are harmless.
+ * The wheel only holds deadlines this instance loaded at startup or stamped itself, so orders
+ * reserved by an instance that has since died are picked up by a periodic sweep: an indexed
+ * query for PROCESSING orders more than one sweep interval past their deadline, which a live
+ * owner would already have expired.
+ */
+@Service
+public class ReservationExpiryService implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryService.class);
+
+    private final ReservationExpiryProperties properties;
+    private final ReservationExpiryTracker tracker;
+    private final CustomerOrderRepository customerOrderRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expiredCounter;
+
+    public ReservationExpiryService(
+            ReservationExpiryProperties properties,
+            ReservationExpiryTracker tracker,
+            CustomerOrderRepository customerOrderRepository,
+            OrderService orderService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tracker = tracker;
+        this.customerOrderRepository = customerOrderRepository;
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+        this.expiredCounter = meterRegistry.counter("iom.reservation_expiry.expired");
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    // Loads every tracked deadline; orders reserved before expiry was enabled have none and stay put
+    synchronized int rebuild() {
+        int pageSize = Math.max(1, properties.getRebuildPageSize());
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            var page = customerOrderRepository.findReservationDeadlinesAfter(afterId, PageRequest.of(0, pageSize));
+            for (var deadline : page) {
+                tracker.track(deadline.getOrderId(), deadline.getExpiresAt());
+            }
+            loaded += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getOrderId();
+        }
+        if (loaded > 0) {
+            log.info("Tracking {} reservation deadlines", loaded);
+        }
+        return loaded;
+    }
+
+    @Scheduled(fixedDelayString = "${order.reservation-expiry.tick-ms:1000}")
+    public void expireDue() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        expire(Instant.now());
+    }
+
+    synchronized int expire(Instant now) {
+        var due = tracker.pollExpired(now);
+        int batchSize = Math.max(1, properties.getBatchSize());
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            expired += expireBatch(due.subList(from, Math.min(from + batchSize, due.size())), now);
+        }
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.info("Released reservations of {} expired orders", expired);
+        }
+        return expired;
+    }
+
+    @Scheduled(fixedDelayString = "${order.reservation-expiry.sweep-interval-ms:60000}",
+            initialDelayString = "${order.reservation-expiry.sweep-interval-ms:60000}")
+    public void sweepOverdue() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        sweep(Instant.now());
+    }
+
+    // Expires overdue orders straight from the database, a batch at a time, until a batch
+    // makes no progress; expired orders leave PROCESSING, so each query starts from the top
+    synchronized int sweep(Instant now) {
+        var before = now.minusMillis(properties.getSweepIntervalMs());
+        int batchSize = Math.max(1, properties.getBatchSize());
+        int expired = 0;
+        while (true) {
+            var overdue = customerOrderRepository.findOverdueReservations(before, PageRequest.of(0, batchSize));
+            int count = expireBatch(overdue, now);
+            expired += count;
+            if (count == 0 || overdue.size() < batchSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.info("Released reservations of {} overdue orders found in the database", expired);
+        }
+        return expired;
+    }
+
+    private int expireBatch(List<Long> orderIds, Instant now) {
+        var expired = new AtomicInteger();
+        ChunkFallback.write(orderIds,
+                (offset, ids) -> transactionTemplate.execute(status -> orderService.expireReservations(ids, now)),
+                (offset, ids, count) -> expired.addAndGet(count),
+                (offset, orderId, failure) -> retryLater(orderId, now, failure));
+        return expired.get();
+    }
+
+    private void retryLater(Long orderId, Instant now, RuntimeException failure) {
+        log.warn("Failed to expire reservation of order {}, retrying in {} ms", orderId,
+                properties.getRetryDelayMs(), failure);
+        tracker.track(orderId, now.plusMillis(properties.getRetryDelayMs()));
+    }
+}
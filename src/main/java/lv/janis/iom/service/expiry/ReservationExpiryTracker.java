@@ -0,0 +1,72 @@
+package lv.janis.iom.service.expiry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lv.janis.iom.config.ReservationExpiryProperties;
+import lv.janis.iom.entity.CustomerOrder;
+
+/**
+ * In-memory index of reservation deadlines, kept in a {@link TimerWheel}. Orders that leave
+ * PROCESSING are not removed; their entries fire as usual and are dropped when the expiry
+ * check against the database finds nothing to release.
+ */
+@Component
+public class ReservationExpiryTracker {
+
+    private final ReservationExpiryProperties properties;
+    private final TimerWheel wheel;
+
+    public ReservationExpiryTracker(ReservationExpiryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.wheel = new TimerWheel(Math.max(1, properties.getTickMs()), System.currentTimeMillis());
+        Gauge.builder("iom.reservation_expiry.tracked", this, ReservationExpiryTracker::size)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Stamps a deadline on orders that have just moved to PROCESSING and tracks it.
+     */
+    public void reserved(List<CustomerOrder> orders) {
+        if (!properties.isEnabled() || orders.isEmpty()) {
+            return;
+        }
+        var deadline = Instant.now().plusSeconds(properties.getTtlSeconds());
+        synchronized (wheel) {
+            for (var order : orders) {
+                order.setReservationExpiresAt(deadline);
+                wheel.schedule(order.getId(), deadline.toEpochMilli());
+            }
+        }
+    }
+
+    public void track(long orderId, Instant deadline) {
+        synchronized (wheel) {
+            wheel.schedule(orderId, deadline.toEpochMilli());
+        }
+    }
+
+    // Ids whose deadline passed by now, in no particular order
+    public List<Long> pollExpired(Instant now) {
+        var expired = new ArrayList<Long>();
+        synchronized (wheel) {
+            wheel.advance(now.toEpochMilli(), expired::add);
+        }
+        return expired;
+    }
+
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package lv.janis.iom.service.expiry;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of (id, deadline) pairs. Level 0 has one slot per tick, and each
+ * level above covers {@code SLOTS} times the span of the one below. Scheduling is O(1), and
+ * advancing one tick fires one level-0 slot. Higher-level slots are cascaded down when the
+ * lower levels wrap. Entries are stored as primitive pairs, so millions of deadlines cost
+ * about 16 bytes each and no per-entry objects.
+ * Deadlines are rounded up to whole ticks, so an entry never fires early. Not thread safe.
+ */
+final class TimerWheel {
+
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+    private static final int MASK = SLOTS - 1;
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+
+    private final long tickMs;
+    private final Slot[][] wheels = new Slot[LEVELS][SLOTS];
+    private final Slot overdue = new Slot();
+    private long currentTick;
+    private int size;
+
+    TimerWheel(long tickMs, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        this.tickMs = tickMs;
+        this.currentTick = startMs / tickMs;
+    }
+
+    void schedule(long id, long deadlineMs) {
+        long deadlineTick = Math.floorDiv(deadlineMs, tickMs) + (Math.floorMod(deadlineMs, tickMs) == 0 ? 0 : 1);
+        size++;
+        insert(id, deadlineTick, overdue::add);
+    }
+
+    /**
+     * Advances the wheel to {@code nowMs} and hands every id whose deadline has passed to
+     * {@code expired}.
+     */
+    void advance(long nowMs, LongConsumer expired) {
+        long targetTick = Math.floorDiv(nowMs, tickMs);
+        if (overdue.size > 0) {
+            fire(overdue, expired);
+        }
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, expired);
+                }
+            }
+            var slot = wheels[0][(int) (currentTick & MASK)];
+            if (slot != null && slot.size > 0) {
+                fire(slot, expired);
+            }
+            if (size == 0) {
+                currentTick = targetTick;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(long id, long deadlineTick, LongConsumer due) {
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            due.accept(id);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        // Past the top level's range: park in the top level, it is re-inserted when it cascades
+        long slotTick = delta >= 1L << (SLOT_BITS * LEVELS)
+                ? currentTick + (1L << (SLOT_BITS * LEVELS)) - 1
+                : deadlineTick;
+        int index = (int) ((slotTick >>> (SLOT_BITS * level)) & MASK);
+        var slot = wheels[level][index];
+        if (slot == null) {
+            slot = new Slot();
+            wheels[level][index] = slot;
+        }
+        slot.add(id, deadlineTick);
+    }
+
+    private void cascade(int level, LongConsumer expired) {
+        int index = (int) ((currentTick >>> (SLOT_BITS * level)) & MASK);
+        var slot = wheels[level][index];
+        if (slot == null || slot.size == 0) {
+            return;
+        }
+        wheels[level][index] = null;
+        for (int i = 0; i < slot.size; i++) {
+            long id = slot.entries[2 * i];
+            insert(id, slot.entries[2 * i + 1], dueId -> {
+                size--;
+                expired.accept(dueId);
+            });
+        }
+    }
+
+    private void fire(Slot slot, LongConsumer expired) {
+        int count = slot.size;
+        var entries = slot.entries;
+        slot.clear();
+        size -= count;
+        for (int i = 0; i < count; i++) {
+            expired.accept(entries[2 * i]);
+        }
+    }
+
+    // Growable array of (id, deadlineTick) pairs
+    private static final class Slot {
+        private long[] entries = new long[2 * INITIAL_SLOT_CAPACITY];
+        private int size;
+
+        void add(long id) {
+            add(id, 0);
+        }
+
+        void add(long id, long deadlineTick) {
+            if (2 * size == entries.length) {
+                var grown = new long[entries.length * 2];
+                System.arraycopy(entries, 0, grown, 0, entries.length);
+                entries = grown;
+            }
+            entries[2 * size] = id;
+            entries[2 * size + 1] = deadlineTick;
+            size++;
+        }
+
+        void clear() {
+            entries = new long[2 * INITIAL_SLOT_CAPACITY];
+            size = 0;
+        }
+    }
+}
@@ -1,15 +1,14 @@
 package lv.janis.iom.service.facade;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lv.janis.iom.dto.requests.ExternalOrderCancelRequest;
@@ -31,24 +30,27 @@ public class ExternalOrderFacade {
 
   private final CustomerOrderRepository customerOrderRepository;
   private final ProductRepository productRepository;
-  private final EntityManager entityManager;
   private final OutboxEventRepository outboxRepo;
   private final OrderService orderService;
 
   public ExternalOrderFacade(
       CustomerOrderRepository customerOrderRepository,
       ProductRepository productRepository,
-      EntityManager entityManager,
       OutboxEventRepository outboxRepo,
       OrderService orderService) {
 
     this.customerOrderRepository = customerOrderRepository;
     this.productRepository = productRepository;
-    this.entityManager = entityManager;
     this.outboxRepo = outboxRepo;
     this.orderService = orderService;
   }
 
+  /**
+   * Creates the order once per source and external id and returns its id; replays return the
+   * existing id without touching stock or the outbox. The header is written with an
+   * insert-if-absent statement, so a duplicate that races past the first lookup is detected
+   * by the update count instead of a constraint violation.
+   */
   @Transactional
   public Long ingest(ExternalOrderIngestRequest request) {
 
@@ -61,28 +63,36 @@ public class ExternalOrderFacade {
       return existing.get().getId();
     }
 
-    var order = buildOrder(request);
-
-    try {
-      customerOrderRepository.saveAndFlush(order);
-    } catch (DataIntegrityViolationException ex) {
-      entityManager.clear();
-      return customerOrderRepository
-          .findBySourceAndExternalOrderId(
-              request.getSource(),
-              request.getExternalOrderId())
-          .map(CustomerOrder::getId)
-          .orElseThrow(() -> new IllegalStateException(
-              "Order from source " + request.getSource() + " with external ID "
-                  + request.getExternalOrderId() + " already exists",
-              ex));
+    // validates and prices the order in memory; only its header values are inserted below
+    var draft = buildOrder(request);
+
+    int inserted = customerOrderRepository.insertExternalIfAbsent(
+        draft.getSource().name(),
+        draft.getExternalOrderId(),
+        draft.getShippingAddress(),
+        draft.getTotalAmount(),
+        Instant.now());
+
+    var order = customerOrderRepository
+        .findWithItemsBySourceAndExternalOrderId(request.getSource(), request.getExternalOrderId())
+        .orElseThrow(() -> new IllegalStateException(
+            "Order from source " + request.getSource() + " with external ID "
+                + request.getExternalOrderId() + " was neither inserted nor found"));
+
+    // a duplicate may also count as one found row; its header already has the items, a fresh one has none
+    if (inserted == 0 || !order.getItems().isEmpty()) {
+      return order.getId();
     }
 
-    Long orderId = Objects.requireNonNull(order.getId(), "Order ID must be present after save");
+    for (var line : draft.getItems()) {
+      order.addItem(OrderItem.createFor(line.getProduct(), line.getQuantity(), line.getPriceAtOrderTime()));
+    }
+
+    Long orderId = Objects.requireNonNull(order.getId(), "Order ID must be present after insert");
     outboxRepo.save(OutboxEvent.pending(
         OutboxEventType.EXTERNAL_ORDER_INGESTED,
-        order.getId(),
-        "{\"orderId\":" + order.getId() + "}"));
+        orderId,
+        "{\"orderId\":" + orderId + "}"));
 
     return orderId;
 
@@ -0,0 +1,97 @@
+package lv.janis.iom.service.idempotency;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request whose body was read into memory up front, so a filter can inspect it and the rest of
+ * the chain still reads it, blocking or through a {@link ReadListener}.
+ */
+public final class CachedBodyRequest extends HttpServletRequestWrapper {
+    private final byte[] body;
+
+    private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+        super(request);
+        this.body = body;
+    }
+
+    /**
+     * Reads the body of {@code request}, or returns {@code null} when it is longer than
+     * {@code maxBytes}. A request that is already cached is returned as is.
+     */
+    public static CachedBodyRequest read(HttpServletRequest request, int maxBytes) throws IOException {
+        if (request instanceof CachedBodyRequest cached) {
+            return cached.body.length <= maxBytes ? cached : null;
+        }
+        if (request.getContentLengthLong() > maxBytes) {
+            return null;
+        }
+        // one byte past the limit tells a body of exactly maxBytes from a longer one
+        byte[] body = request.getInputStream().readNBytes(maxBytes == Integer.MAX_VALUE ? maxBytes : maxBytes + 1);
+        return body.length <= maxBytes ? new CachedBodyRequest(request, body) : null;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        var input = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return input.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return input.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            // Everything is in memory, so the data is available at once and the listener can
+            // read it to the end in onDataAvailable
+            @Override
+            public void setReadListener(ReadListener listener) {
+                Objects.requireNonNull(listener, "listener");
+                try {
+                    if (!isFinished()) {
+                        listener.onDataAvailable();
+                    }
+                    if (isFinished()) {
+                        listener.onAllDataRead();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    listener.onError(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        var encoding = getCharacterEncoding();
+        var charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
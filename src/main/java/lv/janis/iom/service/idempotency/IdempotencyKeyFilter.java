@@ -0,0 +1,153 @@
+package lv.janis.iom.service.idempotency;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lv.janis.iom.config.IdempotencyProperties;
+import lv.janis.iom.exception.GlobalExceptionHandler.ApiError;
+
+/**
+ * Makes mutating order and inventory requests that carry an {@code Idempotency-Key} header
+ * safe to retry. The first request with a key runs and its response is stored; a retry with
+ * the same key and the same request gets the stored response without reaching the
+ * controller. Server errors (5xx) and load-shedding 429s are not stored, so those can be
+ * retried for real.
+ */
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+    static final int MAX_KEY_LENGTH = 128;
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyKeyFilter(IdempotencyStore store, IdempotencyProperties properties, ObjectMapper objectMapper) {
+        this.store = store;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(HEADER) == null || !MUTATING_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getPathPrefixes().stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, ApiError.badRequest(request.getRequestURI(),
+                    HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters"));
+            return;
+        }
+
+        var cached = CachedBodyRequest.read(request, properties.getMaxBodyBytes());
+        if (cached == null) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, ApiError.payloadTooLarge(request.getRequestURI(),
+                    "Requests with an " + HEADER + " must have a body of at most "
+                            + properties.getMaxBodyBytes() + " bytes"));
+            return;
+        }
+        String fingerprint = fingerprint(request, cached.body());
+        var claim = store.begin(key, fingerprint);
+        switch (claim.outcome()) {
+            case REPLAY -> replay(response, claim.response());
+            case IN_PROGRESS -> writeError(response, HttpStatus.CONFLICT, ApiError.conflict(request.getRequestURI(),
+                    "A request with this " + HEADER + " is still being processed"));
+            case KEY_REUSED -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    ApiError.unprocessable(request.getRequestURI(),
+                            HEADER + " was already used for a different request"));
+            case ACQUIRED -> execute(key, claim.token(), fingerprint, cached, response, chain);
+        }
+    }
+
+    private void execute(String key, String token, String fingerprint, HttpServletRequest request,
+            HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        var wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() < 500 && wrapper.getStatus() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                store.complete(key, token, fingerprint, new StoredResponse(
+                        wrapper.getStatus(),
+                        wrapper.getContentType(),
+                        wrapper.getHeader(HttpHeaders.LOCATION),
+                        new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8)));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key, token);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null && !stored.body().isEmpty()) {
+            response.getOutputStream().write(stored.body().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, ApiError error) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            // parameters rather than the raw query string, so their order does not matter
+            for (var param : new TreeMap<>(request.getParameterMap()).entrySet()) {
+                digest.update((byte) '&');
+                digest.update(param.getKey().getBytes(StandardCharsets.UTF_8));
+                for (String value : param.getValue()) {
+                    digest.update((byte) '=');
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            digest.update((byte) '\n');
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
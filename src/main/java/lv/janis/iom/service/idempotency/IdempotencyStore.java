@@ -0,0 +1,171 @@
+package lv.janis.iom.service.idempotency;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lv.janis.iom.config.IdempotencyProperties;
+import lv.janis.iom.entity.IdempotencyRecord;
+import lv.janis.iom.enums.IdempotencyStatus;
+import lv.janis.iom.repository.IdempotencyRecordRepository;
+
+/**
+ * Remembers the response to each Idempotency-Key. Completed responses are kept in a bounded
+ * LRU in front of the idempotency_keys table, so a hot retry is answered without a query;
+ * the table is the source of truth across restarts and instances. A key is claimed by
+ * inserting an IN_PROGRESS row, so concurrent duplicates race on the unique constraint
+ * rather than on the domain operation. Each claim carries an owner token: only its request
+ * can complete or release the key, and its locked_at is refreshed while the request runs, so
+ * a key is only reclaimed from a request that is really gone.
+ */
+@Service
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public enum Outcome {
+        ACQUIRED,
+        REPLAY,
+        IN_PROGRESS,
+        KEY_REUSED
+    }
+
+    public record Claim(Outcome outcome, StoredResponse response, String token) {
+        static Claim of(Outcome outcome) {
+            return new Claim(outcome, null, null);
+        }
+
+        static Claim acquired(String token) {
+            return new Claim(Outcome.ACQUIRED, null, token);
+        }
+    }
+
+    private record CachedResponse(String fingerprint, StoredResponse response, Instant expiresAt) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyProperties properties;
+    private final Map<String, CachedResponse> cache;
+    // key -> owner token of the requests running on this instance
+    private final Map<String, String> running = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository repository, IdempotencyProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        int capacity = properties.getCacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Claim begin(String key, String fingerprint) {
+        var cached = cached(key);
+        if (cached != null) {
+            return cached.fingerprint().equals(fingerprint)
+                    ? new Claim(Outcome.REPLAY, cached.response(), null)
+                    : Claim.of(Outcome.KEY_REUSED);
+        }
+        String token = UUID.randomUUID().toString();
+        try {
+            repository.saveAndFlush(IdempotencyRecord.inProgress(key, fingerprint, token));
+            return acquired(key, token);
+        } catch (DataIntegrityViolationException e) {
+            return existing(key, fingerprint, token);
+        }
+    }
+
+    public void complete(String key, String token, String fingerprint, StoredResponse response) {
+        running.remove(key, token);
+        var now = Instant.now();
+        int updated = repository.complete(key, token, response.status(), response.contentType(),
+                response.location(), response.body(), now);
+        if (updated == 1) {
+            cache(key, new CachedResponse(fingerprint, response, now.plusSeconds(properties.getRetentionSeconds())));
+        } else {
+            log.warn("Idempotency key {} was reclaimed while its request ran; response not stored", key);
+        }
+    }
+
+    // Frees the key after a failure that should not be replayed, so the client can retry
+    public void release(String key, String token) {
+        running.remove(key, token);
+        repository.release(key, token);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (running.isEmpty()) {
+            return;
+        }
+        var claims = Map.copyOf(running);
+        try {
+            repository.heartbeat(claims.keySet(), claims.values(), Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh {} running idempotency keys", claims.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    public void purgeExpired() {
+        int deleted = repository.deleteCreatedBefore(Instant.now().minusSeconds(properties.getRetentionSeconds()));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Claim existing(String key, String fingerprint, String token) {
+        var record = repository.findByIdempotencyKey(key).orElse(null);
+        if (record == null) {
+            // released between our insert attempt and the lookup; the client may retry
+            return Claim.of(Outcome.IN_PROGRESS);
+        }
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return Claim.of(Outcome.KEY_REUSED);
+        }
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            var response = new StoredResponse(record.getResponseStatus(), record.getResponseContentType(),
+                    record.getResponseLocation(), record.getResponseBody());
+            cache(key, new CachedResponse(fingerprint, response,
+                    record.getCreatedAt().plusSeconds(properties.getRetentionSeconds())));
+            return new Claim(Outcome.REPLAY, response, null);
+        }
+        var now = Instant.now();
+        var staleBefore = now.minusSeconds(properties.getInProgressTimeoutSeconds());
+        if (repository.reclaim(key, record.getOwnerToken(), token, now, staleBefore) == 1) {
+            return acquired(key, token);
+        }
+        return Claim.of(Outcome.IN_PROGRESS);
+    }
+
+    private Claim acquired(String key, String token) {
+        running.put(key, token);
+        return Claim.acquired(token);
+    }
+
+    private CachedResponse cached(String key) {
+        synchronized (cache) {
+            var cached = cache.get(key);
+            if (cached != null && cached.expiresAt().isBefore(Instant.now())) {
+                cache.remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private void cache(String key, CachedResponse response) {
+        synchronized (cache) {
+            cache.put(key, response);
+        }
+    }
+}
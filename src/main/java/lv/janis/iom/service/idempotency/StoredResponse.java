@@ -0,0 +1,4 @@
+package lv.janis.iom.service.idempotency;
+
+public record StoredResponse(int status, String contentType, String location, String body) {
+}
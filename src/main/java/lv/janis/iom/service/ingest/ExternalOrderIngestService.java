@@ -0,0 +1,424 @@
+package lv.janis.iom.service.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lv.janis.iom.config.ExternalOrderIngestProperties;
+import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse.State;
+import lv.janis.iom.entity.ExternalOrderIngestResult;
+import lv.janis.iom.repository.ExternalOrderIngestResultRepository;
+import lv.janis.iom.service.batch.ChunkFallback;
+import lv.janis.iom.service.facade.ExternalOrderFacade;
+
+/**
+ * Asynchronous acceptance for external orders ({@code external-order.ingest.mode=async}).
+ * A request is appended to the {@link IngestJournal} and fsynced (group commit with concurrent
+ * requests) before it is acknowledged, then queued in a bounded buffer. One writer thread
+ * drains the buffer and persists up to a batch of orders per transaction through
+ * {@link ExternalOrderFacade#ingest}; if a batch fails it is retried one order per transaction.
+ * Orders that fail on their own are reported as rejected on the tracking id. Database outages
+ * are retried, and whatever is still unpersisted at shutdown is replayed from the journal on
+ * the next start; ingest is idempotent by (source, externalOrderId), so replays are safe.
+ * Orders are finished in journal order, so the journal is compacted up to the last finished
+ * sequence while newer requests keep arriving. An order only counts as finished once its
+ * outcome is stored in {@link ExternalOrderIngestResult} (in the order's own transaction when
+ * it is persisted), so the tracking id outlives the journal record, a restart and the local
+ * results cache.
+ */
+@Service
+public class ExternalOrderIngestService implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(ExternalOrderIngestService.class);
+
+    record JournaledIngest(UUID trackingId, Instant acceptedAt, ExternalOrderIngestRequest request) {
+    }
+
+    // A journaled request on its way to the database; only the writer thread reads or sets done
+    private static final class Pending {
+        private final long seq;
+        private final JournaledIngest entry;
+        private boolean done;
+
+        private Pending(long seq, JournaledIngest entry) {
+            this.seq = seq;
+            this.entry = entry;
+        }
+    }
+
+    private final ExternalOrderFacade externalOrderFacade;
+    private final ExternalOrderIngestResultRepository resultRepository;
+    private final ExternalOrderIngestProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final BlockingQueue<Pending> buffer;
+    // accepted but not yet persisted or rejected; bounded by the buffer capacity
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Map<UUID, ExternalOrderIngestStatusResponse> results;
+    private final Object acceptLock = new Object();
+    private IngestJournal journal;
+    private Thread writer;
+    private volatile boolean accepting;
+    private volatile boolean stopping;
+    // every journal record up to here is persisted or rejected
+    private volatile long persistedSeq;
+    // set once a request is left unfinished, which holds the watermark until the next start
+    private volatile boolean stalled;
+
+    public ExternalOrderIngestService(
+            ExternalOrderFacade externalOrderFacade,
+            ExternalOrderIngestResultRepository resultRepository,
+            ExternalOrderIngestProperties properties,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper) {
+        this.externalOrderFacade = externalOrderFacade;
+        this.resultRepository = resultRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = Math.max(1, properties.getBufferCapacity());
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        int retained = Math.max(1, properties.getRetainedResults());
+        this.results = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ExternalOrderIngestStatusResponse> eldest) {
+                return size() > retained;
+            }
+        };
+    }
+
+    public boolean isAsync() {
+        return properties.getMode() == ExternalOrderIngestProperties.Mode.ASYNC;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (isAsync()) {
+            start();
+        }
+    }
+
+    // Persists everything the journal still holds before the first request is accepted
+    synchronized void start() {
+        try {
+            journal = IngestJournal.open(Path.of(properties.getJournalPath()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ingest journal " + properties.getJournalPath(), e);
+        }
+        persistedSeq = 0;
+        stalled = false;
+        var recovered = new ArrayList<Pending>(journal.recovered().size());
+        for (var record : journal.recovered()) {
+            try {
+                recovered.add(new Pending(record.seq(), objectMapper.readValue(record.payload(), JournaledIngest.class)));
+            } catch (IOException e) {
+                log.error("Skipping unreadable ingest journal record {}", record.seq(), e);
+            }
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} journaled external orders", recovered.size());
+            outstanding.addAndGet(recovered.size());
+            for (var pending : recovered) {
+                track(accepted(pending.entry));
+            }
+            int batchSize = Math.max(1, properties.getBatchSize());
+            for (int from = 0; from < recovered.size(); from += batchSize) {
+                persist(recovered.subList(from, Math.min(from + batchSize, recovered.size())));
+            }
+        }
+        if (!stalled) {
+            // also covers the unreadable records, which can never be persisted
+            persistedSeq = journal.lastSeq();
+        }
+        journal.compact(persistedSeq, 0);
+
+        stopping = false;
+        accepting = true;
+        writer = new Thread(this::drain, "external-order-ingest");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Journals the request and returns once it is durable. Rejected with
+     * {@link RejectedExecutionException} while the buffer is full or the writer is stopped.
+     */
+    public ExternalOrderIngestStatusResponse accept(ExternalOrderIngestRequest request) {
+        var entry = new JournaledIngest(UUID.randomUUID(), Instant.now(), request);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize ingest request", e);
+        }
+        var status = accepted(entry);
+        long seq;
+        synchronized (acceptLock) {
+            if (!accepting) {
+                throw new RejectedExecutionException("Asynchronous ingest is not accepting requests");
+            }
+            if (outstanding.get() >= capacity) {
+                throw new RejectedExecutionException("Ingest buffer is full, retry later");
+            }
+            seq = journal.append(payload, appended -> outstanding.incrementAndGet());
+            track(status);
+            buffer.add(new Pending(seq, entry));
+        }
+        journal.sync(seq);
+        return status;
+    }
+
+    public ExternalOrderIngestStatusResponse getStatus(UUID trackingId) {
+        synchronized (results) {
+            var status = results.get(trackingId);
+            if (status != null) {
+                return status;
+            }
+        }
+        // finished before a restart, evicted from the cache or accepted by another instance
+        return resultRepository.findById(trackingId.toString())
+                .map(ExternalOrderIngestResult::toResponse)
+                .orElseThrow(() -> new EntityNotFoundException("Ingest " + trackingId + " not found"));
+    }
+
+    @Scheduled(fixedDelay = 3_600_000)
+    public void purgeResults() {
+        int deleted = resultRepository.deleteFinishedBefore(
+                Instant.now().minusSeconds(properties.getResultRetentionSeconds()));
+        if (deleted > 0) {
+            log.info("Purged {} expired external order ingest results", deleted);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        synchronized (acceptLock) {
+            accepting = false;
+        }
+        stopping = true;
+        try {
+            writer.join(Math.max(properties.getRetryDelayMs(), 1000) * 5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Ingest writer did not stop in time, {} orders are replayed on restart", outstanding.get());
+            writer.interrupt();
+        } else {
+            journal.compact(persistedSeq, 0);
+        }
+        writer = null;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Failed to close ingest journal", e);
+        }
+    }
+
+    private void drain() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        var batch = new ArrayList<Pending>(batchSize);
+        while (!stopping || !buffer.isEmpty()) {
+            try {
+                var first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                    persist(batch);
+                }
+                journal.compact(persistedSeq, properties.getJournalCompactBytes());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ingest writer failed", e);
+                // reject what the batch left unfinished, so the orders do not hold buffer slots
+                // and the watermark past them forever
+                for (var pending : batch) {
+                    if (!pending.done) {
+                        rejected(pending, "Ingest writer failed: " + e.getMessage());
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<Pending> batch) {
+        ChunkFallback.write(batch,
+                (offset, pendings) -> ingest(pendings),
+                (offset, pendings, orderIds) -> {
+                    for (int i = 0; i < pendings.size(); i++) {
+                        persisted(pendings.get(i), orderIds.get(i));
+                    }
+                },
+                (offset, pending, failure) -> retryOrReject(pending, failure));
+    }
+
+    // Persists the orders and their outcome in one transaction
+    private List<Long> ingest(List<Pending> pendings) {
+        return transactionTemplate.execute(status -> {
+            var finishedAt = Instant.now();
+            var orderIds = new ArrayList<Long>(pendings.size());
+            var outcomes = new ArrayList<ExternalOrderIngestResult>(pendings.size());
+            for (var pending : pendings) {
+                var orderId = externalOrderFacade.ingest(pending.entry.request());
+                orderIds.add(orderId);
+                outcomes.add(ExternalOrderIngestResult.of(accepted(pending.entry).persisted(orderId), finishedAt));
+            }
+            resultRepository.upsert(outcomes);
+            return orderIds;
+        });
+    }
+
+    // An order that failed on its own is rejected, unless the failure is transient: then it is
+    // retried until it goes through, fails for good or the writer stops
+    private void retryOrReject(Pending pending, RuntimeException failure) {
+        var entry = pending.entry;
+        while (true) {
+            if (!isTransient(failure)) {
+                rejected(pending, failure.getMessage());
+                return;
+            }
+            if (stopping) {
+                log.warn("Ingest {} not persisted before shutdown, it stays in the journal", entry.trackingId());
+                stalled = true;
+                return;
+            }
+            log.warn("Ingest {} failed, retrying in {} ms", entry.trackingId(), properties.getRetryDelayMs(),
+                    failure);
+            try {
+                Thread.sleep(properties.getRetryDelayMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stalled = true;
+                return;
+            }
+            Long orderId;
+            try {
+                orderId = ingest(List.of(pending)).get(0);
+            } catch (RuntimeException retryFailure) {
+                failure = retryFailure;
+                continue;
+            }
+            persisted(pending, orderId);
+            return;
+        }
+    }
+
+    private static boolean isTransient(RuntimeException failure) {
+        return failure instanceof TransientDataAccessException
+                || failure instanceof RecoverableDataAccessException
+                || failure instanceof DataAccessResourceFailureException
+                || failure instanceof CannotCreateTransactionException;
+    }
+
+    private void persisted(Pending pending, Long orderId) {
+        update(pending.entry.trackingId(), status -> status.persisted(orderId));
+        finished(pending);
+    }
+
+    private void rejected(Pending pending, String message) {
+        var entry = pending.entry;
+        log.info("Ingest {} of external order {} rejected: {}", entry.trackingId(),
+                entry.request().getExternalOrderId(), message);
+        var outcome = accepted(entry).rejected(message);
+        storeRejection(outcome);
+        update(entry.trackingId(), status -> outcome);
+        finished(pending);
+    }
+
+    // Runs before the watermark may pass the record: once the journal is compacted, the stored
+    // row is the only trace of the rejection. If it cannot be stored the record stays in the
+    // journal and is replayed, and rejected again, on the next start
+    private void storeRejection(ExternalOrderIngestStatusResponse outcome) {
+        var result = ExternalOrderIngestResult.of(outcome, Instant.now());
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> resultRepository.upsert(List.of(result)));
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e) || stopping) {
+                    log.error("Failed to store the rejection of ingest {}, it stays in the journal",
+                            outcome.trackingId(), e);
+                    stalled = true;
+                    return;
+                }
+                log.warn("Failed to store the rejection of ingest {}, retrying in {} ms", outcome.trackingId(),
+                        properties.getRetryDelayMs(), e);
+            }
+            try {
+                Thread.sleep(properties.getRetryDelayMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stalled = true;
+                return;
+            }
+        }
+    }
+
+    private void finished(Pending pending) {
+        pending.done = true;
+        outstanding.decrementAndGet();
+        if (!stalled) {
+            persistedSeq = pending.seq;
+        }
+    }
+
+    private static ExternalOrderIngestStatusResponse accepted(JournaledIngest entry) {
+        var request = entry.request();
+        return new ExternalOrderIngestStatusResponse(
+                entry.trackingId(),
+                State.ACCEPTED,
+                request.getSource() != null ? request.getSource().name() : null,
+                request.getExternalOrderId(),
+                null,
+                null,
+                entry.acceptedAt());
+    }
+
+    private void track(ExternalOrderIngestStatusResponse status) {
+        synchronized (results) {
+            results.put(status.trackingId(), status);
+        }
+    }
+
+    private void update(UUID trackingId, UnaryOperator<ExternalOrderIngestStatusResponse> transition) {
+        synchronized (results) {
+            results.computeIfPresent(trackingId, (id, status) -> transition.apply(status));
+        }
+    }
+}
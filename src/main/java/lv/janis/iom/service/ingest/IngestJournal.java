@@ -0,0 +1,260 @@
+package lv.janis.iom.service.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of accepted ingest requests. Records are variable length
+ * (length, seq, payload, crc32 of seq and payload); a torn or corrupt tail is cut off on open.
+ * {@link #sync(long)} group-commits: one fsync covers every record appended before it.
+ * {@link #compact(long, long)} drops the records the caller has persisted elsewhere.
+ */
+public final class IngestJournal implements Closeable {
+
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    static final int MAX_PAYLOAD_BYTES = 1 << 20;
+
+    public record Record(long seq, byte[] payload) {
+    }
+
+    // Where a record ends, as an offset into everything ever written; the file starts at fileStart
+    private record Extent(long seq, long end) {
+    }
+
+    private final Path path;
+    private final List<Record> recovered;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    // records still in the file that compact has not dropped yet, oldest first
+    private final ArrayDeque<Extent> extents = new ArrayDeque<>();
+    private FileChannel channel;
+    private long fileStart;
+    private long droppedEnd;
+    private long lastSeq;
+    private volatile long syncedSeq;
+
+    private IngestJournal(Path path, FileChannel channel, List<Record> recovered, long lastSeq) {
+        this.path = path;
+        this.channel = channel;
+        this.recovered = recovered;
+        this.lastSeq = lastSeq;
+        this.syncedSeq = lastSeq;
+    }
+
+    /**
+     * Opens (or creates) the journal, keeps the valid prefix and truncates anything after the
+     * first torn or corrupt record.
+     */
+    public static IngestJournal open(Path path) throws IOException {
+        var parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // left behind by a compaction that did not get as far as replacing the journal
+        Files.deleteIfExists(compactionPath(path));
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        var records = new ArrayList<Record>();
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        var trailer = ByteBuffer.allocate(Integer.BYTES);
+        long validBytes = 0;
+        long lastSeq = 0;
+        channel.position(0);
+        while (true) {
+            header.clear();
+            if (readFully(channel, header) < HEADER_BYTES) {
+                break;
+            }
+            header.flip();
+            int length = header.getInt();
+            long seq = header.getLong();
+            if (length < 0 || length > MAX_PAYLOAD_BYTES || seq <= lastSeq) {
+                break;
+            }
+            var payload = ByteBuffer.allocate(length);
+            trailer.clear();
+            if (readFully(channel, payload) < length || readFully(channel, trailer) < Integer.BYTES) {
+                break;
+            }
+            if (trailer.flip().getInt() != checksum(seq, payload.array())) {
+                break;
+            }
+            records.add(new Record(seq, payload.array()));
+            lastSeq = seq;
+            validBytes += HEADER_BYTES + length + Integer.BYTES;
+        }
+        if (channel.size() > validBytes) {
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+        channel.position(validBytes);
+        var journal = new IngestJournal(path, channel, List.copyOf(records), lastSeq);
+        long end = 0;
+        for (var record : records) {
+            end += HEADER_BYTES + record.payload().length + Integer.BYTES;
+            journal.extents.add(new Extent(record.seq(), end));
+        }
+        return journal;
+    }
+
+    public List<Record> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends one record and hands its sequence to {@code onAppended} while still holding the
+     * write lock. The record is not durable until {@link #sync(long)} returns.
+     */
+    public long append(byte[] payload, LongConsumer onAppended) {
+        if (payload.length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Ingest payload exceeds " + MAX_PAYLOAD_BYTES + " bytes");
+        }
+        synchronized (writeLock) {
+            long seq = lastSeq + 1;
+            var buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length + Integer.BYTES)
+                    .putInt(payload.length)
+                    .putLong(seq)
+                    .put(payload)
+                    .putInt(checksum(seq, payload))
+                    .flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to ingest journal", e);
+            }
+            lastSeq = seq;
+            try {
+                extents.add(new Extent(seq, fileStart + channel.position()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to ingest journal", e);
+            }
+            onAppended.accept(seq);
+            return seq;
+        }
+    }
+
+    public void sync(long seq) {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = lastSeq;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync ingest journal", e);
+            }
+            syncedSeq = target;
+        }
+    }
+
+    /**
+     * Drops every record up to and including {@code persistedSeq}. Once nothing newer is left
+     * the file is emptied in place. Otherwise the newer records are copied to a new file that
+     * atomically replaces the journal, but only after the dropped prefix has reached
+     * {@code minReclaimBytes}, so the copy is paid for by a large enough gain. Sequences keep
+     * counting up.
+     */
+    public void compact(long persistedSeq, long minReclaimBytes) {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                while (!extents.isEmpty() && extents.peekFirst().seq() <= persistedSeq) {
+                    droppedEnd = extents.pollFirst().end();
+                }
+                long reclaimable = droppedEnd - fileStart;
+                if (reclaimable == 0) {
+                    return;
+                }
+                try {
+                    if (extents.isEmpty()) {
+                        channel.truncate(0);
+                        channel.position(0);
+                        channel.force(true);
+                        fileStart = droppedEnd;
+                    } else if (reclaimable >= minReclaimBytes) {
+                        rewriteFrom(reclaimable);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to compact ingest journal", e);
+                }
+            }
+        }
+    }
+
+    // Copies the file from offset on to a new file, fsyncs it and swaps it in for the journal
+    private void rewriteFrom(long offset) throws IOException {
+        var copyPath = compactionPath(path);
+        long size = channel.size();
+        try (var copy = FileChannel.open(copyPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < size - offset) {
+                copied += channel.transferTo(offset + copied, size - offset - copied, copy);
+            }
+            copy.force(true);
+        }
+        Files.move(copyPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(size - offset);
+        fileStart += offset;
+        // the copy was forced, so every record still in the journal is durable
+        syncedSeq = lastSeq;
+    }
+
+    public long lastSeq() {
+        synchronized (writeLock) {
+            return lastSeq;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            channel.close();
+        }
+    }
+
+    private static Path compactionPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".compact");
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static int checksum(long seq, byte[] payload) {
+        var crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(seq).array());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,292 @@
+package lv.janis.iom.service.lease;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import lv.janis.iom.config.SchedulerLeaseProperties;
+import lv.janis.iom.entity.SchedulerLease;
+import lv.janis.iom.repository.SchedulerLeaseRepository;
+
+/**
+ * Database leases that let scheduled jobs run safely on several nodes. A lease is a row in
+ * {@code scheduler_leases} owned by one node until it expires; the owner renews it on a
+ * heartbeat, and a node that stops renewing loses it after {@code scheduler.lease.ttl-ms}.
+ * Each change of owner issues a higher fencing token, which writers can check so that a node
+ * that lost its lease while paused cannot overwrite its successor's work.
+ * <p>
+ * {@link #partitions} splits a job into a fixed number of partitions and balances them across
+ * live nodes: every node registers a membership row, takes free partitions up to its fair
+ * share and releases those above it, so work spreads out when nodes join and is picked up
+ * when a node leaves.
+ * <p>
+ * Lease bookkeeping runs in its own transaction so callers' transactions never hold lease rows.
+ */
+@Service
+public class SchedulerLeases {
+    private static final Logger log = LoggerFactory.getLogger(SchedulerLeases.class);
+    private static final String UNOWNED = "";
+
+    public record Lease(String name, long fencingToken) {
+        // tokens start at 1; 0 marks a lease handed out while coordination is disabled
+        public boolean isFenced() {
+            return fencingToken > 0;
+        }
+    }
+
+    private static final class PartitionedJob {
+        private final int partitions;
+        private boolean initialized;
+        private Map<Integer, Lease> owned = Map.of();
+        private Instant checkedAt = Instant.EPOCH;
+
+        private PartitionedJob(int partitions) {
+            this.partitions = partitions;
+        }
+    }
+
+    private final SchedulerLeaseProperties properties;
+    private final SchedulerLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Set<String> createdRows = new HashSet<>();
+    private final Map<String, PartitionedJob> jobs = new LinkedHashMap<>();
+
+    public SchedulerLeases(
+            SchedulerLeaseProperties properties,
+            SchedulerLeaseRepository leaseRepository,
+            PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = properties.getNodeId() != null && !properties.getNodeId().isBlank()
+                ? properties.getNodeId()
+                : generateNodeId();
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the partitions of {@code job} (0 to {@code partitions - 1}) this node owns, keyed
+     * by partition. Every node must use the same partition count for a job.
+     */
+    public synchronized Map<Integer, Lease> partitions(String job, int partitions) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        if (!properties.isEnabled()) {
+            var all = new TreeMap<Integer, Lease>();
+            for (int partition = 0; partition < partitions; partition++) {
+                all.put(partition, new Lease(partitionName(job, partition), 0));
+            }
+            return Collections.unmodifiableMap(all);
+        }
+        var state = jobs.computeIfAbsent(job, j -> new PartitionedJob(partitions));
+        if (state.partitions != partitions) {
+            throw new IllegalArgumentException("Job " + job + " already uses " + state.partitions + " partitions");
+        }
+        var now = now();
+        if (!isFresh(state.checkedAt, now)) {
+            rebalance(job, state, now);
+        }
+        return state.owned;
+    }
+
+    /**
+     * Re-reads the given leases and returns the partitions this node still holds with the same
+     * fencing token. {@link #partitions} answers from a cache, so a job that pauses past the TTL
+     * calls this after locking its rows and skips the partitions another node has taken over.
+     * The read joins the caller's transaction but takes no locks.
+     */
+    public Set<Integer> confirm(Map<Integer, Lease> partitions) {
+        if (!properties.isEnabled() || partitions.isEmpty()) {
+            return partitions.keySet();
+        }
+        var now = now();
+        var names = partitions.values().stream().map(Lease::name).toList();
+        var current = new HashMap<String, SchedulerLease>();
+        leaseRepository.findAllById(names).forEach(row -> current.put(row.getName(), row));
+        var confirmed = new HashSet<Integer>();
+        partitions.forEach((partition, lease) -> {
+            var row = current.get(lease.name());
+            if (row != null && nodeId.equals(row.getOwner()) && row.getFencingToken() == lease.fencingToken()
+                    && row.isLive(now)) {
+                confirmed.add(partition);
+            }
+        });
+        return confirmed;
+    }
+
+    @Scheduled(fixedDelayString = "${scheduler.lease.renew-interval-ms:10000}")
+    public synchronized void heartbeat() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        var now = now();
+        jobs.forEach((job, state) -> rebalance(job, state, now));
+    }
+
+    // Hands everything back so other nodes take over at once instead of after the TTL
+    @PreDestroy
+    public synchronized void releaseAll() {
+        var names = new ArrayList<String>();
+        jobs.forEach((job, state) -> {
+            names.add(memberName(job));
+            state.owned.values().forEach(lease -> names.add(lease.name()));
+        });
+        if (!properties.isEnabled() || names.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> leaseRepository.release(names, nodeId, now()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release scheduler leases, they expire after {} ms", properties.getTtlMs(), e);
+        }
+        jobs.clear();
+    }
+
+    private void rebalance(String job, PartitionedJob state, Instant now) {
+        var expiresAt = now.plusMillis(properties.getTtlMs());
+        try {
+            state.owned = transactionTemplate.execute(status -> {
+                if (!state.initialized) {
+                    for (int partition = 0; partition < state.partitions; partition++) {
+                        createIfAbsent(partitionName(job, partition), now);
+                    }
+                    state.initialized = true;
+                }
+                var member = memberName(job);
+                if (leaseRepository.renew(List.of(member), nodeId, now, expiresAt) == 0) {
+                    leaseRepository.insertIfAbsent(member, nodeId, now, expiresAt);
+                }
+                leaseRepository.deleteExpired(job + "@%", now.minusMillis(properties.getTtlMs()));
+                return balance(job, state.partitions, now, expiresAt);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to balance partitions of {}, standing down", job, e);
+            state.owned = Map.of();
+            state.initialized = false;
+        }
+        state.checkedAt = now;
+    }
+
+    // Renews owned partitions, then gives back or takes free ones until this node holds its share
+    private Map<Integer, Lease> balance(String job, int partitions, Instant now, Instant expiresAt) {
+        var rows = leaseRepository.findByNameStartingWith(job);
+        long liveMembers = rows.stream()
+                .filter(row -> row.getName().startsWith(job + "@") && row.isLive(now))
+                .count();
+        int share = (int) ((partitions + Math.max(1, liveMembers) - 1) / Math.max(1, liveMembers));
+
+        var mine = new TreeMap<Integer, SchedulerLease>();
+        var free = new TreeMap<Integer, SchedulerLease>();
+        for (var row : rows) {
+            int partition = partitionOf(job, row.getName());
+            if (partition < 0 || partition >= partitions) {
+                continue;
+            }
+            if (nodeId.equals(row.getOwner())) {
+                mine.put(partition, row);
+            } else if (!row.isLive(now)) {
+                free.put(partition, row);
+            }
+        }
+
+        var owned = new TreeMap<Integer, Lease>();
+        var surplus = new ArrayList<String>();
+        for (var entry : mine.entrySet()) {
+            var name = entry.getValue().getName();
+            if (owned.size() < share) {
+                owned.put(entry.getKey(), new Lease(name, entry.getValue().getFencingToken()));
+            } else {
+                surplus.add(name);
+            }
+        }
+        if (!owned.isEmpty()) {
+            var names = owned.values().stream().map(Lease::name).toList();
+            leaseRepository.renew(names, nodeId, now, expiresAt);
+        }
+        if (!surplus.isEmpty()) {
+            leaseRepository.release(surplus, nodeId, now);
+        }
+        for (var entry : free.entrySet()) {
+            if (owned.size() >= share) {
+                break;
+            }
+            var row = entry.getValue();
+            if (leaseRepository.acquire(row.getName(), nodeId, now, expiresAt) == 1) {
+                owned.put(entry.getKey(), new Lease(row.getName(), row.getFencingToken() + 1));
+            }
+        }
+        return Collections.unmodifiableMap(owned);
+    }
+
+    private void createIfAbsent(String name, Instant now) {
+        if (createdRows.add(name)) {
+            leaseRepository.insertIfAbsent(name, UNOWNED, now, Instant.EPOCH);
+        }
+    }
+
+    // the columns keep microseconds; comparing truncated values avoids rounding surprises
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private boolean isFresh(Instant checkedAt, Instant now) {
+        return now.isBefore(checkedAt.plusMillis(properties.getRenewIntervalMs()));
+    }
+
+    static String partitionName(String job, int partition) {
+        return job + "#" + partition;
+    }
+
+    private String memberName(String job) {
+        return job + "@" + nodeId;
+    }
+
+    private static int partitionOf(String job, String name) {
+        var prefix = job + "#";
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String generateNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        var id = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+}
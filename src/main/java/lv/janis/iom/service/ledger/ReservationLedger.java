@@ -0,0 +1,458 @@
+package lv.janis.iom.service.ledger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.entity.ReservationLedgerCommit;
+import lv.janis.iom.enums.FailureCode;
+import lv.janis.iom.exception.BusinessException;
+import lv.janis.iom.repository.ReservationLedgerCommitRepository;
+
+/**
+ * Opt-in in-memory owner of the available counter for products that have been reserved
+ * through it. A reservation is a CAS on the product's counter. Just before the transaction
+ * commits, its reservations are appended to the {@link ReservationWal} as consecutive records,
+ * group-committed, and a {@link ReservationLedgerCommit} row naming that range is inserted in
+ * the same transaction; recovery replays only records such a row covers, so the log and the
+ * order always agree. The inventory row is updated later by {@link ReservationLedgerFlusher}.
+ * Every other stock change locks the product here, folds the pending records into the
+ * inventory row it is about to write, and then moves the counter by the same amount, so the
+ * counter and the row never drift apart.
+ * <p>
+ * Counters and locks live in this JVM only, so the ledger must be enabled on a single instance.
+ */
+@Component
+public class ReservationLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationLedger.class);
+    // How long a stock change waits for a reservation that is committing on the same product
+    private static final long COMMIT_WAIT_MS = 10_000;
+
+    private final ReservationLedgerCommitRepository commitRepository;
+    private final ConcurrentHashMap<Long, AtomicLong> available = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentLinkedDeque<Entry>> pending = new ConcurrentHashMap<>();
+    // Records appended to the log and not yet rolled back or applied to the inventory table
+    private final AtomicLong unapplied = new AtomicLong();
+    private volatile ReservationWal wal;
+
+    public ReservationLedger(ReservationLedgerCommitRepository commitRepository) {
+        this.commitRepository = commitRepository;
+    }
+
+    public boolean isActive() {
+        return wal != null;
+    }
+
+    public OptionalLong currentAvailable(Long productId) {
+        var counter = available.get(productId);
+        return counter != null ? OptionalLong.of(counter.get()) : OptionalLong.empty();
+    }
+
+    public void reserve(long productId, int quantity, IntSupplier availableLoader) {
+        requireTransaction();
+        var counter = counterFor(productId, availableLoader);
+        while (true) {
+            long current = counter.get();
+            if (current < quantity) {
+                throw new BusinessException(FailureCode.OUT_OF_STOCK, "not enough available quantity to reserve");
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                break;
+            }
+        }
+        transactionReservations().add(productId, quantity);
+        afterRollback(() -> counter.addAndGet(quantity));
+    }
+
+    /**
+     * Locks the products, in id order, until the surrounding transaction completes. Callers
+     * must take the lock before loading the inventory rows they are going to write.
+     */
+    public void lockProducts(Collection<Long> productIds) {
+        if (!isActive()) {
+            return;
+        }
+        requireTransaction();
+        var acquired = new ArrayList<ReentrantLock>();
+        for (Long productId : new TreeSet<>(productIds)) {
+            var lock = lockFor(productId);
+            lock.lock();
+            acquired.add(lock);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = acquired.size() - 1; i >= 0; i--) {
+                    acquired.get(i).unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the product's pending records to an inventory row loaded under
+     * {@link #lockProducts(Collection)}. They are handed back if the transaction rolls back.
+     */
+    public void applyPending(Inventory inventory) {
+        if (!isActive()) {
+            return;
+        }
+        long productId = inventory.getProduct().getId();
+        var records = take(productId, true);
+        if (records.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // hands the records back before lockProducts releases the product
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                complete(productId, records, status == STATUS_COMMITTED);
+            }
+        });
+        for (var record : records) {
+            inventory.applyLedgerReservation(record.seq(), record.delta());
+        }
+    }
+
+    /**
+     * Moves a loaded counter after a stock change made under {@link #lockProducts(Collection)}.
+     * Decreases are taken immediately (and given back on rollback) so concurrent reservations
+     * cannot spend them; increases only become visible after commit.
+     */
+    public void adjustAvailable(Long productId, int delta) {
+        var counter = available.get(productId);
+        if (counter == null || delta == 0) {
+            return;
+        }
+        if (delta > 0) {
+            afterCommit(() -> counter.addAndGet(delta));
+            return;
+        }
+        int amount = -delta;
+        while (true) {
+            long current = counter.get();
+            if (current < amount) {
+                throw new IllegalArgumentException("not enough available quantity to decrease");
+            }
+            if (counter.compareAndSet(current, current - amount)) {
+                break;
+            }
+        }
+        afterRollback(() -> counter.addAndGet(amount));
+    }
+
+    // Starts taking reservations on the log; committed holds the recovered records to replay
+    void attach(ReservationWal wal, List<ReservationWal.Record> committed) {
+        for (var record : committed) {
+            var entry = new Entry(record);
+            entry.resolve(Entry.COMMITTED);
+            enqueue(entry);
+        }
+        this.wal = wal;
+    }
+
+    // Drops all in-memory state and returns the detached log; used on shutdown and to simulate a crash
+    ReservationWal detach() {
+        var current = wal;
+        wal = null;
+        available.clear();
+        pending.clear();
+        unapplied.set(0);
+        return current;
+    }
+
+    boolean hasPending() {
+        return unapplied.get() > 0;
+    }
+
+    /**
+     * Takes pending records for products whose lock is free, up to roughly {@code maxRecords}.
+     * The returned batch keeps those products locked until {@link Batch#complete(boolean)}.
+     */
+    Batch takeBatch(int maxRecords) {
+        var records = new LinkedHashMap<Long, List<ReservationWal.Record>>();
+        var held = new ArrayList<ReentrantLock>();
+        int total = 0;
+        for (var entry : pending.entrySet()) {
+            if (total >= maxRecords) {
+                break;
+            }
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            var lock = lockFor(entry.getKey());
+            if (!lock.tryLock()) {
+                continue;
+            }
+            held.add(lock);
+            var taken = take(entry.getKey(), false);
+            if (!taken.isEmpty()) {
+                records.put(entry.getKey(), taken);
+                total += taken.size();
+            }
+        }
+        return new Batch(records, held);
+    }
+
+    // Returns the last sequence the emptied log held, or 0 when it still has unapplied records
+    long truncateIfCaughtUp() {
+        var current = wal;
+        if (current == null) {
+            return 0;
+        }
+        long lastSeq = current.lastSeq();
+        return current.truncateIfCaughtUp(() -> unapplied.get() == 0) ? lastSeq : 0;
+    }
+
+    final class Batch {
+        private final Map<Long, List<ReservationWal.Record>> records;
+        private final List<ReentrantLock> held;
+
+        private Batch(Map<Long, List<ReservationWal.Record>> records, List<ReentrantLock> held) {
+            this.records = records;
+            this.held = held;
+        }
+
+        Map<Long, List<ReservationWal.Record>> records() {
+            return records;
+        }
+
+        void complete(boolean applied) {
+            try {
+                records.forEach((productId, taken) -> ReservationLedger.this.complete(productId, taken, applied));
+            } finally {
+                held.forEach(ReentrantLock::unlock);
+            }
+        }
+    }
+
+    private AtomicLong counterFor(long productId, IntSupplier availableLoader) {
+        var counter = available.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        // load under the product lock so no stock change is committing while the row is read
+        var lock = lockFor(productId);
+        lock.lock();
+        try {
+            return available.computeIfAbsent(productId, id -> new AtomicLong(availableLoader.getAsInt()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TransactionReservations transactionReservations() {
+        var reservations = (TransactionReservations) TransactionSynchronizationManager.getResource(this);
+        if (reservations == null) {
+            reservations = new TransactionReservations();
+            TransactionSynchronizationManager.bindResource(this, reservations);
+            TransactionSynchronizationManager.registerSynchronization(reservations);
+        }
+        return reservations;
+    }
+
+    private void enqueue(Entry entry) {
+        unapplied.incrementAndGet();
+        pending.computeIfAbsent(entry.record.productId(), id -> new ConcurrentLinkedDeque<>()).addLast(entry);
+    }
+
+    /**
+     * Takes the product's committed records from the head of its queue, dropping rolled back
+     * ones. A record whose transaction is still committing stops the scan, or is waited for when
+     * {@code waitForCommit} is set, so records are always applied in sequence order.
+     */
+    private List<ReservationWal.Record> take(long productId, boolean waitForCommit) {
+        var queue = pending.get(productId);
+        var taken = new ArrayList<ReservationWal.Record>();
+        if (queue == null) {
+            return taken;
+        }
+        Entry entry;
+        while ((entry = queue.peekFirst()) != null) {
+            if (entry.state() == Entry.IN_FLIGHT) {
+                if (!waitForCommit) {
+                    break;
+                }
+                entry.awaitResolved();
+                continue;
+            }
+            queue.pollFirst();
+            if (entry.state() == Entry.COMMITTED) {
+                taken.add(entry.record);
+            }
+        }
+        return taken;
+    }
+
+    private void complete(long productId, List<ReservationWal.Record> taken, boolean applied) {
+        if (applied) {
+            unapplied.addAndGet(-taken.size());
+            return;
+        }
+        var queue = pending.computeIfAbsent(productId, id -> new ConcurrentLinkedDeque<>());
+        for (int i = taken.size() - 1; i >= 0; i--) {
+            var entry = new Entry(taken.get(i));
+            entry.resolve(Entry.COMMITTED);
+            queue.addFirst(entry);
+        }
+    }
+
+    private ReentrantLock lockFor(long productId) {
+        return locks.computeIfAbsent(productId, id -> new ReentrantLock());
+    }
+
+    private ReservationWal requireWal() {
+        var current = wal;
+        if (current == null) {
+            throw new IllegalStateException("Reservation ledger is not active");
+        }
+        return current;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Reservation ledger updates require an active transaction");
+        }
+    }
+
+    // A logged record, in flight until the transaction that reserved it completes
+    private static final class Entry {
+        static final int IN_FLIGHT = 0;
+        static final int COMMITTED = 1;
+        static final int ROLLED_BACK = 2;
+
+        private final ReservationWal.Record record;
+        private int state = IN_FLIGHT;
+
+        Entry(ReservationWal.Record record) {
+            this.record = record;
+        }
+
+        synchronized int state() {
+            return state;
+        }
+
+        synchronized void resolve(int state) {
+            this.state = state;
+            notifyAll();
+        }
+
+        synchronized void awaitResolved() {
+            long deadline = System.currentTimeMillis() + COMMIT_WAIT_MS;
+            while (state == IN_FLIGHT) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Reservation " + record.seq() + " is still committing");
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a reservation to commit", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the reservations of one transaction and logs them in its before-commit phase,
+     * after every other change has been made: append, fsync, then the commit marker, so a
+     * failure at any step rolls the order back.
+     */
+    private final class TransactionReservations implements TransactionSynchronization {
+        private final List<ReservationWal.Delta> deltas = new ArrayList<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private ReservationWal loggedTo;
+
+        void add(long productId, int quantity) {
+            deltas.add(new ReservationWal.Delta(productId, quantity));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            var current = requireWal();
+            loggedTo = current;
+            // enqueued inside the log's write lock so each product's queue is in sequence order
+            long lastSeq = current.append(deltas, record -> {
+                var entry = new Entry(record);
+                entries.add(entry);
+                enqueue(entry);
+            });
+            current.sync(lastSeq);
+            commitRepository.insert(lastSeq - deltas.size() + 1, lastSeq);
+        }
+
+        @Override
+        public void afterCommit() {
+            entries.forEach(entry -> entry.resolve(Entry.COMMITTED));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ReservationLedger.this);
+            if (status == STATUS_COMMITTED) {
+                return;
+            }
+            entries.forEach(entry -> entry.resolve(Entry.ROLLED_BACK));
+            // after a detach the entries belong to a log that is no longer counted
+            if (loggedTo != null && loggedTo == wal) {
+                unapplied.addAndGet(-entries.size());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        requireTransaction();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterRollback(Runnable action) {
+        requireTransaction();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        log.error("Failed to compensate reservation ledger after rollback", e);
+                    }
+                }
+            }
+        });
+    }
+}
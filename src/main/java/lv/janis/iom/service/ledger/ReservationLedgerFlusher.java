@@ -0,0 +1,173 @@
+package lv.janis.iom.service.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import lv.janis.iom.config.ReservationLedgerProperties;
+import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.repository.ReservationLedgerCommitRepository;
+import lv.janis.iom.service.InventoryService;
+
+/**
+ * Write-behind half of the {@link ReservationLedger}: replays the log on startup and then
+ * periodically folds pending reservation records into the inventory rows, one transaction
+ * per batch. Only records covered by a commit marker are replayed, and each row remembers the
+ * last applied sequence, so a record applied before a crash is skipped when the log is replayed.
+ */
+@Component
+public class ReservationLedgerFlusher implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(ReservationLedgerFlusher.class);
+
+    private final ReservationLedger ledger;
+    private final ReservationLedgerProperties properties;
+    private final InventoryRepository inventoryRepository;
+    private final ReservationLedgerCommitRepository commitRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReservationLedgerFlusher(
+            ReservationLedger ledger,
+            ReservationLedgerProperties properties,
+            InventoryRepository inventoryRepository,
+            ReservationLedgerCommitRepository commitRepository,
+            InventoryService inventoryService,
+            TransactionTemplate transactionTemplate) {
+        this.ledger = ledger;
+        this.properties = properties;
+        this.inventoryRepository = inventoryRepository;
+        this.commitRepository = commitRepository;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (properties.isEnabled()) {
+            log.info("Reservation ledger enabled; it keeps stock counters in this process, so run a single instance");
+            recover();
+        }
+    }
+
+    // Opens the log, applies everything it holds and only then starts taking reservations
+    synchronized void recover() {
+        // markers outlive a truncation until they are deleted, so their sequences are never reused
+        long minSeq = Math.max(inventoryRepository.findMaxLedgerSeq(), commitRepository.findMaxLastSeq());
+        ReservationWal wal;
+        try {
+            wal = ReservationWal.open(Path.of(properties.getWalPath()), minSeq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open reservation log " + properties.getWalPath(), e);
+        }
+        var committed = committedRecords(wal.recovered());
+        if (!wal.recovered().isEmpty()) {
+            log.info("Replaying {} reservation log records, skipping {} whose transaction did not commit",
+                    committed.size(), wal.recovered().size() - committed.size());
+        }
+        ledger.attach(wal, committed);
+        while (ledger.hasPending()) {
+            if (flushBatch() == 0) {
+                throw new IllegalStateException("Reservation log replay made no progress");
+            }
+        }
+        truncateIfCaughtUp();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation-ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!ledger.isActive()) {
+            return;
+        }
+        try {
+            flushBatch();
+            truncateIfCaughtUp();
+        } catch (RuntimeException e) {
+            log.error("Reservation ledger flush failed, records stay pending", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (!ledger.isActive()) {
+            return;
+        }
+        try {
+            while (ledger.hasPending() && flushBatch() > 0) {
+                // drain whatever is not locked by an in-flight stock change
+            }
+            truncateIfCaughtUp();
+        } catch (RuntimeException e) {
+            log.error("Reservation ledger flush on shutdown failed, records are replayed on restart", e);
+        } finally {
+            var wal = ledger.detach();
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close reservation log", e);
+            }
+        }
+    }
+
+    synchronized int flushBatch() {
+        var batch = ledger.takeBatch(properties.getFlushBatchSize());
+        if (batch.records().isEmpty()) {
+            batch.complete(true);
+            return 0;
+        }
+        boolean applied = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch.records()));
+            applied = true;
+        } finally {
+            batch.complete(applied);
+        }
+        return batch.records().values().stream().mapToInt(List::size).sum();
+    }
+
+    private List<ReservationWal.Record> committedRecords(List<ReservationWal.Record> recovered) {
+        if (recovered.isEmpty()) {
+            return List.of();
+        }
+        var markers = commitRepository.findByLastSeqGreaterThanEqualOrderByFirstSeq(recovered.get(0).seq());
+        var committed = new ArrayList<ReservationWal.Record>();
+        int next = 0;
+        for (var record : recovered) {
+            while (next < markers.size() && markers.get(next).getLastSeq() < record.seq()) {
+                next++;
+            }
+            if (next < markers.size() && markers.get(next).covers(record.seq())) {
+                committed.add(record);
+            }
+        }
+        return committed;
+    }
+
+    private void truncateIfCaughtUp() {
+        long truncatedSeq = ledger.truncateIfCaughtUp();
+        if (truncatedSeq > 0) {
+            commitRepository.deleteUpTo(truncatedSeq);
+        }
+    }
+
+    private void apply(Map<Long, List<ReservationWal.Record>> records) {
+        for (var inventory : inventoryRepository.findAllByProductIdIn(records.keySet())) {
+            boolean wasLowStock = inventory.isLowQuantity();
+            for (var record : records.get(inventory.getProduct().getId())) {
+                inventory.applyLedgerReservation(record.seq(), record.delta());
+            }
+            inventoryService.updateLowQuantityFlag(inventory);
+            inventoryService.lowStockCheck(inventory, wasLowStock);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package lv.janis.iom.service.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of reservation deltas. Each record is fixed size
+ * (seq, productId, delta, crc32) so a torn write at the tail is detected on open and cut off.
+ * {@link #sync(long)} group-commits: one fsync covers every record appended before it.
+ */
+public final class ReservationWal implements Closeable {
+
+    static final int RECORD_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    public record Record(long seq, long productId, int delta) {
+    }
+
+    public record Delta(long productId, int delta) {
+    }
+
+    private final FileChannel channel;
+    private final List<Record> recovered;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private long lastSeq;
+    private volatile long syncedSeq;
+
+    private ReservationWal(FileChannel channel, List<Record> recovered, long lastSeq) {
+        this.channel = channel;
+        this.recovered = recovered;
+        this.lastSeq = lastSeq;
+        this.syncedSeq = lastSeq;
+    }
+
+    /**
+     * Opens (or creates) the log, keeps the valid prefix and truncates anything after the
+     * first torn or corrupt record. New sequence numbers continue after both the last record
+     * and {@code minSeq}, so they never collide with sequences already applied to the database.
+     */
+    public static ReservationWal open(Path path, long minSeq) throws IOException {
+        var parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        var records = new ArrayList<Record>();
+        var buffer = ByteBuffer.allocate(RECORD_BYTES);
+        long validBytes = 0;
+        long fileLastSeq = 0;
+        channel.position(0);
+        while (true) {
+            buffer.clear();
+            if (readFully(channel, buffer) < RECORD_BYTES) {
+                break;
+            }
+            buffer.flip();
+            long seq = buffer.getLong();
+            long productId = buffer.getLong();
+            int delta = buffer.getInt();
+            int crc = buffer.getInt();
+            if (crc != checksum(seq, productId, delta) || seq <= fileLastSeq) {
+                break;
+            }
+            records.add(new Record(seq, productId, delta));
+            fileLastSeq = seq;
+            validBytes += RECORD_BYTES;
+        }
+        if (channel.size() > validBytes) {
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+        channel.position(validBytes);
+        return new ReservationWal(channel, List.copyOf(records), Math.max(minSeq, fileLastSeq));
+    }
+
+    public List<Record> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends the deltas as consecutive records and hands each one to {@code onAppended} while
+     * still holding the write lock, so callers observe records in log order. Returns the last
+     * sequence; the records are not durable until {@link #sync(long)} returns.
+     */
+    public long append(List<Delta> deltas, Consumer<Record> onAppended) {
+        synchronized (writeLock) {
+            var buffer = ByteBuffer.allocate(RECORD_BYTES * deltas.size());
+            long seq = lastSeq;
+            for (var delta : deltas) {
+                seq++;
+                buffer.putLong(seq)
+                        .putLong(delta.productId())
+                        .putInt(delta.delta())
+                        .putInt(checksum(seq, delta.productId(), delta.delta()));
+            }
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to reservation log", e);
+            }
+            seq = lastSeq;
+            for (var delta : deltas) {
+                onAppended.accept(new Record(++seq, delta.productId(), delta.delta()));
+            }
+            lastSeq = seq;
+            return seq;
+        }
+    }
+
+    public void sync(long seq) {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = lastSeq;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync reservation log", e);
+            }
+            syncedSeq = target;
+        }
+    }
+
+    /**
+     * Empties the log when {@code caughtUp} confirms under the write lock that every appended
+     * record has been applied to the database.
+     */
+    public boolean truncateIfCaughtUp(BooleanSupplier caughtUp) {
+        synchronized (writeLock) {
+            if (!caughtUp.getAsBoolean()) {
+                return false;
+            }
+            try {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to truncate reservation log", e);
+            }
+            return true;
+        }
+    }
+
+    public long lastSeq() {
+        synchronized (writeLock) {
+            return lastSeq;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static int checksum(long seq, long productId, int delta) {
+        var crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES + Long.BYTES + Integer.BYTES)
+                .putLong(seq)
+                .putLong(productId)
+                .putInt(delta)
+                .array());
+        return (int) crc.getValue();
+    }
+}
@@ -14,43 +14,61 @@ import lv.janis.iom.enums.OutboxEventType;
 import lv.janis.iom.exception.BusinessException;
 import lv.janis.iom.repository.OutboxEventRepository;
 import lv.janis.iom.service.OrderService;
+import lv.janis.iom.service.lease.SchedulerLeases;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Component
 public class OutboxDispatcher {
   private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+  // fixed in code so every node maps an aggregate to the same partition
+  static final int PARTITIONS = 16;
+  static final String LEASE_JOB = "outbox";
 
   private final OutboxEventRepository repo;
   private final OutboxHandlerRegistry handlers;
   private final OrderService orderService;
-  private final String lockedBy;
+  private final SchedulerLeases schedulerLeases;
 
   private final int batchSize = 20;
   private final int maxAttempts = 5;
   private final int processingLockTimeoutSeconds = 300;
 
-  public OutboxDispatcher(OutboxEventRepository repo, OutboxHandlerRegistry handlers, OrderService orderService) {
+  public OutboxDispatcher(OutboxEventRepository repo, OutboxHandlerRegistry handlers, OrderService orderService,
+      SchedulerLeases schedulerLeases) {
     this.repo = repo;
     this.handlers = handlers;
     this.orderService = orderService;
-    this.lockedBy = java.util.UUID.randomUUID().toString();
+    this.schedulerLeases = schedulerLeases;
   }
 
+  /**
+   * Events are split into {@link #PARTITIONS} partitions by aggregatedId, and each node claims
+   * only events of the partitions it holds a lease on. All events of one order share a
+   * partition, so one node handles them, in id order. A partition that moves to another node
+   * keeps its in-flight events with the old owner until they finish or their lock goes stale.
+   */
   @Scheduled(fixedDelay = 20000)
   public void dispatch() {
+    var partitions = schedulerLeases.partitions(LEASE_JOB, PARTITIONS);
+    if (partitions.isEmpty()) {
+      return;
+    }
+    boolean fenced = partitions.values().iterator().next().isFenced();
+    String lockedBy = schedulerLeases.nodeId();
     Instant now = Instant.now();
     Instant staleBefore = now.minusSeconds(processingLockTimeoutSeconds);
+    var statuses = List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED);
 
-    List<Long> candidates = repo.findCandidateIds(
-        List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED),
-        now,
-        staleBefore,
-        maxAttempts,
-        PageRequest.of(0, batchSize));
+    List<Long> candidates = partitions.size() == PARTITIONS
+        ? repo.findCandidateIds(statuses, now, staleBefore, maxAttempts, PageRequest.of(0, batchSize))
+        : repo.findCandidateIdsInPartitions(statuses, now, staleBefore, maxAttempts, PARTITIONS,
+            partitions.keySet(), PageRequest.of(0, batchSize));
 
     for (Long id : candidates) {
-      int claimed = repo.claim(id, now, staleBefore, maxAttempts, lockedBy);
+      int claimed = fenced
+          ? repo.claimInOwnedPartition(id, now, staleBefore, maxAttempts, lockedBy, LEASE_JOB, PARTITIONS)
+          : repo.claim(id, now, staleBefore, maxAttempts, lockedBy);
       if (claimed != 1)
         continue;
 
@@ -0,0 +1,31 @@
+package lv.janis.iom.service.productimport;
+
+import org.springframework.http.MediaType;
+
+public enum ProductImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    ProductImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static ProductImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            var requested = MediaType.parseMediaType(contentType);
+            for (var format : values()) {
+                if (format.mediaType.includes(requested)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType
+                + "; use text/csv or application/x-ndjson");
+    }
+}
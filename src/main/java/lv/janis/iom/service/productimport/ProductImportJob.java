@@ -0,0 +1,77 @@
+package lv.janis.iom.service.productimport;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import lv.janis.iom.dto.response.ProductImportJobResponse;
+import lv.janis.iom.dto.response.ProductImportJobResponse.RowError;
+import lv.janis.iom.dto.response.ProductImportJobResponse.State;
+
+/** Progress of one import. Written by the import thread, read by status requests. */
+class ProductImportJob {
+    private final UUID id = UUID.randomUUID();
+    private final int maxReportedErrors;
+    private final List<RowError> errors = new ArrayList<>();
+
+    private State state = State.QUEUED;
+    private long rowsRead;
+    private long created;
+    private long updated;
+    private long inventoriesCreated;
+    private long failed;
+    private String message;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    ProductImportJob(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    synchronized boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    synchronized void start() {
+        state = State.RUNNING;
+        startedAt = Instant.now();
+    }
+
+    synchronized void rowRead() {
+        rowsRead++;
+    }
+
+    synchronized void written(int created, int updated, int inventoriesCreated) {
+        this.created += created;
+        this.updated += updated;
+        this.inventoriesCreated += inventoriesCreated;
+    }
+
+    synchronized void rejected(RowError error) {
+        failed++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(error);
+        }
+    }
+
+    synchronized void complete() {
+        state = State.COMPLETED;
+        finishedAt = Instant.now();
+    }
+
+    synchronized void fail(String message) {
+        state = State.FAILED;
+        this.message = message;
+        finishedAt = Instant.now();
+    }
+
+    synchronized ProductImportJobResponse toResponse() {
+        return new ProductImportJobResponse(id, state, rowsRead, created, updated, inventoriesCreated, failed, message,
+                startedAt, finishedAt, List.copyOf(errors));
+    }
+}
@@ -0,0 +1,191 @@
+package lv.janis.iom.service.productimport;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lv.janis.iom.dto.requests.ProductImportRow;
+
+/**
+ * Streams rows out of an import file one at a time, so memory does not grow with the file.
+ * A row that cannot be parsed comes back with an error instead of stopping the import; only
+ * an unusable CSV header fails the whole file.
+ */
+abstract class ProductImportReader implements Closeable {
+
+    record ParsedRow(long line, ProductImportRow row, String error) {
+        static ParsedRow failed(long line, String error) {
+            return new ParsedRow(line, null, error);
+        }
+    }
+
+    protected final BufferedReader reader;
+    protected long line;
+
+    private ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static ProductImportReader open(ProductImportFormat format, BufferedReader reader, ObjectMapper objectMapper)
+            throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(reader);
+            case NDJSON -> new Ndjson(reader, objectMapper);
+        };
+    }
+
+    // Returns null at the end of the file
+    abstract ParsedRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class Ndjson extends ProductImportReader {
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        ParsedRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new ParsedRow(line, objectMapper.readValue(text, ProductImportRow.class), null);
+            } catch (JsonProcessingException e) {
+                return ParsedRow.failed(line, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /** RFC 4180 style: comma separated, fields optionally quoted, quotes doubled inside quotes. */
+    private static final class Csv extends ProductImportReader {
+        private static final List<String> REQUIRED = List.of("sku", "name", "price");
+
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        private Csv(BufferedReader reader) throws IOException {
+            super(reader);
+            var header = readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(normalize(header.get(i)), i);
+            }
+            var missing = REQUIRED.stream().filter(column -> !columns.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("CSV header is missing columns: " + missing);
+            }
+        }
+
+        @Override
+        ParsedRow next() throws IOException {
+            List<String> fields;
+            long start;
+            do {
+                start = line + 1;
+                fields = readRecord();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+            if (fields == null) {
+                return null;
+            }
+            try {
+                var row = new ProductImportRow();
+                row.setSku(field(fields, "sku"));
+                row.setName(field(fields, "name"));
+                row.setDescription(field(fields, "description"));
+                var price = field(fields, "price");
+                row.setPrice(price == null ? null : new BigDecimal(price));
+                row.setQuantity(integer(fields, "quantity"));
+                row.setReorderLevel(integer(fields, "reorderlevel"));
+                row.setClearLowQuantity(integer(fields, "clearlowquantity"));
+                return new ParsedRow(start, row, null);
+            } catch (NumberFormatException e) {
+                return ParsedRow.failed(start, "Invalid number in row");
+            }
+        }
+
+        private String field(List<String> fields, String column) {
+            var index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            var value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private Integer integer(List<String> fields, String column) {
+            var value = field(fields, column);
+            return value == null ? null : Integer.valueOf(value);
+        }
+
+        private static String normalize(String column) {
+            return column.trim().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+        }
+
+        // Reads one record, which may span lines inside a quoted field; null at end of input
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            line++;
+            var fields = new ArrayList<String>();
+            var field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        break;
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    break;
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package lv.janis.iom.service.productimport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Validator;
+import lv.janis.iom.config.ProductImportProperties;
+import lv.janis.iom.dto.response.ProductImportJobResponse;
+import lv.janis.iom.dto.response.ProductImportJobResponse.RowError;
+import lv.janis.iom.service.batch.ChunkFallback;
+import lv.janis.iom.service.productimport.ProductImportReader.ParsedRow;
+
+/**
+ * Bulk product import from a CSV or NDJSON upload. The upload is spooled to a temporary file
+ * and imported in the background, one job at a time; callers poll the job for progress. Rows
+ * are read in chunks, validated in parallel and written by {@link ProductImportWriter}. Bad
+ * rows are counted and reported, never fatal. If a chunk fails as a whole (for example a SKU
+ * inserted concurrently by another request), it is retried one row per transaction.
+ */
+@Service
+public class ProductImportService {
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductImportWriter writer;
+    private final ProductImportProperties properties;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<UUID, ProductImportJob> jobs = new LinkedHashMap<>();
+
+    public ProductImportService(
+            ProductImportWriter writer,
+            ProductImportProperties properties,
+            Validator validator,
+            ObjectMapper objectMapper) {
+        this.writer = writer;
+        this.properties = properties;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+    }
+
+    public ProductImportJobResponse start(ProductImportFormat format, InputStream body) {
+        if (format == null) {
+            throw new IllegalArgumentException("format is required");
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store import upload", e);
+        }
+        var job = new ProductImportJob(properties.getMaxReportedErrors());
+        register(job);
+        executor.execute(() -> run(job, format, file));
+        return job.toResponse();
+    }
+
+    public ProductImportJobResponse getJob(UUID jobId) {
+        synchronized (jobs) {
+            var job = jobs.get(jobId);
+            if (job == null) {
+                throw new EntityNotFoundException("Import job " + jobId + " not found");
+            }
+            return job.toResponse();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void register(ProductImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+            var finished = jobs.values().stream().filter(ProductImportJob::isFinished).toList();
+            for (int i = 0; i < finished.size() && jobs.size() > properties.getRetainedJobs(); i++) {
+                jobs.remove(finished.get(i).id());
+            }
+        }
+    }
+
+    private void run(ProductImportJob job, ProductImportFormat format, Path file) {
+        job.start();
+        try (var reader = ProductImportReader.open(format, Files.newBufferedReader(file, StandardCharsets.UTF_8),
+                objectMapper)) {
+            var chunk = new ArrayList<ParsedRow>(properties.getChunkSize());
+            ParsedRow parsed;
+            while ((parsed = reader.next()) != null) {
+                job.rowRead();
+                chunk.add(parsed);
+                if (chunk.size() == properties.getChunkSize()) {
+                    importChunk(job, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk);
+            }
+            job.complete();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Product import {} failed", job.id(), e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete import file {}", file, e);
+            }
+        }
+    }
+
+    private void importChunk(ProductImportJob job, List<ParsedRow> chunk) {
+        var valid = chunk.parallelStream()
+                .map(this::validate)
+                .toList();
+        var rows = new ArrayList<ParsedRow>(valid.size());
+        for (var parsed : valid) {
+            if (parsed.error() == null) {
+                rows.add(parsed);
+            } else {
+                job.rejected(new RowError(parsed.line(), parsed.row() == null ? null : parsed.row().getSku(),
+                        parsed.error()));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        ChunkFallback.write(rows,
+                (offset, written) -> writer.write(written),
+                (offset, written, result) -> record(job, result),
+                (offset, row, failure) -> job.rejected(new RowError(row.line(), row.row().getSku(),
+                        failure.getMessage())));
+    }
+
+    private void record(ProductImportJob job, ProductImportWriter.ChunkResult result) {
+        job.written(result.created(), result.updated(), result.inventoriesCreated());
+        result.errors().forEach(job::rejected);
+    }
+
+    private ParsedRow validate(ParsedRow parsed) {
+        if (parsed.error() != null) {
+            return parsed;
+        }
+        var violations = validator.validate(parsed.row());
+        if (violations.isEmpty()) {
+            return parsed;
+        }
+        var message = violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .reduce((a, b) -> a + "; " + b)
+                .orElseThrow();
+        return new ParsedRow(parsed.line(), parsed.row(), message);
+    }
+}
@@ -0,0 +1,158 @@
+package lv.janis.iom.service.productimport;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lv.janis.iom.dto.response.ProductImportJobResponse.RowError;
+import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.repository.ProductRepository.ProductKey;
+import lv.janis.iom.service.InventoryService;
+import lv.janis.iom.service.productimport.ProductImportReader.ParsedRow;
+
+/**
+ * Writes one chunk of validated import rows in a single transaction: existing SKUs and names
+ * are resolved with one lookup each, then products and inventory rows go out as JDBC batches.
+ * Rows that conflict are returned as errors and the rest of the chunk is still written. An empty
+ * description keeps the existing one, and SKUs of deleted products are reported rather than
+ * updated behind the deletion.
+ */
+@Service
+public class ProductImportWriter {
+
+    public record ChunkResult(int created, int updated, int inventoriesCreated, List<RowError> errors) {
+    }
+
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryService inventoryService;
+
+    public ProductImportWriter(
+            ProductRepository productRepository,
+            InventoryRepository inventoryRepository,
+            InventoryService inventoryService) {
+        this.productRepository = productRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryService = inventoryService;
+    }
+
+    @Transactional
+    public ChunkResult write(List<ParsedRow> rows) {
+        var errors = new ArrayList<RowError>();
+        Map<String, ParsedRow> rowsBySku = new LinkedHashMap<>();
+        for (var parsed : rows) {
+            if (rowsBySku.putIfAbsent(parsed.row().getSku(), parsed) != null) {
+                errors.add(error(parsed, "SKU " + parsed.row().getSku() + " appears more than once in the chunk"));
+            }
+        }
+
+        Map<String, Long> idsBySku = new HashMap<>();
+        var deletedSkus = new HashSet<String>();
+        for (var key : productRepository.findKeysBySkuIn(rowsBySku.keySet())) {
+            idsBySku.put(key.getSku(), key.getId());
+            if (key.getDeleted()) {
+                deletedSkus.add(key.getSku());
+            }
+        }
+        Map<String, String> skuByName = new HashMap<>();
+        var names = rowsBySku.values().stream().map(parsed -> parsed.row().getName()).distinct().toList();
+        for (var key : productRepository.findKeysByNameIn(names)) {
+            skuByName.put(key.getName(), key.getSku());
+        }
+
+        var inserts = new ArrayList<Product>();
+        Map<Long, Product> updates = new LinkedHashMap<>();
+        var accepted = new ArrayList<ParsedRow>();
+        for (var parsed : rowsBySku.values()) {
+            var row = parsed.row();
+            if (deletedSkus.contains(row.getSku())) {
+                errors.add(error(parsed, "Product with SKU " + row.getSku() + " is deleted; activate it to import."));
+                continue;
+            }
+            var owner = skuByName.putIfAbsent(row.getName(), row.getSku());
+            if (owner != null && !owner.equals(row.getSku())) {
+                errors.add(error(parsed, "Product with name " + row.getName() + " already exists."));
+                continue;
+            }
+            Product product;
+            try {
+                product = Product.create(row.getSku(), row.getName(), row.getDescription(), row.getPrice());
+            } catch (IllegalArgumentException e) {
+                errors.add(error(parsed, e.getMessage()));
+                continue;
+            }
+            var existingId = idsBySku.get(row.getSku());
+            if (existingId == null) {
+                inserts.add(product);
+            } else {
+                updates.put(existingId, product);
+            }
+            accepted.add(parsed);
+        }
+
+        var now = Instant.now();
+        productRepository.batchInsert(inserts, now);
+        productRepository.batchUpdate(updates, now);
+        if (!inserts.isEmpty()) {
+            for (ProductKey key : productRepository.findKeysBySkuIn(inserts.stream().map(Product::getSku).toList())) {
+                idsBySku.put(key.getSku(), key.getId());
+            }
+        }
+
+        int inventoriesCreated = createInventories(accepted, idsBySku, updates.keySet(), now, errors);
+        return new ChunkResult(inserts.size(), updates.size(), inventoriesCreated, errors);
+    }
+
+    // New products always lack inventory; existing ones only get a row if they have none yet
+    private int createInventories(List<ParsedRow> accepted, Map<String, Long> idsBySku,
+            Set<Long> existingProductIds, Instant now, List<RowError> errors) {
+        var stocked = accepted.stream().filter(parsed -> parsed.row().getQuantity() != null).toList();
+        if (stocked.isEmpty()) {
+            return 0;
+        }
+        var existingStocked = stocked.stream()
+                .map(parsed -> idsBySku.get(parsed.row().getSku()))
+                .filter(existingProductIds::contains)
+                .toList();
+        var withInventory = existingStocked.isEmpty()
+                ? new HashSet<Long>()
+                : new HashSet<>(inventoryRepository.findProductIdsIn(existingStocked));
+
+        var inventories = new ArrayList<Inventory>();
+        for (var parsed : stocked) {
+            var row = parsed.row();
+            var productId = idsBySku.get(row.getSku());
+            if (withInventory.contains(productId)) {
+                continue;
+            }
+            try {
+                var inventory = Inventory.createFor(
+                        productRepository.getReferenceById(productId),
+                        row.getQuantity(),
+                        row.getReorderLevel() == null ? 0 : row.getReorderLevel(),
+                        row.getClearLowQuantity() == null ? 0 : row.getClearLowQuantity());
+                inventoryService.updateLowQuantityFlag(inventory);
+                inventories.add(inventory);
+            } catch (IllegalArgumentException e) {
+                errors.add(error(parsed, "Product saved but inventory skipped: " + e.getMessage()));
+            }
+        }
+        inventoryRepository.batchInsert(inventories, now);
+        return inventories.size();
+    }
+
+    private static RowError error(ParsedRow parsed, String message) {
+        return new RowError(parsed.line(), parsed.row().getSku(), message);
+    }
+}
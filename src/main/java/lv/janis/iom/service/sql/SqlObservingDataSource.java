@@ -0,0 +1,151 @@
+package lv.janis.iom.service.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps the application data source so every {@code execute*} call on its statements is
+ * timed and handed to the {@link SqlStatementObserver}. Covers Hibernate and the
+ * {@code JdbcTemplate} repositories alike; everything else is passed straight through.
+ */
+public class SqlObservingDataSource extends DelegatingDataSource {
+
+    private final SqlStatementObserver observer;
+
+    public SqlObservingDataSource(DataSource target, SqlStatementObserver observer) {
+        super(target);
+        this.observer = observer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Observed " + target;
+                default:
+                    break;
+            }
+            var result = SqlObservingDataSource.invoke(target, method, args);
+            if (result instanceof CallableStatement statement) {
+                return wrap(proxy, statement, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return wrap(proxy, statement, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement statement) {
+                return wrap(proxy, statement, Statement.class, null);
+            }
+            return result;
+        }
+
+        private Object wrap(Object connection, Statement statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(SqlObservingDataSource.class.getClassLoader(), new Class<?>[] { type },
+                    new StatementHandler(connection, statement, sql));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Object connection;
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+        private int batchSize;
+
+        StatementHandler(Object connection, Statement target, String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return connection;
+                case "addBatch":
+                    if (batchSql == null) {
+                        batchSql = args != null && args.length == 1 ? (String) args[0] : preparedSql;
+                    }
+                    batchSize++;
+                    return SqlObservingDataSource.invoke(target, method, args);
+                case "clearBatch":
+                    batchSql = null;
+                    batchSize = 0;
+                    return SqlObservingDataSource.invoke(target, method, args);
+                default:
+                    break;
+            }
+            if (!name.startsWith("execute")) {
+                return SqlObservingDataSource.invoke(target, method, args);
+            }
+
+            boolean batch = name.endsWith("Batch");
+            String sql = batch ? batchSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            int statements = batch ? batchSize : 1;
+            if (batch) {
+                batchSql = null;
+                batchSize = 0;
+            }
+            boolean failed = true;
+            long start = System.nanoTime();
+            try {
+                var result = SqlObservingDataSource.invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                observer.executed(sql, statements, System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package lv.janis.iom.service.sql;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a SQL string to its shape: literals become {@code ?}, whitespace is collapsed, and
+ * IN lists and multi-row VALUES lists of any length fold into one form, so statements that
+ * differ only in their values are aggregated together.
+ */
+final class SqlShapes {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin \\(\\?(?:, ?\\?)+\\)");
+    private static final Pattern VALUES_ROWS = Pattern.compile("(\\((?:\\?, ?)*\\?\\))(?:, ?\\((?:\\?, ?)*\\?\\))+");
+
+    private SqlShapes() {
+    }
+
+    static String normalize(String sql) {
+        var out = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                i = skipString(sql, i + 1);
+                out.append('?');
+            } else if (Character.isDigit(c) && !endsWithIdentifier(out)) {
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        var shape = IN_LIST.matcher(out).replaceAll("in (?...)");
+        return VALUES_ROWS.matcher(shape).replaceAll("$1, ...");
+    }
+
+    // Index just past the closing quote; a doubled quote is an escaped quote inside the literal
+    private static int skipString(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder out) {
+        if (out.isEmpty()) {
+            return false;
+        }
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+}
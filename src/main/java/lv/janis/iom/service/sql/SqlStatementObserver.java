@@ -0,0 +1,48 @@
+package lv.janis.iom.service.sql;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import lv.janis.iom.config.SqlLoggingProperties;
+
+/**
+ * Receives every statement executed through the {@link SqlObservingDataSource}. Each one is
+ * aggregated by shape; statements over the slow threshold are logged at WARN, and a sampled
+ * fraction is logged in full at INFO. Log lines are key=value so they can be parsed.
+ */
+@Component
+public class SqlStatementObserver {
+    private static final Logger slowLog = LoggerFactory.getLogger("lv.janis.iom.sql.slow");
+    private static final Logger sampledLog = LoggerFactory.getLogger("lv.janis.iom.sql.sampled");
+
+    private final SqlStatementStats stats;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+
+    public SqlStatementObserver(SqlStatementStats stats, SqlLoggingProperties properties) {
+        this.stats = stats;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowThresholdMs());
+        this.sampleRate = properties.getSampleRate();
+    }
+
+    public void executed(String sql, int batchSize, long nanos, boolean failed) {
+        if (sql == null) {
+            return;
+        }
+        var shape = stats.shapeOf(sql);
+        stats.record(shape, nanos, failed);
+
+        if (nanos >= slowThresholdNanos && slowLog.isWarnEnabled()) {
+            slowLog.warn("event=slow_sql duration_ms={} batch={} failed={} shape=\"{}\"",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), batchSize, failed, shape);
+        }
+        if (sampleRate > 0 && sampledLog.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sampledLog.info("event=sql duration_us={} batch={} failed={} sql=\"{}\"",
+                    TimeUnit.NANOSECONDS.toMicros(nanos), batchSize, failed, sql);
+        }
+    }
+}
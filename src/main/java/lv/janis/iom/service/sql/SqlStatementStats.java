@@ -0,0 +1,152 @@
+package lv.janis.iom.service.sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import lv.janis.iom.config.SqlLoggingProperties;
+
+/**
+ * Per-shape execution statistics: count, failures, total and max time, and a p99 read from a
+ * log-scale histogram (four buckets per power of two microseconds, so within about 20%).
+ * The number of shapes is capped; statements past the cap share one overflow entry.
+ */
+@Component
+public class SqlStatementStats {
+
+    static final String OVERFLOW_SHAPE = "(other statements)";
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 1 + 40 * SUB_BUCKETS;
+
+    public record StatementSummary(
+            String shape,
+            long count,
+            long errors,
+            double totalMs,
+            double meanMs,
+            double p99Ms,
+            double maxMs) {
+    }
+
+    private final ConcurrentHashMap<String, ShapeStats> byShape = new ConcurrentHashMap<>();
+    // Hibernate and the JDBC repositories reuse the same SQL strings, so shapes are cached by text
+    private final ConcurrentHashMap<String, String> shapeBySql = new ConcurrentHashMap<>();
+    private final int maxShapes;
+
+    public SqlStatementStats(SqlLoggingProperties properties) {
+        this.maxShapes = Math.max(1, properties.getMaxShapes());
+    }
+
+    public String shapeOf(String sql) {
+        var shape = shapeBySql.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        shape = SqlShapes.normalize(sql);
+        if (shapeBySql.size() < maxShapes * 4) {
+            shapeBySql.put(sql, shape);
+        }
+        return shape;
+    }
+
+    public void record(String shape, long nanos, boolean failed) {
+        var stats = byShape.get(shape);
+        if (stats == null) {
+            stats = byShape.size() < maxShapes
+                    ? byShape.computeIfAbsent(shape, s -> new ShapeStats())
+                    : byShape.computeIfAbsent(OVERFLOW_SHAPE, s -> new ShapeStats());
+        }
+        stats.record(nanos, failed);
+    }
+
+    public long statementCount() {
+        return byShape.values().stream().mapToLong(stats -> stats.count.sum()).sum();
+    }
+
+    public int shapeCount() {
+        return byShape.size();
+    }
+
+    // Shapes with the highest total time first
+    public List<StatementSummary> top(int limit) {
+        var summaries = new ArrayList<StatementSummary>(byShape.size());
+        byShape.forEach((shape, stats) -> summaries.add(stats.summarize(shape)));
+        summaries.sort(Comparator.comparingDouble(StatementSummary::totalMs).reversed());
+        return List.copyOf(summaries.subList(0, Math.min(Math.max(limit, 0), summaries.size())));
+    }
+
+    public void reset() {
+        byShape.clear();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 1) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        long base = 1L << exponent;
+        int sub = (int) ((micros - base) * SUB_BUCKETS / base);
+        return Math.min(1 + exponent * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket == 0) {
+            return 1;
+        }
+        int exponent = (bucket - 1) / SUB_BUCKETS;
+        int sub = (bucket - 1) % SUB_BUCKETS;
+        long base = 1L << exponent;
+        return base + (sub + 1) * base / SUB_BUCKETS;
+    }
+
+    private static final class ShapeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            histogram.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        }
+
+        StatementSummary summarize(String shape) {
+            long n = count.sum();
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            return new StatementSummary(
+                    shape,
+                    n,
+                    errors.sum(),
+                    totalMs,
+                    n == 0 ? 0 : totalMs / n,
+                    Math.min(p99Micros(n) / 1000.0, maxNanos.get() / 1_000_000.0),
+                    maxNanos.get() / 1_000_000.0);
+        }
+
+        private long p99Micros(long n) {
+            long rank = (long) Math.ceil(n * 0.99);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += histogram.get(bucket);
+                if (seen >= rank) {
+                    return upperBoundMicros(bucket);
+                }
+            }
+            return upperBoundMicros(BUCKETS - 1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package lv.janis.iom.service.sql;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import lv.janis.iom.config.SqlLoggingProperties;
+import lv.janis.iom.service.sql.SqlStatementStats.StatementSummary;
+
+/**
+ * {@code /actuator/sqlstats}: the statement shapes with the highest total execution time
+ * since startup or the last reset. {@code ?limit=} overrides the default number of shapes.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private static final int MAX_LIMIT = 500;
+
+    public record SqlStatsReport(long statements, int shapes, List<StatementSummary> top) {
+    }
+
+    private final SqlStatementStats stats;
+    private final SqlLoggingProperties properties;
+
+    public SqlStatsEndpoint(SqlStatementStats stats, SqlLoggingProperties properties) {
+        this.stats = stats;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public SqlStatsReport top(@Nullable Integer limit) {
+        int size = limit != null ? limit : properties.getDefaultTop();
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return new SqlStatsReport(stats.statementCount(), stats.shapeCount(), stats.top(size));
+    }
+
+    @DeleteOperation
+    public void reset() {
+        stats.reset();
+    }
+}
@@ -0,0 +1,34 @@
+package lv.janis.iom.service.stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import lv.janis.iom.entity.Inventory;
+
+/**
+ * Feeds every written inventory row into the {@link InventoryChangeStream}. For sharded
+ * products the row's available quantity leaves out shard reservations taken since the last
+ * rebalance; the sharded reservation path publishes its own exact value. The stream is looked
+ * up lazily because JPA slices create this listener without the rest of the application.
+ */
+@Component
+public class InventoryChangeListener {
+
+    private final ObjectProvider<InventoryChangeStream> inventoryChangeStream;
+
+    public InventoryChangeListener(ObjectProvider<InventoryChangeStream> inventoryChangeStream) {
+        this.inventoryChangeStream = inventoryChangeStream;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void inventoryWritten(Inventory inventory) {
+        var stream = inventoryChangeStream.getIfAvailable();
+        if (stream == null) {
+            return;
+        }
+        stream.publish(inventory.getProduct().getId(), inventory.getAvailableQuantity());
+    }
+}
@@ -0,0 +1,178 @@
+package lv.janis.iom.service.stream;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import lv.janis.iom.config.InventoryStreamProperties;
+import lv.janis.iom.dto.response.InventoryChangeEvent;
+
+/**
+ * Pushes available-quantity changes to server-sent-event subscribers. Changes are collected
+ * per transaction and only published after commit, keeping the last value per product. Each
+ * subscriber is drained on a small dispatcher pool, so a slow consumer only delays itself.
+ */
+@Component
+public class InventoryChangeStream {
+    private static final Logger log = LoggerFactory.getLogger(InventoryChangeStream.class);
+
+    static final String CHANGE_EVENT = "inventory";
+    static final String RESYNC_EVENT = "resync";
+
+    private final InventoryStreamProperties properties;
+    private final CopyOnWriteArrayList<InventoryChangeSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher;
+
+    public InventoryChangeStream(InventoryStreamProperties properties) {
+        this.properties = properties;
+        var threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, properties.getDispatchThreads()), runnable -> {
+            var thread = new Thread(runnable, "inventory-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(Set<Long> productIds) {
+        if (productIds.size() > properties.getMaxProductIds()) {
+            throw new IllegalArgumentException(
+                    "At most " + properties.getMaxProductIds() + " product ids can be watched per stream");
+        }
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            throw new IllegalStateException("Too many inventory stream subscribers, retry later");
+        }
+        var emitter = new SseEmitter(properties.getTimeoutMs());
+        var subscriber = new InventoryChangeSubscriber(emitter, Set.copyOf(productIds), properties.getBufferSize());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Records a change to a product's available quantity. Inside a transaction the change is
+     * held until commit and dropped on rollback; outside one it is published straight away.
+     */
+    public void publish(Long productId, int availableQuantity) {
+        var event = new InventoryChangeEvent(productId, availableQuantity);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(Map.of(productId, event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        var changes = (Map<Long, InventoryChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            var collected = new LinkedHashMap<Long, InventoryChangeEvent>();
+            TransactionSynchronizationManager.bindResource(this, collected);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InventoryChangeStream.this);
+                    if (status == STATUS_COMMITTED) {
+                        dispatch(collected);
+                    }
+                }
+            });
+            changes = collected;
+        }
+        changes.put(productId, event);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (var subscriber : subscribers) {
+            try {
+                subscriber.emitter().send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                drop(subscriber, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (var subscriber : subscribers) {
+            subscriber.emitter().complete();
+        }
+        subscribers.clear();
+    }
+
+    private void dispatch(Map<Long, InventoryChangeEvent> changes) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (var subscriber : subscribers) {
+            boolean offered = false;
+            for (var event : changes.values()) {
+                if (subscriber.wants(event.productId())) {
+                    subscriber.offer(event);
+                    offered = true;
+                }
+            }
+            if (offered) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void schedule(InventoryChangeSubscriber subscriber) {
+        if (!subscriber.startDrain()) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.endDrain();
+        }
+    }
+
+    private void drain(InventoryChangeSubscriber subscriber) {
+        try {
+            while (subscriber.hasPending()) {
+                var batch = subscriber.take();
+                if (batch.dropped() > 0) {
+                    subscriber.emitter().send(SseEmitter.event().name(RESYNC_EVENT).data(Map.of("dropped", batch.dropped())));
+                }
+                for (var event : batch.events()) {
+                    subscriber.emitter().send(SseEmitter.event().name(CHANGE_EVENT).data(event));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+        } finally {
+            subscriber.endDrain();
+        }
+        // a change offered between the last check and endDrain would otherwise wait for the next one
+        if (subscriber.hasPending() && subscribers.contains(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+    private void drop(InventoryChangeSubscriber subscriber, Exception cause) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Dropping inventory stream subscriber", cause);
+            subscriber.emitter().completeWithError(cause);
+        }
+    }
+}
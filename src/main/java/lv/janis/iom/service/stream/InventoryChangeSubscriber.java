@@ -0,0 +1,73 @@
+package lv.janis.iom.service.stream;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lv.janis.iom.dto.response.InventoryChangeEvent;
+
+/**
+ * One stream connection. Changes wait in a map keyed by product, so a slow consumer only ever
+ * holds the latest value per product; when more products are waiting than the buffer allows,
+ * the oldest is dropped and the consumer is told to resync.
+ */
+class InventoryChangeSubscriber {
+
+    record Batch(int dropped, List<InventoryChangeEvent> events) {
+    }
+
+    private final SseEmitter emitter;
+    private final Set<Long> productIds;
+    private final int bufferSize;
+    private final LinkedHashMap<Long, InventoryChangeEvent> pending = new LinkedHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private int dropped;
+
+    InventoryChangeSubscriber(SseEmitter emitter, Set<Long> productIds, int bufferSize) {
+        this.emitter = emitter;
+        this.productIds = productIds;
+        this.bufferSize = bufferSize;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    boolean wants(Long productId) {
+        return productIds.isEmpty() || productIds.contains(productId);
+    }
+
+    synchronized void offer(InventoryChangeEvent event) {
+        // re-inserting moves the product to the back, so eviction always hits the stalest one
+        pending.remove(event.productId());
+        pending.put(event.productId(), event);
+        if (pending.size() > bufferSize) {
+            var oldest = pending.keySet().iterator().next();
+            pending.remove(oldest);
+            dropped++;
+        }
+    }
+
+    synchronized Batch take() {
+        var batch = new Batch(dropped, List.copyOf(pending.values()));
+        pending.clear();
+        dropped = 0;
+        return batch;
+    }
+
+    synchronized boolean hasPending() {
+        return !pending.isEmpty() || dropped > 0;
+    }
+
+    // Only one dispatcher thread drains a subscriber at a time
+    boolean startDrain() {
+        return draining.compareAndSet(false, true);
+    }
+
+    void endDrain() {
+        draining.set(false);
+    }
+}
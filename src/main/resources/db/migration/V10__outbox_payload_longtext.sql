@@ -0,0 +1,3 @@
+-- tinytext truncates real event payloads. The lob_type placeholder is longtext on MySQL
+-- (spring.flyway.placeholders.lob_type)
+alter table outbox_events modify column payload ${lob_type} not null;
@@ -0,0 +1,2 @@
+-- Outbox candidates skip aggregates that still have an earlier unfinished event
+create index idx_outbox_aggregate_status on outbox_events (aggregated_id, status);
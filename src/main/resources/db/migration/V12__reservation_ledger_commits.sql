@@ -0,0 +1,7 @@
+-- One row per transaction that logged ledger reservations, inserted in that transaction. On
+-- recovery a log record is replayed only when a row covers its sequence
+create table reservation_ledger_commits (
+    first_seq bigint not null,
+    last_seq bigint not null,
+    primary key (first_seq)
+) engine=InnoDB;
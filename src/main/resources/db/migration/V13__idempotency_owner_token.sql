@@ -0,0 +1,3 @@
+-- Identifies the request holding an IN_PROGRESS key, so only that request can complete,
+-- release or heartbeat it once a retry may have reclaimed the key
+alter table idempotency_keys add column owner_token varchar(36) not null default '';
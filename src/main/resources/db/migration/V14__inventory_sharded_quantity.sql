@@ -0,0 +1,15 @@
+-- Shard budgets were counted as reserved on the parent row, which left sharded products with
+-- available_quantity 0. They are tracked in sharded_quantity instead and stay available.
+-- Outstanding shard reservations are already in reserved_quantity, so they count as folded
+alter table inventory add column sharded_quantity integer not null default 0;
+
+update inventory i
+   set sharded_quantity = (select coalesce(sum(s.available), 0)
+                             from inventory_reservation_shards s
+                            where s.inventory_id = i.id)
+ where reservation_shards > 0;
+update inventory set reserved_quantity = reserved_quantity - sharded_quantity where reservation_shards > 0;
+update inventory set available_quantity = quantity - reserved_quantity where reservation_shards > 0;
+update inventory_reservation_shards set reserved = 0;
+
+create index idx_inventory_reservation_shards on inventory (reservation_shards);
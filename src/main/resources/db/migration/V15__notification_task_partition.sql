@@ -0,0 +1,8 @@
+-- Lease partition of each notification task (inventory id modulo 16), stored and indexed so a
+-- node's due-task query only scans and locks rows of the partitions it owns
+alter table notification_tasks add column lease_partition integer not null default 0;
+
+update notification_tasks set lease_partition = mod(inventory_id, 16);
+
+create index idx_notification_task_status_partition
+    on notification_tasks (status, lease_partition, next_attempt_at);
@@ -0,0 +1,15 @@
+-- Outcome of each asynchronously ingested order, written before its journal record can be
+-- compacted, so the tracking id still resolves after a restart or on another instance
+create table external_order_ingest_results (
+    tracking_id varchar(36) not null,
+    state varchar(16) not null,
+    source varchar(32),
+    external_order_id varchar(64),
+    order_id bigint,
+    message varchar(500),
+    accepted_at datetime(6) not null,
+    finished_at datetime(6) not null,
+    primary key (tracking_id)
+) engine=InnoDB;
+
+create index idx_ingest_result_finished_at on external_order_ingest_results (finished_at);
@@ -0,0 +1,2 @@
+-- Periodic sweep for PROCESSING orders past their deadline that no instance is tracking
+create index idx_customer_order_reservation_expiry on customer_orders (status, reservation_expires_at);
@@ -0,0 +1,127 @@
+-- Exactly the schema previously produced by hibernate ddl-auto=update. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate) and only receive later migrations,
+-- so everything added since then belongs in V2 onwards.
+
+create table products (
+    id bigint not null auto_increment,
+    sku varchar(64) not null,
+    name varchar(200) not null,
+    description varchar(2000),
+    price decimal(19,2) not null,
+    is_deleted bit not null,
+    version bigint,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint idx_product_sku unique (sku)
+) engine=InnoDB;
+
+create index idx_product_name on products (name);
+
+create table inventory (
+    id bigint not null auto_increment,
+    product_id bigint not null,
+    quantity integer not null,
+    reserved_quantity integer not null,
+    reorder_level integer not null,
+    clear_low_quantity integer not null,
+    is_low_quantity bit not null,
+    version bigint,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint uk_inventory_product_id unique (product_id),
+    constraint fk_inventory_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table customer_orders (
+    id bigint not null auto_increment,
+    status enum ('CANCELLED','CREATED','DELIVERED','FAILED','PROCESSING','REJECTED','RETURNED','SHIPPED') not null,
+    total_amount decimal(19,2) not null,
+    source enum ('WEB_SHOP'),
+    external_order_id varchar(64),
+    shipping_address varchar(128),
+    failure_code enum ('INVALID_DATA','INVENTORY_NOT_FOUND','OUT_OF_STOCK','PRODUCT_NOT_FOUND','TECHNICAL_ERROR'),
+    failure_message varchar(500),
+    failed_at datetime(6),
+    retry_count integer,
+    version bigint,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint uk_order_source_external_id unique (source, external_order_id)
+) engine=InnoDB;
+
+create index idx_customer_order_status on customer_orders (status);
+create index idx_customer_order_created_at on customer_orders (created_at);
+create index idx_order_source_external_id on customer_orders (source, external_order_id);
+
+create table order_items (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    price_at_order_time decimal(19,2) not null,
+    primary key (id),
+    constraint fk_order_item_order foreign key (order_id) references customer_orders (id),
+    constraint fk_order_item_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create index idx_order_item_product_id on order_items (product_id);
+create index idx_order_item_order_id on order_items (order_id);
+
+create table stock_movements (
+    id bigint not null auto_increment,
+    inventory_id bigint not null,
+    delta integer not null,
+    reason varchar(255),
+    order_id bigint,
+    movement_type enum ('MANUAL_ADJUSTMENT','ORDER_FULFILLED','ORDER_RELEASED','ORDER_RESERVED','ORDER_RETURNED') not null,
+    created_at datetime(6) not null,
+    primary key (id),
+    constraint fk_stock_movement_inventory foreign key (inventory_id) references inventory (id)
+) engine=InnoDB;
+
+create table alerts (
+    id bigint not null auto_increment,
+    alert_type enum ('LOW_STOCK') not null,
+    inventory_id bigint not null,
+    sku_snapshot varchar(255) not null,
+    product_name_snapshot varchar(255) not null,
+    available_quantity integer not null,
+    threshold_snapshot integer not null,
+    buffer_snapshot integer not null,
+    created_at datetime(6) not null,
+    acknowledged_at datetime(6),
+    primary key (id),
+    constraint fk_alert_inventory foreign key (inventory_id) references inventory (id)
+) engine=InnoDB;
+
+create table notification_tasks (
+    id bigint not null auto_increment,
+    task_name varchar(255) not null,
+    inventory_id bigint not null,
+    attempts integer not null,
+    status enum ('FAILED','PENDING','PROCESSING','SENT') not null,
+    created_at datetime(6) not null,
+    next_attempt_at datetime(6) not null,
+    primary key (id),
+    constraint fk_notification_task_inventory foreign key (inventory_id) references inventory (id)
+) engine=InnoDB;
+
+-- payload is a @Lob string that ddl-auto sized as tinytext; V10 widens it
+create table outbox_events (
+    id bigint not null auto_increment,
+    event_type varchar(255) not null,
+    aggregated_id bigint not null,
+    status enum ('DEAD','FAILED','PENDING','PROCESSED','PROCESSING') not null,
+    payload tinytext not null,
+    attempts integer not null,
+    available_at datetime(6),
+    last_error varchar(255),
+    created_at datetime(6) not null,
+    locked_at datetime(6),
+    locked_by varchar(100),
+    processed_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
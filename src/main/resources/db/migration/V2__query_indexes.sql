@@ -0,0 +1,10 @@
+-- Movement history per inventory, newest first, and movement lookup by order
+create index idx_stock_movement_inventory_created on stock_movements (inventory_id, created_at);
+create index idx_stock_movement_order_id on stock_movements (order_id);
+
+-- Unacknowledged alerts listed by creation time
+create index idx_alert_acknowledged_created on alerts (acknowledged_at, created_at);
+
+-- Notification and outbox pollers claim due rows by status and due time
+create index idx_notification_task_status_next_attempt on notification_tasks (status, next_attempt_at);
+create index idx_outbox_status_available on outbox_events (status, available_at);
@@ -0,0 +1,2 @@
+-- Deadline after which a PROCESSING order's reservation is released; null when not tracked
+alter table customer_orders add column reservation_expires_at datetime(6);
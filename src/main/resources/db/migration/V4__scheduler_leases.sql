@@ -0,0 +1,10 @@
+-- Time-bound ownership of scheduled work: one row per leader lease or job partition, plus one
+-- membership row per live node and job. fencing_token grows on every change of owner
+create table scheduler_leases (
+    name varchar(100) not null,
+    owner varchar(100) not null,
+    fencing_token bigint not null,
+    expires_at datetime(6) not null,
+    renewed_at datetime(6) not null,
+    primary key (name)
+) engine=InnoDB;
@@ -0,0 +1,10 @@
+-- Available quantity and in-stock flag persisted next to quantity so stock filters and the
+-- in-stock listing use indexes. The entity keeps them in sync; existing rows are backfilled here
+alter table inventory add column available_quantity integer not null default 0;
+alter table inventory add column in_stock bit not null default false;
+
+update inventory set available_quantity = quantity - reserved_quantity, in_stock = quantity > 0;
+
+create index idx_inventory_available_quantity on inventory (available_quantity);
+create index idx_inventory_low_quantity on inventory (is_low_quantity, available_quantity);
+create index idx_inventory_in_stock on inventory (in_stock, id);
@@ -0,0 +1,13 @@
+-- Optional sharded reservations for hot products; 0 shards means the product reserves on its row
+alter table inventory add column reservation_shards integer not null default 0;
+
+create table inventory_reservation_shards (
+    id bigint not null auto_increment,
+    inventory_id bigint not null,
+    shard_index integer not null,
+    available integer not null,
+    reserved integer not null,
+    primary key (id),
+    constraint uk_reservation_shard_inventory_index unique (inventory_id, shard_index),
+    constraint fk_reservation_shard_inventory foreign key (inventory_id) references inventory (id)
+) engine=InnoDB;
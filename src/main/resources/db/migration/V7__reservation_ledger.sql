@@ -0,0 +1,2 @@
+-- Last reservation log sequence folded into the row, so replaying the log skips applied records
+alter table inventory add column ledger_seq bigint not null default 0;
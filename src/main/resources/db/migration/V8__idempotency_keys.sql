@@ -0,0 +1,18 @@
+-- Stored responses for requests sent with an Idempotency-Key header
+create table idempotency_keys (
+    id bigint not null auto_increment,
+    idempotency_key varchar(128) not null,
+    fingerprint varchar(64) not null,
+    status enum ('COMPLETED','IN_PROGRESS') not null,
+    response_status integer,
+    response_content_type varchar(100),
+    response_location varchar(512),
+    response_body ${lob_type},
+    locked_at datetime(6) not null,
+    completed_at datetime(6),
+    created_at datetime(6) not null,
+    primary key (id),
+    constraint uk_idempotency_key unique (idempotency_key)
+) engine=InnoDB;
+
+create index idx_idempotency_created_at on idempotency_keys (created_at);
@@ -0,0 +1,5 @@
+-- Written on the primary and read back from a read replica to measure replication lag
+create table replica_heartbeat (
+    id int not null primary key,
+    beat_at_ms bigint not null
+) engine=InnoDB;
@@ -0,0 +1,99 @@
+package lv.janis.iom.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=" + ReadReplicaRoutingIntegrationTest.PRIMARY_URL,
+    "datasource.replica.enabled=true",
+    "datasource.replica.url=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL,
+    "datasource.replica.username=sa",
+    "datasource.replica.password=",
+    "datasource.replica.max-lag-ms=5000",
+    "datasource.replica.lag-check-interval-ms=3600000"
+})
+class ReadReplicaRoutingIntegrationTest {
+
+  static final String PRIMARY_URL = "jdbc:h2:mem:rwprimary;DB_CLOSE_DELAY=-1;MODE=MySQL";
+  static final String REPLICA_URL = "jdbc:h2:mem:rwreplica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+  @Autowired
+  ReplicaLagMonitor monitor;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  // Two independent H2 databases, so the test plays the part of replication
+  private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+  @BeforeEach
+  void replicaHeartbeatTable() {
+    replica.execute("create table if not exists replica_heartbeat (id int not null primary key, beat_at_ms bigint not null)");
+    replica.update("delete from replica_heartbeat");
+  }
+
+  @Test
+  void readOnlyTransactions_useCaughtUpReplica() {
+    replicate(System.currentTimeMillis());
+
+    monitor.check();
+
+    assertTrue(monitor.isReplicaUsable());
+    assertEquals("RWREPLICA", currentDatabase(true));
+    assertEquals("RWPRIMARY", currentDatabase(false));
+  }
+
+  @Test
+  void laggingReplica_fallsBackToPrimary() {
+    replicate(System.currentTimeMillis() - 60_000);
+
+    monitor.check();
+
+    assertFalse(monitor.isReplicaUsable());
+    assertTrue(monitor.getLastLagMs() >= 60_000);
+    assertEquals("RWPRIMARY", currentDatabase(true));
+  }
+
+  @Test
+  void unreadableReplica_fallsBackToPrimary() {
+    replica.execute("drop table replica_heartbeat");
+
+    monitor.check();
+
+    assertFalse(monitor.isReplicaUsable());
+    assertEquals(-1, monitor.getLastLagMs());
+    assertEquals("RWPRIMARY", currentDatabase(true));
+  }
+
+  @Test
+  void check_writesHeartbeatOnPrimary() {
+    long before = System.currentTimeMillis();
+
+    monitor.check();
+
+    var primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    assertTrue(primary.queryForObject("select beat_at_ms from replica_heartbeat where id = 1", Long.class) >= before);
+  }
+
+  private void replicate(long beatAtMs) {
+    replica.update("insert into replica_heartbeat (id, beat_at_ms) values (1, ?)", beatAtMs);
+  }
+
+  private String currentDatabase(boolean readOnly) {
+    var transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(readOnly);
+    return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+  }
+}
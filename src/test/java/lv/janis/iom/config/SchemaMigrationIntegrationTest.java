@@ -0,0 +1,136 @@
+package lv.janis.iom.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.exception.FlywayValidateException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Runs the real migrations and lets Hibernate validate every mapping against the result
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:migrationdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.flyway.enabled=true",
+    // H2 reads longtext as varchar even in MySQL mode
+    "spring.flyway.placeholders.lob_type=clob",
+    "spring.jpa.hibernate.ddl-auto=validate"
+})
+class SchemaMigrationIntegrationTest {
+
+  @Autowired
+  Flyway flyway;
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  void migrationsApplied_andMappingsValidate() {
+    var applied = Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString).toList();
+
+    assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16",
+        "17"), applied);
+    assertEquals(0, flyway.info().pending().length);
+  }
+
+  @Test
+  void queryIndexesExist() {
+    for (var index : List.of(
+        "idx_stock_movement_inventory_created",
+        "idx_stock_movement_order_id",
+        "idx_alert_acknowledged_created",
+        "idx_notification_task_status_next_attempt",
+        "idx_outbox_status_available",
+        "idx_outbox_aggregate_status",
+        "idx_inventory_reservation_shards",
+        "idx_notification_task_status_partition", "idx_ingest_result_finished_at",
+        "idx_customer_order_reservation_expiry")) {
+      var count = jdbcTemplate.queryForObject(
+          "select count(*) from information_schema.indexes where lower(index_name) = ?", Integer.class, index);
+      assertEquals(1, count, index);
+    }
+  }
+
+  @Test
+  void databaseAtBaseline_isUpgraded_andStockColumnsBackfilled() {
+    var dataSource = new DriverManagerDataSource("jdbc:h2:mem:baselinedb;DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "");
+    var flyway = Flyway.configure()
+        .dataSource(dataSource)
+        .placeholders(Map.of("lob_type", "clob"));
+    flyway.target("1").load().migrate();
+    var jdbc = new JdbcTemplate(dataSource);
+    jdbc.update("insert into products (id, sku, name, price, is_deleted, created_at, updated_at)"
+        + " values (1, 'SKU-1', 'One', 1.00, false, now(), now()), (2, 'SKU-2', 'Two', 1.00, false, now(), now())");
+    jdbc.update("insert into inventory (product_id, quantity, reserved_quantity, reorder_level, clear_low_quantity,"
+        + " is_low_quantity, created_at, updated_at) values (1, 10, 4, 0, 0, false, now(), now()),"
+        + " (2, 0, 0, 0, 0, true, now(), now())");
+    jdbc.update("insert into outbox_events (event_type, aggregated_id, status, payload, attempts, created_at)"
+        + " values ('TEST', 1, 'PENDING', '{}', 0, now())");
+
+    flyway.target("latest").load().migrate();
+
+    var rows = jdbc.queryForList("select available_quantity, in_stock from inventory order by product_id");
+    assertEquals(6, ((Number) rows.get(0).get("available_quantity")).intValue());
+    assertEquals(true, rows.get(0).get("in_stock"));
+    assertEquals(0, ((Number) rows.get(1).get("available_quantity")).intValue());
+    assertEquals(false, rows.get(1).get("in_stock"));
+    assertEquals("{}", jdbc.queryForObject("select payload from outbox_events", String.class));
+  }
+
+  @Test
+  void shardedInventory_keepsShardBudgetsAvailable() {
+    var dataSource = new DriverManagerDataSource("jdbc:h2:mem:shardeddb;DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "");
+    var flyway = Flyway.configure()
+        .dataSource(dataSource)
+        .placeholders(Map.of("lob_type", "clob"));
+    flyway.target("13").load().migrate();
+    var jdbc = new JdbcTemplate(dataSource);
+    jdbc.update("insert into products (id, sku, name, price, is_deleted, created_at, updated_at)"
+        + " values (1, 'SKU-1', 'One', 1.00, false, now(), now())");
+    // 10 in stock, 2 reserved before sharding, 3 reserved from shards, 5 left in shard budgets
+    jdbc.update("insert into inventory (id, product_id, quantity, reserved_quantity, available_quantity, in_stock,"
+        + " reservation_shards, reorder_level, clear_low_quantity, is_low_quantity, created_at, updated_at)"
+        + " values (1, 1, 10, 10, 0, true, 2, 0, 0, false, now(), now())");
+    jdbc.update("insert into inventory_reservation_shards (inventory_id, shard_index, available, reserved)"
+        + " values (1, 0, 3, 1), (1, 1, 2, 2)");
+
+    flyway.target("latest").load().migrate();
+
+    var row = jdbc.queryForMap("select reserved_quantity, available_quantity, sharded_quantity from inventory");
+    assertEquals(5, ((Number) row.get("reserved_quantity")).intValue());
+    assertEquals(5, ((Number) row.get("available_quantity")).intValue());
+    assertEquals(5, ((Number) row.get("sharded_quantity")).intValue());
+    assertEquals(0, jdbc.queryForObject("select sum(reserved) from inventory_reservation_shards", Integer.class));
+  }
+
+  @Test
+  void validateMode_rejectsPendingMigrations_andPassesOnceMigrated() {
+    var fresh = Flyway.configure()
+        .dataSource("jdbc:h2:mem:pendingdb;DB_CLOSE_DELAY=-1;MODE=MySQL", "sa", "")
+        .placeholders(Map.of("lob_type", "clob"))
+        .load();
+    var config = new SchemaMigrationConfig();
+
+    assertThrows(FlywayValidateException.class,
+        () -> config.flywayMigrationStrategy(properties(SchemaMigrationProperties.Mode.VALIDATE)).migrate(fresh));
+
+    config.flywayMigrationStrategy(properties(SchemaMigrationProperties.Mode.MIGRATE)).migrate(fresh);
+    assertDoesNotThrow(
+        () -> config.flywayMigrationStrategy(properties(SchemaMigrationProperties.Mode.VALIDATE)).migrate(fresh));
+  }
+
+  private static SchemaMigrationProperties properties(SchemaMigrationProperties.Mode mode) {
+    var properties = new SchemaMigrationProperties();
+    properties.setMode(mode);
+    return properties;
+  }
+}
@@ -1,11 +1,20 @@
 package lv.janis.iom.controller;
 
+import lv.janis.iom.dto.response.BulkAdjustmentResponse;
+import lv.janis.iom.dto.response.InventoryResponse;
+import lv.janis.iom.dto.response.KeysetPageResponse;
+import lv.janis.iom.dto.response.ReservationShardsResponse;
 import lv.janis.iom.entity.Inventory;
 import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.service.InventoryBulkAdjustService;
 import lv.janis.iom.service.InventoryService;
+import lv.janis.iom.service.ShardedReservationService;
+import lv.janis.iom.service.stream.InventoryChangeStream;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,13 +26,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(InventoryController.class)
@@ -33,6 +47,12 @@ public class InventoryControllerTest {
 
   @MockitoBean
   InventoryService inventoryService;
+  @MockitoBean
+  ShardedReservationService shardedReservationService;
+  @MockitoBean
+  InventoryBulkAdjustService inventoryBulkAdjustService;
+  @MockitoBean
+  InventoryChangeStream inventoryChangeStream;
 
   @Test
   void createInventory_returnsOk() throws Exception {
@@ -49,17 +69,79 @@ public class InventoryControllerTest {
         .andExpect(jsonPath("$.quantity").value(10));
   }
 
+  @Test
+  void bulkAdjust_returnsPerLineResults() throws Exception {
+    var response = BulkAdjustmentResponse.of(List.of(
+        BulkAdjustmentResponse.LineResult.applied(0, 1L, 12, 10),
+        BulkAdjustmentResponse.LineResult.rejected(1, 2L, BulkAdjustmentResponse.Outcome.NOT_FOUND,
+            "Inventory for product id 2 not found")));
+    when(inventoryBulkAdjustService.adjust(any())).thenReturn(response);
+
+    mockMvc.perform(post("/api/inventory/adjustments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"lines":[{"productId":1,"delta":2,"reason":"count"},{"productId":2,"delta":-1,"reason":"count"}]}
+            """))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.applied").value(1))
+        .andExpect(jsonPath("$.results[0].quantity").value(12))
+        .andExpect(jsonPath("$.results[1].outcome").value("NOT_FOUND"));
+  }
+
+  @Test
+  void bulkAdjust_lineWithoutReason_returnsBadRequest() throws Exception {
+    mockMvc.perform(post("/api/inventory/adjustments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"lines":[{"productId":1,"delta":2}]}
+            """))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void streamInventoryChanges_subscribesWithProductFilter() throws Exception {
+    when(inventoryChangeStream.subscribe(Set.of(1L, 2L))).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/api/inventory/stream?productIds=1,2"))
+        .andExpect(request().asyncStarted());
+  }
+
   @Test
   void getInventoryByProductId_returnsOk() throws Exception {
     var inventory = inventory(product("SKU-2"), 5);
-    when(inventoryService.getInventoryByProductId(2L)).thenReturn(inventory);
+    var versions = versions(3, 1);
+    when(inventoryService.getInventoryVersions(2L)).thenReturn(versions);
+    when(inventoryService.getInventoryResponse(2L, versions)).thenReturn(InventoryResponse.from(inventory));
 
     mockMvc.perform(get("/api/inventory/2"))
         .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3.1\""))
         .andExpect(jsonPath("$.product.id").value(2))
         .andExpect(jsonPath("$.quantity").value(5));
   }
 
+  @Test
+  void getInventoryByProductId_matchingETag_returnsNotModifiedWithoutLoading() throws Exception {
+    when(inventoryService.getInventoryVersions(2L)).thenReturn(versions(3, 1));
+
+    mockMvc.perform(get("/api/inventory/2").header("If-None-Match", "\"3.1\""))
+        .andExpect(status().isNotModified());
+
+    verify(inventoryService, never()).getInventoryResponse(eq(2L), any());
+  }
+
+  @Test
+  void getInventoryByProductId_productChanged_returnsBody() throws Exception {
+    var versions = versions(3, 2);
+    when(inventoryService.getInventoryVersions(2L)).thenReturn(versions);
+    when(inventoryService.getInventoryResponse(2L, versions))
+        .thenReturn(InventoryResponse.from(inventory(product("SKU-2"), 5)));
+
+    mockMvc.perform(get("/api/inventory/2").header("If-None-Match", "\"3.1\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"3.2\""));
+  }
+
   @Test
   void listInventory_returnsPage() throws Exception {
     var inventory = inventory(product("SKU-3"), 7);
@@ -76,12 +158,18 @@ public class InventoryControllerTest {
   @Test
   void listInStockInventory_returnsList() throws Exception {
     var inventory = inventory(product("SKU-4"), 3);
-    when(inventoryService.listInStockAllInventory()).thenReturn(List.of(inventory));
+    var response = lv.janis.iom.dto.response.InventoryResponse.from(inventory);
+    when(inventoryService.listInStockInventory(3L, 1))
+        .thenReturn(new KeysetPageResponse<>(List.of(response), 1, 4L, true));
 
-    mockMvc.perform(get("/api/inventory/in-stock"))
+    mockMvc.perform(get("/api/inventory/in-stock?afterId=3&size=1"))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$[0].product.id").value(4))
-        .andExpect(jsonPath("$[0].quantity").value(3));
+        .andExpect(jsonPath("$.content[0].product.id").value(4))
+        .andExpect(jsonPath("$.content[0].product.sku").value("SKU-4"))
+        .andExpect(jsonPath("$.content[0].product.description").doesNotExist())
+        .andExpect(jsonPath("$.content[0].quantity").value(3))
+        .andExpect(jsonPath("$.nextAfterId").value(4))
+        .andExpect(jsonPath("$.hasNext").value(true));
   }
 
   @Test
@@ -178,7 +266,43 @@ public class InventoryControllerTest {
     return Product.create(sku, "Product " + sku, "desc", new BigDecimal("9.99"));
   }
 
+  @Test
+  void enableReservationShards_returnsAggregatedView() throws Exception {
+    var view = new ReservationShardsResponse(4L, 2, 10, 0,
+        List.of(new ReservationShardsResponse.Shard(0, 5, 0), new ReservationShardsResponse.Shard(1, 5, 0)));
+    when(shardedReservationService.enable(4L, 2)).thenReturn(view);
+
+    mockMvc.perform(post("/api/inventory/4/reservation-shards?shards=2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.shardCount").value(2))
+        .andExpect(jsonPath("$.availableQuantity").value(10))
+        .andExpect(jsonPath("$.shards[1].available").value(5));
+  }
+
+  @Test
+  void enableReservationShards_invalidCount_returnsBadRequest() throws Exception {
+    when(shardedReservationService.enable(4L, 1))
+        .thenThrow(new IllegalArgumentException("shardCount must be between 2 and 64"));
+
+    mockMvc.perform(post("/api/inventory/4/reservation-shards?shards=1"))
+        .andExpect(status().isBadRequest());
+  }
+
   private static void setId(Object target, Long id) {
     ReflectionTestUtils.setField(target, "id", id);
   }
+
+  private static InventoryRepository.InventoryVersions versions(long inventoryVersion, long productVersion) {
+    return new InventoryRepository.InventoryVersions() {
+      @Override
+      public long getInventoryVersion() {
+        return inventoryVersion;
+      }
+
+      @Override
+      public long getProductVersion() {
+        return productVersion;
+      }
+    };
+  }
 }
@@ -2,15 +2,25 @@ package lv.janis.iom.controller;
 
 import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
 import lv.janis.iom.dto.requests.ExternalOrderItemRequest;
+import lv.janis.iom.dto.response.BulkTransitionResponse;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse;
+import lv.janis.iom.dto.response.OrderLineResponse;
 import lv.janis.iom.entity.CustomerOrder;
 import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
+import lv.janis.iom.service.OrderBulkTransitionService;
 import lv.janis.iom.service.OrderService;
 import lv.janis.iom.service.facade.ExternalOrderFacade;
+import lv.janis.iom.service.ingest.ExternalOrderIngestService;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.hamcrest.Matchers.containsString;
 import org.junit.jupiter.api.Test;
@@ -29,7 +39,9 @@ import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -46,6 +58,10 @@ public class OrderControllerTest {
   OrderService orderService;
   @MockitoBean
   ExternalOrderFacade externalOrderFacade;
+  @MockitoBean
+  OrderBulkTransitionService orderBulkTransitionService;
+  @MockitoBean
+  ExternalOrderIngestService externalOrderIngestService;
 
   @Test
   void createOrder_returnsCreated() throws Exception {
@@ -60,6 +76,31 @@ public class OrderControllerTest {
         .andExpect(jsonPath("$.status").value("CREATED"));
   }
 
+  @Test
+  void bulkTransition_returnsPerOrderResults() throws Exception {
+    var response = BulkTransitionResponse.of(OrderTransition.SHIPPED, List.of(
+        BulkTransitionResponse.OrderResult.applied(1L, OrderStatus.SHIPPED),
+        BulkTransitionResponse.OrderResult.rejected(2L, BulkTransitionResponse.Outcome.NOT_FOUND, null,
+            "Order with id 2 not found")));
+    when(orderBulkTransitionService.transition(OrderTransition.SHIPPED, List.of(1L, 2L))).thenReturn(response);
+
+    mockMvc.perform(post("/api/orders/bulk/shipped")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"orderIds\":[1,2]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.applied").value(1))
+        .andExpect(jsonPath("$.notApplied").value(1))
+        .andExpect(jsonPath("$.results[1].outcome").value("NOT_FOUND"));
+  }
+
+  @Test
+  void bulkTransition_unknownTransition_returnsBadRequest() throws Exception {
+    mockMvc.perform(post("/api/orders/bulk/teleported")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"orderIds\":[1]}"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void createExternalOrder_returnsOk() throws Exception {
     when(externalOrderFacade.ingest(any(ExternalOrderIngestRequest.class))).thenReturn(2L);
@@ -80,6 +121,52 @@ public class OrderControllerTest {
             containsString("/api/orders/external/status?source=WEB_SHOP&externalOrderId=EXT-1")));
   }
 
+  @Test
+  void createExternalOrder_asyncMode_returnsTrackingId() throws Exception {
+    var trackingId = UUID.fromString("6f1c2a8e-2f4b-4c61-9a3e-0d5b7c9e1a22");
+    when(externalOrderIngestService.isAsync()).thenReturn(true);
+    when(externalOrderIngestService.accept(any(ExternalOrderIngestRequest.class)))
+        .thenReturn(new ExternalOrderIngestStatusResponse(trackingId, ExternalOrderIngestStatusResponse.State.ACCEPTED,
+            "WEB_SHOP", "EXT-1", null, null, Instant.parse("2026-01-01T00:00:00Z")));
+
+    mockMvc.perform(post("/api/orders/external")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {
+              "source":"WEB_SHOP",
+              "externalOrderId":"EXT-1",
+              "shippingAddress":"Addr",
+              "items":[{"productId":1,"quantity":2}]
+            }
+            """))
+        .andExpect(status().isAccepted())
+        .andExpect(header().string("Location", endsWith("/api/orders/external/ingest/" + trackingId)))
+        .andExpect(jsonPath("$.trackingId").value(trackingId.toString()))
+        .andExpect(jsonPath("$.state").value("ACCEPTED"));
+
+    verify(externalOrderFacade, never()).ingest(any());
+  }
+
+  @Test
+  void createExternalOrder_asyncBufferFull_returnsServiceUnavailable() throws Exception {
+    when(externalOrderIngestService.isAsync()).thenReturn(true);
+    when(externalOrderIngestService.accept(any(ExternalOrderIngestRequest.class)))
+        .thenThrow(new RejectedExecutionException("Ingest buffer is full, retry later"));
+
+    mockMvc.perform(post("/api/orders/external")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {
+              "source":"WEB_SHOP",
+              "externalOrderId":"EXT-1",
+              "shippingAddress":"Addr",
+              "items":[{"productId":1,"quantity":2}]
+            }
+            """))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(jsonPath("$.code").value("SERVICE_UNAVAILABLE"));
+  }
+
   @Test
   void cancelExternalOrder_returnsAccepted() throws Exception {
     when(externalOrderFacade.cancel(any())).thenReturn(9L);
@@ -165,11 +252,31 @@ public class OrderControllerTest {
   void getCustomerOrderById_returnsOk() throws Exception {
     var order = CustomerOrder.create();
     setId(order, 6L);
-    when(orderService.getCustomerOrderById(6L)).thenReturn(order);
+    var line = new OrderLineResponse(6L, 20L, 3L, "SKU-3", 2, new BigDecimal("4.25"));
+    when(orderService.getCustomerOrderResponse(6L))
+        .thenReturn(lv.janis.iom.dto.response.CustomerOrderResponse.from(order, List.of(line)));
+
+    when(orderService.getCustomerOrderVersion(6L)).thenReturn(2L);
 
     mockMvc.perform(get("/api/orders/6"))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.id").value(6));
+        .andExpect(header().string("ETag", "\"2\""))
+        .andExpect(jsonPath("$.id").value(6))
+        .andExpect(jsonPath("$.items[0].productId").value(3))
+        .andExpect(jsonPath("$.items[0].sku").value("SKU-3"))
+        .andExpect(jsonPath("$.items[0].lineTotal").value(8.5))
+        .andExpect(jsonPath("$.items[0].orderId").doesNotExist())
+        .andExpect(jsonPath("$.items[0].product").doesNotExist());
+  }
+
+  @Test
+  void getCustomerOrderById_matchingETag_returnsNotModifiedWithoutLoading() throws Exception {
+    when(orderService.getCustomerOrderVersion(6L)).thenReturn(2L);
+
+    mockMvc.perform(get("/api/orders/6").header("If-None-Match", "\"2\""))
+        .andExpect(status().isNotModified());
+
+    verify(orderService, never()).getCustomerOrderResponse(6L);
   }
 
   @Test
@@ -1,10 +1,15 @@
 package lv.janis.iom.controller;
 
 import lv.janis.iom.entity.Product;
+import lv.janis.iom.dto.response.ProductImportJobResponse;
+import lv.janis.iom.dto.response.ProductResponse;
 import lv.janis.iom.service.ProductService;
+import lv.janis.iom.service.productimport.ProductImportFormat;
+import lv.janis.iom.service.productimport.ProductImportService;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,8 +24,11 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.endsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -36,6 +44,8 @@ class ProductControllerTest {
 
   @MockitoBean
   ProductService productService;
+  @MockitoBean
+  ProductImportService productImportService;
 
   @Test
   void createProduct_returnsCreated() throws Exception {
@@ -89,14 +99,27 @@ class ProductControllerTest {
   void getProductById_returnsProduct() throws Exception {
     var product = product("SKU-3", "Name3", new BigDecimal("29.99"));
     setId(product, 3L);
-    when(productService.getProductById(3L)).thenReturn(product);
+    when(productService.getProductVersion(3L)).thenReturn(4L);
+    when(productService.getProductResponse(3L, 4L)).thenReturn(ProductResponse.from(product));
 
     mockMvc.perform(get("/api/products/3"))
         .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"4\""))
         .andExpect(jsonPath("$.id").value(3))
         .andExpect(jsonPath("$.sku").value("SKU-3"));
   }
 
+  @Test
+  void getProductById_matchingETag_returnsNotModifiedWithoutLoading() throws Exception {
+    when(productService.getProductVersion(3L)).thenReturn(4L);
+
+    mockMvc.perform(get("/api/products/3").header("If-None-Match", "\"4\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "\"4\""));
+
+    verify(productService, never()).getProductResponse(eq(3L), anyLong());
+  }
+
   @Test
   void updateProduct_returnsProduct() throws Exception {
     var product = product("SKU-4", "Name4", new BigDecimal("39.99"));
@@ -138,6 +161,29 @@ class ProductControllerTest {
         .andExpect(jsonPath("$.sku").value("SKU-6"));
   }
 
+
+  @Test
+  void importProducts_csv_returnsAcceptedWithJobLocation() throws Exception {
+    var jobId = UUID.randomUUID();
+    when(productImportService.start(eq(ProductImportFormat.CSV), any())).thenReturn(new ProductImportJobResponse(
+        jobId, ProductImportJobResponse.State.QUEUED, 0, 0, 0, 0, 0, null, null, null, List.of()));
+
+    mockMvc.perform(post("/api/products/import")
+        .contentType("text/csv")
+        .content("sku,name,price\nSKU-1,Name1,9.99\n"))
+        .andExpect(status().isAccepted())
+        .andExpect(header().string("Location", endsWith("/api/products/import/" + jobId)))
+        .andExpect(jsonPath("$.state").value("QUEUED"));
+  }
+
+  @Test
+  void importProducts_unsupportedContentType_returns415() throws Exception {
+    mockMvc.perform(post("/api/products/import")
+        .contentType(MediaType.APPLICATION_XML)
+        .content("<products/>"))
+        .andExpect(status().isUnsupportedMediaType());
+  }
+
   private static Product product(String sku, String name, BigDecimal price) {
     return Product.create(sku, name, "desc", price);
   }
@@ -0,0 +1,137 @@
+package lv.janis.iom.e2e;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Open-session-in-view is off, so a response that touched an association the service did not
+ * fetch would fail with a LazyInitializationException while rendering. Every endpoint that
+ * returns an entity-backed response is exercised here and its association fields checked.
+ */
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+@AutoConfigureMockMvc
+class FetchPlanE2ETest {
+
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  ObjectMapper objectMapper;
+  @Autowired
+  ApplicationContext context;
+
+  @Test
+  void openSessionInView_isNotRegistered() {
+    assertEquals(0, context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class).length);
+  }
+
+  @Test
+  void inventoryEndpoints_renderProductOutsideTransaction() throws Exception {
+    String sku = "SKU-FETCH-" + System.nanoTime();
+    long productId = createProduct(sku);
+    String base = "/api/inventory/" + productId;
+
+    expectProduct(mockMvc.perform(post(base)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"quantity":10,"reorderLevel":2,"clearLowQuantity":5}
+            """)), sku);
+    expectProduct(mockMvc.perform(get(base)), sku);
+    expectProduct(mockMvc.perform(post(base + "/add").param("quantity", "5")), sku)
+        .andExpect(jsonPath("$.quantity").value(15));
+    expectProduct(mockMvc.perform(post(base + "/reduce").param("quantity", "12")), sku)
+        .andExpect(jsonPath("$.isLowQuantity").value(false));
+    expectProduct(mockMvc.perform(post(base + "/reserve").param("quantity", "2")), sku);
+    expectProduct(mockMvc.perform(post(base + "/reserve/cancel").param("quantity", "1")), sku);
+    expectProduct(mockMvc.perform(post(base + "/reserve/fulfill").param("quantity", "1")), sku);
+    expectProduct(mockMvc.perform(post(base + "/adjust")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"delta":4,"reason":"recount"}
+            """)), sku)
+        .andExpect(jsonPath("$.quantity").value(6));
+
+    mockMvc.perform(get("/api/stock-movements").param("productId", String.valueOf(productId)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].productId").value(productId));
+  }
+
+  @Test
+  void orderEndpoints_renderLinesOutsideTransaction() throws Exception {
+    String sku = "SKU-FETCH-" + System.nanoTime();
+    long productId = createProduct(sku);
+    mockMvc.perform(post("/api/inventory/" + productId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"quantity":10,"reorderLevel":0,"clearLowQuantity":0}
+            """))
+        .andExpect(status().isOk());
+    long orderId = objectMapper.readTree(mockMvc.perform(post("/api/orders"))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString()).get("id").asLong();
+    String base = "/api/orders/" + orderId;
+
+    addItem(base, productId, 1);
+    var withTwoLines = objectMapper.readTree(addItem(base, productId, 2)
+        .andReturn().getResponse().getContentAsString());
+    long firstItemId = withTwoLines.get("items").get(0).get("id").asLong();
+
+    mockMvc.perform(delete(base + "/items/" + firstItemId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(1))
+        .andExpect(jsonPath("$.items[0].sku").value(sku));
+    for (String transition : new String[] { "processing", "shipped", "delivered", "returned" }) {
+      mockMvc.perform(post(base + "/" + transition))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.items[0].sku").value(sku));
+    }
+  }
+
+  private long createProduct(String sku) throws Exception {
+    var response = mockMvc.perform(post("/api/products")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"sku":"%s","name":"Fetch plan %s","description":"desc","price":4.50}
+            """.formatted(sku, sku)))
+        .andExpect(status().isCreated())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+    return objectMapper.readTree(response).get("id").asLong();
+  }
+
+  private ResultActions addItem(String orderPath, long productId, int quantity) throws Exception {
+    return mockMvc.perform(post(orderPath + "/items")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"productId":%d,"quantity":%d}
+            """.formatted(productId, quantity)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[0].sku").exists());
+  }
+
+  private ResultActions expectProduct(ResultActions result, String sku) throws Exception {
+    return result
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.product.sku").value(sku));
+  }
+}
@@ -5,16 +5,23 @@ import lv.janis.iom.entity.NotificationTask;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.NotificationTaskStatus;
 import lv.janis.iom.repository.NotificationTaskRepository;
+import lv.janis.iom.service.lease.SchedulerLeases;
+import lv.janis.iom.service.lease.SchedulerLeases.Lease;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,10 +34,22 @@ public class NotificationTaskProcessorTest {
   NotificationTaskRepository notificationTaskRepository;
   @Mock
   NotificationSender notificationSender;
+  @Mock
+  SchedulerLeases schedulerLeases;
 
   @InjectMocks
   NotificationTaskProcessor notificationTaskProcessor;
 
+  @BeforeEach
+  void ownAllPartitions() {
+    lenient().when(schedulerLeases.partitions(NotificationTaskProcessor.LEASE_JOB, NotificationTaskProcessor.PARTITIONS))
+        .thenReturn(partitions(NotificationTaskProcessor.PARTITIONS));
+    lenient().when(schedulerLeases.confirm(any())).thenAnswer(invocation -> {
+      Map<Integer, Lease> leases = invocation.getArgument(0);
+      return leases.keySet();
+    });
+  }
+
   @Test
   void processPendingTasks_noTasks_doesNothing() {
     when(notificationTaskRepository
@@ -80,6 +99,55 @@ public class NotificationTaskProcessorTest {
     assertTrue(task.getNextAttemptAt().isAfter(start));
   }
 
+  @Test
+  void processPendingTasks_someOwnedPartitions_queriesOnlyThose() {
+    var owned = Map.of(3, new Lease("notification-tasks#3", 1), 5, new Lease("notification-tasks#5", 1));
+    when(schedulerLeases.partitions(NotificationTaskProcessor.LEASE_JOB, NotificationTaskProcessor.PARTITIONS))
+        .thenReturn(owned);
+    when(notificationTaskRepository.findDueInPartitions(
+        eq(NotificationTaskStatus.PENDING), any(Instant.class), eq(owned.keySet()), any(Pageable.class)))
+        .thenReturn(List.of());
+
+    notificationTaskProcessor.processPendingTasks();
+
+    verify(notificationTaskRepository, never())
+        .findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(any(), any());
+  }
+
+  @Test
+  void processPendingTasks_partitionLostWhilePaused_skipsItsTasks() {
+    var task = new NotificationTask(Inventory.createFor(product("SKU-1"), 5, 5, 10));
+    when(notificationTaskRepository
+        .findTop50ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
+            eq(NotificationTaskStatus.PENDING), any(Instant.class)))
+        .thenReturn(List.of(task));
+    doReturn(Set.of(1, 2)).when(schedulerLeases).confirm(any());
+
+    notificationTaskProcessor.processPendingTasks();
+
+    assertEquals(0, task.getLeasePartition());
+    assertEquals(NotificationTaskStatus.PENDING, task.getStatus());
+    verifyNoInteractions(notificationSender);
+  }
+
+  @Test
+  void processPendingTasks_noOwnedPartitions_doesNothing() {
+    when(schedulerLeases.partitions(NotificationTaskProcessor.LEASE_JOB, NotificationTaskProcessor.PARTITIONS))
+        .thenReturn(Map.of());
+
+    notificationTaskProcessor.processPendingTasks();
+
+    verifyNoInteractions(notificationTaskRepository, notificationSender);
+  }
+
+  private static Map<Integer, Lease> partitions(int count) {
+    var partitions = new HashMap<Integer, Lease>();
+    for (int partition = 0; partition < count; partition++) {
+      partitions.put(partition, new Lease("notification-tasks#" + partition, 1));
+    }
+    return partitions;
+  }
+
   private static Product product(String sku) {
     return Product.create(sku, "Product " + sku, "desc", new BigDecimal("9.99"));
   }
@@ -3,6 +3,7 @@ package lv.janis.iom.repository;
 import lv.janis.iom.config.JpaConfig;
 import lv.janis.iom.entity.CustomerOrder;
 import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
 import lv.janis.iom.repository.specification.OrderSpecifications;
 
 import java.time.Instant;
@@ -30,7 +31,7 @@ class CustomerOrderRepositoryIntegrationTest {
   void findAll_filtersByStatus() {
     var created = CustomerOrder.create();
     var processing = CustomerOrder.create();
-    processing.markProcessing();
+    processing.apply(OrderTransition.PROCESSING);
 
     customerOrderRepository.save(created);
     customerOrderRepository.save(processing);
@@ -5,13 +5,20 @@ import lv.janis.iom.entity.Inventory;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.StockStatus;
 import lv.janis.iom.repository.specification.InventorySpecifications;
+import lv.janis.iom.support.StatementCounter;
 
 import java.math.BigDecimal;
+import java.util.List;
 
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +31,8 @@ class InventoryRepositoryIntegrationTest {
   InventoryRepository inventoryRepository;
   @Autowired
   ProductRepository productRepository;
+  @Autowired
+  EntityManager entityManager;
 
   @Test
   void findAll_appliesStockStatusAndProductNotDeleted() {
@@ -67,6 +76,120 @@ class InventoryRepositoryIntegrationTest {
     assertEquals(3, result.get(0).getAvailableQuantity());
   }
 
+  @Test
+  void findAll_lowStock_usesLowQuantityFlag() {
+    var low = Inventory.createFor(productRepository.save(product("SKU-4")), 1, 5, 10);
+    low.setIsLowQuantity(true);
+    var healthy = Inventory.createFor(productRepository.save(product("SKU-5")), 50, 5, 10);
+    inventoryRepository.save(low);
+    inventoryRepository.save(healthy);
+
+    var result = inventoryRepository.findAll(InventorySpecifications.stockStatus(StockStatus.LOW_STOCK));
+
+    assertEquals(1, result.size());
+    assertEquals("SKU-4", result.get(0).getProduct().getSku());
+  }
+
+  @Test
+  void availableQuantityColumn_trackedOnFlush() {
+    var inventory = inventoryRepository.save(Inventory.createFor(productRepository.save(product("SKU-6")), 10, 0, 0));
+    entityManager.flush();
+
+    inventory.reserveQuantity(4);
+    entityManager.flush();
+
+    var stored = entityManager
+        .createNativeQuery("select available_quantity from inventory where id = :id")
+        .setParameter("id", inventory.getId())
+        .getSingleResult();
+    assertEquals(6, ((Number) stored).intValue());
+  }
+
+  @Test
+  void findAllAsResponse_projectsFilteredSortedPage() {
+    var p1 = productRepository.save(product("SKU-7"));
+    var p2 = productRepository.save(product("SKU-8"));
+    var p3 = productRepository.save(product("SKU-9"));
+    p3.deactivate();
+    inventoryRepository.save(Inventory.createFor(p1, 5, 0, 0));
+    inventoryRepository.save(Inventory.createFor(p2, 9, 0, 0));
+    inventoryRepository.save(Inventory.createFor(p3, 7, 0, 0));
+
+    Specification<Inventory> spec = Specification.where(InventorySpecifications.search("sku-"))
+        .and(InventorySpecifications.productNotDeleted());
+    var page = inventoryRepository.findAllAsResponse(spec, PageRequest.of(0, 1, Sort.by("quantity").descending()));
+
+    assertEquals(2, page.getTotalElements());
+    assertEquals(1, page.getContent().size());
+    var first = page.getContent().get(0);
+    assertEquals(p2.getId(), first.getProduct().id());
+    assertEquals("SKU-8", first.getProduct().sku());
+    assertEquals("Product SKU-8", first.getName());
+    assertEquals(9, first.getQuantity());
+  }
+
+  @Test
+  void findInStockAfterAsResponse_pagesByIdAndSkipsEmptyInventory() {
+    var first = inventoryRepository.save(Inventory.createFor(productRepository.save(product("SKU-10")), 3, 0, 0));
+    inventoryRepository.save(Inventory.createFor(productRepository.save(product("SKU-11")), 0, 0, 0));
+    var third = inventoryRepository.save(Inventory.createFor(productRepository.save(product("SKU-12")), 4, 0, 0));
+    var fourth = inventoryRepository.save(Inventory.createFor(productRepository.save(product("SKU-13")), 5, 0, 0));
+
+    var firstPage = inventoryRepository.findInStockAfterAsResponse(0L, PageRequest.of(0, 2));
+    var secondPage = inventoryRepository.findInStockAfterAsResponse(firstPage.get(1).getId(), PageRequest.of(0, 2));
+
+    assertEquals(List.of(first.getId(), third.getId()), firstPage.stream().map(r -> r.getId()).toList());
+    assertEquals(List.of(fourth.getId()), secondPage.stream().map(r -> r.getId()).toList());
+    assertEquals("SKU-10", firstPage.get(0).getProduct().sku());
+  }
+
+  @Test
+  void explain_inStockKeyset_usesIndex() {
+    var plan = explainGenerated(() -> inventoryRepository.findInStockAfterAsResponse(100L, PageRequest.of(0, 50)), 100L, 50);
+
+    assertTrue(plan.contains("IDX_INVENTORY_IN_STOCK"), plan);
+  }
+
+  @Test
+  void explain_availableQuantityFilter_usesIndex() {
+    var plan = explainGenerated(() -> inventoryRepository.findAll(InventorySpecifications.availableGte(5)), 5);
+
+    assertTrue(plan.contains("IDX_INVENTORY_AVAILABLE_QUANTITY"), plan);
+  }
+
+  @Test
+  void explain_lowStockFilter_usesIndex() {
+    var plan = explainGenerated(() -> inventoryRepository.findAll(InventorySpecifications.stockStatus(StockStatus.LOW_STOCK)));
+
+    assertTrue(plan.contains("IDX_INVENTORY_LOW_QUANTITY"), plan);
+  }
+
+  // Runs the query through the repository, captures the SQL Hibernate generated for it and explains that
+  private String explainGenerated(Runnable query, Object... parameters) {
+    StatementCounter.start();
+    List<String> statements;
+    try {
+      query.run();
+    } finally {
+      statements = StatementCounter.stop();
+    }
+    var selects = statements.stream().filter(sql -> sql.stripLeading().toLowerCase().startsWith("select")).toList();
+    assertEquals(1, selects.size(), statements.toString());
+    var sql = selects.get(0);
+    assertEquals(parameters.length, sql.chars().filter(c -> c == '?').count(), sql);
+    return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+      try (var statement = connection.prepareStatement("explain " + sql)) {
+        for (int i = 0; i < parameters.length; i++) {
+          statement.setObject(i + 1, parameters[i]);
+        }
+        try (var rs = statement.executeQuery()) {
+          rs.next();
+          return rs.getString(1).toUpperCase();
+        }
+      }
+    });
+  }
+
   private static Product product(String sku) {
     return Product.create(sku, "Product " + sku, "desc", new BigDecimal("9.99"));
   }
@@ -0,0 +1,60 @@
+package lv.janis.iom.repository;
+
+import lv.janis.iom.config.JpaConfig;
+import lv.janis.iom.entity.CustomerOrder;
+import lv.janis.iom.entity.OrderItem;
+import lv.janis.iom.entity.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import jakarta.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(JpaConfig.class)
+class OrderItemRepositoryIntegrationTest {
+
+  @Autowired
+  OrderItemRepository orderItemRepository;
+  @Autowired
+  CustomerOrderRepository customerOrderRepository;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  EntityManager entityManager;
+
+  @Test
+  void findLinesByOrderIdIn_projectsFlatLinesForRequestedOrders() {
+    var hammer = productRepository.save(Product.create("SKU-1", "Hammer", "desc", new BigDecimal("9.99")));
+    var saw = productRepository.save(Product.create("SKU-2", "Saw", "desc", new BigDecimal("15.00")));
+    var first = CustomerOrder.create();
+    first.addItem(OrderItem.createFor(hammer, 2, hammer.getPrice()));
+    first.addItem(OrderItem.createFor(saw, 1, saw.getPrice()));
+    var second = CustomerOrder.create();
+    second.addItem(OrderItem.createFor(saw, 3, saw.getPrice()));
+    var other = CustomerOrder.create();
+    other.addItem(OrderItem.createFor(hammer, 1, hammer.getPrice()));
+    customerOrderRepository.saveAll(List.of(first, second, other));
+    entityManager.flush();
+    entityManager.clear();
+
+    var lines = orderItemRepository.findLinesByOrderIdIn(List.of(first.getId(), second.getId()));
+
+    assertEquals(3, lines.size());
+    var firstLine = lines.get(0);
+    assertEquals(first.getId(), firstLine.orderId());
+    assertEquals(hammer.getId(), firstLine.productId());
+    assertEquals("SKU-1", firstLine.sku());
+    assertEquals(2, firstLine.quantity());
+    assertEquals(0, new BigDecimal("19.98").compareTo(firstLine.lineTotal()));
+    assertEquals(second.getId(), lines.get(2).orderId());
+    assertEquals(0, new BigDecimal("45.00").compareTo(lines.get(2).lineTotal()));
+  }
+}
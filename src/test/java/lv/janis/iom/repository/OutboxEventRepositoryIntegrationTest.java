@@ -28,6 +28,8 @@ class OutboxEventRepositoryIntegrationTest {
   @Autowired
   EntityManager entityManager;
 
+  private long nextAggregateId = 1;
+
   @Test
   void findCandidateIds_includesPendingFailedAndStaleProcessing() {
     Instant now = Instant.now();
@@ -59,6 +61,27 @@ class OutboxEventRepositoryIntegrationTest {
     assertFalse(ids.contains(maxedOut.getId()));
   }
 
+  @Test
+  void findCandidateIds_returnsOnlyTheOldestUnfinishedEventOfAnAggregate() {
+    Instant now = Instant.now();
+    Instant staleBefore = now.minusSeconds(300);
+
+    OutboxEvent processed = outboxEventRepository.save(event(500L, OutboxEventStatus.PROCESSED, now.minusSeconds(1), 0, null));
+    OutboxEvent retrying = outboxEventRepository.save(event(500L, OutboxEventStatus.FAILED, now.plusSeconds(60), 1, null));
+    OutboxEvent next = outboxEventRepository.save(event(500L, OutboxEventStatus.PENDING, now.minusSeconds(1), 0, null));
+    OutboxEvent dead = outboxEventRepository.save(event(501L, OutboxEventStatus.DEAD, now.minusSeconds(1), 5, null));
+    OutboxEvent afterDead = outboxEventRepository.save(event(501L, OutboxEventStatus.PENDING, now.minusSeconds(1), 0, null));
+
+    List<Long> ids = outboxEventRepository.findCandidateIds(
+        List.of(OutboxEventStatus.PENDING, OutboxEventStatus.FAILED), now, staleBefore, 5, PageRequest.of(0, 20));
+
+    assertFalse(ids.contains(processed.getId()));
+    assertFalse(ids.contains(retrying.getId()));
+    assertFalse(ids.contains(next.getId()));
+    assertFalse(ids.contains(dead.getId()));
+    assertTrue(ids.contains(afterDead.getId()));
+  }
+
   @Test
   void claim_eligiblePending_setsProcessingAndLockMetadata() {
     Instant now = Instant.now();
@@ -108,8 +131,15 @@ class OutboxEventRepositoryIntegrationTest {
     assertTrue(!claimed.getLockedAt().isBefore(now.minusSeconds(1)));
   }
 
-  private static OutboxEvent event(OutboxEventStatus status, Instant availableAt, int attempts, Instant lockedAt) {
-    OutboxEvent event = OutboxEvent.pending(OutboxEventType.EXTERNAL_ORDER_INGESTED, 1L, "{\"orderId\":1}");
+  // each event gets its own aggregate, so only the status rules decide whether it is a candidate
+  private OutboxEvent event(OutboxEventStatus status, Instant availableAt, int attempts, Instant lockedAt) {
+    return event(nextAggregateId++, status, availableAt, attempts, lockedAt);
+  }
+
+  private static OutboxEvent event(long aggregateId, OutboxEventStatus status, Instant availableAt, int attempts,
+      Instant lockedAt) {
+    OutboxEvent event = OutboxEvent.pending(OutboxEventType.EXTERNAL_ORDER_INGESTED, aggregateId,
+        "{\"orderId\":" + aggregateId + "}");
     event.setStatus(status);
     event.setAvailableAt(availableAt);
     event.setAttempts(attempts);
@@ -0,0 +1,122 @@
+package lv.janis.iom.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lv.janis.iom.dto.requests.InventoryAdjustmentLine;
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse.Outcome;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.ProductRepository;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+class InventoryBulkAdjustServiceIntegrationTest {
+
+  @Autowired
+  InventoryBulkAdjustService inventoryBulkAdjustService;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  void adjust_appliesGoodLines_andReportsEachBadOne() {
+    var first = stockedProduct(10, 0);
+    var second = stockedProduct(4, 0);
+    long missing = Long.MAX_VALUE;
+
+    var response = inventoryBulkAdjustService.adjust(List.of(
+        new InventoryAdjustmentLine(first, 5, "count aisle 1"),
+        new InventoryAdjustmentLine(second, -10, "count aisle 2"),
+        new InventoryAdjustmentLine(missing, 1, "count aisle 3"),
+        new InventoryAdjustmentLine(first, 0, "count aisle 1"),
+        new InventoryAdjustmentLine(first, -3, "recount aisle 1")));
+
+    assertEquals(5, response.requested());
+    assertEquals(2, response.applied());
+    assertEquals(List.of(Outcome.APPLIED, Outcome.INVALID, Outcome.NOT_FOUND, Outcome.INVALID, Outcome.APPLIED),
+        response.results().stream().map(r -> r.outcome()).toList());
+    assertEquals(List.of(0, 1, 2, 3, 4), response.results().stream().map(r -> r.line()).toList());
+    assertEquals("not enough available quantity to decrease", response.results().get(1).message());
+    assertEquals(15, response.results().get(0).quantity());
+    assertEquals(12, response.results().get(4).quantity());
+    assertEquals(12, inventoryService.getInventoryByProductId(first).getQuantity());
+    assertEquals(4, inventoryService.getInventoryByProductId(second).getQuantity());
+    assertEquals(2, movements(first));
+    assertEquals(0, movements(second));
+  }
+
+  @Test
+  void adjust_raisesLowStockAlertWhenCountDropsBelowReorderLevel() {
+    var productId = stockedProduct(10, 5);
+
+    inventoryBulkAdjustService.adjust(List.of(new InventoryAdjustmentLine(productId, -6, "damaged")));
+
+    var inventory = inventoryService.getInventoryByProductId(productId);
+    assertTrue(inventory.isLowQuantity());
+    assertEquals(1, jdbcTemplate.queryForObject(
+        "select count(*) from alerts where inventory_id = ? and available_quantity = 4", Integer.class,
+        inventory.getId()));
+    assertEquals(1, jdbcTemplate.queryForObject(
+        "select count(*) from notification_tasks where inventory_id = ?", Integer.class, inventory.getId()));
+  }
+
+  @Test
+  void adjust_spansChunks() {
+    var productIds = new ArrayList<Long>();
+    for (int i = 0; i < 50; i++) {
+      productIds.add(stockedProduct(100, 0));
+    }
+    int lineCount = InventoryBulkAdjustService.CHUNK_SIZE * 2 + 500;
+    var lines = new ArrayList<InventoryAdjustmentLine>(lineCount);
+    for (int i = 0; i < lineCount; i++) {
+      lines.add(new InventoryAdjustmentLine(productIds.get(i % productIds.size()), (i / productIds.size()) % 2 == 0 ? 2 : -1, "cycle count"));
+    }
+
+    var response = inventoryBulkAdjustService.adjust(lines);
+
+    assertEquals(lineCount, response.applied());
+    assertEquals(lineCount - 1, response.results().get(lineCount - 1).line());
+    for (var productId : productIds) {
+      assertEquals(125, inventoryService.getInventoryByProductId(productId).getQuantity());
+      assertEquals(50, movements(productId));
+    }
+  }
+
+  @Test
+  void adjust_rejectsEmptyRequest() {
+    assertThrows(IllegalArgumentException.class, () -> inventoryBulkAdjustService.adjust(List.of()));
+  }
+
+  private int movements(Long productId) {
+    return jdbcTemplate.queryForObject("""
+        select count(*) from stock_movements m join inventory i on i.id = m.inventory_id
+        where i.product_id = ? and m.movement_type = 'MANUAL_ADJUSTMENT'
+        """, Integer.class, productId);
+  }
+
+  private Long stockedProduct(int quantity, int reorderLevel) {
+    var sku = "SKU-ADJ-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(reorderLevel);
+    request.setClearLowQuantity(reorderLevel);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+}
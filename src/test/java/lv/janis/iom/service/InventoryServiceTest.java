@@ -6,15 +6,21 @@ import lv.janis.iom.dto.requests.InventoryCreationRequest;
 import lv.janis.iom.dto.requests.StockMovementCreationRequest;
 import lv.janis.iom.dto.response.InventoryResponse;
 import lv.janis.iom.entity.Inventory;
+import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.FailureCode;
 import lv.janis.iom.enums.MovementType;
+import lv.janis.iom.exception.BusinessException;
 import lv.janis.iom.repository.AlertRepository;
 import lv.janis.iom.repository.InventoryRepository;
 import lv.janis.iom.repository.NotificationTaskRepository;
 import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.ledger.ReservationLedger;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -30,6 +36,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -48,6 +55,10 @@ public class InventoryServiceTest {
   NotificationTaskRepository notificationTaskRepository;
   @Mock
   AlertRepository alertRepository;
+  @Mock
+  ShardedReservationService shardedReservationService;
+  @Mock
+  ReservationLedger reservationLedger;
 
   @InjectMocks
   InventoryService inventoryService;
@@ -94,12 +105,12 @@ public class InventoryServiceTest {
     req.setClearLowQuantity(0);
 
     var existing = Inventory.createFor(product("SKU-1"), 5, 2, 4);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(existing));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(existing));
 
     var result = inventoryService.createInventory(1L, req);
 
     assertSame(existing, result);
-    verify(inventoryRepository).findByProductId(1L);
+    verify(inventoryRepository).findWithProductByProductId(1L);
     verifyNoInteractions(productRepository);
     verify(inventoryRepository, never()).saveAndFlush(any());
   }
@@ -111,7 +122,7 @@ public class InventoryServiceTest {
     req.setReorderLevel(5);
 
     var product = product("SKU-1");
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.empty());
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.empty());
     when(productRepository.findById(1L)).thenReturn(Optional.of(product));
     when(inventoryRepository.saveAndFlush(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
@@ -134,7 +145,7 @@ public class InventoryServiceTest {
 
     var product = product("SKU-1");
     var existing = Inventory.createFor(product, 10, 2, 5);
-    when(inventoryRepository.findByProductId(1L))
+    when(inventoryRepository.findWithProductByProductId(1L))
         .thenReturn(Optional.empty())
         .thenReturn(Optional.of(existing));
     when(productRepository.findById(1L)).thenReturn(Optional.of(product));
@@ -149,7 +160,7 @@ public class InventoryServiceTest {
 
   @Test
   void getInventoryByProductId_missing_throws() {
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.empty());
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.empty());
 
     var ex = assertThrows(EntityNotFoundException.class,
         () -> inventoryService.getInventoryByProductId(1L));
@@ -160,7 +171,7 @@ public class InventoryServiceTest {
   @Test
   void getInventoryByProductId_ok_returns() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 1, 2);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
 
     var result = inventoryService.getInventoryByProductId(1L);
 
@@ -178,7 +189,7 @@ public class InventoryServiceTest {
   @Test
   void addStock_updates_andSaves() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 5, 7);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
     when(inventoryRepository.save(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -192,7 +203,7 @@ public class InventoryServiceTest {
   @Test
   void reduceStock_triggersLowStockNotification() {
     var inventory = Inventory.createFor(product("SKU-1"), 6, 5, 8);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
     when(inventoryRepository.save(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -208,7 +219,7 @@ public class InventoryServiceTest {
   void cancelReservedQuantity_updates_andSaves() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 3, 4);
     inventory.reserveQuantity(4);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
     when(inventoryRepository.save(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -224,7 +235,7 @@ public class InventoryServiceTest {
   void fulfillReservedQuantity_triggersLowStockNotification() {
     var inventory = Inventory.createFor(product("SKU-1"), 6, 5, 8);
     inventory.reserveQuantity(2);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
     when(inventoryRepository.save(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -236,6 +247,80 @@ public class InventoryServiceTest {
     verify(alertRepository).save(any());
   }
 
+  @Test
+  void fulfillForOrders_loadsInventoriesOnce_andWritesMovementPerLine() {
+    var productA = product(1L, "SKU-1");
+    var productB = product(2L, "SKU-2");
+    var inventoryA = Inventory.createFor(productA, 6, 5, 8);
+    inventoryA.reserveQuantity(3);
+    var inventoryB = Inventory.createFor(productB, 20, 1, 2);
+    inventoryB.reserveQuantity(4);
+    var items = List.of(
+        OrderItem.createFor(productA, 1, productA.getPrice()),
+        OrderItem.createFor(productB, 4, productB.getPrice()),
+        OrderItem.createFor(productA, 2, productA.getPrice()));
+    when(inventoryRepository.findAllByProductIdIn(any())).thenReturn(List.of(inventoryA, inventoryB));
+
+    var result = inventoryService.fulfillForOrders(Map.of(7L, items));
+
+    assertEquals(List.of(inventoryA, inventoryB), result);
+    assertEquals(3, inventoryA.getQuantity());
+    assertEquals(0, inventoryA.getReservedQuantity());
+    assertEquals(16, inventoryB.getQuantity());
+    assertTrue(inventoryA.isLowQuantity());
+    verify(inventoryRepository).findAllByProductIdIn(any());
+    verify(inventoryRepository, never()).findWithProductByProductId(any());
+    var captor = ArgumentCaptor.forClass(StockMovementCreationRequest.class);
+    verify(stockMovementService, times(3)).createStockMovement(captor.capture());
+    assertEquals(List.of(-1, -4, -2), captor.getAllValues().stream().map(StockMovementCreationRequest::getDelta).toList());
+    assertTrue(captor.getAllValues().stream().allMatch(r -> r.getMovementType() == MovementType.ORDER_FULFILLED));
+    verify(alertRepository).save(any());
+  }
+
+  @Test
+  void reserveForOrders_severalOrders_shareOneLoad_andTagMovementsWithTheirOrder() {
+    var product = product(1L, "SKU-1");
+    var inventory = Inventory.createFor(product, 10, 0, 0);
+    var itemsByOrder = new LinkedHashMap<Long, List<OrderItem>>();
+    itemsByOrder.put(7L, List.of(OrderItem.createFor(product, 2, product.getPrice())));
+    itemsByOrder.put(8L, List.of(OrderItem.createFor(product, 3, product.getPrice())));
+    when(inventoryRepository.findAllByProductIdIn(any())).thenReturn(List.of(inventory));
+
+    var result = inventoryService.reserveForOrders(itemsByOrder);
+
+    assertEquals(List.of(inventory), result);
+    assertEquals(5, inventory.getReservedQuantity());
+    verify(inventoryRepository).findAllByProductIdIn(any());
+    var captor = ArgumentCaptor.forClass(StockMovementCreationRequest.class);
+    verify(stockMovementService, times(2)).createStockMovement(captor.capture());
+    assertEquals(List.of(7L, 8L), captor.getAllValues().stream().map(StockMovementCreationRequest::getOrderId).toList());
+  }
+
+  @Test
+  void reserveForOrders_missingInventory_throwsBusinessException() {
+    var product = product(3L, "SKU-3");
+    when(inventoryRepository.findAllByProductIdIn(any())).thenReturn(List.of());
+
+    var ex = assertThrows(BusinessException.class,
+        () -> inventoryService.reserveForOrders(
+            Map.of(7L, List.of(OrderItem.createFor(product, 1, product.getPrice())))));
+
+    assertEquals(FailureCode.INVENTORY_NOT_FOUND, ex.getCode());
+    verifyNoInteractions(stockMovementService);
+  }
+
+  @Test
+  void releaseForOrders_missingInventory_throwsEntityNotFound() {
+    var product = product(4L, "SKU-4");
+    when(inventoryRepository.findAllByProductIdIn(any())).thenReturn(List.of());
+
+    var ex = assertThrows(EntityNotFoundException.class,
+        () -> inventoryService.releaseForOrders(
+            Map.of(7L, List.of(OrderItem.createFor(product, 1, product.getPrice())))));
+
+    assertEquals("Inventory for product id 4 not found", ex.getMessage());
+  }
+
   @Test
   void getAvailableStock_ok_returnsAvailable() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 1, 2);
@@ -253,29 +338,60 @@ public class InventoryServiceTest {
     Pageable pageable = PageRequest.of(0, 200, sort);
 
     var inventory = Inventory.createFor(product("SKU-1"), 10, 1, 2);
-    Page<Inventory> page = new PageImpl<>(List.of(inventory), PageRequest.of(0, 100, sort), 1);
-    when(inventoryRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    Page<InventoryResponse> page = new PageImpl<>(List.of(InventoryResponse.from(inventory)),
+        PageRequest.of(0, 100, sort), 1);
+    when(inventoryRepository.findAllAsResponse(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
     Page<InventoryResponse> result = inventoryService.getInventory(null, pageable);
 
     assertEquals(1, result.getTotalElements());
-    assertEquals("SKU-1", result.getContent().get(0).getProduct().getSku());
+    assertEquals("SKU-1", result.getContent().get(0).getProduct().sku());
     var pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-    verify(inventoryRepository).findAll(any(Specification.class), pageableCaptor.capture());
+    verify(inventoryRepository).findAllAsResponse(any(Specification.class), pageableCaptor.capture());
     assertEquals(100, pageableCaptor.getValue().getPageSize());
     assertEquals(sort, pageableCaptor.getValue().getSort());
   }
 
   @Test
-  void listInStockAllInventory_returns() {
-    var inventory = Inventory.createFor(product("SKU-1"), 1, 0, 0);
-    when(inventoryRepository.findAllInStockWithProduct()).thenReturn(List.of(inventory));
+  void listInStockInventory_lastPage_hasNoCursor() {
+    var response = InventoryResponse.from(Inventory.createFor(product("SKU-1"), 1, 0, 0));
+    when(inventoryRepository.findInStockAfterAsResponse(eq(0L), any(Pageable.class))).thenReturn(List.of(response));
 
-    var result = inventoryService.listInStockAllInventory();
+    var result = inventoryService.listInStockInventory(null, 20);
 
-    assertEquals(1, result.size());
-    assertSame(inventory, result.get(0));
-    verify(inventoryRepository).findAllInStockWithProduct();
+    assertEquals(1, result.content().size());
+    assertSame(response, result.content().get(0));
+    assertFalse(result.hasNext());
+    assertNull(result.nextAfterId());
+    var pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+    verify(inventoryRepository).findInStockAfterAsResponse(eq(0L), pageableCaptor.capture());
+    assertEquals(21, pageableCaptor.getValue().getPageSize());
+  }
+
+  @Test
+  void listInStockInventory_extraRow_returnsCursorOfLastItem() {
+    var first = new InventoryResponse(11L, "A", 1, null, 0, 0, 0, false);
+    var second = new InventoryResponse(12L, "B", 1, null, 0, 0, 0, false);
+    var overflow = new InventoryResponse(13L, "C", 1, null, 0, 0, 0, false);
+    when(inventoryRepository.findInStockAfterAsResponse(eq(10L), any(Pageable.class)))
+        .thenReturn(List.of(first, second, overflow));
+
+    var result = inventoryService.listInStockInventory(10L, 2);
+
+    assertEquals(List.of(first, second), result.content());
+    assertTrue(result.hasNext());
+    assertEquals(12L, result.nextAfterId());
+  }
+
+  @Test
+  void listInStockInventory_capsSize_andRejectsNonPositive() {
+    when(inventoryRepository.findInStockAfterAsResponse(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+    var result = inventoryService.listInStockInventory(null, 1000);
+
+    assertEquals(100, result.size());
+    var ex = assertThrows(IllegalArgumentException.class, () -> inventoryService.listInStockInventory(null, 0));
+    assertEquals("size must be positive", ex.getMessage());
   }
 
   @Test
@@ -288,7 +404,7 @@ public class InventoryServiceTest {
   @Test
   void adjustInventoryQuantity_zeroDelta_throws() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 1, 2);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
 
     var ex = assertThrows(IllegalArgumentException.class,
         () -> inventoryService.adjustInventoryQuantity(1L, 0, "reason"));
@@ -298,7 +414,7 @@ public class InventoryServiceTest {
   @Test
   void adjustInventoryQuantity_blankReason_throws() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 1, 2);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
 
     var ex = assertThrows(IllegalArgumentException.class,
         () -> inventoryService.adjustInventoryQuantity(1L, 1, "  "));
@@ -308,7 +424,7 @@ public class InventoryServiceTest {
   @Test
   void adjustInventoryQuantity_positive_createsMovement_andSaves() {
     var inventory = Inventory.createFor(product("SKU-1"), 10, 1, 2);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
     when(inventoryRepository.save(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -326,7 +442,7 @@ public class InventoryServiceTest {
   @Test
   void adjustInventoryQuantity_negative_triggersLowStockNotification() {
     var inventory = Inventory.createFor(product("SKU-1"), 6, 5, 8);
-    when(inventoryRepository.findByProductId(1L)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.findWithProductByProductId(1L)).thenReturn(Optional.of(inventory));
     when(inventoryRepository.save(any(Inventory.class)))
         .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -378,8 +494,8 @@ public class InventoryServiceTest {
   @Test
   void getInventory_withFilter_keepsPageSize() {
     Pageable pageable = PageRequest.of(0, 50, Sort.by("quantity"));
-    Page<Inventory> page = new PageImpl<>(List.of(), pageable, 0);
-    when(inventoryRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    Page<InventoryResponse> page = new PageImpl<>(List.of(), pageable, 0);
+    when(inventoryRepository.findAllAsResponse(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
     var filter = new InventoryFilter();
     filter.setQ("sku");
@@ -387,10 +503,16 @@ public class InventoryServiceTest {
     Page<InventoryResponse> result = inventoryService.getInventory(filter, pageable);
 
     assertSame(pageable, result.getPageable());
-    verify(inventoryRepository).findAll(any(Specification.class), eq(pageable));
+    verify(inventoryRepository).findAllAsResponse(any(Specification.class), eq(pageable));
   }
 
   private static Product product(String sku) {
     return Product.create(sku, "Product " + sku, "desc", new BigDecimal("9.99"));
   }
+
+  private static Product product(Long id, String sku) {
+    var product = product(sku);
+    ReflectionTestUtils.setField(product, "id", id);
+    return product;
+  }
 }
@@ -0,0 +1,115 @@
+package lv.janis.iom.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.dto.response.BulkTransitionResponse.Outcome;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
+import lv.janis.iom.repository.ProductRepository;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+class OrderBulkTransitionServiceIntegrationTest {
+
+  @Autowired
+  OrderBulkTransitionService orderBulkTransitionService;
+  @Autowired
+  OrderService orderService;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  ProductRepository productRepository;
+
+  @Test
+  void processing_movesGoodOrders_andReportsEachFailure() {
+    var plenty = stockedProduct(10);
+    var scarce = stockedProduct(2);
+    var first = orderWith(plenty, 2);
+    var second = orderWith(plenty, 3);
+    var outOfStock = orderWith(scarce, 5);
+    var empty = orderService.createOrder().getId();
+    long missing = Long.MAX_VALUE;
+
+    var response = orderBulkTransitionService.transition(OrderTransition.PROCESSING,
+        List.of(first, second, outOfStock, empty, missing, first));
+
+    assertEquals(5, response.requested());
+    assertEquals(2, response.applied());
+    assertEquals(List.of(Outcome.APPLIED, Outcome.APPLIED, Outcome.FAILED, Outcome.INVALID_STATUS, Outcome.NOT_FOUND),
+        response.results().stream().map(r -> r.outcome()).toList());
+    assertEquals(OrderStatus.CREATED, response.results().get(2).status());
+    assertEquals(OrderStatus.PROCESSING, orderService.getCustomerOrderById(first).getStatus());
+    assertEquals(OrderStatus.CREATED, orderService.getCustomerOrderById(outOfStock).getStatus());
+    assertEquals(5, inventoryService.getInventoryByProductId(plenty).getReservedQuantity());
+    assertEquals(0, inventoryService.getInventoryByProductId(scarce).getReservedQuantity());
+  }
+
+  @Test
+  void shipped_fulfillsProcessingOrders_andSkipsOthers() {
+    var product = stockedProduct(10);
+    var first = orderWith(product, 2);
+    var second = orderWith(product, 1);
+    var notProcessing = orderWith(product, 4);
+    orderService.statusProcessing(first);
+    orderService.statusProcessing(second);
+
+    var response = orderBulkTransitionService.transition(OrderTransition.SHIPPED,
+        List.of(first, notProcessing, second));
+
+    assertEquals(2, response.applied());
+    var rejected = response.results().get(1);
+    assertEquals(Outcome.INVALID_STATUS, rejected.outcome());
+    assertEquals("Only orders in PROCESSING status can be moved to SHIPPED", rejected.message());
+    var inventory = inventoryService.getInventoryByProductId(product);
+    assertEquals(7, inventory.getQuantity());
+    assertEquals(0, inventory.getReservedQuantity());
+  }
+
+  @Test
+  void cancelled_releasesOnlyProcessingOrders() {
+    var product = stockedProduct(10);
+    var processing = orderWith(product, 3);
+    var created = orderWith(product, 2);
+    orderService.statusProcessing(processing);
+
+    var response = orderBulkTransitionService.transition(OrderTransition.CANCELLED, List.of(processing, created));
+
+    assertEquals(2, response.applied());
+    assertEquals(0, inventoryService.getInventoryByProductId(product).getReservedQuantity());
+  }
+
+  @Test
+  void transition_rejectsEmptyRequest() {
+    assertThrows(IllegalArgumentException.class,
+        () -> orderBulkTransitionService.transition(OrderTransition.SHIPPED, List.of()));
+  }
+
+  private Long orderWith(Long productId, int quantity) {
+    var orderId = orderService.createOrder().getId();
+    orderService.addItem(orderId, productId, quantity);
+    return orderId;
+  }
+
+  private Long stockedProduct(int quantity) {
+    var sku = "SKU-BULK-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(0);
+    request.setClearLowQuantity(0);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+}
@@ -1,19 +1,23 @@
 package lv.janis.iom.service;
 
 import jakarta.persistence.EntityNotFoundException;
-import lv.janis.iom.dto.requests.StockMovementCreationRequest;
 import lv.janis.iom.dto.response.CustomerOrderResponse;
+import lv.janis.iom.dto.response.OrderLineResponse;
 import lv.janis.iom.entity.CustomerOrder;
 import lv.janis.iom.entity.Inventory;
 import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
 import lv.janis.iom.repository.CustomerOrderRepository;
+import lv.janis.iom.repository.OrderItemRepository;
 import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.expiry.ReservationExpiryTracker;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -33,6 +37,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,9 +49,11 @@ public class OrderServiceTest {
   @Mock
   InventoryService inventoryService;
   @Mock
-  StockMovementService stockMovementService;
-  @Mock
   EntityManager entityManager;
+  @Mock
+  OrderItemRepository orderItemRepository;
+  @Mock
+  ReservationExpiryTracker reservationExpiryTracker;
 
   @InjectMocks
   OrderService orderService;
@@ -65,7 +72,7 @@ public class OrderServiceTest {
 
   @Test
   void addItem_missingOrder_throws() {
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.empty());
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.empty());
 
     var ex = assertThrows(EntityNotFoundException.class,
         () -> orderService.addItem(1L, 2L, 1));
@@ -77,7 +84,7 @@ public class OrderServiceTest {
   void addItem_missingProduct_throws() {
     var order = CustomerOrder.create();
     setId(order, 1L);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
     when(productRepository.findAllByIdInAndIsDeletedFalse(Set.of(2L))).thenReturn(List.of());
 
     var ex = assertThrows(EntityNotFoundException.class,
@@ -89,9 +96,9 @@ public class OrderServiceTest {
   @Test
   void addItem_orderNotCreated_throws() {
     var order = CustomerOrder.create();
-    order.markProcessing();
+    order.apply(OrderTransition.PROCESSING);
     setId(order, 1L);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
     when(productRepository.findAllByIdInAndIsDeletedFalse(Set.of(2L)))
         .thenReturn(List.of(product(2L, "SKU-2", new BigDecimal("9.99"))));
 
@@ -106,7 +113,7 @@ public class OrderServiceTest {
     var order = CustomerOrder.create();
     setId(order, 1L);
     var product = product(2L, "SKU-2", new BigDecimal("9.99"));
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
     when(productRepository.findAllByIdInAndIsDeletedFalse(Set.of(2L)))
         .thenReturn(List.of(product));
 
@@ -119,7 +126,7 @@ public class OrderServiceTest {
 
   @Test
   void removeItem_missingOrder_throws() {
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.empty());
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.empty());
 
     var ex = assertThrows(EntityNotFoundException.class,
         () -> orderService.removeItem(1L, 10L));
@@ -131,7 +138,7 @@ public class OrderServiceTest {
   void removeItem_missingItem_throws() {
     var order = CustomerOrder.create();
     setId(order, 1L);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var ex = assertThrows(EntityNotFoundException.class,
         () -> orderService.removeItem(1L, 10L));
@@ -147,7 +154,7 @@ public class OrderServiceTest {
     var item = OrderItem.createFor(product, 2, product.getPrice());
     setId(item, 10L);
     order.addItem(item);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.removeItem(1L, 10L);
 
@@ -160,7 +167,7 @@ public class OrderServiceTest {
   void statusProcessing_noItems_throws() {
     var order = CustomerOrder.create();
     setId(order, 1L);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var ex = assertThrows(IllegalStateException.class,
         () -> orderService.statusProcessing(1L));
@@ -174,23 +181,20 @@ public class OrderServiceTest {
     setId(order, 1L);
     var product = product(2L, "SKU-2", new BigDecimal("9.99"));
     order.addItem(OrderItem.createFor(product, 2, product.getPrice()));
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(inventoryService.reserveStock(2L, 2))
-        .thenReturn(Inventory.createFor(product, 10, 1, 2));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.statusProcessing(1L);
 
     assertSame(order, result);
     assertEquals(OrderStatus.PROCESSING, result.getStatus());
-    verify(inventoryService).reserveStock(2L, 2);
-    verify(stockMovementService).createStockMovement(any(StockMovementCreationRequest.class));
+    verify(inventoryService).reserveForOrders(Map.of(1L, order.getItems()));
   }
 
   @Test
   void statusShipped_wrongStatus_throws() {
     var order = CustomerOrder.create();
     setId(order, 1L);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var ex = assertThrows(IllegalStateException.class,
         () -> orderService.statusShipped(1L));
@@ -204,33 +208,30 @@ public class OrderServiceTest {
     setId(order, 1L);
     var product = product(2L, "SKU-2", new BigDecimal("9.99"));
     order.addItem(OrderItem.createFor(product, 2, product.getPrice()));
-    order.markProcessing();
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(inventoryService.getInventoryByProductId(2L))
-        .thenReturn(Inventory.createFor(product, 10, 1, 2));
+    order.apply(OrderTransition.PROCESSING);
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.statusShipped(1L);
 
     assertSame(order, result);
     assertEquals(OrderStatus.SHIPPED, result.getStatus());
-    verify(inventoryService).fulfillReservedQuantity(2L, 2);
-    verify(stockMovementService).createStockMovement(any(StockMovementCreationRequest.class));
+    verify(inventoryService).fulfillForOrders(Map.of(1L, order.getItems()));
+    verify(inventoryService, never()).getInventoryByProductId(any());
   }
 
   @Test
-  void statusDelivered_ok_marksAndSaves() {
+  void statusDelivered_ok_marksDelivered_withoutStockEffect() {
     var order = CustomerOrder.create();
-    order.markProcessing();
-    order.markShipped();
+    order.apply(OrderTransition.PROCESSING);
+    order.apply(OrderTransition.SHIPPED);
     setId(order, 1L);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(customerOrderRepository.save(any(CustomerOrder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.statusDelivered(1L);
 
     assertSame(order, result);
     assertEquals(OrderStatus.DELIVERED, result.getStatus());
-    verify(customerOrderRepository).save(order);
+    verifyNoInteractions(inventoryService);
   }
 
   @Test
@@ -239,18 +240,15 @@ public class OrderServiceTest {
     setId(order, 1L);
     var product = product(2L, "SKU-2", new BigDecimal("9.99"));
     order.addItem(OrderItem.createFor(product, 2, product.getPrice()));
-    order.markProcessing();
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(inventoryService.getInventoryByProductId(2L))
-        .thenReturn(Inventory.createFor(product, 10, 1, 2));
+    order.apply(OrderTransition.PROCESSING);
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.statusCancelled(1L);
 
     assertSame(order, result);
     assertEquals(OrderStatus.CANCELLED, result.getStatus());
-    verify(inventoryService).cancelReservedQuantity(2L, 2);
-    verify(inventoryService).updateLowQuantityFlag(any(Inventory.class));
-    verify(stockMovementService).createStockMovement(any(StockMovementCreationRequest.class));
+    verify(inventoryService).releaseForOrders(Map.of(1L, order.getItems()));
+    verify(inventoryService, never()).updateLowQuantityFlag(any(Inventory.class));
   }
 
   @Test
@@ -260,16 +258,13 @@ public class OrderServiceTest {
     var product = product(2L, "SKU-2", new BigDecimal("9.99"));
     order.addItem(OrderItem.createFor(product, 2, product.getPrice()));
     setStatus(order, OrderStatus.DELIVERED);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(inventoryService.getInventoryByProductId(2L))
-        .thenReturn(Inventory.createFor(product, 10, 1, 2));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.statusReturned(1L, null);
 
     assertSame(order, result);
     assertEquals(OrderStatus.RETURNED, result.getStatus());
-    verify(inventoryService).addStock(2L, 2);
-    verify(stockMovementService).createStockMovement(any(StockMovementCreationRequest.class));
+    verify(inventoryService).returnForOrders(Map.of(1L, order.getItems()));
   }
 
   @Test
@@ -281,16 +276,16 @@ public class OrderServiceTest {
     order.addItem(OrderItem.createFor(productA, 2, productA.getPrice()));
     order.addItem(OrderItem.createFor(productB, 1, productB.getPrice()));
     setStatus(order, OrderStatus.DELIVERED);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
-    when(inventoryService.getInventoryByProductId(2L))
-        .thenReturn(Inventory.createFor(productA, 10, 1, 2));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var result = orderService.statusReturned(1L, List.of(2L));
 
     assertSame(order, result);
     assertEquals(OrderStatus.RETURNED, result.getStatus());
-    verify(inventoryService).addStock(2L, 2);
-    verify(inventoryService, never()).addStock(3L, 1);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<Long, List<OrderItem>>> itemsCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(inventoryService).returnForOrders(itemsCaptor.capture());
+    assertEquals(List.of(2L), itemsCaptor.getValue().get(1L).stream().map(item -> item.getProduct().getId()).toList());
   }
 
   @Test
@@ -300,7 +295,7 @@ public class OrderServiceTest {
     var productA = product(2L, "SKU-2", new BigDecimal("9.99"));
     order.addItem(OrderItem.createFor(productA, 2, productA.getPrice()));
     setStatus(order, OrderStatus.DELIVERED);
-    when(customerOrderRepository.findById(1L)).thenReturn(Optional.of(order));
+    when(customerOrderRepository.findWithItemsAndProductsById(1L)).thenReturn(Optional.of(order));
 
     var ex = assertThrows(EntityNotFoundException.class, () -> orderService.statusReturned(1L, List.of(999L)));
 
@@ -325,6 +320,7 @@ public class OrderServiceTest {
     setId(order, 1L);
     Page<CustomerOrder> page = new PageImpl<>(List.of(order), PageRequest.of(0, 100, sort), 1);
     when(customerOrderRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    when(orderItemRepository.findLinesByOrderIdIn(List.of(1L))).thenReturn(List.of());
 
     Page<CustomerOrderResponse> result = orderService.getCustomerOrders(null, pageable);
 
@@ -335,6 +331,38 @@ public class OrderServiceTest {
     assertEquals(sort, pageableCaptor.getValue().getSort());
   }
 
+  @Test
+  void getCustomerOrders_attachesProjectedLinesPerOrder() {
+    var first = CustomerOrder.create();
+    setId(first, 1L);
+    var second = CustomerOrder.create();
+    setId(second, 2L);
+    Page<CustomerOrder> page = new PageImpl<>(List.of(first, second), PageRequest.of(0, 10), 2);
+    when(customerOrderRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+    var line = new OrderLineResponse(1L, 10L, 5L, "SKU-5", 3, new BigDecimal("2.50"));
+    when(orderItemRepository.findLinesByOrderIdIn(List.of(1L, 2L))).thenReturn(List.of(line));
+
+    var result = orderService.getCustomerOrders(null, PageRequest.of(0, 10));
+
+    assertEquals(List.of(line), result.getContent().get(0).items());
+    assertEquals(new BigDecimal("7.50"), result.getContent().get(0).items().get(0).lineTotal());
+    assertTrue(result.getContent().get(1).items().isEmpty());
+  }
+
+  @Test
+  void getCustomerOrderResponse_usesLineProjection() {
+    var order = CustomerOrder.create();
+    setId(order, 4L);
+    when(customerOrderRepository.findById(4L)).thenReturn(Optional.of(order));
+    var line = new OrderLineResponse(4L, 11L, 6L, "SKU-6", 1, new BigDecimal("9.99"));
+    when(orderItemRepository.findLinesByOrderIdIn(List.of(4L))).thenReturn(List.of(line));
+
+    var result = orderService.getCustomerOrderResponse(4L);
+
+    assertEquals(4L, result.id());
+    assertEquals(List.of(line), result.items());
+  }
+
   private static Product product(Long id, String sku, BigDecimal price) {
     var product = Product.create(sku, "Product " + sku, "desc", price);
     setId(product, id);
@@ -0,0 +1,203 @@
+package lv.janis.iom.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import lv.janis.iom.dto.requests.InventoryAdjustmentLine;
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.dto.response.BulkAdjustmentResponse.Outcome;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.exception.BusinessException;
+import lv.janis.iom.repository.ProductRepository;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+class ShardedReservationServiceIntegrationTest {
+
+  @Autowired
+  ShardedReservationService shardedReservationService;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  InventoryBulkAdjustService inventoryBulkAdjustService;
+  @Autowired
+  ReservationShardRebalancer reservationShardRebalancer;
+  @Autowired
+  ProductRepository productRepository;
+
+  @Test
+  void enable_splitsAvailableStockEvenly_andKeepsAggregateView() {
+    var productId = stockedProduct(10);
+    inventoryService.reserveStock(productId, 3);
+
+    var view = shardedReservationService.enable(productId, 3);
+
+    assertEquals(3, view.shardCount());
+    assertEquals(7, view.availableQuantity());
+    assertEquals(3, view.reservedQuantity());
+    assertEquals(java.util.List.of(3, 2, 2), view.shards().stream().map(s -> s.available()).toList());
+    assertEquals(7, inventoryService.getAvailableStock(productId));
+    var inventory = inventoryService.getInventoryByProductId(productId);
+    assertEquals(7, inventory.getAvailableQuantity());
+    assertEquals(3, inventory.getReservedQuantity());
+  }
+
+  @Test
+  void shardReservations_areFoldedIntoRow_andNewStockIsSpreadByRebalancer() {
+    var productId = stockedProduct(10);
+    shardedReservationService.enable(productId, 2);
+    inventoryService.reserveStock(productId, 4);
+    inventoryService.addStock(productId, 6);
+
+    assertEquals(12, inventoryService.getAvailableStock(productId));
+    assertEquals(16, inventoryService.getInventoryByProductId(productId).getAvailableQuantity());
+
+    reservationShardRebalancer.rebalance();
+
+    var inventory = inventoryService.getInventoryByProductId(productId);
+    var view = shardedReservationService.getShards(productId);
+    assertEquals(4, inventory.getReservedQuantity());
+    assertEquals(12, inventory.getAvailableQuantity());
+    assertEquals(12, inventory.getShardedQuantity());
+    assertEquals(List.of(6, 6), view.shards().stream().map(s -> s.available()).toList());
+    assertEquals(0, view.shards().stream().mapToInt(s -> s.reserved()).sum());
+    assertEquals(12, view.availableQuantity());
+    assertEquals(4, view.reservedQuantity());
+  }
+
+  @Test
+  void reserveReleaseFulfill_onShards_keepTotalsConsistent() {
+    var productId = stockedProduct(12);
+    shardedReservationService.enable(productId, 4);
+
+    inventoryService.reserveStock(productId, 2);
+    inventoryService.reserveStock(productId, 3);
+    inventoryService.cancelReservedQuantity(productId, 2);
+    var afterFulfill = inventoryService.fulfillReservedQuantity(productId, 3);
+
+    var view = shardedReservationService.getShards(productId);
+    assertEquals(9, afterFulfill.getQuantity());
+    assertEquals(9, view.availableQuantity());
+    assertEquals(0, view.reservedQuantity());
+    assertEquals(0, view.shards().stream().mapToInt(s -> s.reserved()).sum());
+  }
+
+  @Test
+  void reserve_largerThanAnyShard_rebalancesIntoOneShard() {
+    var productId = stockedProduct(8);
+    shardedReservationService.enable(productId, 4);
+
+    inventoryService.reserveStock(productId, 7);
+
+    var view = shardedReservationService.getShards(productId);
+    assertEquals(1, view.availableQuantity());
+    assertEquals(7, view.reservedQuantity());
+    var ex = assertThrows(BusinessException.class, () -> inventoryService.reserveStock(productId, 2));
+    assertEquals(lv.janis.iom.enums.FailureCode.OUT_OF_STOCK, ex.getCode());
+  }
+
+  @Test
+  void disable_foldsBudgetsBack_andKeepsOutstandingReservations() {
+    var productId = stockedProduct(10);
+    shardedReservationService.enable(productId, 2);
+    inventoryService.reserveStock(productId, 4);
+
+    shardedReservationService.disable(productId);
+
+    var inventory = inventoryService.getInventoryByProductId(productId);
+    assertFalse(inventory.isReservationSharded());
+    assertEquals(4, inventory.getReservedQuantity());
+    assertEquals(6, inventory.getAvailableQuantity());
+    assertTrue(shardedReservationService.getShards(productId).shards().isEmpty());
+  }
+
+  @Test
+  void decreases_drawOnShardBudgets() {
+    var productId = stockedProduct(20);
+    shardedReservationService.enable(productId, 4);
+    inventoryService.reserveStock(productId, 2);
+
+    inventoryService.reduceStock(productId, 6);
+    inventoryService.adjustInventoryQuantity(productId, -4, "recount");
+    var results = inventoryBulkAdjustService.adjust(List.of(new InventoryAdjustmentLine(productId, -3, "damaged")));
+
+    var view = shardedReservationService.getShards(productId);
+    assertEquals(Outcome.APPLIED, results.results().get(0).outcome());
+    assertEquals(7, inventoryService.getInventoryByProductId(productId).getQuantity());
+    assertEquals(5, view.availableQuantity());
+    assertEquals(2, view.reservedQuantity());
+    assertEquals(5, view.shards().stream().mapToInt(s -> s.available()).sum());
+  }
+
+  @Test
+  void decrease_beyondUnreservedStock_changesNothing() {
+    var productId = stockedProduct(10);
+    shardedReservationService.enable(productId, 2);
+    inventoryService.reserveStock(productId, 4);
+
+    assertThrows(IllegalArgumentException.class, () -> inventoryService.reduceStock(productId, 7));
+    var results = inventoryBulkAdjustService.adjust(List.of(new InventoryAdjustmentLine(productId, -7, "damaged")));
+
+    var view = shardedReservationService.getShards(productId);
+    assertEquals(Outcome.INVALID, results.results().get(0).outcome());
+    assertEquals(10, inventoryService.getInventoryByProductId(productId).getQuantity());
+    assertEquals(6, view.availableQuantity());
+    assertEquals(6, view.shards().stream().mapToInt(s -> s.available()).sum());
+  }
+
+  @Test
+  void concurrentReservations_neverOversell() throws Exception {
+    var productId = stockedProduct(60);
+    shardedReservationService.enable(productId, 8);
+    var executor = Executors.newFixedThreadPool(8);
+    var tasks = new ArrayList<Callable<Boolean>>();
+    for (int i = 0; i < 80; i++) {
+      tasks.add(() -> {
+        try {
+          inventoryService.reserveStock(productId, 1);
+          return true;
+        } catch (BusinessException ex) {
+          return false;
+        }
+      });
+    }
+
+    int reserved = 0;
+    for (var result : executor.invokeAll(tasks)) {
+      if (result.get()) {
+        reserved++;
+      }
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    var view = shardedReservationService.getShards(productId);
+    assertEquals(60, reserved);
+    assertEquals(0, view.availableQuantity());
+    assertEquals(60, view.reservedQuantity());
+  }
+
+  private Long stockedProduct(int quantity) {
+    var sku = "SKU-SHARD-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(0);
+    request.setClearLowQuantity(0);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+}
@@ -0,0 +1,357 @@
+package lv.janis.iom.service;
+
+import static lv.janis.iom.support.StatementCountAssertions.assertStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import lv.janis.iom.dto.filters.InventoryFilter;
+import lv.janis.iom.dto.filters.CustomerOrderFilter;
+import lv.janis.iom.dto.requests.ExternalOrderCancelRequest;
+import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
+import lv.janis.iom.dto.requests.ExternalOrderItemRequest;
+import lv.janis.iom.dto.requests.InventoryAdjustmentLine;
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.dto.requests.ProductUpdateRequest;
+import lv.janis.iom.entity.CustomerOrder;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.enums.OrderTransition;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.facade.ExternalOrderFacade;
+
+/**
+ * Pins the number of SQL statements each service operation issues. A failing test here
+ * means a change added (or removed) queries; update the expected counts only when the
+ * difference is intended.
+ */
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+class StatementCountIntegrationTest {
+
+  @Autowired
+  OrderService orderService;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  ExternalOrderFacade externalOrderFacade;
+  @Autowired
+  OrderBulkTransitionService orderBulkTransitionService;
+  @Autowired
+  InventoryBulkAdjustService inventoryBulkAdjustService;
+  @Autowired
+  ProductService productService;
+  @Autowired
+  ProductRepository productRepository;
+
+  // OrderService
+  //
+  // Mutations load the order with its items and their products in one select, the fetch plan
+  // the controller needs to render the response after the transaction has closed
+
+  @Test
+  void createOrder() {
+    assertStatements(() -> orderService.createOrder(), 0, 1, 0);
+  }
+
+  @Test
+  void addItem() {
+    var product = stockedProduct();
+    var orderId = orderService.createOrder().getId();
+
+    assertStatements(() -> orderService.addItem(orderId, product.getId(), 2), 2, 1, 1);
+  }
+
+  @Test
+  void removeItem() {
+    var product = stockedProduct();
+    var order = orderWithItems(product);
+    var itemId = orderService.getCustomerOrderResponse(order).items().get(0).id();
+
+    assertStatements(() -> orderService.removeItem(order, itemId), 1, 0, 1, 1);
+  }
+
+  @Test
+  void statusProcessing() {
+    var order = orderWithItems(stockedProduct(), stockedProduct());
+
+    assertStatements(() -> orderService.statusProcessing(order), 2, 2, 3);
+  }
+
+  @Test
+  void statusShipped() {
+    var order = orderWithItems(stockedProduct(), stockedProduct());
+    orderService.statusProcessing(order);
+
+    assertStatements(() -> orderService.statusShipped(order), 2, 2, 3);
+  }
+
+  @Test
+  void statusShipped_selectsDoNotGrowWithLines() {
+    var order = orderWithItems(stockedProduct(), stockedProduct(), stockedProduct(), stockedProduct());
+    orderService.statusProcessing(order);
+
+    assertStatements(() -> orderService.statusShipped(order), 2, 4, 5);
+  }
+
+  @Test
+  void statusDelivered() {
+    var order = orderWithItems(stockedProduct());
+    orderService.statusProcessing(order);
+    orderService.statusShipped(order);
+
+    assertStatements(() -> orderService.statusDelivered(order), 1, 0, 1);
+  }
+
+  @Test
+  void statusCancelled_fromProcessing() {
+    var order = orderWithItems(stockedProduct(), stockedProduct());
+    orderService.statusProcessing(order);
+
+    assertStatements(() -> orderService.statusCancelled(order), 2, 2, 3);
+  }
+
+  @Test
+  void statusReturned() {
+    var order = orderWithItems(stockedProduct(), stockedProduct());
+    orderService.statusProcessing(order);
+    orderService.statusShipped(order);
+    orderService.statusDelivered(order);
+
+    assertStatements(() -> orderService.statusReturned(order, null), 2, 2, 3);
+  }
+
+  @Test
+  void bulkShipped_selectsDoNotGrowWithOrders() {
+    var productA = stockedProduct();
+    var productB = stockedProduct();
+    var orders = List.of(
+        orderWithItems(productA, productB),
+        orderWithItems(productA, productB),
+        orderWithItems(productA),
+        orderWithItems(productB));
+    orders.forEach(orderService::statusProcessing);
+
+    assertStatements(() -> orderBulkTransitionService.transition(OrderTransition.SHIPPED, orders), 2, 6, 6);
+  }
+
+  @Test
+  void bulkAdjust_selectsDoNotGrowWithLines() {
+    var lines = new ArrayList<InventoryAdjustmentLine>();
+    for (int i = 0; i < 4; i++) {
+      var productId = stockedProduct().getId();
+      lines.add(new InventoryAdjustmentLine(productId, 3, "count"));
+      lines.add(new InventoryAdjustmentLine(productId, -1, "recount"));
+    }
+
+    // the eight movements and the four inventory updates are each one JDBC batch
+    assertStatements(() -> inventoryBulkAdjustService.adjust(lines), 1, 1, 1);
+  }
+
+  @Test
+  void getCustomerOrderResponse() {
+    var order = orderWithItems(stockedProduct(), stockedProduct());
+
+    assertStatements(() -> orderService.getCustomerOrderResponse(order), 2, 0, 0);
+  }
+
+  @Test
+  void getCustomerOrderVersion() {
+    var order = orderWithItems(stockedProduct());
+
+    assertStatements(() -> orderService.getCustomerOrderVersion(order), 1, 0, 0);
+  }
+
+  @Test
+  void getInventoryVersions_tracksProductChanges() {
+    var product = stockedProduct();
+    var before = inventoryService.getInventoryVersions(product.getId());
+    var request = new ProductUpdateRequest();
+    request.setName("Renamed " + product.getSku());
+    productService.updateProduct(product.getId(), request);
+
+    assertStatements(() -> inventoryService.getInventoryVersions(product.getId()), 1, 0, 0);
+    var after = inventoryService.getInventoryVersions(product.getId());
+    assertEquals(before.getInventoryVersion(), after.getInventoryVersion());
+    assertEquals(before.getProductVersion() + 1, after.getProductVersion());
+  }
+
+  // Response bodies are keyed by version, so a repeat within the TTL is answered without SQL
+  @Test
+  void getInventoryResponse_repeatWithinTtl() {
+    var product = stockedProduct();
+    var versions = inventoryService.getInventoryVersions(product.getId());
+
+    assertStatements(() -> inventoryService.getInventoryResponse(product.getId(), versions), 1, 0, 0);
+    assertStatements(() -> inventoryService.getInventoryResponse(product.getId(), versions), 0, 0, 0);
+  }
+
+  @Test
+  void getProductResponse_repeatWithinTtl() {
+    var product = stockedProduct();
+    long version = productService.getProductVersion(product.getId());
+
+    assertStatements(() -> productService.getProductResponse(product.getId(), version), 1, 0, 0);
+    assertStatements(() -> productService.getProductResponse(product.getId(), version), 0, 0, 0);
+  }
+
+  @Test
+  void getCustomerOrders() {
+    orderWithItems(stockedProduct(), stockedProduct());
+    orderWithItems(stockedProduct());
+
+    assertStatements(() -> orderService.getCustomerOrders(new CustomerOrderFilter(), PageRequest.of(0, 2)),
+        3, 0, 0);
+  }
+
+  // InventoryService
+
+  @Test
+  void createInventory() {
+    var product = productRepository.save(newProduct());
+
+    assertStatements(() -> inventoryService.createInventory(product.getId(), inventoryRequest(10)), 2, 1, 0);
+  }
+
+  @Test
+  void addStock() {
+    var product = stockedProduct();
+
+    assertStatements(() -> inventoryService.addStock(product.getId(), 5), 1, 0, 1);
+  }
+
+  @Test
+  void reduceStock_crossingReorderLevel() {
+    var product = stockedProduct();
+
+    assertStatements(() -> inventoryService.reduceStock(product.getId(), 9), 1, 2, 1);
+  }
+
+  @Test
+  void reserveStock() {
+    var product = stockedProduct();
+
+    assertStatements(() -> inventoryService.reserveStock(product.getId(), 2), 1, 0, 1);
+  }
+
+  @Test
+  void cancelReservedQuantity() {
+    var product = stockedProduct();
+    inventoryService.reserveStock(product.getId(), 2);
+
+    assertStatements(() -> inventoryService.cancelReservedQuantity(product.getId(), 2), 1, 0, 1);
+  }
+
+  @Test
+  void fulfillReservedQuantity() {
+    var product = stockedProduct();
+    inventoryService.reserveStock(product.getId(), 2);
+
+    assertStatements(() -> inventoryService.fulfillReservedQuantity(product.getId(), 2), 1, 0, 1);
+  }
+
+  @Test
+  void adjustInventoryQuantity() {
+    var product = stockedProduct();
+
+    assertStatements(() -> inventoryService.adjustInventoryQuantity(product.getId(), 3, "recount"), 1, 1, 1);
+  }
+
+  @Test
+  void getInventory() {
+    stockedProduct();
+    stockedProduct();
+
+    assertStatements(() -> inventoryService.getInventory(new InventoryFilter(), PageRequest.of(0, 1)), 2, 0, 0);
+  }
+
+  @Test
+  void listInStockInventory() {
+    stockedProduct();
+    stockedProduct();
+
+    assertStatements(() -> inventoryService.listInStockInventory(null, 1), 1, 0, 0);
+  }
+
+  // ExternalOrderFacade
+
+  @Test
+  void ingest_newOrder() {
+    var request = externalRequest("EXT-SC-" + System.nanoTime(), stockedProduct(), stockedProduct());
+
+    // lookup, products, insert-if-absent header, reload with items
+    assertStatements(() -> externalOrderFacade.ingest(request), 3, 4, 0);
+  }
+
+  @Test
+  void ingest_duplicate() {
+    var request = externalRequest("EXT-SC-" + System.nanoTime(), stockedProduct(), stockedProduct());
+    externalOrderFacade.ingest(request);
+
+    assertStatements(() -> externalOrderFacade.ingest(request), 1, 0, 0);
+  }
+
+  @Test
+  void cancel_processingOrder() {
+    var externalOrderId = "EXT-SC-" + System.nanoTime();
+    var orderId = externalOrderFacade.ingest(externalRequest(externalOrderId, stockedProduct(), stockedProduct()));
+    orderService.statusProcessing(orderId);
+    var request = new ExternalOrderCancelRequest();
+    setField(request, "source", ExternalOrderSource.WEB_SHOP);
+    setField(request, "externalOrderId", externalOrderId);
+
+    assertStatements(() -> externalOrderFacade.cancel(request), 3, 3, 3);
+  }
+
+  private Product stockedProduct() {
+    var product = productRepository.save(newProduct());
+    inventoryService.createInventory(product.getId(), inventoryRequest(10));
+    return product;
+  }
+
+  private Long orderWithItems(Product... products) {
+    Long orderId = orderService.createOrder().getId();
+    for (var product : products) {
+      orderService.addItem(orderId, product.getId(), 1);
+    }
+    return orderId;
+  }
+
+  private static Product newProduct() {
+    var sku = "SKU-SC-" + System.nanoTime();
+    return Product.create(sku, "Product " + sku, "desc", new BigDecimal("4.50"));
+  }
+
+  private static InventoryCreationRequest inventoryRequest(int quantity) {
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(2);
+    request.setClearLowQuantity(5);
+    return request;
+  }
+
+  private static ExternalOrderIngestRequest externalRequest(String externalOrderId, Product... products) {
+    var request = new ExternalOrderIngestRequest();
+    setField(request, "source", ExternalOrderSource.WEB_SHOP);
+    setField(request, "externalOrderId", externalOrderId);
+    setField(request, "shippingAddress", "Main street 1");
+    setField(request, "items", java.util.Arrays.stream(products).map(product -> {
+      var item = new ExternalOrderItemRequest();
+      setField(item, "productId", product.getId());
+      setField(item, "quantity", 1);
+      return item;
+    }).toList());
+    return request;
+  }
+}
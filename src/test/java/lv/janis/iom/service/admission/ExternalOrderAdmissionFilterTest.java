@@ -0,0 +1,126 @@
+package lv.janis.iom.service.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lv.janis.iom.config.ExternalOrderAdmissionProperties;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.exception.AdmissionRejectedException;
+import lv.janis.iom.repository.OutboxEventRepository;
+
+class ExternalOrderAdmissionFilterTest {
+
+  private final ExternalOrderAdmissionProperties properties = new ExternalOrderAdmissionProperties();
+  @SuppressWarnings("unchecked")
+  private final ObjectProvider<DataSource> dataSource = mock(ObjectProvider.class);
+  private ExternalOrderAdmission admission;
+  private ExternalOrderAdmissionFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    properties.getDefaults().setMaxConcurrent(1);
+    properties.getDefaults().setPermitsPerSecond(1000);
+    properties.getDefaults().setBurst(1000);
+    properties.setMaxBodyBytes(1024);
+    admission = new ExternalOrderAdmission(properties, mock(OutboxEventRepository.class), dataSource,
+        new SimpleMeterRegistry());
+    filter = new ExternalOrderAdmissionFilter(admission, properties, new ObjectMapper());
+  }
+
+  @Test
+  void admitted_holdsPermitWhileTheChainRuns_andPassesTheBodyOn() throws Exception {
+    var inChain = new AtomicReference<String>();
+    var chain = new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest request, HttpServletResponse response) {
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(ExternalOrderSource.WEB_SHOP));
+        try {
+          inChain.set(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    });
+
+    filter.doFilter(request("/api/orders/external", "{\"source\":\"WEB_SHOP\"}"), new MockHttpServletResponse(),
+        chain);
+
+    assertEquals("{\"source\":\"WEB_SHOP\"}", inChain.get());
+    assertDoesNotThrow(() -> admission.admit(ExternalOrderSource.WEB_SHOP).close());
+  }
+
+  @Test
+  void rejected_answers429WithRetryAfter_withoutRunningTheChain() throws Exception {
+    var held = admission.admit(ExternalOrderSource.WEB_SHOP);
+    var response = new MockHttpServletResponse();
+    var chain = new MockFilterChain();
+
+    filter.doFilter(request("/api/orders/external/cancel", "{\"source\":\"WEB_SHOP\",\"externalOrderId\":\"E-1\"}"),
+        response, chain);
+
+    assertEquals(429, response.getStatus());
+    assertEquals("1", response.getHeader("Retry-After"));
+    assertTrue(response.getContentAsString().contains("TOO_MANY_REQUESTS"));
+    assertNull(chain.getRequest());
+    held.close();
+  }
+
+  @Test
+  void missingOrUnknownSource_isLeftToTheController() throws Exception {
+    admission.admit(ExternalOrderSource.WEB_SHOP);
+
+    for (var body : new String[] { "{}", "{\"source\":\"NOPE\"}", "not json" }) {
+      var chain = new MockFilterChain();
+      filter.doFilter(request("/api/orders/external", body), new MockHttpServletResponse(), chain);
+      assertNotNull(chain.getRequest(), body);
+    }
+  }
+
+  @Test
+  void oversizedBody_isRejectedWith413() throws Exception {
+    var response = new MockHttpServletResponse();
+    var chain = new MockFilterChain();
+
+    filter.doFilter(request("/api/orders/external", "{\"source\":\"WEB_SHOP\",\"x\":\"" + "y".repeat(2000) + "\"}"),
+        response, chain);
+
+    assertEquals(413, response.getStatus());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  void otherEndpoints_areNotAdmissionControlled() throws Exception {
+    admission.admit(ExternalOrderSource.WEB_SHOP);
+    var chain = new MockFilterChain();
+
+    filter.doFilter(request("/api/orders", "{\"source\":\"WEB_SHOP\"}"), new MockHttpServletResponse(), chain);
+
+    assertNotNull(chain.getRequest());
+  }
+
+  private static MockHttpServletRequest request(String uri, String body) {
+    var request = new MockHttpServletRequest("POST", uri);
+    request.setContentType("application/json");
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    return request;
+  }
+}
@@ -0,0 +1,93 @@
+package lv.janis.iom.service.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.idempotency.IdempotencyKeyFilter;
+import lv.janis.iom.service.idempotency.IdempotencyStore;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:admissiondb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "external-order.admission.sources.WEB_SHOP.permits-per-second=0.5",
+    "external-order.admission.sources.WEB_SHOP.burst=1"
+})
+@AutoConfigureMockMvc
+class ExternalOrderAdmissionIntegrationTest {
+
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  MeterRegistry meterRegistry;
+  @MockitoSpyBean
+  IdempotencyStore idempotencyStore;
+
+  @Test
+  void overRate_returns429WithRetryAfter_beforeTheKeyIsTaken() throws Exception {
+    var sku = "SKU-ADMIT-" + System.nanoTime();
+    var productId = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("2.00")))
+        .getId();
+    var key = "admit-" + System.nanoTime();
+
+    mockMvc.perform(post("/api/orders/external")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(body("EXT-ADMIT-1-" + key, productId)))
+        .andExpect(status().isAccepted());
+    var rejected = mockMvc.perform(post("/api/orders/external")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(body("EXT-ADMIT-2-" + key, productId)))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(jsonPath("$.code").value("TOO_MANY_REQUESTS"))
+        .andReturn().getResponse();
+    verify(idempotencyStore, never()).begin(eq(key), any());
+    long retryAfter = Long.parseLong(rejected.getHeader("Retry-After"));
+    assertTrue(retryAfter >= 1 && retryAfter <= 2);
+
+    Thread.sleep(retryAfter * 1000 + 100);
+    mockMvc.perform(post("/api/orders/external")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(body("EXT-ADMIT-2-" + key, productId)))
+        .andExpect(status().isAccepted())
+        .andExpect(header().doesNotExist(IdempotencyKeyFilter.REPLAYED_HEADER));
+
+    assertEquals(1.0, meterRegistry.get("iom.admission.rejected")
+        .tag("source", "WEB_SHOP").tag("reason", "rate_limited").counter().count());
+  }
+
+  private static String body(String externalOrderId, Long productId) {
+    return """
+        {
+          "source":"WEB_SHOP",
+          "externalOrderId":"%s",
+          "shippingAddress":"Addr",
+          "items":[{"productId":%d,"quantity":1}]
+        }
+        """.formatted(externalOrderId, productId);
+  }
+}
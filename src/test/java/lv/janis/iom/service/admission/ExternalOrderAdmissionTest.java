@@ -0,0 +1,127 @@
+package lv.janis.iom.service.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lv.janis.iom.config.ExternalOrderAdmissionProperties;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.exception.AdmissionRejectedException;
+import lv.janis.iom.exception.AdmissionRejectedException.Reason;
+import lv.janis.iom.repository.OutboxEventRepository;
+
+class ExternalOrderAdmissionTest {
+
+  private final ExternalOrderAdmissionProperties properties = new ExternalOrderAdmissionProperties();
+  private final OutboxEventRepository outboxRepo = mock(OutboxEventRepository.class);
+  @SuppressWarnings("unchecked")
+  private final ObjectProvider<DataSource> dataSource = mock(ObjectProvider.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  void setUp() {
+    properties.getDefaults().setMaxConcurrent(2);
+    properties.getDefaults().setPermitsPerSecond(1000);
+    properties.getDefaults().setBurst(1000);
+  }
+
+  @Test
+  void concurrencyLimit_rejectsUntilPermitClosed() {
+    var admission = admission();
+
+    var first = admission.admit(ExternalOrderSource.WEB_SHOP);
+    admission.admit(ExternalOrderSource.WEB_SHOP);
+    var rejected = assertThrows(AdmissionRejectedException.class,
+        () -> admission.admit(ExternalOrderSource.WEB_SHOP));
+    assertEquals(Reason.CONCURRENCY_LIMITED, rejected.getReason());
+    assertEquals(2.0, meterRegistry.get("iom.admission.in_flight").gauge().value());
+
+    first.close();
+    first.close();
+    assertDoesNotThrow(() -> admission.admit(ExternalOrderSource.WEB_SHOP));
+    assertThrows(AdmissionRejectedException.class, () -> admission.admit(ExternalOrderSource.WEB_SHOP));
+  }
+
+  @Test
+  void rateLimit_rejectsWithRetryAfter_andCountsRejection() {
+    var limits = new ExternalOrderAdmissionProperties.Limits();
+    limits.setMaxConcurrent(10);
+    limits.setPermitsPerSecond(0.25);
+    limits.setBurst(1);
+    properties.getSources().put(ExternalOrderSource.WEB_SHOP, limits);
+    var admission = admission();
+
+    admission.admit(ExternalOrderSource.WEB_SHOP).close();
+    var rejected = assertThrows(AdmissionRejectedException.class,
+        () -> admission.admit(ExternalOrderSource.WEB_SHOP));
+
+    assertEquals(Reason.RATE_LIMITED, rejected.getReason());
+    assertTrue(rejected.getRetryAfterSeconds() >= 3 && rejected.getRetryAfterSeconds() <= 4);
+    assertEquals(1.0, meterRegistry.get("iom.admission.rejected")
+        .tag("source", "WEB_SHOP").tag("reason", "rate_limited").counter().count());
+    // a rate rejection gives the concurrency slot back
+    assertEquals(0.0, meterRegistry.get("iom.admission.in_flight").gauge().value());
+  }
+
+  @Test
+  void outboxBacklogOverThreshold_shedsLoad() {
+    properties.setOutboxBacklogThreshold(100);
+    properties.setOverloadRetryAfterSeconds(7);
+    var admission = admission();
+    when(outboxRepo.countByStatusIn(anyCollection())).thenReturn(150L);
+
+    admission.refreshOutboxBacklog();
+    var rejected = assertThrows(AdmissionRejectedException.class,
+        () -> admission.admit(ExternalOrderSource.WEB_SHOP));
+
+    assertEquals(Reason.OUTBOX_BACKLOG, rejected.getReason());
+    assertEquals(7, rejected.getRetryAfterSeconds());
+
+    when(outboxRepo.countByStatusIn(anyCollection())).thenReturn(10L);
+    admission.refreshOutboxBacklog();
+    assertDoesNotThrow(() -> admission.admit(ExternalOrderSource.WEB_SHOP));
+  }
+
+  @Test
+  void poolUtilizationOverThreshold_shedsLoad() {
+    var pool = mock(HikariDataSource.class);
+    var poolBean = mock(HikariPoolMXBean.class);
+    when(dataSource.getIfAvailable()).thenReturn(pool);
+    when(pool.getHikariPoolMXBean()).thenReturn(poolBean);
+    when(pool.getMaximumPoolSize()).thenReturn(10);
+    when(poolBean.getActiveConnections()).thenReturn(8);
+    var admission = admission();
+
+    var rejected = assertThrows(AdmissionRejectedException.class,
+        () -> admission.admit(ExternalOrderSource.WEB_SHOP));
+    assertEquals(Reason.POOL_SATURATED, rejected.getReason());
+
+    when(poolBean.getActiveConnections()).thenReturn(7);
+    assertDoesNotThrow(() -> admission.admit(ExternalOrderSource.WEB_SHOP));
+  }
+
+  @Test
+  void disabled_admitsEverything() {
+    properties.setEnabled(false);
+    properties.getDefaults().setMaxConcurrent(1);
+    var admission = admission();
+
+    admission.admit(ExternalOrderSource.WEB_SHOP);
+    assertDoesNotThrow(() -> admission.admit(ExternalOrderSource.WEB_SHOP));
+  }
+
+  private ExternalOrderAdmission admission() {
+    return new ExternalOrderAdmission(properties, outboxRepo, dataSource, meterRegistry);
+  }
+}
@@ -0,0 +1,46 @@
+package lv.janis.iom.service.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+  private final AtomicLong now = new AtomicLong(1_000);
+
+  @Test
+  void burstIsAvailableUpFront_thenReportsWaitUntilNextToken() {
+    var bucket = new TokenBucket(10, 3, now::get);
+
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(0, bucket.tryAcquire());
+    long wait = bucket.tryAcquire();
+
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait, TimeUnit.MICROSECONDS.toNanos(1));
+  }
+
+  @Test
+  void refillsAtRate_andNeverAboveBurst() {
+    var bucket = new TokenBucket(10, 2, now::get);
+    bucket.tryAcquire();
+    bucket.tryAcquire();
+
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertEquals(0, bucket.tryAcquire());
+    assertTrue(bucket.tryAcquire() > 0);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(0, bucket.tryAcquire());
+    assertTrue(bucket.tryAcquire() > 0);
+  }
+
+  @Test
+  void rejectsNonPositiveRate() {
+    assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, now::get));
+  }
+}
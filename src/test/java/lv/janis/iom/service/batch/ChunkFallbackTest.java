@@ -0,0 +1,75 @@
+package lv.janis.iom.service.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ChunkFallbackTest {
+
+  @Test
+  void chunkThatWrites_isWrittenOnce() {
+    var writes = new ArrayList<List<String>>();
+    var written = new ArrayList<String>();
+
+    ChunkFallback.write(List.of("a", "b", "c"),
+        (offset, items) -> {
+          writes.add(items);
+          return items.size();
+        },
+        (offset, items, count) -> written.add(offset + ":" + count),
+        (offset, item, failure) -> fail("no item should fail"));
+
+    assertEquals(List.of(List.of("a", "b", "c")), writes);
+    assertEquals(List.of("0:3"), written);
+  }
+
+  @Test
+  void failingChunk_isRetriedItemByItem_inOrder() {
+    var events = new ArrayList<String>();
+
+    ChunkFallback.write(List.of("a", "bad", "c"),
+        (offset, items) -> {
+          if (items.contains("bad")) {
+            throw new IllegalStateException("bad item");
+          }
+          return items.get(0);
+        },
+        (offset, items, item) -> events.add("written " + offset + " " + item),
+        (offset, item, failure) -> events.add("failed " + offset + " " + item + " " + failure.getMessage()));
+
+    assertEquals(List.of("written 0 a", "failed 1 bad bad item", "written 2 c"), events);
+  }
+
+  @Test
+  void failingSingleItemChunk_isNotWrittenTwice() {
+    var attempts = new int[1];
+    var failed = new ArrayList<String>();
+
+    ChunkFallback.write(List.of("only"),
+        (offset, items) -> {
+          attempts[0]++;
+          throw new IllegalStateException("down");
+        },
+        (offset, items, result) -> fail("nothing should be written"),
+        (offset, item, failure) -> failed.add(item));
+
+    assertEquals(1, attempts[0]);
+    assertEquals(List.of("only"), failed);
+  }
+
+  @Test
+  void failureInWrittenCallback_isNotTakenForAWriteFailure() {
+    var attempts = new int[1];
+
+    assertThrows(IllegalArgumentException.class, () -> ChunkFallback.write(List.of("a", "b"),
+        (offset, items) -> ++attempts[0],
+        (offset, items, result) -> {
+          throw new IllegalArgumentException("callback");
+        },
+        (offset, item, failure) -> fail("no item should fail")));
+    assertEquals(1, attempts[0]);
+  }
+}
@@ -0,0 +1,133 @@
+package lv.janis.iom.service.coalescing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import lv.janis.iom.config.ReadCoalescingProperties;
+
+class ReadCoalescerTest {
+
+  private static final int CALLERS = 8;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void concurrentIdenticalReads_shareOneLoad() throws Exception {
+    var coalescer = coalescer(0);
+    var loads = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      var results = new ArrayList<Future<String>>();
+      for (int i = 0; i < CALLERS; i++) {
+        results.add(executor.submit(() -> coalescer.load("product", 1L, () -> {
+          loads.incrementAndGet();
+          await(release);
+          return "value";
+        })));
+      }
+      waitForCount("coalesced", CALLERS - 1);
+      release.countDown();
+
+      for (var result : results) {
+        assertEquals("value", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+    assertEquals(1.0, count("loaded"));
+  }
+
+  @Test
+  void loaderFailure_reachesEveryWaiter_andIsNotCached() throws Exception {
+    var coalescer = coalescer(1000);
+    var release = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      var leader = executor.submit(() -> coalescer.loadCached("product", 1L, () -> {
+        await(release);
+        throw new EntityNotFoundException("Product not found.");
+      }));
+      waitForCount("loaded", 1);
+      var follower = executor.submit(() -> coalescer.loadCached("product", 1L, () -> "never"));
+      waitForCount("coalesced", 1);
+      release.countDown();
+
+      for (var result : List.of(leader, follower)) {
+        var failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(EntityNotFoundException.class, failure.getCause());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals("loaded again", coalescer.loadCached("product", 1L, () -> "loaded again"));
+  }
+
+  @Test
+  void loadCached_answersFromCacheWithinTtl_plainLoadDoesNot() {
+    var coalescer = coalescer(60_000);
+    var loads = new AtomicInteger();
+
+    coalescer.loadCached("product", 1L, loads::incrementAndGet);
+    assertEquals(1, coalescer.loadCached("product", 1L, loads::incrementAndGet));
+    assertEquals(2, coalescer.loadCached("product", 2L, loads::incrementAndGet));
+    assertEquals(3, coalescer.load("product-version", 1L, loads::incrementAndGet));
+    assertEquals(4, coalescer.load("product-version", 1L, loads::incrementAndGet));
+
+    assertEquals(1.0, count("cached"));
+  }
+
+  @Test
+  void disabled_callsLoaderEveryTime() {
+    var properties = new ReadCoalescingProperties();
+    properties.setEnabled(false);
+    var coalescer = new ReadCoalescer(properties, meterRegistry);
+    var loads = new AtomicInteger();
+
+    coalescer.loadCached("product", 1L, loads::incrementAndGet);
+    coalescer.loadCached("product", 1L, loads::incrementAndGet);
+
+    assertEquals(2, loads.get());
+  }
+
+  private ReadCoalescer coalescer(long ttlMs) {
+    var properties = new ReadCoalescingProperties();
+    properties.setTtlMs(ttlMs);
+    return new ReadCoalescer(properties, meterRegistry);
+  }
+
+  private double count(String outcome) {
+    var counter = meterRegistry.find("iom.read.coalescing").tag("outcome", outcome).counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  private void waitForCount(String outcome, int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (count(outcome) < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(expected, count(outcome));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
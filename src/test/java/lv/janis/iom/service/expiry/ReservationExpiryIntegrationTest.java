@@ -0,0 +1,115 @@
+package lv.janis.iom.service.expiry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.InventoryService;
+import lv.janis.iom.service.OrderService;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:reservationexpirydb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "order.reservation-expiry.enabled=true",
+    "order.reservation-expiry.ttl-seconds=600",
+    // ticks are driven by the test
+    "order.reservation-expiry.tick-ms=3600000"
+})
+class ReservationExpiryIntegrationTest {
+
+  private static final long TTL_SECONDS = 600;
+
+  @Autowired
+  ReservationExpiryService reservationExpiryService;
+  @Autowired
+  OrderService orderService;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  ProductRepository productRepository;
+
+  @Test
+  void processing_stampsDeadline_andExpiryReleasesStockLikeCancel() {
+    var product = stockedProduct(10);
+    var stale = orderWith(product, 3);
+    var shipped = orderWith(product, 2);
+    var before = Instant.now();
+    orderService.statusProcessing(stale);
+    orderService.statusProcessing(shipped);
+    orderService.statusShipped(shipped);
+
+    var deadline = orderService.getCustomerOrderById(stale).getReservationExpiresAt();
+    assertNotNull(deadline);
+    assertFalse(deadline.isBefore(before.plusSeconds(TTL_SECONDS)));
+    assertNull(orderService.getCustomerOrderById(shipped).getReservationExpiresAt());
+    assertEquals(3, inventoryService.getInventoryByProductId(product).getReservedQuantity());
+
+    assertEquals(0, reservationExpiryService.expire(deadline.minusSeconds(1)));
+    assertEquals(OrderStatus.PROCESSING, orderService.getCustomerOrderById(stale).getStatus());
+
+    assertEquals(1, reservationExpiryService.expire(deadline.plusSeconds(7200)));
+
+    var order = orderService.getCustomerOrderById(stale);
+    assertEquals(OrderStatus.CANCELLED, order.getStatus());
+    assertNull(order.getReservationExpiresAt());
+    assertEquals(OrderStatus.SHIPPED, orderService.getCustomerOrderById(shipped).getStatus());
+    var inventory = inventoryService.getInventoryByProductId(product);
+    assertEquals(0, inventory.getReservedQuantity());
+    assertEquals(8, inventory.getQuantity());
+  }
+
+  @Test
+  void rebuild_tracksPendingReservationsFromTheDatabase() {
+    var product = stockedProduct(5);
+    var order = orderWith(product, 1);
+    orderService.statusProcessing(order);
+
+    assertTrue(reservationExpiryService.rebuild() >= 1);
+  }
+
+  @Test
+  void sweep_expiresOverdueOrdersNoWheelFires() {
+    var product = stockedProduct(4);
+    var order = orderWith(product, 4);
+    orderService.statusProcessing(order);
+    var deadline = orderService.getCustomerOrderById(order).getReservationExpiresAt();
+
+    // within one sweep interval of the deadline the owner's wheel still has it
+    assertEquals(0, reservationExpiryService.sweep(deadline.plusSeconds(1)));
+    assertEquals(OrderStatus.PROCESSING, orderService.getCustomerOrderById(order).getStatus());
+
+    // the wheel is never advanced, as on an instance that did not reserve the order
+    assertTrue(reservationExpiryService.sweep(deadline.plusSeconds(7200)) >= 1);
+
+    assertEquals(OrderStatus.CANCELLED, orderService.getCustomerOrderById(order).getStatus());
+    assertEquals(0, inventoryService.getInventoryByProductId(product).getReservedQuantity());
+  }
+
+  private Long orderWith(Long productId, int quantity) {
+    var orderId = orderService.createOrder().getId();
+    orderService.addItem(orderId, productId, quantity);
+    return orderId;
+  }
+
+  private Long stockedProduct(int quantity) {
+    var sku = "SKU-EXP-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(0);
+    request.setClearLowQuantity(0);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+}
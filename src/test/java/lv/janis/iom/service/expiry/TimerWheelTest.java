@@ -0,0 +1,85 @@
+package lv.janis.iom.service.expiry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+
+  private static final long TICK_MS = 1000;
+
+  @Test
+  void firesOnTheTickOfItsDeadline_neverBefore() {
+    var wheel = new TimerWheel(TICK_MS, 0);
+    wheel.schedule(1L, 5_500);
+
+    assertEquals(List.of(), advance(wheel, 5_999));
+    assertEquals(List.of(1L), advance(wheel, 6_000));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void pastDeadline_firesOnNextAdvance() {
+    var wheel = new TimerWheel(TICK_MS, 10_000);
+    wheel.schedule(7L, 3_000);
+
+    assertEquals(1, wheel.size());
+    assertEquals(List.of(7L), advance(wheel, 10_000));
+  }
+
+  @Test
+  void deadlinesOnHigherLevels_cascadeDownAndFireOnTime() {
+    long topSpan = 1L << (TimerWheel.SLOT_BITS * TimerWheel.LEVELS);
+    var wheel = new TimerWheel(TICK_MS, 0);
+    wheel.schedule(1L, 100 * TICK_MS);
+    wheel.schedule(2L, 5_000 * TICK_MS);
+    wheel.schedule(3L, 300_000 * TICK_MS);
+    wheel.schedule(4L, (topSpan + 70) * TICK_MS);
+
+    assertEquals(List.of(), advance(wheel, 99 * TICK_MS));
+    assertEquals(List.of(1L), advance(wheel, 100 * TICK_MS));
+    assertEquals(List.of(), advance(wheel, 4_999 * TICK_MS));
+    assertEquals(List.of(2L), advance(wheel, 5_000 * TICK_MS));
+    assertEquals(List.of(), advance(wheel, 299_999 * TICK_MS));
+    assertEquals(List.of(3L), advance(wheel, 300_000 * TICK_MS));
+    assertEquals(List.of(), advance(wheel, (topSpan + 69) * TICK_MS));
+    assertEquals(List.of(4L), advance(wheel, (topSpan + 70) * TICK_MS));
+  }
+
+  @Test
+  void randomDeadlines_eachFiresExactlyOnce_onItsOwnTick() {
+    var random = new Random(42);
+    var wheel = new TimerWheel(TICK_MS, 0);
+    Map<Long, Long> deadlineTicks = new HashMap<>();
+    for (long id = 1; id <= 50_000; id++) {
+      long deadlineMs = 1 + (long) (random.nextDouble() * 400_000 * TICK_MS);
+      deadlineTicks.put(id, (deadlineMs + TICK_MS - 1) / TICK_MS);
+      wheel.schedule(id, deadlineMs);
+    }
+
+    var fired = new HashMap<Long, Long>();
+    for (long tick = 1; wheel.size() > 0; tick += 1 + random.nextInt(3)) {
+      long now = tick * TICK_MS;
+      wheel.advance(now, id -> assertNull(fired.put(id, now / TICK_MS), "fired twice: " + id));
+    }
+
+    assertEquals(deadlineTicks.size(), fired.size());
+    deadlineTicks.forEach((id, deadlineTick) -> {
+      long firedTick = fired.get(id);
+      assertTrue(firedTick >= deadlineTick, "early: " + id);
+      assertTrue(firedTick <= deadlineTick + 3, "late: " + id);
+    });
+  }
+
+  private static List<Long> advance(TimerWheel wheel, long nowMs) {
+    var fired = new ArrayList<Long>();
+    wheel.advance(nowMs, fired::add);
+    return fired;
+  }
+}
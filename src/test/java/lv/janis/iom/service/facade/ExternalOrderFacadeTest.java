@@ -1,11 +1,11 @@
 package lv.janis.iom.service.facade;
 
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lv.janis.iom.dto.requests.ExternalOrderCancelRequest;
 import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
 import lv.janis.iom.dto.requests.ExternalOrderItemRequest;
 import lv.janis.iom.entity.CustomerOrder;
+import lv.janis.iom.entity.OrderItem;
 import lv.janis.iom.entity.OutboxEvent;
 import lv.janis.iom.entity.Product;
 import lv.janis.iom.enums.ExternalOrderCancelResult;
@@ -23,7 +23,6 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.dao.DataIntegrityViolationException;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
@@ -48,8 +47,6 @@ class ExternalOrderFacadeTest {
   @Mock
   ProductRepository productRepository;
   @Mock
-  EntityManager entityManager;
-  @Mock
   OutboxEventRepository outboxEventRepository;
   @Mock
   OrderService orderService;
@@ -58,22 +55,26 @@ class ExternalOrderFacadeTest {
   ExternalOrderFacade facade;
 
   @Test
-  void ingest_newOrder_savesOrderAndOutboxEvent() {
+  void ingest_newOrder_insertsHeaderAddsItemsAndOutboxEvent() {
     var request = request("EXT-1", List.of(item(1L, 2)));
     var product = product(1L, "SKU-1");
+    var inserted = CustomerOrder.create();
+    setField(inserted, "id", 77L);
 
     when(customerOrderRepository.findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, "EXT-1"))
         .thenReturn(Optional.empty());
+    when(customerOrderRepository.findWithItemsBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, "EXT-1"))
+        .thenReturn(Optional.of(inserted));
     when(productRepository.findAllByIdInAndIsDeletedFalse(Set.of(1L))).thenReturn(List.of(product));
-    when(customerOrderRepository.saveAndFlush(any(CustomerOrder.class))).thenAnswer(invocation -> {
-      var saved = invocation.getArgument(0, CustomerOrder.class);
-      setField(saved, "id", 77L);
-      return saved;
-    });
+    when(customerOrderRepository.insertExternalIfAbsent(eq("WEB_SHOP"), eq("EXT-1"), eq("Addr"),
+        eq(new BigDecimal("19.98")), any())).thenReturn(1);
 
     Long id = facade.ingest(request);
 
     assertEquals(77L, id);
+    assertEquals(1, inserted.getItems().size());
+    assertEquals(2, inserted.getItems().get(0).getQuantity());
+    assertEquals(new BigDecimal("19.98"), inserted.getTotalAmount());
     var eventCaptor = ArgumentCaptor.forClass(OutboxEvent.class);
     verify(outboxEventRepository).save(eventCaptor.capture());
     OutboxEvent event = eventCaptor.getValue();
@@ -96,27 +97,50 @@ class ExternalOrderFacadeTest {
 
     assertEquals(15L, id);
     verify(productRepository, never()).findAllByIdInAndIsDeletedFalse(any());
-    verify(customerOrderRepository, never()).saveAndFlush(any(CustomerOrder.class));
+    verify(customerOrderRepository, never()).insertExternalIfAbsent(any(), any(), any(), any(), any());
     verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
   }
 
   @Test
-  void ingest_dataIntegrityViolation_returnsExistingAndDoesNotCreateOutbox() {
+  void ingest_duplicateLosingInsertRace_returnsExistingWithoutOutbox() {
     var request = request("EXT-1", List.of(item(1L, 2)));
     var product = product(1L, "SKU-1");
     var existing = CustomerOrder.create();
     setField(existing, "id", 42L);
 
     when(customerOrderRepository.findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, "EXT-1"))
-        .thenReturn(Optional.empty(), Optional.of(existing));
+        .thenReturn(Optional.empty());
+    when(customerOrderRepository.findWithItemsBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, "EXT-1"))
+        .thenReturn(Optional.of(existing));
+    when(productRepository.findAllByIdInAndIsDeletedFalse(Set.of(1L))).thenReturn(List.of(product));
+    when(customerOrderRepository.insertExternalIfAbsent(any(), any(), any(), any(), any())).thenReturn(0);
+
+    Long id = facade.ingest(request);
+
+    assertEquals(42L, id);
+    assertTrue(existing.getItems().isEmpty());
+    verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
+  }
+
+  @Test
+  void ingest_duplicateCountedAsFoundRow_returnsExistingWithoutOutbox() {
+    var request = request("EXT-1", List.of(item(1L, 2)));
+    var product = product(1L, "SKU-1");
+    var existing = CustomerOrder.create();
+    setField(existing, "id", 42L);
+    existing.addItem(OrderItem.createFor(product, 1, new BigDecimal("9.99")));
+
+    when(customerOrderRepository.findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, "EXT-1"))
+        .thenReturn(Optional.empty());
+    when(customerOrderRepository.findWithItemsBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, "EXT-1"))
+        .thenReturn(Optional.of(existing));
     when(productRepository.findAllByIdInAndIsDeletedFalse(Set.of(1L))).thenReturn(List.of(product));
-    when(customerOrderRepository.saveAndFlush(any(CustomerOrder.class)))
-        .thenThrow(new DataIntegrityViolationException("duplicate"));
+    when(customerOrderRepository.insertExternalIfAbsent(any(), any(), any(), any(), any())).thenReturn(1);
 
     Long id = facade.ingest(request);
 
     assertEquals(42L, id);
-    verify(entityManager).clear();
+    assertEquals(1, existing.getItems().size());
     verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
   }
 
@@ -0,0 +1,146 @@
+package lv.janis.iom.service.facade;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
+import lv.janis.iom.dto.requests.ExternalOrderItemRequest;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.enums.OutboxEventType;
+import lv.janis.iom.repository.CustomerOrderRepository;
+import lv.janis.iom.repository.OutboxEventRepository;
+import lv.janis.iom.repository.ProductRepository;
+
+/**
+ * Duplicate-heavy ingest workload: a handful of external orders replayed many times from
+ * several threads at once, so duplicates both hit the lookup and race on the insert.
+ * Logs the throughput; the per-call statement cost is pinned in StatementCountIntegrationTest.
+ */
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+class ExternalOrderIngestDuplicateStormIntegrationTest {
+  private static final Logger log = LoggerFactory.getLogger(ExternalOrderIngestDuplicateStormIntegrationTest.class);
+
+  private static final int THREADS = 8;
+  private static final int DISTINCT_ORDERS = 20;
+  private static final int REPLAYS_PER_ORDER = 50;
+
+  @Autowired
+  ExternalOrderFacade facade;
+  @Autowired
+  CustomerOrderRepository customerOrderRepository;
+  @Autowired
+  OutboxEventRepository outboxEventRepository;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Test
+  void replayStorm_createsEachOrderOnce_withoutFailures() throws Exception {
+    var productId = product();
+    var prefix = "EXT-STORM-" + System.nanoTime() + "-";
+    var executor = Executors.newFixedThreadPool(THREADS);
+    var start = new CountDownLatch(1);
+    var tasks = new ArrayList<Callable<Long>>();
+    for (int replay = 0; replay < REPLAYS_PER_ORDER; replay++) {
+      for (int order = 0; order < DISTINCT_ORDERS; order++) {
+        var request = request(prefix + order, productId);
+        tasks.add(() -> {
+          start.await();
+          return facade.ingest(request);
+        });
+      }
+    }
+
+    var futures = tasks.stream().map(executor::submit).toList();
+    long began = System.nanoTime();
+    start.countDown();
+    var ids = new ArrayList<Long>();
+    for (var future : futures) {
+      ids.add(future.get(30, TimeUnit.SECONDS));
+    }
+    long elapsedMicros = (System.nanoTime() - began) / 1_000;
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    log.info("Ingested {} requests ({} distinct) in {} ms, {} us/request", tasks.size(), DISTINCT_ORDERS,
+        elapsedMicros / 1_000, elapsedMicros / tasks.size());
+
+    var distinctIds = new HashSet<>(ids);
+    assertEquals(DISTINCT_ORDERS, distinctIds.size());
+    for (int order = 0; order < DISTINCT_ORDERS; order++) {
+      var saved = customerOrderRepository
+          .findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, prefix + order)
+          .orElseThrow();
+      assertTrue(distinctIds.contains(saved.getId()));
+    }
+    long ingestedEvents = outboxEventRepository.findAll().stream()
+        .filter(e -> OutboxEventType.EXTERNAL_ORDER_INGESTED.name().equals(e.getEventType()))
+        .filter(e -> distinctIds.contains(e.getAggregatedId()))
+        .count();
+    assertEquals(DISTINCT_ORDERS, ingestedEvents);
+  }
+
+  @Test
+  void insertIfAbsent_reportsDuplicateByCount() {
+    var externalOrderId = "EXT-STORM-DUP-" + System.nanoTime();
+    var now = Instant.now();
+
+    assertEquals(Integer.valueOf(1), transactionTemplate.execute(status -> customerOrderRepository.insertExternalIfAbsent(
+        "WEB_SHOP", externalOrderId, "Addr", BigDecimal.ONE, now)));
+    assertEquals(Integer.valueOf(0), transactionTemplate.execute(status -> customerOrderRepository.insertExternalIfAbsent(
+        "WEB_SHOP", externalOrderId, "Other", BigDecimal.TEN, now)));
+    assertEquals("Addr", customerOrderRepository
+        .findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, externalOrderId)
+        .orElseThrow()
+        .getShippingAddress());
+  }
+
+  private Long product() {
+    var sku = "SKU-STORM-" + System.nanoTime();
+    return productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("4.50"))).getId();
+  }
+
+  private static ExternalOrderIngestRequest request(String externalOrderId, Long productId) {
+    var item = new ExternalOrderItemRequest();
+    setField(item, "productId", productId);
+    setField(item, "quantity", 1);
+    var request = new ExternalOrderIngestRequest();
+    setField(request, "source", ExternalOrderSource.WEB_SHOP);
+    setField(request, "externalOrderId", externalOrderId);
+    setField(request, "shippingAddress", "Addr");
+    setField(request, "items", List.of(item));
+    return request;
+  }
+
+  private static void setField(Object target, String fieldName, Object value) {
+    try {
+      Field field = target.getClass().getDeclaredField(fieldName);
+      field.setAccessible(true);
+      field.set(target, value);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new IllegalStateException("Failed to set " + fieldName, e);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package lv.janis.iom.service.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import jakarta.servlet.ReadListener;
+
+class CachedBodyRequestTest {
+
+  @Test
+  void read_overLimit_returnsNull() throws IOException {
+    assertNull(CachedBodyRequest.read(request("0123456789"), 9));
+    assertNotNull(CachedBodyRequest.read(request("0123456789"), 10));
+  }
+
+  @Test
+  void readListener_getsTheWholeBody_thenAllDataRead() throws IOException {
+    var cached = CachedBodyRequest.read(request("{\"a\":1}"), 1024);
+    var input = cached.getInputStream();
+    var received = new ByteArrayOutputStream();
+    var events = new ArrayList<String>();
+
+    input.setReadListener(new ReadListener() {
+      @Override
+      public void onDataAvailable() throws IOException {
+        events.add("data");
+        var buffer = new byte[4];
+        while (input.isReady() && !input.isFinished()) {
+          int n = input.read(buffer);
+          received.write(buffer, 0, n);
+        }
+      }
+
+      @Override
+      public void onAllDataRead() {
+        events.add("done");
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        events.add("error");
+      }
+    });
+
+    assertEquals(List.of("data", "done"), events);
+    assertEquals("{\"a\":1}", received.toString(StandardCharsets.UTF_8));
+  }
+
+  private static MockHttpServletRequest request(String body) {
+    var request = new MockHttpServletRequest("POST", "/api/orders");
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    return request;
+  }
+}
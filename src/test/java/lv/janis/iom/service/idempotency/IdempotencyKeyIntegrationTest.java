@@ -0,0 +1,174 @@
+package lv.janis.iom.service.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.IdempotencyStatus;
+import lv.janis.iom.repository.IdempotencyRecordRepository;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.InventoryService;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "idempotency.max-body-bytes=4096"
+})
+@AutoConfigureMockMvc
+class IdempotencyKeyIntegrationTest {
+
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  IdempotencyRecordRepository idempotencyRecordRepository;
+  @Autowired
+  IdempotencyStore idempotencyStore;
+
+  @Test
+  void retryWithSameKey_replaysResponse_andReservesOnce() throws Exception {
+    var productId = stockedProduct(10);
+    var key = "reserve-" + System.nanoTime();
+
+    var first = mockMvc.perform(post("/api/inventory/" + productId + "/reserve")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .param("quantity", "3"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(IdempotencyKeyFilter.REPLAYED_HEADER))
+        .andReturn().getResponse().getContentAsString();
+    var second = mockMvc.perform(post("/api/inventory/" + productId + "/reserve")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .param("quantity", "3"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(IdempotencyKeyFilter.REPLAYED_HEADER, "true"))
+        .andReturn().getResponse().getContentAsString();
+
+    assertEquals(first, second);
+    assertEquals(7, inventoryService.getAvailableStock(productId));
+  }
+
+  @Test
+  void replay_keepsCreatedStatusAndLocation() throws Exception {
+    var key = "create-order-" + System.nanoTime();
+
+    var first = mockMvc.perform(post("/api/orders").header(IdempotencyKeyFilter.HEADER, key))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse();
+    mockMvc.perform(post("/api/orders").header(IdempotencyKeyFilter.HEADER, key))
+        .andExpect(status().isCreated())
+        .andExpect(header().string("Location", first.getHeader("Location")))
+        .andExpect(header().string(IdempotencyKeyFilter.REPLAYED_HEADER, "true"));
+  }
+
+  @Test
+  void sameKeyForDifferentRequest_isRejected() throws Exception {
+    var productId = stockedProduct(10);
+    var key = "reuse-" + System.nanoTime();
+    mockMvc.perform(post("/api/inventory/" + productId + "/reserve")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .param("quantity", "1"))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(post("/api/inventory/" + productId + "/reserve")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .param("quantity", "2"))
+        .andExpect(status().isUnprocessableEntity());
+
+    assertEquals(9, inventoryService.getAvailableStock(productId));
+  }
+
+  @Test
+  void clientError_isStoredAndReplayed() throws Exception {
+    var productId = stockedProduct(2);
+    var key = "retry-" + System.nanoTime();
+    mockMvc.perform(post("/api/inventory/" + productId + "/reserve")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .param("quantity", "5"))
+        .andExpect(status().isConflict());
+
+    assertTrue(idempotencyRecordRepository.findByIdempotencyKey(key).isPresent());
+    mockMvc.perform(post("/api/inventory/" + productId + "/reserve")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .param("quantity", "5"))
+        .andExpect(status().isConflict())
+        .andExpect(header().string(IdempotencyKeyFilter.REPLAYED_HEADER, "true"));
+  }
+
+  @Test
+  void withoutKey_everyRequestRuns() throws Exception {
+    var productId = stockedProduct(10);
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(post("/api/inventory/" + productId + "/reserve").param("quantity", "2"))
+          .andExpect(status().isOk());
+    }
+
+    assertEquals(6, inventoryService.getAvailableStock(productId));
+  }
+
+  @Test
+  void overlongKey_isBadRequest() throws Exception {
+    mockMvc.perform(post("/api/orders")
+        .header(IdempotencyKeyFilter.HEADER, "k".repeat(IdempotencyKeyFilter.MAX_KEY_LENGTH + 1))
+        .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void oversizedBody_isRejectedBeforeTheKeyIsTaken() throws Exception {
+    var key = "idem-" + System.nanoTime();
+    var body = "{\"note\":\"" + "x".repeat(5000) + "\"}";
+
+    mockMvc.perform(post("/api/orders")
+        .header(IdempotencyKeyFilter.HEADER, key)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(body))
+        .andExpect(status().isPayloadTooLarge());
+
+    assertTrue(idempotencyRecordRepository.findAll().stream().noneMatch(r -> r.getIdempotencyKey().equals(key)));
+  }
+
+  @Test
+  void reclaimedKey_cannotBeCompletedOrReleasedByThePreviousOwner() {
+    var key = "idem-" + System.nanoTime();
+    var first = idempotencyStore.begin(key, "fp");
+    var later = Instant.now().plusSeconds(3600);
+    // a retry takes the key over, as if the first request had stopped heartbeating
+    assertEquals(1, idempotencyRecordRepository.reclaim(key, first.token(), "retry", later, later));
+
+    idempotencyStore.complete(key, first.token(), "fp", new StoredResponse(200, null, null, "{}"));
+    idempotencyStore.release(key, first.token());
+
+    var record = idempotencyRecordRepository.findByIdempotencyKey(key).orElseThrow();
+    assertEquals(IdempotencyStatus.IN_PROGRESS, record.getStatus());
+    assertEquals("retry", record.getOwnerToken());
+    assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, idempotencyStore.begin(key, "fp").outcome());
+  }
+
+  private Long stockedProduct(int quantity) {
+    var sku = "SKU-IDEM-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(0);
+    request.setClearLowQuantity(0);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+}
@@ -0,0 +1,151 @@
+package lv.janis.iom.service.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import lv.janis.iom.config.IdempotencyProperties;
+import lv.janis.iom.entity.IdempotencyRecord;
+import lv.janis.iom.enums.IdempotencyStatus;
+import lv.janis.iom.repository.IdempotencyRecordRepository;
+import lv.janis.iom.service.idempotency.IdempotencyStore.Outcome;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+  @Mock
+  IdempotencyRecordRepository repository;
+
+  IdempotencyStore store;
+
+  @BeforeEach
+  void setUp() {
+    var properties = new IdempotencyProperties();
+    properties.setCacheSize(2);
+    store = new IdempotencyStore(repository, properties);
+  }
+
+  @Test
+  void begin_newKey_acquires() {
+    assertEquals(Outcome.ACQUIRED, store.begin("k1", "fp").outcome());
+    verify(repository).saveAndFlush(any(IdempotencyRecord.class));
+  }
+
+  @Test
+  void begin_completedInThisProcess_replaysFromCache() {
+    var response = new StoredResponse(200, "application/json", null, "{}");
+    when(repository.complete(eq("k1"), eq("t1"), eq(200), any(), any(), any(), any())).thenReturn(1);
+    store.complete("k1", "t1", "fp", response);
+
+    var claim = store.begin("k1", "fp");
+
+    assertEquals(Outcome.REPLAY, claim.outcome());
+    assertEquals(response, claim.response());
+    verify(repository, never()).saveAndFlush(any());
+  }
+
+  @Test
+  void begin_cachedKeyWithOtherFingerprint_isReused() {
+    when(repository.complete(eq("k1"), eq("t1"), eq(200), any(), any(), any(), any())).thenReturn(1);
+    store.complete("k1", "t1", "fp", new StoredResponse(200, null, null, ""));
+
+    assertEquals(Outcome.KEY_REUSED, store.begin("k1", "other").outcome());
+  }
+
+  @Test
+  void begin_completedInTable_replaysStoredResponse() throws Exception {
+    var record = IdempotencyRecord.inProgress("k1", "fp", "t1");
+    set(record, "status", IdempotencyStatus.COMPLETED);
+    set(record, "responseStatus", 201);
+    set(record, "responseLocation", "/api/orders/5");
+    set(record, "responseBody", "{\"id\":5}");
+    when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+    when(repository.findByIdempotencyKey("k1")).thenReturn(Optional.of(record));
+
+    var claim = store.begin("k1", "fp");
+
+    assertEquals(Outcome.REPLAY, claim.outcome());
+    assertEquals(new StoredResponse(201, null, "/api/orders/5", "{\"id\":5}"), claim.response());
+  }
+
+  @Test
+  void begin_heldByAnotherRequest_isInProgress() {
+    when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+    when(repository.findByIdempotencyKey("k1")).thenReturn(Optional.of(IdempotencyRecord.inProgress("k1", "fp", "t1")));
+    when(repository.reclaim(eq("k1"), eq("t1"), any(), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+    assertEquals(Outcome.IN_PROGRESS, store.begin("k1", "fp").outcome());
+  }
+
+  @Test
+  void begin_staleInProgress_isReclaimed() {
+    when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+    when(repository.findByIdempotencyKey("k1")).thenReturn(Optional.of(IdempotencyRecord.inProgress("k1", "fp", "t1")));
+    when(repository.reclaim(eq("k1"), eq("t1"), any(), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+    var claim = store.begin("k1", "fp");
+
+    assertEquals(Outcome.ACQUIRED, claim.outcome());
+    verify(repository).reclaim(eq("k1"), eq("t1"), eq(claim.token()), any(Instant.class), any(Instant.class));
+  }
+
+  @Test
+  void complete_afterKeyWasReclaimed_isNotCached() {
+    var claim = store.begin("k1", "fp");
+    when(repository.complete(eq("k1"), eq(claim.token()), anyInt(), any(), any(), any(), any())).thenReturn(0);
+
+    store.complete("k1", claim.token(), "fp", new StoredResponse(200, null, null, ""));
+
+    assertEquals(Outcome.ACQUIRED, store.begin("k1", "fp").outcome());
+    verify(repository, times(2)).saveAndFlush(any());
+  }
+
+  @Test
+  void heartbeat_refreshesOnlyRunningClaims() {
+    var running = store.begin("k1", "fp");
+    var done = store.begin("k2", "fp");
+    store.release("k2", done.token());
+
+    store.heartbeat();
+
+    verify(repository).heartbeat(eq(Set.of("k1")),
+        argThat(owners -> List.copyOf(owners).equals(List.of(running.token()))), any(Instant.class));
+  }
+
+  @Test
+  void heartbeat_withNothingRunning_skipsQuery() {
+    store.heartbeat();
+
+    verify(repository, never()).heartbeat(any(), any(), any());
+  }
+
+  @Test
+  void cache_evictsLeastRecentlyUsed() {
+    when(repository.complete(any(), any(), anyInt(), any(), any(), any(), any())).thenReturn(1);
+    for (var key : new String[] { "a", "b", "c" }) {
+      store.complete(key, "t-" + key, "fp", new StoredResponse(200, null, null, ""));
+    }
+
+    assertEquals(Outcome.REPLAY, store.begin("c", "fp").outcome());
+    assertEquals(Outcome.ACQUIRED, store.begin("a", "fp").outcome());
+  }
+
+  private static void set(Object target, String field, Object value) throws Exception {
+    Field f = target.getClass().getDeclaredField(field);
+    f.setAccessible(true);
+    f.set(target, value);
+  }
+}
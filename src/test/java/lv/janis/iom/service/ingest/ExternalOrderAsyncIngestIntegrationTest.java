@@ -0,0 +1,270 @@
+package lv.janis.iom.service.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import lv.janis.iom.config.ExternalOrderIngestProperties;
+import lv.janis.iom.dto.requests.ExternalOrderIngestRequest;
+import lv.janis.iom.dto.requests.ExternalOrderItemRequest;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse;
+import lv.janis.iom.dto.response.ExternalOrderIngestStatusResponse.State;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.ExternalOrderSource;
+import lv.janis.iom.enums.OutboxEventType;
+import lv.janis.iom.repository.CustomerOrderRepository;
+import lv.janis.iom.repository.ExternalOrderIngestResultRepository;
+import lv.janis.iom.repository.OutboxEventRepository;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.facade.ExternalOrderFacade;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:asyncingestdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "external-order.ingest.mode=async",
+    "external-order.ingest.journal-path=target/async-ingest-test/ingest.journal",
+    "external-order.ingest.batch-size=8"
+})
+class ExternalOrderAsyncIngestIntegrationTest {
+
+  @Autowired
+  ExternalOrderIngestService ingestService;
+  @Autowired
+  ExternalOrderFacade externalOrderFacade;
+  @Autowired
+  ExternalOrderIngestResultRepository resultRepository;
+  @Autowired
+  ExternalOrderIngestProperties properties;
+  @Autowired
+  CustomerOrderRepository customerOrderRepository;
+  @Autowired
+  OutboxEventRepository outboxEventRepository;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void accepted_ordersArePersistedInBatches_andBadOnesRejected() throws Exception {
+    var productId = product();
+    var prefix = "EXT-ASYNC-" + System.nanoTime() + "-";
+    var accepted = new ArrayList<ExternalOrderIngestStatusResponse>();
+    for (int i = 0; i < 25; i++) {
+      accepted.add(ingestService.accept(request(prefix + i, productId)));
+    }
+    var duplicate = ingestService.accept(request(prefix + 0, productId));
+    var missingProduct = ingestService.accept(request(prefix + "missing", Long.MAX_VALUE));
+
+    assertTrue(accepted.stream().allMatch(status -> status.state() == State.ACCEPTED));
+
+    var orderIds = new ArrayList<Long>();
+    for (var status : accepted) {
+      var finished = awaitFinished(status.trackingId());
+      assertEquals(State.PERSISTED, finished.state());
+      orderIds.add(finished.orderId());
+    }
+    assertEquals(orderIds.get(0), awaitFinished(duplicate.trackingId()).orderId());
+    var rejected = awaitFinished(missingProduct.trackingId());
+    assertEquals(State.REJECTED, rejected.state());
+    assertTrue(rejected.message().contains("Products not found"));
+
+    for (int i = 0; i < 25; i++) {
+      assertEquals(orderIds.get(i), customerOrderRepository
+          .findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, prefix + i)
+          .orElseThrow()
+          .getId());
+    }
+    long ingestedEvents = outboxEventRepository.findAll().stream()
+        .filter(e -> OutboxEventType.EXTERNAL_ORDER_INGESTED.name().equals(e.getEventType()))
+        .filter(e -> orderIds.contains(e.getAggregatedId()))
+        .count();
+    assertEquals(25, ingestedEvents);
+    assertTrue(customerOrderRepository
+        .findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, prefix + "missing")
+        .isEmpty());
+
+    var journal = Path.of(properties.getJournalPath());
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (Files.size(journal) > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    assertEquals(0, Files.size(journal));
+  }
+
+  @Test
+  void start_replaysJournaledRequestsBeforeAccepting() throws IOException {
+    var productId = product();
+    var externalOrderId = "EXT-REPLAY-" + System.nanoTime();
+    var trackingId = UUID.randomUUID();
+    var journalPath = dir.resolve("replay.journal");
+    try (var journal = IngestJournal.open(journalPath)) {
+      var entry = new ExternalOrderIngestService.JournaledIngest(trackingId, Instant.now(),
+          request(externalOrderId, productId));
+      long seq = journal.append(objectMapper.writeValueAsBytes(entry), appended -> {
+      });
+      // the same request journaled twice, as after a client retry
+      journal.append(objectMapper.writeValueAsBytes(
+          new ExternalOrderIngestService.JournaledIngest(UUID.randomUUID(), Instant.now(),
+              request(externalOrderId, productId))), appended -> {
+          });
+      journal.sync(seq + 1);
+    }
+
+    var replayProperties = new ExternalOrderIngestProperties();
+    replayProperties.setMode(ExternalOrderIngestProperties.Mode.ASYNC);
+    replayProperties.setJournalPath(journalPath.toString());
+    var service = new ExternalOrderIngestService(externalOrderFacade, resultRepository, replayProperties,
+        transactionTemplate, objectMapper);
+    service.start();
+    try {
+      var order = customerOrderRepository
+          .findBySourceAndExternalOrderId(ExternalOrderSource.WEB_SHOP, externalOrderId)
+          .orElseThrow();
+      assertEquals(State.PERSISTED, service.getStatus(trackingId).state());
+      assertEquals(order.getId(), service.getStatus(trackingId).orderId());
+      assertEquals(0, Files.size(journalPath));
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  @Test
+  void outcomes_outliveTheCompactedJournal_andARestart() throws Exception {
+    var productId = product();
+    var outcomeProperties = new ExternalOrderIngestProperties();
+    outcomeProperties.setMode(ExternalOrderIngestProperties.Mode.ASYNC);
+    outcomeProperties.setJournalPath(dir.resolve("outcome.journal").toString());
+    var service = new ExternalOrderIngestService(externalOrderFacade, resultRepository, outcomeProperties,
+        transactionTemplate, objectMapper);
+    service.start();
+    UUID persistedId;
+    UUID rejectedId;
+    try {
+      persistedId = service.accept(request("EXT-OUTCOME-" + System.nanoTime(), productId)).trackingId();
+      rejectedId = service.accept(request("EXT-OUTCOME-missing-" + System.nanoTime(), Long.MAX_VALUE)).trackingId();
+      awaitFinished(service, persistedId);
+      awaitFinished(service, rejectedId);
+    } finally {
+      service.shutdown();
+    }
+    assertEquals(0, Files.size(dir.resolve("outcome.journal")));
+
+    var restarted = new ExternalOrderIngestService(externalOrderFacade, resultRepository, outcomeProperties,
+        transactionTemplate, objectMapper);
+    restarted.start();
+    try {
+      var persisted = restarted.getStatus(persistedId);
+      assertEquals(State.PERSISTED, persisted.state());
+      assertNotNull(persisted.orderId());
+      var rejected = restarted.getStatus(rejectedId);
+      assertEquals(State.REJECTED, rejected.state());
+      assertTrue(rejected.message().contains("Products not found"), rejected.message());
+      assertThrows(EntityNotFoundException.class, () -> restarted.getStatus(UUID.randomUUID()));
+    } finally {
+      restarted.shutdown();
+    }
+  }
+
+  @Test
+  void failureEscapingTheWriter_rejectsTheBatch_andFreesItsBufferSlots() throws Exception {
+    var facade = mock(ExternalOrderFacade.class);
+    when(facade.ingest(any())).thenThrow(new IllegalStateException() {
+      @Override
+      public String getMessage() {
+        throw new IllegalArgumentException("message unavailable");
+      }
+    });
+    var failingProperties = new ExternalOrderIngestProperties();
+    failingProperties.setMode(ExternalOrderIngestProperties.Mode.ASYNC);
+    failingProperties.setJournalPath(dir.resolve("failing.journal").toString());
+    failingProperties.setBufferCapacity(1);
+    var service = new ExternalOrderIngestService(facade, resultRepository, failingProperties, transactionTemplate,
+        objectMapper);
+    service.start();
+    try {
+      for (int i = 0; i < 3; i++) {
+        var accepted = service.accept(request("EXT-ESCAPE-" + i + "-" + System.nanoTime(), 1L));
+        var status = awaitFinished(service, accepted.trackingId());
+        assertEquals(State.REJECTED, status.state());
+        assertTrue(status.message().contains("message unavailable"), status.message());
+      }
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (Files.size(dir.resolve("failing.journal")) > 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals(0, Files.size(dir.resolve("failing.journal")));
+    } finally {
+      service.shutdown();
+    }
+  }
+
+  private ExternalOrderIngestStatusResponse awaitFinished(UUID trackingId) throws InterruptedException {
+    return awaitFinished(ingestService, trackingId);
+  }
+
+  private static ExternalOrderIngestStatusResponse awaitFinished(ExternalOrderIngestService service, UUID trackingId)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    var status = service.getStatus(trackingId);
+    while (status.state() == State.ACCEPTED && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      status = service.getStatus(trackingId);
+    }
+    return status;
+  }
+
+  private Long product() {
+    var sku = "SKU-ASYNC-" + System.nanoTime();
+    return productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00"))).getId();
+  }
+
+  private static ExternalOrderIngestRequest request(String externalOrderId, Long productId) {
+    var item = new ExternalOrderItemRequest();
+    setField(item, "productId", productId);
+    setField(item, "quantity", 2);
+    var request = new ExternalOrderIngestRequest();
+    setField(request, "source", ExternalOrderSource.WEB_SHOP);
+    setField(request, "externalOrderId", externalOrderId);
+    setField(request, "shippingAddress", "Addr");
+    setField(request, "items", List.of(item));
+    return request;
+  }
+
+  private static void setField(Object target, String fieldName, Object value) {
+    try {
+      Field field = target.getClass().getDeclaredField(fieldName);
+      field.setAccessible(true);
+      field.set(target, value);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new IllegalStateException("Failed to set " + fieldName, e);
+    }
+  }
+}
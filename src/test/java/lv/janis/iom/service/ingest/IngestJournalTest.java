@@ -0,0 +1,154 @@
+package lv.janis.iom.service.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IngestJournalTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void reopen_returnsSyncedRecordsInOrder() throws IOException {
+    var path = dir.resolve("ingest.journal");
+    try (var journal = IngestJournal.open(path)) {
+      journal.append(bytes("first"), seq -> {
+      });
+      long last = journal.append(bytes("second, a little longer"), seq -> {
+      });
+      journal.sync(last);
+    }
+
+    try (var journal = IngestJournal.open(path)) {
+      assertEquals(List.of("first", "second, a little longer"), payloads(journal));
+      assertEquals(List.of(1L, 2L), journal.recovered().stream().map(IngestJournal.Record::seq).toList());
+      assertEquals(2, journal.lastSeq());
+    }
+  }
+
+  @Test
+  void open_dropsTornTail() throws IOException {
+    var path = dir.resolve("ingest.journal");
+    long firstRecordBytes;
+    try (var journal = IngestJournal.open(path)) {
+      journal.append(bytes("kept"), seq -> {
+      });
+      firstRecordBytes = Files.size(path);
+      journal.append(bytes("torn"), seq -> {
+      });
+    }
+    try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.setLength(firstRecordBytes + IngestJournal.HEADER_BYTES + 2);
+    }
+
+    try (var journal = IngestJournal.open(path)) {
+      assertEquals(List.of("kept"), payloads(journal));
+      assertEquals(firstRecordBytes, Files.size(path));
+      assertEquals(2, journal.append(bytes("next"), seq -> {
+      }));
+    }
+  }
+
+  @Test
+  void open_stopsAtCorruptRecord() throws IOException {
+    var path = dir.resolve("ingest.journal");
+    long firstRecordBytes;
+    try (var journal = IngestJournal.open(path)) {
+      journal.append(bytes("one"), seq -> {
+      });
+      firstRecordBytes = Files.size(path);
+      journal.append(bytes("two"), seq -> {
+      });
+      journal.append(bytes("three"), seq -> {
+      });
+    }
+    try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+      // flip a byte inside the second record's payload
+      file.seek(firstRecordBytes + IngestJournal.HEADER_BYTES + 1);
+      file.write('X');
+    }
+
+    try (var journal = IngestJournal.open(path)) {
+      assertEquals(List.of("one"), payloads(journal));
+      assertEquals(firstRecordBytes, Files.size(path));
+    }
+  }
+
+  @Test
+  void compact_emptiesTheFileOnceEverythingIsPersisted_andSequencesKeepCounting() throws IOException {
+    var path = dir.resolve("ingest.journal");
+    try (var journal = IngestJournal.open(path)) {
+      journal.append(bytes("one"), seq -> {
+      });
+      journal.append(bytes("two"), seq -> {
+      });
+
+      journal.compact(0, 0);
+      journal.compact(1, Long.MAX_VALUE);
+      assertTrue(Files.size(path) > 0);
+      journal.compact(2, Long.MAX_VALUE);
+      assertEquals(0, Files.size(path));
+      assertEquals(3, journal.append(bytes("after"), seq -> {
+      }));
+    }
+  }
+
+  @Test
+  void compact_copiesTheUnpersistedTail_onceThePrefixIsLargeEnough() throws IOException {
+    var path = dir.resolve("ingest.journal");
+    try (var journal = IngestJournal.open(path)) {
+      journal.append(bytes("persisted one"), seq -> {
+      });
+      journal.append(bytes("persisted two"), seq -> {
+      });
+      long full = Files.size(path);
+      journal.append(bytes("pending"), seq -> {
+      });
+
+      journal.compact(1, full);
+      assertTrue(Files.size(path) > full);
+      journal.compact(2, full);
+      assertTrue(Files.size(path) < full);
+
+      long last = journal.append(bytes("appended after the copy"), seq -> {
+      });
+      journal.sync(last);
+      // offsets keep working across the copy
+      journal.compact(3, 1);
+    }
+
+    try (var journal = IngestJournal.open(path)) {
+      assertEquals(List.of("appended after the copy"), payloads(journal));
+      assertEquals(4, journal.lastSeq());
+      assertFalse(Files.exists(dir.resolve("ingest.journal.compact")));
+    }
+  }
+
+  @Test
+  void append_rejectsOversizedPayload() throws IOException {
+    try (var journal = IngestJournal.open(dir.resolve("ingest.journal"))) {
+      assertThrows(IllegalArgumentException.class,
+          () -> journal.append(new byte[IngestJournal.MAX_PAYLOAD_BYTES + 1], seq -> {
+          }));
+    }
+  }
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static List<String> payloads(IngestJournal journal) {
+    return journal.recovered().stream()
+        .map(record -> new String(record.payload(), StandardCharsets.UTF_8))
+        .toList();
+  }
+}
@@ -0,0 +1,117 @@
+package lv.janis.iom.service.lease;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import lv.janis.iom.config.SchedulerLeaseProperties;
+import lv.janis.iom.repository.SchedulerLeaseRepository;
+import lv.janis.iom.service.lease.SchedulerLeases.Lease;
+
+// Several nodes are simulated by separate SchedulerLeases instances sharing one database
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:schedulerleasedb;DB_CLOSE_DELAY=-1;MODE=MySQL"
+})
+class SchedulerLeasesIntegrationTest {
+
+  @Autowired
+  SchedulerLeaseRepository schedulerLeaseRepository;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Test
+  void partition_isHeldByOneNode_andTheNextOwnerGetsAHigherToken() {
+    var a = node("owner-a", 60_000);
+    var b = node("owner-b", 60_000);
+
+    var first = a.partitions("owner-job", 1).get(0);
+    assertTrue(b.partitions("owner-job", 1).isEmpty());
+    assertEquals(first, a.partitions("owner-job", 1).get(0));
+
+    a.releaseAll();
+    var second = b.partitions("owner-job", 1).get(0);
+
+    assertTrue(second.fencingToken() > first.fencingToken());
+    assertTrue(a.partitions("owner-job", 1).isEmpty());
+  }
+
+  @Test
+  void expiredLease_isTakenOver_andTheOldOwnerStandsDown() throws InterruptedException {
+    var paused = node("expiry-a", 200);
+    var successor = node("expiry-b", 60_000);
+    var first = paused.partitions("expiry-job", 1).get(0);
+
+    Thread.sleep(300);
+
+    var second = successor.partitions("expiry-job", 1).get(0);
+    assertEquals(first.fencingToken() + 1, second.fencingToken());
+    assertTrue(paused.partitions("expiry-job", 1).isEmpty());
+  }
+
+  @Test
+  void confirm_dropsPartitionsTakenOverWhileCached() throws InterruptedException {
+    var paused = node("confirm-a", 200);
+    var successor = node("confirm-b", 60_000);
+    var cached = paused.partitions("confirm-job", 1);
+    assertEquals(Set.of(0), paused.confirm(cached));
+
+    Thread.sleep(300);
+    successor.partitions("confirm-job", 1);
+
+    assertTrue(paused.confirm(cached).isEmpty());
+  }
+
+  @Test
+  void partitions_spreadAcrossNodes_andComeBackWhenANodeLeaves() {
+    var a = node("partition-a", 60_000);
+    var b = node("partition-b", 60_000);
+
+    assertEquals(8, a.partitions("partition-job", 8).size());
+    // b registers but every partition is still held by a
+    assertEquals(0, b.partitions("partition-job", 8).size());
+
+    var ofA = a.partitions("partition-job", 8);
+    var ofB = b.partitions("partition-job", 8);
+    assertEquals(4, ofA.size());
+    assertEquals(4, ofB.size());
+    var union = new HashSet<>(ofA.keySet());
+    union.addAll(ofB.keySet());
+    assertEquals(Set.of(0, 1, 2, 3, 4, 5, 6, 7), union);
+    assertTrue(ofB.values().stream().allMatch(Lease::isFenced));
+
+    b.releaseAll();
+    assertEquals(8, a.partitions("partition-job", 8).size());
+  }
+
+  @Test
+  void disabled_ownsEverythingUnfenced() {
+    var properties = new SchedulerLeaseProperties();
+    properties.setEnabled(false);
+    var leases = new SchedulerLeases(properties, schedulerLeaseRepository, transactionManager);
+
+    Map<Integer, Lease> partitions = leases.partitions("disabled-job", 4);
+
+    assertEquals(4, partitions.size());
+    assertTrue(partitions.values().stream().noneMatch(Lease::isFenced));
+    assertTrue(schedulerLeaseRepository.findByNameStartingWith("disabled-job").isEmpty());
+  }
+
+  private SchedulerLeases node(String nodeId, long ttlMs) {
+    var properties = new SchedulerLeaseProperties();
+    properties.setNodeId(nodeId);
+    properties.setTtlMs(ttlMs);
+    // every call goes to the database
+    properties.setRenewIntervalMs(0);
+    return new SchedulerLeases(properties, schedulerLeaseRepository, transactionManager);
+  }
+}
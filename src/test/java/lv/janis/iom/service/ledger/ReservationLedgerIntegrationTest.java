@@ -0,0 +1,263 @@
+package lv.janis.iom.service.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.enums.FailureCode;
+import lv.janis.iom.exception.BusinessException;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.repository.ReservationLedgerCommitRepository;
+import lv.janis.iom.service.InventoryService;
+import lv.janis.iom.service.OrderService;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:ledgerdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "inventory.reservation-ledger.enabled=true",
+    "inventory.reservation-ledger.flush-interval-ms=3600000"
+})
+class ReservationLedgerIntegrationTest {
+
+  private static final Path WAL_PATH = createWalPath();
+
+  @DynamicPropertySource
+  static void ledgerProperties(DynamicPropertyRegistry registry) {
+    registry.add("inventory.reservation-ledger.wal-path", WAL_PATH::toString);
+  }
+
+  @Autowired
+  ReservationLedger ledger;
+  @Autowired
+  ReservationLedgerFlusher flusher;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  OrderService orderService;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  ReservationLedgerCommitRepository commitRepository;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Test
+  void reserve_countsInMemory_andFlushWritesRow() {
+    var productId = stockedProduct(10);
+
+    inventoryService.reserveStock(productId, 4);
+
+    assertEquals(6, inventoryService.getAvailableStock(productId));
+    assertEquals(0, inventoryService.getInventoryByProductId(productId).getReservedQuantity());
+
+    flusher.flushBatch();
+
+    var inventory = inventoryService.getInventoryByProductId(productId);
+    assertEquals(4, inventory.getReservedQuantity());
+    assertEquals(6, inventory.getAvailableQuantity());
+    assertTrue(inventory.getLedgerSeq() > 0);
+  }
+
+  @Test
+  void reserve_beyondCounter_isOutOfStock() {
+    var productId = stockedProduct(3);
+    inventoryService.reserveStock(productId, 2);
+
+    var ex = assertThrows(BusinessException.class, () -> inventoryService.reserveStock(productId, 2));
+
+    assertEquals(FailureCode.OUT_OF_STOCK, ex.getCode());
+    assertEquals(1, inventoryService.getAvailableStock(productId));
+  }
+
+  @Test
+  void rolledBackOrder_givesReservationBack() {
+    var plenty = stockedProduct(10);
+    var scarce = stockedProduct(1);
+    var order = orderService.createOrder();
+    orderService.addItem(order.getId(), plenty, 5);
+    orderService.addItem(order.getId(), scarce, 2);
+
+    assertThrows(BusinessException.class, () -> orderService.statusProcessing(order.getId()));
+
+    assertEquals(10, inventoryService.getAvailableStock(plenty));
+    flusher.flushBatch();
+    assertEquals(0, inventoryService.getInventoryByProductId(plenty).getReservedQuantity());
+  }
+
+  @Test
+  void stockChanges_foldPendingReservationsIntoRow() {
+    var productId = stockedProduct(10);
+    inventoryService.reserveStock(productId, 3);
+
+    var afterFulfill = inventoryService.fulfillReservedQuantity(productId, 3);
+    inventoryService.addStock(productId, 5);
+
+    assertEquals(7, afterFulfill.getQuantity());
+    assertEquals(0, afterFulfill.getReservedQuantity());
+    assertEquals(12, inventoryService.getAvailableStock(productId));
+    assertThrows(IllegalArgumentException.class, () -> inventoryService.reduceStock(productId, 13));
+    assertEquals(12, inventoryService.getAvailableStock(productId));
+  }
+
+  @Test
+  void crash_beforeFlush_isRecoveredFromLog_andReplayIsIdempotent() throws IOException {
+    var productId = stockedProduct(10);
+    inventoryService.reserveStock(productId, 4);
+    inventoryService.reserveStock(productId, 1);
+    byte[] logBeforeCrash = Files.readAllBytes(WAL_PATH);
+    var markersBeforeCrash = commitRepository.findAll();
+
+    crash();
+    assertEquals(0, inventoryService.getInventoryByProductId(productId).getReservedQuantity());
+    flusher.recover();
+
+    var recovered = inventoryService.getInventoryByProductId(productId);
+    assertEquals(5, recovered.getReservedQuantity());
+    assertEquals(0, Files.size(WAL_PATH));
+
+    // the same records again, as if the process died after the flush but before truncation
+    crash();
+    Files.write(WAL_PATH, logBeforeCrash);
+    commitRepository.saveAll(markersBeforeCrash);
+    flusher.recover();
+
+    assertEquals(5, inventoryService.getInventoryByProductId(productId).getReservedQuantity());
+    inventoryService.reserveStock(productId, 5);
+    assertThrows(BusinessException.class, () -> inventoryService.reserveStock(productId, 1));
+  }
+
+  @Test
+  void crash_beforeCommit_doesNotReplayLoggedReservation() throws IOException {
+    var productId = stockedProduct(10);
+    inventoryService.reserveStock(productId, 2);
+    long logSizeBefore = Files.size(WAL_PATH);
+
+    // the ledger has logged and synced the reservation when the process dies before the commit
+    assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+      inventoryService.reserveStock(productId, 4);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+          crash();
+          throw new IllegalStateException("process died");
+        }
+      });
+    }));
+    assertTrue(Files.size(WAL_PATH) > logSizeBefore);
+    flusher.recover();
+
+    var recovered = inventoryService.getInventoryByProductId(productId);
+    assertEquals(2, recovered.getReservedQuantity());
+    assertEquals(8, inventoryService.getAvailableStock(productId));
+  }
+
+  @Test
+  void crash_afterCommit_isRecoveredFromLog() {
+    var productId = stockedProduct(10);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      // registered first so it runs before the ledger marks the reservation committed
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public int getOrder() {
+          return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+          crash();
+        }
+      });
+      inventoryService.reserveStock(productId, 4);
+    });
+    assertEquals(0, inventoryService.getInventoryByProductId(productId).getReservedQuantity());
+    flusher.recover();
+
+    var recovered = inventoryService.getInventoryByProductId(productId);
+    assertEquals(4, recovered.getReservedQuantity());
+    assertEquals(6, inventoryService.getAvailableStock(productId));
+    assertEquals(0, commitRepository.count());
+  }
+
+  @Test
+  void concurrentReservations_neverOversell() throws Exception {
+    var productId = stockedProduct(60);
+    var executor = Executors.newFixedThreadPool(8);
+    var tasks = new ArrayList<Callable<Boolean>>();
+    for (int i = 0; i < 80; i++) {
+      tasks.add(() -> {
+        try {
+          inventoryService.reserveStock(productId, 1);
+          return true;
+        } catch (BusinessException ex) {
+          return false;
+        }
+      });
+    }
+
+    int reserved = 0;
+    for (var result : executor.invokeAll(tasks)) {
+      if (result.get()) {
+        reserved++;
+      }
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    flusher.flushBatch();
+
+    var inventory = inventoryService.getInventoryByProductId(productId);
+    assertEquals(60, reserved);
+    assertEquals(60, inventory.getReservedQuantity());
+    assertEquals(0, inventory.getAvailableQuantity());
+  }
+
+  // Loses every in-memory counter and pending record without flushing them
+  private void crash() {
+    try {
+      ledger.detach().close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Long stockedProduct(int quantity) {
+    var sku = "SKU-LEDGER-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(0);
+    request.setClearLowQuantity(0);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+
+  private static Path createWalPath() {
+    try {
+      return Files.createTempDirectory("reservation-ledger").resolve("reservation-ledger.wal");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package lv.janis.iom.service.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReservationWalTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void reopen_returnsSyncedRecordsInOrder() throws IOException {
+    var path = dir.resolve("ledger.wal");
+    try (var wal = ReservationWal.open(path, 0)) {
+      append(wal, 1L, 3);
+      long last = append(wal, 2L, -1);
+      wal.sync(last);
+    }
+
+    try (var wal = ReservationWal.open(path, 0)) {
+      assertEquals(List.of(new ReservationWal.Record(1, 1L, 3), new ReservationWal.Record(2, 2L, -1)),
+          wal.recovered());
+      assertEquals(2, wal.lastSeq());
+    }
+  }
+
+  @Test
+  void open_dropsTornTail() throws IOException {
+    var path = dir.resolve("ledger.wal");
+    try (var wal = ReservationWal.open(path, 0)) {
+      append(wal, 1L, 5);
+      append(wal, 1L, 2);
+    }
+    try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.setLength(ReservationWal.RECORD_BYTES + 7);
+    }
+
+    try (var wal = ReservationWal.open(path, 0)) {
+      assertEquals(List.of(new ReservationWal.Record(1, 1L, 5)), wal.recovered());
+      assertEquals(ReservationWal.RECORD_BYTES, Files.size(path));
+      assertEquals(2, append(wal, 1L, 1));
+    }
+  }
+
+  @Test
+  void open_stopsAtCorruptRecord() throws IOException {
+    var path = dir.resolve("ledger.wal");
+    try (var wal = ReservationWal.open(path, 0)) {
+      for (int i = 0; i < 3; i++) {
+        append(wal, 7L, 1);
+      }
+    }
+    try (var file = new RandomAccessFile(path.toFile(), "rw")) {
+      // flip a byte inside the second record's delta
+      file.seek(ReservationWal.RECORD_BYTES + 16);
+      file.write(0x7f);
+    }
+
+    try (var wal = ReservationWal.open(path, 0)) {
+      assertEquals(1, wal.recovered().size());
+      assertEquals(ReservationWal.RECORD_BYTES, Files.size(path));
+    }
+  }
+
+  @Test
+  void sequencesContinueAfterAppliedSequence_andTruncateOnlyWhenCaughtUp() throws IOException {
+    var path = dir.resolve("ledger.wal");
+    try (var wal = ReservationWal.open(path, 41)) {
+      assertEquals(42, append(wal, 3L, 1));
+
+      assertFalse(wal.truncateIfCaughtUp(() -> false));
+      assertEquals(ReservationWal.RECORD_BYTES, Files.size(path));
+      assertTrue(wal.truncateIfCaughtUp(() -> true));
+      assertEquals(0, Files.size(path));
+      assertEquals(43, append(wal, 3L, 1));
+    }
+  }
+
+  private static long append(ReservationWal wal, long productId, int delta) {
+    return wal.append(List.of(new ReservationWal.Delta(productId, delta)), record -> {
+    });
+  }
+}
@@ -6,6 +6,7 @@ import lv.janis.iom.enums.FailureCode;
 import lv.janis.iom.enums.OutboxEventType;
 import lv.janis.iom.exception.BusinessException;
 import lv.janis.iom.service.OrderService;
+import lv.janis.iom.enums.OrderTransition;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -41,7 +42,7 @@ class ExternalOrderOutboxHandlerTest {
   void handle_nonCreatedOrder_noop() {
     OutboxEvent event = OutboxEvent.pending(OutboxEventType.EXTERNAL_ORDER_INGESTED, 11L, "{\"orderId\":11}");
     CustomerOrder order = CustomerOrder.create();
-    order.markProcessing();
+    order.apply(OrderTransition.PROCESSING);
     when(orderService.getCustomerOrderById(11L)).thenReturn(order);
 
     handler.handle(event);
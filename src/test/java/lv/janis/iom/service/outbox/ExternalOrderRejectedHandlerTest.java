@@ -15,6 +15,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import lv.janis.iom.entity.CustomerOrder;
 import lv.janis.iom.entity.OutboxEvent;
 import lv.janis.iom.enums.OrderStatus;
+import lv.janis.iom.enums.OrderTransition;
 import lv.janis.iom.enums.OutboxEventType;
 import lv.janis.iom.service.OrderService;
 import lv.janis.iom.service.webhook.ExternalOrderWebhookSender;
@@ -46,7 +47,7 @@ class ExternalOrderRejectedHandlerTest {
   void handle_nonRejectedOrder_noop() {
     OutboxEvent event = OutboxEvent.pending(OutboxEventType.EXTERNAL_ORDER_REJECTED, 16L, "{\"orderId\":16}");
     CustomerOrder order = CustomerOrder.create();
-    order.markProcessing();
+    order.apply(OrderTransition.PROCESSING);
     when(orderService.getCustomerOrderById(16L)).thenReturn(order);
 
     handler.handle(event);
@@ -7,6 +7,8 @@ import lv.janis.iom.enums.OutboxEventType;
 import lv.janis.iom.exception.BusinessException;
 import lv.janis.iom.repository.OutboxEventRepository;
 import lv.janis.iom.service.OrderService;
+import lv.janis.iom.service.lease.SchedulerLeases;
+import lv.janis.iom.service.lease.SchedulerLeases.Lease;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -15,7 +17,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -30,6 +34,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,6 +46,8 @@ class OutboxDispatcherTest {
   OutboxHandlerRegistry outboxHandlerRegistry;
   @Mock
   OrderService orderService;
+  @Mock
+  SchedulerLeases schedulerLeases;
 
   @InjectMocks
   OutboxDispatcher dispatcher;
@@ -126,6 +133,9 @@ class OutboxDispatcherTest {
   @Test
   void dispatch_processesOnlySuccessfullyClaimedCandidates() {
     OutboxEvent claimedEvent = event(202L, OutboxEventStatus.PROCESSING, 0);
+    when(schedulerLeases.partitions(OutboxDispatcher.LEASE_JOB, OutboxDispatcher.PARTITIONS))
+        .thenReturn(partitions(0, OutboxDispatcher.PARTITIONS, 0));
+    when(schedulerLeases.nodeId()).thenReturn("node-1");
     when(outboxEventRepository.findCandidateIds(anyList(), any(Instant.class), any(Instant.class), anyInt(), any()))
         .thenReturn(List.of(201L, 202L));
     when(outboxEventRepository.claim(eq(201L), any(Instant.class), any(Instant.class), anyInt(), anyString()))
@@ -140,6 +150,42 @@ class OutboxDispatcherTest {
     verify(outboxEventRepository).findById(202L);
   }
 
+  @Test
+  void dispatch_withoutPartitions_doesNothing() {
+    when(schedulerLeases.partitions(OutboxDispatcher.LEASE_JOB, OutboxDispatcher.PARTITIONS)).thenReturn(Map.of());
+
+    dispatcher.dispatch();
+
+    verifyNoInteractions(outboxEventRepository);
+  }
+
+  @Test
+  void dispatch_withSomePartitions_queriesAndClaimsOnlyWithinThem() {
+    var owned = partitions(4, 8, 3);
+    when(schedulerLeases.partitions(OutboxDispatcher.LEASE_JOB, OutboxDispatcher.PARTITIONS)).thenReturn(owned);
+    when(schedulerLeases.nodeId()).thenReturn("node-1");
+    when(outboxEventRepository.findCandidateIdsInPartitions(anyList(), any(Instant.class), any(Instant.class),
+        anyInt(), eq((long) OutboxDispatcher.PARTITIONS), eq(owned.keySet()), any()))
+        .thenReturn(List.of(301L));
+    when(outboxEventRepository.claimInOwnedPartition(eq(301L), any(Instant.class), any(Instant.class), anyInt(),
+        eq("node-1"), eq(OutboxDispatcher.LEASE_JOB), eq((long) OutboxDispatcher.PARTITIONS)))
+        .thenReturn(0);
+
+    dispatcher.dispatch();
+
+    verify(outboxEventRepository, never()).findCandidateIds(anyList(), any(), any(), anyInt(), any());
+    verify(outboxEventRepository, never()).claim(any(), any(), any(), anyInt(), anyString());
+    verify(outboxEventRepository, never()).findById(301L);
+  }
+
+  private static Map<Integer, Lease> partitions(int from, int to, long token) {
+    var partitions = new HashMap<Integer, Lease>();
+    for (int partition = from; partition < to; partition++) {
+      partitions.put(partition, new Lease(OutboxDispatcher.LEASE_JOB + "#" + partition, token));
+    }
+    return partitions;
+  }
+
   private static OutboxEvent event(Long id, OutboxEventStatus status, int attempts) {
     OutboxEvent event = OutboxEvent.pending(OutboxEventType.EXTERNAL_ORDER_INGESTED, 10L, "{\"orderId\":10}");
     event.setId(id);
@@ -0,0 +1,203 @@
+package lv.janis.iom.service.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import lv.janis.iom.config.SchedulerLeaseProperties;
+import lv.janis.iom.entity.OutboxEvent;
+import lv.janis.iom.enums.OutboxEventStatus;
+import lv.janis.iom.enums.OutboxEventType;
+import lv.janis.iom.repository.OutboxEventRepository;
+import lv.janis.iom.repository.SchedulerLeaseRepository;
+import lv.janis.iom.service.OrderService;
+import lv.janis.iom.service.lease.SchedulerLeases;
+
+// Two dispatcher nodes are simulated against one database; the context's own dispatcher is
+// kept idle by mocking its leases
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:outboxpartitiondb;DB_CLOSE_DELAY=-1;MODE=MySQL"
+})
+class OutboxPartitionedDispatchIntegrationTest {
+
+  private static final int PARTITIONS = OutboxDispatcher.PARTITIONS;
+
+  @MockitoBean
+  SchedulerLeases contextLeases;
+  @Autowired
+  OutboxEventRepository outboxEventRepository;
+  @Autowired
+  SchedulerLeaseRepository schedulerLeaseRepository;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+  @Autowired
+  OrderService orderService;
+
+  private final Map<Long, String> handledBy = new ConcurrentHashMap<>();
+  private final List<SchedulerLeases> nodes = new ArrayList<>();
+
+  // a node left running would keep its share of partitions for the next test
+  @AfterEach
+  void stopNodes() {
+    nodes.forEach(SchedulerLeases::releaseAll);
+  }
+
+  @Test
+  void twoNodes_splitThePartitions_andEachEventIsHandledOnceByItsOwner() {
+    var a = node("outbox-a");
+    var b = node("outbox-b");
+    // both register before shares settle
+    a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    b.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    var ofA = a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    var ofB = b.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    assertEquals(PARTITIONS / 2, ofA.size());
+    assertEquals(PARTITIONS / 2, ofB.size());
+
+    var events = events(1, 48);
+    dispatchUntilIdle(dispatcher(a), dispatcher(b));
+
+    assertEquals(events.size(), handledBy.size());
+    for (var event : events) {
+      int partition = (int) (event.getAggregatedId() % PARTITIONS);
+      var expectedOwner = ofA.containsKey(partition) ? "outbox-a" : "outbox-b";
+      assertEquals(expectedOwner, handledBy.get(event.getId()), "event " + event.getId());
+      var stored = outboxEventRepository.findById(event.getId()).orElseThrow();
+      assertEquals(OutboxEventStatus.PROCESSED, stored.getStatus());
+    }
+  }
+
+  @Test
+  void nodeLeaves_andTheRemainingNodeTakesOverItsPartitions() {
+    var a = node("takeover-a");
+    var b = node("takeover-b");
+    a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    b.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    assertEquals(PARTITIONS / 2, b.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS).size());
+
+    b.releaseAll();
+    var events = events(101, 132);
+
+    assertEquals(PARTITIONS, a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS).size());
+    dispatchUntilIdle(dispatcher(a));
+    for (var event : events) {
+      assertEquals("takeover-a", handledBy.get(event.getId()));
+    }
+  }
+
+  @Test
+  void handover_keepsAggregateOrder_whileTheOldOwnerStillHoldsAnEarlierEvent() {
+    var a = node("handover-a");
+    var owned = a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    var first = events(2000, 2000).get(0);
+    var now = Instant.now().plusSeconds(1);
+    assertTrue(owned.containsKey((int) (first.getAggregatedId() % PARTITIONS)));
+    // a claims the first event and pauses before handling it
+    assertEquals(1, outboxEventRepository.claimInOwnedPartition(first.getId(), now, now.minusSeconds(300), 5,
+        "handover-a", OutboxDispatcher.LEASE_JOB, PARTITIONS));
+    a.releaseAll();
+
+    var b = node("handover-b");
+    assertEquals(PARTITIONS, b.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS).size());
+    var second = events(2000, 2000).get(0);
+    dispatchUntilIdle(dispatcher(b));
+    assertFalse(handledBy.containsKey(second.getId()));
+
+    var claimed = outboxEventRepository.findById(first.getId()).orElseThrow();
+    claimed.setStatus(OutboxEventStatus.PROCESSED);
+    outboxEventRepository.save(claimed);
+    dispatchUntilIdle(dispatcher(b));
+
+    assertFalse(handledBy.containsKey(first.getId()));
+    assertEquals("handover-b", handledBy.get(second.getId()));
+  }
+
+  @Test
+  void failedEvent_holdsBackLaterEventsOfItsAggregate() {
+    var a = node("retry-a");
+    a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    var first = events(3000, 3000).get(0);
+    first.setStatus(OutboxEventStatus.FAILED);
+    first.setAttempts(1);
+    first.setAvailableAt(Instant.now().plusSeconds(60));
+    outboxEventRepository.save(first);
+    var second = events(3000, 3000).get(0);
+    var other = events(3001, 3001).get(0);
+
+    dispatchUntilIdle(dispatcher(a));
+
+    assertFalse(handledBy.containsKey(second.getId()));
+    assertEquals("retry-a", handledBy.get(other.getId()));
+  }
+
+  @Test
+  void claimInOwnedPartition_refusesEventsOfAnotherNodesPartition() {
+    var a = node("claim-a");
+    var owned = a.partitions(OutboxDispatcher.LEASE_JOB, PARTITIONS);
+    var event = events(1000, 1000).get(0);
+    var now = Instant.now().plusSeconds(1);
+    int partition = (int) (event.getAggregatedId() % PARTITIONS);
+    assertTrue(owned.containsKey(partition));
+
+    assertEquals(0, outboxEventRepository.claimInOwnedPartition(event.getId(), now, now.minusSeconds(300), 5,
+        "claim-b", OutboxDispatcher.LEASE_JOB, PARTITIONS));
+    assertEquals(1, outboxEventRepository.claimInOwnedPartition(event.getId(), now, now.minusSeconds(300), 5,
+        "claim-a", OutboxDispatcher.LEASE_JOB, PARTITIONS));
+  }
+
+  private List<OutboxEvent> events(long fromAggregate, long toAggregate) {
+    var events = new ArrayList<OutboxEvent>();
+    for (long aggregate = fromAggregate; aggregate <= toAggregate; aggregate++) {
+      var event = OutboxEvent.pending(OutboxEventType.EXTERNAL_ORDER_REJECTED, aggregate,
+          "{\"orderId\":" + aggregate + "}");
+      event.setAvailableAt(Instant.now().minusSeconds(1));
+      events.add(outboxEventRepository.save(event));
+    }
+    return events;
+  }
+
+  private static void dispatchUntilIdle(OutboxDispatcher... dispatchers) {
+    for (int round = 0; round < 10; round++) {
+      for (var dispatcher : dispatchers) {
+        dispatcher.dispatch();
+      }
+    }
+  }
+
+  private OutboxDispatcher dispatcher(SchedulerLeases leases) {
+    var handlers = mock(OutboxHandlerRegistry.class);
+    doAnswer(invocation -> {
+      OutboxEvent event = invocation.getArgument(0);
+      assertNull(handledBy.put(event.getId(), leases.nodeId()), "handled twice: " + event.getId());
+      return null;
+    }).when(handlers).handle(any());
+    return new OutboxDispatcher(outboxEventRepository, handlers, orderService, leases);
+  }
+
+  private SchedulerLeases node(String nodeId) {
+    var properties = new SchedulerLeaseProperties();
+    properties.setNodeId(nodeId);
+    properties.setRenewIntervalMs(0);
+    var node = new SchedulerLeases(properties, schedulerLeaseRepository, transactionManager);
+    nodes.add(node);
+    return node;
+  }
+}
@@ -0,0 +1,144 @@
+package lv.janis.iom.service.productimport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import lv.janis.iom.dto.response.ProductImportJobResponse;
+import lv.janis.iom.dto.response.ProductImportJobResponse.State;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.repository.ProductRepository;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+class ProductImportIntegrationTest {
+
+  @Autowired
+  ProductImportService productImportService;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  InventoryRepository inventoryRepository;
+
+  @Test
+  void csvImport_createsAndUpdatesProducts_andCollectsBadRows() throws Exception {
+    var run = "IMP" + System.nanoTime();
+    var existing = productRepository.save(Product.create(run + "-OLD", run + " Old", "old", new BigDecimal("1.00")));
+    var taken = productRepository.save(Product.create(run + "-TAKEN", run + " Taken", null, BigDecimal.ONE));
+
+    var job = importAndWait(ProductImportFormat.CSV, """
+        sku,name,description,price,quantity,reorderLevel
+        %1$s-NEW1,%1$s New 1,first,10.00,5,5
+        %1$s-NEW2,%1$s New 2,,2.50,,
+        %1$s-OLD,%1$s Old renamed,updated,3.00,7,
+        %1$s-BAD,%1$s Bad,,-1,,
+        %1$s-CLASH,%1$s Taken,,1.00,,
+        %1$s-NEW1,%1$s New 1 again,,1.00,,
+        """.formatted(run));
+
+    assertEquals(State.COMPLETED, job.state());
+    assertEquals(6, job.rowsRead());
+    assertEquals(2, job.created());
+    assertEquals(1, job.updated());
+    assertEquals(2, job.inventoriesCreated());
+    assertEquals(3, job.failed());
+    assertEquals(3, job.errors().size());
+
+    var created = productRepository.findBySku(run + "-NEW1").orElseThrow();
+    var inventory = inventoryRepository.findByProductId(created.getId()).orElseThrow();
+    assertEquals(5, inventory.getQuantity());
+    assertEquals(5, inventory.getAvailableQuantity());
+    assertTrue(inventory.isLowQuantity());
+    assertTrue(inventoryRepository.findByProductId(productRepository.findBySku(run + "-NEW2").orElseThrow().getId())
+        .isEmpty());
+
+    var updated = productRepository.findById(existing.getId()).orElseThrow();
+    assertEquals(run + " Old renamed", updated.getName());
+    assertEquals(0, new BigDecimal("3.00").compareTo(updated.getPrice()));
+    assertEquals(7, inventoryRepository.findByProductId(existing.getId()).orElseThrow().getQuantity());
+    assertEquals(run + " Taken", productRepository.findById(taken.getId()).orElseThrow().getName());
+    assertTrue(productRepository.findBySku(run + "-CLASH").isEmpty());
+  }
+
+  @Test
+  void csvImport_keepsDescriptionWhenEmpty_andReportsDeletedProducts() throws Exception {
+    var run = "KEEP" + System.nanoTime();
+    var described = productRepository.save(Product.create(run + "-DESC", run + " Desc", "kept", BigDecimal.ONE));
+    var deleted = Product.create(run + "-GONE", run + " Gone", "gone", BigDecimal.ONE);
+    deleted.deactivate();
+    deleted = productRepository.save(deleted);
+
+    var job = importAndWait(ProductImportFormat.CSV, """
+        sku,name,description,price,quantity
+        %1$s-DESC,%1$s Desc,,2.00,
+        %1$s-GONE,%1$s Gone again,,5.00,3
+        """.formatted(run));
+
+    assertEquals(State.COMPLETED, job.state());
+    assertEquals(1, job.updated());
+    assertEquals(0, job.inventoriesCreated());
+    assertEquals(1, job.failed());
+    assertEquals(run + "-GONE", job.errors().get(0).sku());
+
+    var kept = productRepository.findById(described.getId()).orElseThrow();
+    assertEquals("kept", kept.getDescription());
+    assertEquals(0, new BigDecimal("2.00").compareTo(kept.getPrice()));
+    var untouched = productRepository.findById(deleted.getId()).orElseThrow();
+    assertTrue(untouched.isDeleted());
+    assertEquals(run + " Gone", untouched.getName());
+    assertTrue(inventoryRepository.findByProductId(deleted.getId()).isEmpty());
+  }
+
+  @Test
+  void ndjsonImport_runsInChunks() throws Exception {
+    var run = "NDJ" + System.nanoTime();
+    var body = new StringBuilder();
+    for (int i = 0; i < 2_500; i++) {
+      body.append("{\"sku\":\"%s-%d\",\"name\":\"%s %d\",\"price\":1.00,\"quantity\":1}\n".formatted(run, i, run, i));
+    }
+
+    var job = importAndWait(ProductImportFormat.NDJSON, body.toString());
+
+    assertEquals(State.COMPLETED, job.state());
+    assertEquals(2_500, job.created());
+    assertEquals(2_500, job.inventoriesCreated());
+    assertEquals(0, job.failed());
+  }
+
+  @Test
+  void csvWithoutRequiredColumns_failsJob() throws Exception {
+    var job = importAndWait(ProductImportFormat.CSV, "sku,name\nSKU-X,X\n");
+
+    assertEquals(State.FAILED, job.state());
+    assertTrue(job.message().contains("price"));
+  }
+
+  private ProductImportJobResponse importAndWait(ProductImportFormat format, String content) throws Exception {
+    var started = productImportService.start(format,
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    UUID jobId = started.jobId();
+    var deadline = Instant.now().plus(Duration.ofSeconds(30));
+    while (Instant.now().isBefore(deadline)) {
+      var job = productImportService.getJob(jobId);
+      if (job.state() == State.COMPLETED || job.state() == State.FAILED) {
+        return job;
+      }
+      Thread.sleep(20);
+    }
+    fail("Import did not finish in time");
+    return null;
+  }
+}
@@ -0,0 +1,84 @@
+package lv.janis.iom.service.productimport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lv.janis.iom.service.productimport.ProductImportReader.ParsedRow;
+
+class ProductImportReaderTest {
+
+  @Test
+  void csv_readsQuotedFieldsAndOptionalColumns() throws IOException {
+    var rows = readAll(ProductImportFormat.CSV, """
+        SKU,Name,Description,Price,Quantity,reorder_level
+        SKU-1,"Widget, large","Says ""hi""
+        on two lines",9.99,5,1
+        SKU-2,Gadget,,1.50,,
+        """);
+
+    assertEquals(2, rows.size());
+    var first = rows.get(0);
+    assertEquals(2, first.line());
+    assertEquals("Widget, large", first.row().getName());
+    assertEquals("Says \"hi\"\non two lines", first.row().getDescription());
+    assertEquals(new BigDecimal("9.99"), first.row().getPrice());
+    assertEquals(5, first.row().getQuantity());
+    assertEquals(1, first.row().getReorderLevel());
+    var second = rows.get(1);
+    assertEquals(4, second.line());
+    assertNull(second.row().getDescription());
+    assertNull(second.row().getQuantity());
+  }
+
+  @Test
+  void csv_badNumber_isRowError() throws IOException {
+    var rows = readAll(ProductImportFormat.CSV, "sku,name,price\nSKU-1,A,abc\nSKU-2,B,2\n");
+
+    assertEquals("Invalid number in row", rows.get(0).error());
+    assertNull(rows.get(1).error());
+  }
+
+  @Test
+  void csv_missingRequiredColumn_failsFile() {
+    var ex = assertThrows(IllegalArgumentException.class,
+        () -> readAll(ProductImportFormat.CSV, "sku,name\nSKU-1,A\n"));
+
+    assertTrue(ex.getMessage().contains("price"));
+  }
+
+  @Test
+  void ndjson_skipsBlankLines_andReportsBadJson() throws IOException {
+    var rows = readAll(ProductImportFormat.NDJSON, """
+        {"sku":"SKU-1","name":"A","price":1.00,"quantity":3}
+
+        {"sku":
+        """);
+
+    assertEquals(2, rows.size());
+    assertEquals(3, rows.get(0).row().getQuantity());
+    assertEquals(3, rows.get(1).line());
+    assertTrue(rows.get(1).error().startsWith("Invalid JSON"));
+  }
+
+  private static List<ParsedRow> readAll(ProductImportFormat format, String content) throws IOException {
+    var rows = new ArrayList<ParsedRow>();
+    try (var reader = ProductImportReader.open(format, new BufferedReader(new StringReader(content)),
+        new ObjectMapper())) {
+      ParsedRow row;
+      while ((row = reader.next()) != null) {
+        rows.add(row);
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,28 @@
+package lv.janis.iom.service.sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SqlShapesTest {
+
+  @Test
+  void literalsAndWhitespace_areNormalized() {
+    assertEquals("select * from products where sku = ? and price > ? and id = ?",
+        SqlShapes.normalize("SELECT *\n  FROM products WHERE sku = 'A''B'   and price > 10.50 and id = ?"));
+  }
+
+  @Test
+  void identifiersWithDigits_areKept() {
+    assertEquals("select p1_0.id from products p1_0 where p1_0.id = ?",
+        SqlShapes.normalize("select p1_0.id from products p1_0 where p1_0.id = 42"));
+  }
+
+  @Test
+  void inListsAndValueRows_foldToOneShape() {
+    assertEquals(SqlShapes.normalize("select * from inventory where product_id in (?, ?)"),
+        SqlShapes.normalize("select * from inventory where product_id in (1, 2, 3, 4)"));
+    assertEquals("insert into t (a, b) values (?, ?), ...",
+        SqlShapes.normalize("insert into t (a, b) values (1, 'x'), (2, 'y'), (3, 'z')"));
+  }
+}
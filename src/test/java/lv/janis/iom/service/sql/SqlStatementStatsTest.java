@@ -0,0 +1,85 @@
+package lv.janis.iom.service.sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import lv.janis.iom.config.SqlLoggingProperties;
+
+class SqlStatementStatsTest {
+
+  @Test
+  void record_aggregatesByShape_andOrdersByTotalTime() {
+    var stats = new SqlStatementStats(new SqlLoggingProperties());
+    for (int i = 1; i <= 3; i++) {
+      stats.record(stats.shapeOf("select * from products where id = " + i), millis(2), false);
+    }
+    stats.record(stats.shapeOf("update inventory set quantity = 1"), millis(10), true);
+
+    var top = stats.top(10);
+
+    assertEquals(2, top.size());
+    assertEquals("update inventory set quantity = ?", top.get(0).shape());
+    assertEquals(1, top.get(0).errors());
+    assertEquals("select * from products where id = ?", top.get(1).shape());
+    assertEquals(3, top.get(1).count());
+    assertEquals(6.0, top.get(1).totalMs(), 0.001);
+    assertEquals(2.0, top.get(1).meanMs(), 0.001);
+    assertEquals(4, stats.statementCount());
+    assertEquals(1, stats.top(1).size());
+  }
+
+  @Test
+  void p99_tracksTheSlowTail() {
+    var stats = new SqlStatementStats(new SqlLoggingProperties());
+    for (int i = 0; i < 990; i++) {
+      stats.record("q", TimeUnit.MICROSECONDS.toNanos(100), false);
+    }
+    for (int i = 0; i < 10; i++) {
+      stats.record("q", millis(50), false);
+    }
+
+    var summary = stats.top(1).get(0);
+
+    assertTrue(summary.p99Ms() >= 0.1 && summary.p99Ms() <= 0.13, "p99 " + summary.p99Ms());
+    assertEquals(50.0, summary.maxMs(), 0.001);
+
+    stats.record("q", millis(50), false);
+    assertTrue(stats.top(1).get(0).p99Ms() >= 40, "p99 once more than 1% is slow");
+  }
+
+  @Test
+  void shapesBeyondTheCap_shareTheOverflowEntry() {
+    var properties = new SqlLoggingProperties();
+    properties.setMaxShapes(2);
+    var stats = new SqlStatementStats(properties);
+
+    stats.record("a", 1, false);
+    stats.record("b", 1, false);
+    stats.record("c", 1, false);
+    stats.record("d", 1, false);
+    stats.record("a", 1, false);
+
+    assertEquals(3, stats.shapeCount());
+    var overflow = stats.top(3).stream()
+        .filter(summary -> summary.shape().equals(SqlStatementStats.OVERFLOW_SHAPE))
+        .findFirst()
+        .orElseThrow();
+    assertEquals(2, overflow.count());
+  }
+
+  @Test
+  void bucketBounds_containTheirValues() {
+    for (long micros : new long[] { 1, 5, 17, 1000, 123_456, 9_999_999 }) {
+      int bucket = SqlStatementStats.bucketOf(micros);
+      assertTrue(SqlStatementStats.upperBoundMicros(bucket) >= micros, "bucket for " + micros);
+      assertTrue(bucket == 0 || SqlStatementStats.upperBoundMicros(bucket - 1) <= micros, "bucket for " + micros);
+    }
+  }
+
+  private static long millis(long ms) {
+    return TimeUnit.MILLISECONDS.toNanos(ms);
+  }
+}
@@ -0,0 +1,76 @@
+package lv.janis.iom.service.sql;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.ProductRepository;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false",
+    "spring.datasource.url=jdbc:h2:mem:sqlstatsdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "management.endpoints.web.exposure.include=sqlstats"
+})
+@AutoConfigureMockMvc
+class SqlStatsEndpointIntegrationTest {
+
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  DataSource dataSource;
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  SqlStatementStats stats;
+
+  @Test
+  void applicationDataSource_isObserved() {
+    assertInstanceOf(SqlObservingDataSource.class, dataSource);
+  }
+
+  @Test
+  void endpoint_listsHibernateAndJdbcStatementsByShape() throws Exception {
+    stats.reset();
+    for (int i = 0; i < 3; i++) {
+      var sku = "SKU-SQLSTATS-" + System.nanoTime();
+      productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("1.00")));
+      jdbcTemplate.queryForObject("select count(*) from products where sku = '" + sku + "'", Integer.class);
+    }
+
+    mockMvc.perform(get("/actuator/sqlstats").param("limit", "50"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.top[*].shape", hasItem(startsWith("insert into products"))))
+        .andExpect(jsonPath("$.top[?(@.shape == 'select count(*) from products where sku = ?')].count")
+            .value(hasItem(3)));
+
+    mockMvc.perform(delete("/actuator/sqlstats"))
+        .andExpect(status().isNoContent());
+    assertEquals(0, stats.shapeCount());
+  }
+
+  @Test
+  void endpoint_rejectsOutOfRangeLimit() throws Exception {
+    mockMvc.perform(get("/actuator/sqlstats").param("limit", "0"))
+        .andExpect(status().isBadRequest());
+  }
+}
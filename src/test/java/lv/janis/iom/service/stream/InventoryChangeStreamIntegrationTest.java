@@ -0,0 +1,104 @@
+package lv.janis.iom.service.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.math.BigDecimal;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lv.janis.iom.dto.requests.InventoryCreationRequest;
+import lv.janis.iom.entity.Product;
+import lv.janis.iom.repository.InventoryRepository;
+import lv.janis.iom.repository.ProductRepository;
+import lv.janis.iom.service.InventoryService;
+
+@SpringBootTest(properties = {
+    "springdoc.api-docs.enabled=false",
+    "springdoc.swagger-ui.enabled=false",
+    "spring.jackson.serialization.fail-on-empty-beans=false"
+})
+@AutoConfigureMockMvc
+class InventoryChangeStreamIntegrationTest {
+
+  @Autowired
+  MockMvc mockMvc;
+  @Autowired
+  InventoryService inventoryService;
+  @Autowired
+  InventoryRepository inventoryRepository;
+  @Autowired
+  ProductRepository productRepository;
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Test
+  void stream_pushesCommittedChangesForWatchedProducts() throws Exception {
+    var watched = stockedProduct(10);
+    var other = stockedProduct(10);
+    var response = subscribe("/api/inventory/stream?productIds=" + watched);
+
+    inventoryService.addStock(other, 1);
+    inventoryService.reserveStock(watched, 4);
+
+    var body = awaitBody(response, content -> content.contains("\"availableQuantity\":6"));
+    assertTrue(body.contains("event:inventory"));
+    assertTrue(body.contains("\"productId\":" + watched));
+    assertFalse(body.contains("\"productId\":" + other + ","));
+  }
+
+  @Test
+  void stream_skipsRolledBackChanges() throws Exception {
+    var rolledBack = stockedProduct(10);
+    var committed = stockedProduct(10);
+    var response = subscribe("/api/inventory/stream?productIds=" + rolledBack + "," + committed);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      inventoryService.addStock(rolledBack, 5);
+      inventoryRepository.flush();
+      status.setRollbackOnly();
+    });
+    inventoryService.addStock(committed, 2);
+
+    var body = awaitBody(response, content -> content.contains("\"productId\":" + committed + ","));
+    assertFalse(body.contains("\"productId\":" + rolledBack + ","));
+  }
+
+  private MockHttpServletResponse subscribe(String uri) throws Exception {
+    var result = mockMvc.perform(get(uri)).andExpect(request().asyncStarted()).andReturn();
+    return result.getResponse();
+  }
+
+  private static String awaitBody(MockHttpServletResponse response, Predicate<String> condition)
+      throws Exception {
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (System.currentTimeMillis() < deadline) {
+      var content = response.getContentAsString();
+      if (condition.test(content)) {
+        return content;
+      }
+      Thread.sleep(20);
+    }
+    fail("Expected stream content not received: " + response.getContentAsString());
+    return null;
+  }
+
+  private Long stockedProduct(int quantity) {
+    var sku = "SKU-STREAM-" + System.nanoTime();
+    var product = productRepository.save(Product.create(sku, "Product " + sku, "desc", new BigDecimal("3.00")));
+    var request = new InventoryCreationRequest();
+    request.setQuantity(quantity);
+    request.setReorderLevel(0);
+    request.setClearLowQuantity(0);
+    inventoryService.createInventory(product.getId(), request);
+    return product.getId();
+  }
+}
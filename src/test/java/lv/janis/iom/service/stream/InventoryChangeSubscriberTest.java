@@ -0,0 +1,50 @@
+package lv.janis.iom.service.stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lv.janis.iom.dto.response.InventoryChangeEvent;
+
+class InventoryChangeSubscriberTest {
+
+  @Test
+  void offer_keepsLatestValuePerProduct() {
+    var subscriber = new InventoryChangeSubscriber(new SseEmitter(), Set.of(), 10);
+
+    subscriber.offer(new InventoryChangeEvent(1L, 5));
+    subscriber.offer(new InventoryChangeEvent(2L, 8));
+    subscriber.offer(new InventoryChangeEvent(1L, 3));
+
+    var batch = subscriber.take();
+    assertEquals(0, batch.dropped());
+    assertEquals(List.of(new InventoryChangeEvent(2L, 8), new InventoryChangeEvent(1L, 3)), batch.events());
+    assertFalse(subscriber.hasPending());
+  }
+
+  @Test
+  void offer_beyondBuffer_dropsStalestProduct() {
+    var subscriber = new InventoryChangeSubscriber(new SseEmitter(), Set.of(), 2);
+
+    subscriber.offer(new InventoryChangeEvent(1L, 1));
+    subscriber.offer(new InventoryChangeEvent(2L, 2));
+    subscriber.offer(new InventoryChangeEvent(1L, 4));
+    subscriber.offer(new InventoryChangeEvent(3L, 3));
+
+    var batch = subscriber.take();
+    assertEquals(1, batch.dropped());
+    assertEquals(List.of(new InventoryChangeEvent(1L, 4), new InventoryChangeEvent(3L, 3)), batch.events());
+  }
+
+  @Test
+  void wants_filtersByProductIds_unlessEmpty() {
+    assertTrue(new InventoryChangeSubscriber(new SseEmitter(), Set.of(), 1).wants(9L));
+    var filtered = new InventoryChangeSubscriber(new SseEmitter(), Set.of(1L, 2L), 1);
+    assertTrue(filtered.wants(2L));
+    assertFalse(filtered.wants(3L));
+  }
+}
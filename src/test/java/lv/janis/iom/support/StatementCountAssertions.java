@@ -0,0 +1,38 @@
+package lv.janis.iom.support;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+
+import lv.janis.iom.support.StatementCounter.StatementCounts;
+
+public final class StatementCountAssertions {
+
+  private StatementCountAssertions() {
+  }
+
+  /**
+   * Runs the action while recording statements and fails when the SELECT, INSERT or
+   * UPDATE counts differ from the pinned values. Deletes must always be zero unless
+   * the four-argument overload is used.
+   */
+  public static void assertStatements(Runnable action, int selects, int inserts, int updates) {
+    assertStatements(action, selects, inserts, updates, 0);
+  }
+
+  public static void assertStatements(Runnable action, int selects, int inserts, int updates, int deletes) {
+    StatementCounter.start();
+    List<String> statements;
+    try {
+      action.run();
+    } finally {
+      statements = StatementCounter.stop();
+    }
+    var expected = new StatementCounts(selects, inserts, updates, deletes);
+    var actual = StatementCounter.count(statements);
+    if (!expected.equals(actual)) {
+      fail("Unexpected statement counts. expected " + expected + " but was " + actual
+          + System.lineSeparator() + String.join(System.lineSeparator(), statements));
+    }
+  }
+}
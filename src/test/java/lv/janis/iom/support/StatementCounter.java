@@ -0,0 +1,76 @@
+package lv.janis.iom.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import lv.janis.iom.config.SqlLoggingProperties;
+import lv.janis.iom.service.sql.SqlObservingDataSource;
+import lv.janis.iom.service.sql.SqlStatementObserver;
+import lv.janis.iom.service.sql.SqlStatementStats;
+
+/**
+ * Records every SQL statement executed on the current thread between {@link #start()} and
+ * {@link #stop()}, so scheduled jobs running on other threads don't skew counts. It sits at the
+ * data source level (see {@link StatementCountingContextCustomizerFactory}), so Hibernate and
+ * {@code JdbcTemplate} statements are both seen. A JDBC batch is one round trip and counts once.
+ */
+public final class StatementCounter {
+
+  private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+  private StatementCounter() {
+  }
+
+  public static void start() {
+    RECORDED.set(new ArrayList<>());
+  }
+
+  public static List<String> stop() {
+    var recorded = RECORDED.get();
+    RECORDED.remove();
+    return recorded != null ? List.copyOf(recorded) : List.of();
+  }
+
+  public static StatementCounts count(List<String> statements) {
+    int selects = 0;
+    int inserts = 0;
+    int updates = 0;
+    int deletes = 0;
+    for (var sql : statements) {
+      var normalized = sql.stripLeading().toLowerCase(Locale.ROOT);
+      if (normalized.startsWith("select") || normalized.startsWith("with")) {
+        selects++;
+      } else if (normalized.startsWith("insert")) {
+        inserts++;
+      } else if (normalized.startsWith("update")) {
+        updates++;
+      } else if (normalized.startsWith("delete")) {
+        deletes++;
+      }
+    }
+    return new StatementCounts(selects, inserts, updates, deletes);
+  }
+
+  // The outer delegate keeps the application's own SqlObservingDataSource wrapping on top of this one
+  static DataSource wrap(DataSource dataSource) {
+    var properties = new SqlLoggingProperties();
+    return new DelegatingDataSource(new SqlObservingDataSource(dataSource,
+        new SqlStatementObserver(new SqlStatementStats(properties), properties) {
+          @Override
+          public void executed(String sql, int batchSize, long nanos, boolean failed) {
+            var recorded = RECORDED.get();
+            if (recorded != null && sql != null) {
+              recorded.add(sql);
+            }
+          }
+        }));
+  }
+
+  public record StatementCounts(int selects, int inserts, int updates, int deletes) {
+  }
+}
@@ -0,0 +1,42 @@
+package lv.janis.iom.support;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+/**
+ * Registered in {@code META-INF/spring.factories} so every test context, sliced or full, has its
+ * {@code dataSource} bean wrapped for {@link StatementCounter}.
+ */
+public class StatementCountingContextCustomizerFactory implements ContextCustomizerFactory {
+
+  @Override
+  public ContextCustomizer createContextCustomizer(Class<?> testClass,
+      List<ContextConfigurationAttributes> configAttributes) {
+    return new StatementCountingContextCustomizer();
+  }
+
+  // A record so that equal customizers keep the test context cache working
+  private record StatementCountingContextCustomizer() implements ContextCustomizer {
+
+    @Override
+    public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration mergedConfig) {
+      context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+            return StatementCounter.wrap(dataSource);
+          }
+          return bean;
+        }
+      });
+    }
+  }
+}